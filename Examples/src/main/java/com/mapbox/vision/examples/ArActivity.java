@@ -14,11 +14,7 @@ import com.mapbox.android.core.location.LocationEngineRequest;
 import com.mapbox.android.core.location.LocationEngineResult;
 import com.mapbox.api.directions.v5.models.DirectionsResponse;
 import com.mapbox.api.directions.v5.models.DirectionsRoute;
-import com.mapbox.api.directions.v5.models.LegStep;
-import com.mapbox.api.directions.v5.models.RouteLeg;
-import com.mapbox.core.constants.Constants;
 import com.mapbox.geojson.Point;
-import com.mapbox.geojson.utils.PolylineUtils;
 import com.mapbox.services.android.navigation.v5.navigation.MapboxNavigation;
 import com.mapbox.services.android.navigation.v5.navigation.MapboxNavigationOptions;
 import com.mapbox.services.android.navigation.v5.navigation.NavigationRoute;
@@ -29,9 +25,7 @@ import com.mapbox.services.android.navigation.v5.routeprogress.ProgressChangeLis
 import com.mapbox.services.android.navigation.v5.routeprogress.RouteProgress;
 import com.mapbox.vision.VisionManager;
 import com.mapbox.vision.ar.VisionArManager;
-import com.mapbox.vision.ar.core.models.ManeuverType;
 import com.mapbox.vision.ar.core.models.Route;
-import com.mapbox.vision.ar.core.models.RoutePoint;
 import com.mapbox.vision.ar.view.gl.VisionArView;
 import com.mapbox.vision.mobile.core.interfaces.VisionEventsListener;
 import com.mapbox.vision.mobile.core.models.AuthorizationStatus;
@@ -40,7 +34,6 @@ import com.mapbox.vision.mobile.core.models.Country;
 import com.mapbox.vision.mobile.core.models.FrameSegmentation;
 import com.mapbox.vision.mobile.core.models.classification.FrameSignClassifications;
 import com.mapbox.vision.mobile.core.models.detection.FrameDetections;
-import com.mapbox.vision.mobile.core.models.position.GeoCoordinate;
 import com.mapbox.vision.mobile.core.models.position.VehicleState;
 import com.mapbox.vision.mobile.core.models.road.RoadDescription;
 import com.mapbox.vision.mobile.core.models.world.WorldDescription;
@@ -51,8 +44,7 @@ import com.mapbox.vision.utils.VisionLogger;
 
 import org.jetbrains.annotations.NotNull;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 import retrofit2.Call;
 import retrofit2.Callback;
@@ -65,12 +57,27 @@ import retrofit2.Response;
 public class ArActivity extends BaseActivity implements RouteListener, ProgressChangeListener, OffRouteListener {
 
     private static final String TAG = ArActivity.class.getSimpleName();
+    // Decoded step geometries kept to be reused by the next reroute.
+    private static final int ROUTE_STEP_CACHE_CAPACITY = 1024;
+    private static final int REROUTE_CACHE_CAPACITY = 16;
+    private static final double REROUTE_CACHE_CELL_METERS = 50;
+    // Route points closer than this to the simplified line are dropped, points with maneuvers are always kept.
+    private static final double ROUTE_SIMPLIFICATION_TOLERANCE_METERS = 0.5;
+    // AR lane is at most tens of meters long, only this much of the route ahead is passed to VisionArManager.
+    private static final double ROUTE_LOOK_AHEAD_METERS = 200;
 
     // Handles navigation.
     private MapboxNavigation mapboxNavigation;
     // Fetches route from points.
     private RouteFetcher routeFetcher;
+    // Finds new route when off route, through the cache of recent reroutes.
+    private RerouteCache rerouteCache;
+    // Converts routes off the main thread, the latest route wins.
+    private RouteConversionWorker routeConversionWorker;
     private RouteProgress lastRouteProgress;
+    // Part of the current route passed to VisionArManager, moves along with the vehicle.
+    @Nullable
+    private RouteWindow routeWindow;
     private LocationEngine locationEngine;
     private LocationEngineCallback<LocationEngineResult> locationCallback;
 
@@ -91,6 +98,12 @@ public class ArActivity extends BaseActivity implements RouteListener, ProgressC
         visionArView.setFenceVisible(true);
     }
 
+    // Override to serve reroutes from a local stand-in instead of Directions API.
+    @NonNull
+    protected RerouteFetcher createRerouteFetcher(@NonNull RouteFetcher routeFetcher) {
+        return new NetworkRerouteFetcher(routeFetcher);
+    }
+
     @Override
     protected void onPermissionsGranted() {
         startVisionManager();
@@ -191,7 +204,11 @@ public class ArActivity extends BaseActivity implements RouteListener, ProgressC
 
             // Initialize route fetcher with your Mapbox access token.
             routeFetcher = new RouteFetcher(this, getString(R.string.mapbox_access_token));
-            routeFetcher.addRouteListener(this);
+            rerouteCache = new RerouteCache(
+                    createRerouteFetcher(routeFetcher),
+                    REROUTE_CACHE_CAPACITY,
+                    REROUTE_CACHE_CELL_METERS
+            );
 
             locationEngine = LocationEngineProvider.getBestLocationEngine(this);
 
@@ -218,6 +235,13 @@ public class ArActivity extends BaseActivity implements RouteListener, ProgressC
                 VisionLogger.Companion.e(TAG, se.toString());
             }
 
+            routeConversionWorker = new RouteConversionWorker(
+                    ROUTE_STEP_CACHE_CAPACITY,
+                    ROUTE_SIMPLIFICATION_TOLERANCE_METERS,
+                    ROUTE_LOOK_AHEAD_METERS,
+                    this::onRouteConverted
+            );
+
             initDirectionsRoute();
 
             // Route need to be reestablished if off route happens.
@@ -235,6 +259,14 @@ public class ArActivity extends BaseActivity implements RouteListener, ProgressC
             mapboxNavigation.removeProgressChangeListener(this);
             mapboxNavigation.removeOffRouteListener(this);
             mapboxNavigation.stopNavigation();
+            // cached reroutes already posted to the main thread must not restart stopped navigation
+            rerouteCache.clear();
+            VisionLogger.Companion.d(
+                    TAG,
+                    "Reroutes from cache " + rerouteCache.getHits() + ", cache misses " + rerouteCache.getMisses()
+            );
+            routeConversionWorker.release();
+            routeWindow = null;
 
             navigationWasStarted = false;
         }
@@ -259,12 +291,7 @@ public class ArActivity extends BaseActivity implements RouteListener, ProgressC
                         mapboxNavigation.startNavigation(route);
 
                         // Set route progress.
-                        VisionArManager.setRoute(new Route(
-                                getRoutePoints(route),
-                                route.duration().floatValue(),
-                                "",
-                                ""
-                        ));
+                        setArRoute(route, route.duration().floatValue());
                     }
 
                     @Override
@@ -275,6 +302,10 @@ public class ArActivity extends BaseActivity implements RouteListener, ProgressC
 
     @Override
     public void onErrorReceived(Throwable throwable) {
+        // network reroute can still arrive after navigation is stopped
+        if (!navigationWasStarted) {
+            return;
+        }
         if (throwable != null) {
             throwable.printStackTrace();
         }
@@ -285,6 +316,9 @@ public class ArActivity extends BaseActivity implements RouteListener, ProgressC
 
     @Override
     public void onResponseReceived(@NotNull DirectionsResponse response, RouteProgress routeProgress) {
+        if (!navigationWasStarted) {
+            return;
+        }
         mapboxNavigation.stopNavigation();
         if (response.routes().isEmpty()) {
             Toast.makeText(this, "Can not calculate the route requested", Toast.LENGTH_SHORT).show();
@@ -294,102 +328,56 @@ public class ArActivity extends BaseActivity implements RouteListener, ProgressC
             mapboxNavigation.startNavigation(route);
 
             // Set route progress.
-            VisionArManager.setRoute(new Route(
-                    getRoutePoints(route),
-                    (float) routeProgress.durationRemaining(),
-                    "",
-                    ""
-            ));
+            setArRoute(route, (float) routeProgress.durationRemaining());
         }
     }
 
     @Override
     public void onProgressChange(Location location, RouteProgress routeProgress) {
         lastRouteProgress = routeProgress;
+
+        // Move route window along with the vehicle.
+        if (routeWindow != null && routeWindow.update(location.getLatitude(), location.getLongitude())) {
+            VisionArManager.setRoute(new Route(
+                    routeWindow.toRoutePoints(),
+                    (float) routeProgress.durationRemaining(),
+                    "",
+                    ""
+            ));
+        }
     }
 
     @Override
     public void userOffRoute(Location location) {
-        routeFetcher.findRouteFromRouteProgress(location, lastRouteProgress);
-    }
-
-    private RoutePoint[] getRoutePoints(@NotNull DirectionsRoute route) {
-        ArrayList<RoutePoint> routePoints = new ArrayList<>();
-
-        List<RouteLeg> legs = route.legs();
-        if (legs != null) {
-            for (RouteLeg leg : legs) {
-
-                List<LegStep> steps = leg.steps();
-                if (steps != null) {
-                    for (LegStep step : steps) {
-                        RoutePoint point = new RoutePoint((new GeoCoordinate(
-                                step.maneuver().location().latitude(),
-                                step.maneuver().location().longitude()
-                        )), mapToManeuverType(step.maneuver().type()));
-
-                        routePoints.add(point);
-
-                        List<Point> geometryPoints = buildStepPointsFromGeometry(step.geometry());
-                        for (Point geometryPoint : geometryPoints) {
-                            point = new RoutePoint((new GeoCoordinate(
-                                    geometryPoint.latitude(),
-                                    geometryPoint.longitude()
-                            )), ManeuverType.None);
-
-                            routePoints.add(point);
-                        }
-                    }
-                }
-            }
+        if (lastRouteProgress == null) {
+            return;
         }
-
-        return routePoints.toArray(new RoutePoint[0]);
+        rerouteCache.findRoute(location, lastRouteProgress, this);
     }
 
-    private List<Point> buildStepPointsFromGeometry(String geometry) {
-        return PolylineUtils.decode(geometry, Constants.PRECISION_6);
+    private void setArRoute(@NotNull DirectionsRoute route, float durationRemaining) {
+        // Route is converted on the worker thread, newer route cancels the conversion still in progress.
+        routeConversionWorker.submit(route, durationRemaining);
     }
 
-    private ManeuverType mapToManeuverType(@Nullable String maneuver) {
-        if (maneuver == null) {
-            return ManeuverType.None;
-        }
-        switch (maneuver) {
-            case "turn":
-                return ManeuverType.Turn;
-            case "depart":
-                return ManeuverType.Depart;
-            case "arrive":
-                return ManeuverType.Arrive;
-            case "merge":
-                return ManeuverType.Merge;
-            case "on ramp":
-                return ManeuverType.OnRamp;
-            case "off ramp":
-                return ManeuverType.OffRamp;
-            case "fork":
-                return ManeuverType.Fork;
-            case "roundabout":
-                return ManeuverType.Roundabout;
-            case "exit roundabout":
-                return ManeuverType.RoundaboutExit;
-            case "end of road":
-                return ManeuverType.EndOfRoad;
-            case "new name":
-                return ManeuverType.NewName;
-            case "continue":
-                return ManeuverType.Continue;
-            case "rotary":
-                return ManeuverType.Rotary;
-            case "roundabout turn":
-                return ManeuverType.RoundaboutTurn;
-            case "notification":
-                return ManeuverType.Notification;
-            case "exit rotary":
-                return ManeuverType.RotaryExit;
-            default:
-                return ManeuverType.None;
-        }
+    private void onRouteConverted(@NonNull RouteConversionWorker.Result result) {
+        routeWindow = result.window;
+        VisionArManager.setRoute(new Route(
+                result.windowPoints,
+                result.durationRemaining,
+                "",
+                ""
+        ));
+        VisionLogger.Companion.d(
+                TAG,
+                "Route conversion took " + TimeUnit.NANOSECONDS.toMicros(result.conversionNanos) + " us, "
+                        + result.fullRouteSize + " points simplified to " + result.geometry.size()
+                        + ", steps reused " + result.reusedSteps
+                        + ", decoded " + result.decodedSteps
+                        + ", conversions " + routeConversionWorker.getConversions()
+                        + ", average " + TimeUnit.NANOSECONDS.toMicros(routeConversionWorker.getAverageConversionNanos())
+                        + " us, max " + TimeUnit.NANOSECONDS.toMicros(routeConversionWorker.getMaxConversionNanos())
+                        + " us, cancelled " + routeConversionWorker.getCancelledConversions()
+        );
     }
 }
@@ -0,0 +1,155 @@
+package com.mapbox.vision.examples;
+
+import android.os.Environment;
+import android.widget.ScrollView;
+import android.widget.TextView;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.mapbox.vision.mobile.core.interfaces.VisionEventsListener;
+import com.mapbox.vision.utils.VisionLogger;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Example shows how recorded sessions can be replayed in a batch without rendering, for regression tests.
+ * Every directory inside {@code sessions_dir} intent extra (or {@code /sessions} on external storage) is replayed
+ * and its stats are logged. Events of every session are recorded to {@code event-logs/<session>.vel}
+ * in app's external files dir, see {@link EventLogReader}. Can be started from CI with
+ * {@code adb shell am start -n com.mapbox.vision.examples/.BatchReplayActivity --es sessions_dir <path>}.
+ * <p>
+ * The activity replays any directory it's given and writes logs, so it's registered only in the debug manifest.
+ */
+public class BatchReplayActivity extends BaseActivity {
+
+    private static final String TAG = BatchReplayActivity.class.getSimpleName();
+    private static final String EXTRA_SESSIONS_DIR = "sessions_dir";
+    private static final String DEFAULT_SESSIONS_DIR =
+            Environment.getExternalStorageDirectory().getAbsolutePath() + "/sessions";
+    private static final long SESSION_IDLE_TIMEOUT_NANOS = TimeUnit.SECONDS.toNanos(3);
+    private static final String EVENT_LOGS_DIR = "event-logs";
+    private static final String EVENT_LOG_EXTENSION = ".vel";
+
+    @Nullable
+    private BatchReplayRunner batchReplayRunner = null;
+    private TextView statsView;
+    // opened and closed on the batch replay thread
+    @Nullable
+    private EventLogRecorder sessionRecorder = null;
+
+    private final BatchReplayRunner.Listener batchListener = new BatchReplayRunner.Listener() {
+        @Nullable
+        @Override
+        public VisionEventsListener onSessionStarted(@NonNull File session) {
+            showStats("Replaying " + session.getName());
+            final File logsDir = new File(getExternalFilesDir(null), EVENT_LOGS_DIR);
+            if (!logsDir.isDirectory() && !logsDir.mkdirs()) {
+                VisionLogger.Companion.e(TAG, "Can't create " + logsDir);
+                return null;
+            }
+            final File logFile = new File(logsDir, session.getName() + EVENT_LOG_EXTENSION);
+            // a log of the previous batch run is replaced
+            if (logFile.exists() && !logFile.delete()) {
+                VisionLogger.Companion.e(TAG, "Can't delete " + logFile);
+                return null;
+            }
+            try {
+                sessionRecorder = new EventLogRecorder(logFile);
+            } catch (IOException e) {
+                VisionLogger.Companion.e(TAG, "Can't open event log " + logFile + ": " + e);
+                return null;
+            }
+            return sessionRecorder;
+        }
+
+        @Override
+        public void onSessionCompleted(@NonNull BatchReplayRunner.SessionStats stats) {
+            final EventLogRecorder recorder = sessionRecorder;
+            closeSessionRecorder();
+            final long eventLogBytes = recorder != null ? recorder.getWriter().getBytesWritten() : 0;
+            showStats(stats.session.getName()
+                    + ": updates " + stats.updates
+                    + ", detections " + stats.frameDetections
+                    + ", vehicle states " + stats.vehicleStates
+                    + ", " + TimeUnit.NANOSECONDS.toMillis(stats.elapsedNanos) + " ms"
+                    + ", " + stats.getUpdatesPerSecond() + " updates/s"
+                    + ", event log " + eventLogBytes + " bytes");
+        }
+
+        @Override
+        public void onSessionStopped(@NonNull File session) {
+            closeSessionRecorder();
+            showStats(session.getName() + ": stopped");
+        }
+
+        @Override
+        public void onBatchCompleted() {
+            showStats("Batch completed");
+        }
+    };
+
+    @Override
+    protected void initViews() {
+        statsView = new TextView(this);
+        final ScrollView scrollView = new ScrollView(this);
+        scrollView.addView(statsView);
+        setContentView(scrollView);
+    }
+
+    @Override
+    protected void onPermissionsGranted() {
+        startBatch();
+    }
+
+    @Override
+    protected void onStart() {
+        super.onStart();
+        startBatch();
+    }
+
+    @Override
+    protected void onStop() {
+        super.onStop();
+        stopBatch();
+    }
+
+    private void startBatch() {
+        if (allPermissionsGranted() && batchReplayRunner == null) {
+            String sessionsDir = getIntent().getStringExtra(EXTRA_SESSIONS_DIR);
+            if (sessionsDir == null) {
+                sessionsDir = DEFAULT_SESSIONS_DIR;
+            }
+            batchReplayRunner = new BatchReplayRunner(new File(sessionsDir), SESSION_IDLE_TIMEOUT_NANOS, batchListener);
+            showStats("Sessions found in " + sessionsDir + ": " + batchReplayRunner.getSessionCount());
+            batchReplayRunner.start();
+        }
+    }
+
+    private void stopBatch() {
+        if (batchReplayRunner != null) {
+            // the recorder of the interrupted session is closed by the runner, see onSessionStopped
+            batchReplayRunner.stop();
+            batchReplayRunner = null;
+        }
+    }
+
+    private void closeSessionRecorder() {
+        final EventLogRecorder recorder = sessionRecorder;
+        sessionRecorder = null;
+        if (recorder != null) {
+            try {
+                recorder.close();
+            } catch (IOException e) {
+                VisionLogger.Companion.e(TAG, "Can't write event log: " + e);
+            }
+        }
+    }
+
+    private void showStats(@NonNull String line) {
+        VisionLogger.Companion.d(TAG, line);
+        runOnUiThread(() -> statsView.append(line + "\n"));
+    }
+}
@@ -0,0 +1,318 @@
+package com.mapbox.vision.examples;
+
+import android.os.Handler;
+import android.os.HandlerThread;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.mapbox.vision.VisionReplayManager;
+import com.mapbox.vision.mobile.core.interfaces.VisionEventsListener;
+import com.mapbox.vision.mobile.core.models.AuthorizationStatus;
+import com.mapbox.vision.mobile.core.models.Camera;
+import com.mapbox.vision.mobile.core.models.Country;
+import com.mapbox.vision.mobile.core.models.FrameSegmentation;
+import com.mapbox.vision.mobile.core.models.classification.FrameSignClassifications;
+import com.mapbox.vision.mobile.core.models.detection.FrameDetections;
+import com.mapbox.vision.mobile.core.models.position.VehicleState;
+import com.mapbox.vision.mobile.core.models.road.RoadDescription;
+import com.mapbox.vision.mobile.core.models.world.WorldDescription;
+import com.mapbox.vision.safety.VisionSafetyManager;
+import com.mapbox.vision.safety.core.VisionSafetyListener;
+import com.mapbox.vision.safety.core.models.CollisionObject;
+import com.mapbox.vision.safety.core.models.RoadRestrictions;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Replays every recorded session of a directory one after another, without {@code VisionView}.
+ * <p>
+ * {@link VisionReplayManager} is a singleton, so sessions of one process are replayed sequentially.
+ * Replay has no end of session callback, session is considered finished when no updates come
+ * for {@code idleTimeoutNanos}. Listener gets counts of events and update rate of every session.
+ * {@link VisionSafetyManager} is created for every session, so collisions and road restrictions are replayed too.
+ */
+public class BatchReplayRunner {
+
+    public interface Listener {
+        /**
+         * Called before the session is started. Returned listener, if any, gets all events of the session
+         * on Vision SDK thread. If it also implements {@link VisionSafetyListener}, it gets safety events too.
+         */
+        @Nullable
+        VisionEventsListener onSessionStarted(@NonNull File session);
+
+        void onSessionCompleted(@NonNull SessionStats stats);
+
+        /**
+         * Called on the runner thread when the session is interrupted by {@link #stop()}.
+         * No more sessions are started after that.
+         */
+        void onSessionStopped(@NonNull File session);
+
+        void onBatchCompleted();
+    }
+
+    public static class SessionStats {
+        @NonNull
+        public final File session;
+        public final long updates;
+        public final long frameDetections;
+        public final long vehicleStates;
+        public final long elapsedNanos;
+
+        SessionStats(@NonNull File session, long updates, long frameDetections, long vehicleStates, long elapsedNanos) {
+            this.session = session;
+            this.updates = updates;
+            this.frameDetections = frameDetections;
+            this.vehicleStates = vehicleStates;
+            this.elapsedNanos = elapsedNanos;
+        }
+
+        public float getUpdatesPerSecond() {
+            return elapsedNanos == 0 ? 0f : updates * (float) TimeUnit.SECONDS.toNanos(1) / elapsedNanos;
+        }
+    }
+
+    private static final long IDLE_CHECK_INTERVAL_MILLIS = 500;
+
+    private final List<File> sessions;
+    private final long idleTimeoutNanos;
+    private final Listener listener;
+
+    private final HandlerThread runnerThread = new HandlerThread("BatchReplay");
+    private Handler runnerHandler;
+    private volatile boolean stopRequested = false;
+
+    // accessed only on the runner thread
+    private int sessionIndex = -1;
+    private boolean sessionRunning = false;
+    private long sessionStartNanos = 0;
+
+    // written on Vision SDK thread
+    private final AtomicLong lastUpdateNanos = new AtomicLong();
+    private final AtomicLong updates = new AtomicLong();
+    private final AtomicLong frameDetectionEvents = new AtomicLong();
+    private final AtomicLong vehicleStateEvents = new AtomicLong();
+    @Nullable
+    private volatile VisionEventsListener sessionEventsListener = null;
+    @Nullable
+    private volatile VisionSafetyListener sessionSafetyListener = null;
+
+    // passes safety events to the session events listener if it implements VisionSafetyListener
+    private final VisionSafetyListener forwardingSafetyListener = new VisionSafetyListener() {
+
+        @Override
+        public void onCollisionsUpdated(@NonNull CollisionObject[] collisions) {
+            final VisionSafetyListener safetyListener = sessionSafetyListener;
+            if (safetyListener != null) {
+                safetyListener.onCollisionsUpdated(collisions);
+            }
+        }
+
+        @Override
+        public void onRoadRestrictionsUpdated(@NonNull RoadRestrictions roadRestrictions) {
+            final VisionSafetyListener safetyListener = sessionSafetyListener;
+            if (safetyListener != null) {
+                safetyListener.onRoadRestrictionsUpdated(roadRestrictions);
+            }
+        }
+    };
+
+    // counts events and passes them to the session events listener
+    private final VisionEventsListener countingListener = new VisionEventsListener() {
+
+        @Override
+        public void onAuthorizationStatusUpdated(@NonNull AuthorizationStatus authorizationStatus) {
+            final VisionEventsListener eventsListener = sessionEventsListener;
+            if (eventsListener != null) {
+                eventsListener.onAuthorizationStatusUpdated(authorizationStatus);
+            }
+        }
+
+        @Override
+        public void onFrameSegmentationUpdated(@NonNull FrameSegmentation frameSegmentation) {
+            final VisionEventsListener eventsListener = sessionEventsListener;
+            if (eventsListener != null) {
+                eventsListener.onFrameSegmentationUpdated(frameSegmentation);
+            }
+        }
+
+        @Override
+        public void onFrameDetectionsUpdated(@NonNull FrameDetections frameDetections) {
+            frameDetectionEvents.incrementAndGet();
+            final VisionEventsListener eventsListener = sessionEventsListener;
+            if (eventsListener != null) {
+                eventsListener.onFrameDetectionsUpdated(frameDetections);
+            }
+        }
+
+        @Override
+        public void onFrameSignClassificationsUpdated(@NonNull FrameSignClassifications frameSignClassifications) {
+            final VisionEventsListener eventsListener = sessionEventsListener;
+            if (eventsListener != null) {
+                eventsListener.onFrameSignClassificationsUpdated(frameSignClassifications);
+            }
+        }
+
+        @Override
+        public void onRoadDescriptionUpdated(@NonNull RoadDescription roadDescription) {
+            final VisionEventsListener eventsListener = sessionEventsListener;
+            if (eventsListener != null) {
+                eventsListener.onRoadDescriptionUpdated(roadDescription);
+            }
+        }
+
+        @Override
+        public void onWorldDescriptionUpdated(@NonNull WorldDescription worldDescription) {
+            final VisionEventsListener eventsListener = sessionEventsListener;
+            if (eventsListener != null) {
+                eventsListener.onWorldDescriptionUpdated(worldDescription);
+            }
+        }
+
+        @Override
+        public void onVehicleStateUpdated(@NonNull VehicleState vehicleState) {
+            vehicleStateEvents.incrementAndGet();
+            final VisionEventsListener eventsListener = sessionEventsListener;
+            if (eventsListener != null) {
+                eventsListener.onVehicleStateUpdated(vehicleState);
+            }
+        }
+
+        @Override
+        public void onCameraUpdated(@NonNull Camera camera) {
+            final VisionEventsListener eventsListener = sessionEventsListener;
+            if (eventsListener != null) {
+                eventsListener.onCameraUpdated(camera);
+            }
+        }
+
+        @Override
+        public void onCountryUpdated(@NonNull Country country) {
+            final VisionEventsListener eventsListener = sessionEventsListener;
+            if (eventsListener != null) {
+                eventsListener.onCountryUpdated(country);
+            }
+        }
+
+        @Override
+        public void onUpdateCompleted() {
+            updates.incrementAndGet();
+            lastUpdateNanos.set(System.nanoTime());
+            final VisionEventsListener eventsListener = sessionEventsListener;
+            if (eventsListener != null) {
+                eventsListener.onUpdateCompleted();
+            }
+        }
+    };
+
+    public BatchReplayRunner(@NonNull File sessionsDir, long idleTimeoutNanos, @NonNull Listener listener) {
+        final File[] dirs = sessionsDir.listFiles(File::isDirectory);
+        if (dirs != null) {
+            Arrays.sort(dirs);
+            this.sessions = Arrays.asList(dirs);
+        } else {
+            this.sessions = new ArrayList<>();
+        }
+        this.idleTimeoutNanos = idleTimeoutNanos;
+        this.listener = listener;
+    }
+
+    public int getSessionCount() {
+        return sessions.size();
+    }
+
+    public void start() {
+        runnerThread.start();
+        runnerHandler = new Handler(runnerThread.getLooper());
+        runnerHandler.post(this::startNextSession);
+    }
+
+    /**
+     * Stops replay of the current session and the rest of the batch.
+     * Session started concurrently on the runner thread is stopped too, see {@link Listener#onSessionStopped}.
+     */
+    public void stop() {
+        if (runnerHandler == null) {
+            return;
+        }
+        stopRequested = true;
+        runnerHandler.removeCallbacksAndMessages(null);
+        // runs after startNextSession if it's executing right now, so the session it starts is stopped too
+        runnerHandler.post(() -> {
+            if (sessionRunning) {
+                stopSession();
+                listener.onSessionStopped(sessions.get(sessionIndex));
+            }
+            runnerThread.quit();
+        });
+    }
+
+    private void startNextSession() {
+        if (stopRequested) {
+            return;
+        }
+        sessionIndex++;
+        if (sessionIndex >= sessions.size()) {
+            listener.onBatchCompleted();
+            runnerThread.quit();
+            return;
+        }
+
+        final File session = sessions.get(sessionIndex);
+        updates.set(0);
+        frameDetectionEvents.set(0);
+        vehicleStateEvents.set(0);
+        final VisionEventsListener eventsListener = listener.onSessionStarted(session);
+        sessionEventsListener = eventsListener;
+        sessionSafetyListener = eventsListener instanceof VisionSafetyListener
+                ? (VisionSafetyListener) eventsListener
+                : null;
+
+        VisionReplayManager.create(session.getAbsolutePath());
+        VisionReplayManager.setVisionEventsListener(countingListener);
+        VisionSafetyManager.create(VisionReplayManager.INSTANCE);
+        VisionSafetyManager.setVisionSafetyListener(forwardingSafetyListener);
+        sessionStartNanos = System.nanoTime();
+        lastUpdateNanos.set(sessionStartNanos);
+        VisionReplayManager.start();
+        sessionRunning = true;
+
+        runnerHandler.postDelayed(this::checkIdle, IDLE_CHECK_INTERVAL_MILLIS);
+    }
+
+    private void checkIdle() {
+        final long now = System.nanoTime();
+        if (now - lastUpdateNanos.get() < idleTimeoutNanos) {
+            runnerHandler.postDelayed(this::checkIdle, IDLE_CHECK_INTERVAL_MILLIS);
+            return;
+        }
+
+        // idle time after the last update is not a part of the session
+        final long elapsedNanos = lastUpdateNanos.get() - sessionStartNanos;
+        stopSession();
+        listener.onSessionCompleted(new SessionStats(
+                sessions.get(sessionIndex),
+                updates.get(),
+                frameDetectionEvents.get(),
+                vehicleStateEvents.get(),
+                elapsedNanos
+        ));
+        startNextSession();
+    }
+
+    private void stopSession() {
+        VisionSafetyManager.destroy();
+        VisionReplayManager.stop();
+        VisionReplayManager.destroy();
+        sessionEventsListener = null;
+        sessionSafetyListener = null;
+        sessionRunning = false;
+    }
+}
@@ -0,0 +1,272 @@
+package com.mapbox.vision.examples;
+
+import android.view.Choreographer;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.mapbox.vision.mobile.core.interfaces.VisionEventsListener;
+import com.mapbox.vision.mobile.core.models.AuthorizationStatus;
+import com.mapbox.vision.mobile.core.models.Camera;
+import com.mapbox.vision.mobile.core.models.Country;
+import com.mapbox.vision.mobile.core.models.FrameSegmentation;
+import com.mapbox.vision.mobile.core.models.classification.FrameSignClassifications;
+import com.mapbox.vision.mobile.core.models.detection.FrameDetections;
+import com.mapbox.vision.mobile.core.models.position.VehicleState;
+import com.mapbox.vision.mobile.core.models.road.RoadDescription;
+import com.mapbox.vision.mobile.core.models.world.WorldDescription;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import static com.mapbox.vision.examples.SelectiveVisionEventsListener.ALL_EVENTS;
+import static com.mapbox.vision.examples.SelectiveVisionEventsListener.AUTHORIZATION_STATUS;
+import static com.mapbox.vision.examples.SelectiveVisionEventsListener.CAMERA;
+import static com.mapbox.vision.examples.SelectiveVisionEventsListener.COUNTRY;
+import static com.mapbox.vision.examples.SelectiveVisionEventsListener.FRAME_DETECTIONS;
+import static com.mapbox.vision.examples.SelectiveVisionEventsListener.FRAME_SEGMENTATION;
+import static com.mapbox.vision.examples.SelectiveVisionEventsListener.FRAME_SIGN_CLASSIFICATIONS;
+import static com.mapbox.vision.examples.SelectiveVisionEventsListener.ROAD_DESCRIPTION;
+import static com.mapbox.vision.examples.SelectiveVisionEventsListener.UPDATE_COMPLETED;
+import static com.mapbox.vision.examples.SelectiveVisionEventsListener.VEHICLE_STATE;
+import static com.mapbox.vision.examples.SelectiveVisionEventsListener.WORLD_DESCRIPTION;
+
+/**
+ * {@link VisionEventsListener} that delivers events to the wrapped UI listener on the main thread,
+ * at most once per display frame.
+ * <p>
+ * Only the latest event of every type is kept, so if Vision SDK sends several vehicle states between two vsyncs,
+ * UI listener gets only the last one. Events of different types are delivered in the order of
+ * {@link VisionEventsListener} methods, {@link VisionEventsListener#onUpdateCompleted()} last.
+ * <p>
+ * Note that frame images of {@link FrameDetections} and {@link FrameSegmentation} can't be read on the main thread,
+ * since they are valid only during the original callback.
+ * <p>
+ * Optional background listener gets every event right away on the Vision SDK thread, before it is coalesced,
+ * so heavy processing can stay off the main thread while only its UI part is coalesced.
+ * If a listener is a {@link SelectiveVisionEventsListener}, only events it is subscribed to are passed to it,
+ * and events the UI listener is not subscribed to don't schedule frame callbacks.
+ * <p>
+ * Should be created on the main thread. Call {@link #release()} when Vision SDK is stopped,
+ * so events still pending are not delivered to views of a stopped activity.
+ */
+public class CoalescingVisionEventsListener implements VisionEventsListener {
+
+    private static final int EVENT_TYPES = Integer.bitCount(ALL_EVENTS);
+
+    @Nullable
+    private final VisionEventsListener backgroundListener;
+    private final VisionEventsListener uiListener;
+    private final int backgroundEvents;
+    private final int uiEvents;
+    private final Choreographer choreographer = Choreographer.getInstance();
+    private final AtomicReferenceArray<Object> latestEvents = new AtomicReferenceArray<>(EVENT_TYPES);
+    private final AtomicBoolean frameCallbackPosted = new AtomicBoolean(false);
+    private volatile boolean released = false;
+
+    private final AtomicLong receivedEvents = new AtomicLong();
+    private final AtomicLong coalescedEvents = new AtomicLong();
+    private final AtomicLong ignoredEvents = new AtomicLong();
+    private final AtomicLong dispatchedFrames = new AtomicLong();
+
+    private final Choreographer.FrameCallback frameCallback = frameTimeNanos -> dispatch();
+
+    public CoalescingVisionEventsListener(@NonNull VisionEventsListener uiListener) {
+        this(null, uiListener);
+    }
+
+    public CoalescingVisionEventsListener(
+            @Nullable VisionEventsListener backgroundListener,
+            @NonNull VisionEventsListener uiListener
+    ) {
+        this.backgroundListener = backgroundListener;
+        this.uiListener = uiListener;
+        this.backgroundEvents = backgroundListener == null ? 0 : SelectiveVisionEventsListener.eventsOf(backgroundListener);
+        this.uiEvents = SelectiveVisionEventsListener.eventsOf(uiListener);
+    }
+
+    /**
+     * Drops pending events and stops delivering new ones to the UI listener, background listener still gets them.
+     * Called on the main thread.
+     */
+    public void release() {
+        released = true;
+        choreographer.removeFrameCallback(frameCallback);
+        for (int slot = 0; slot < EVENT_TYPES; slot++) {
+            latestEvents.set(slot, null);
+        }
+    }
+
+    /**
+     * Number of events replaced by a newer event of the same type before being delivered.
+     */
+    public long getCoalescedEvents() {
+        return coalescedEvents.get();
+    }
+
+    public long getReceivedEvents() {
+        return receivedEvents.get();
+    }
+
+    /**
+     * Number of events the UI listener is not subscribed to or that came after {@link #release()},
+     * they are not passed to the main thread at all.
+     */
+    public long getIgnoredEvents() {
+        return ignoredEvents.get();
+    }
+
+    /**
+     * Number of display frames events were delivered in.
+     */
+    public long getDispatchedFrames() {
+        return dispatchedFrames.get();
+    }
+
+    @Override
+    public void onAuthorizationStatusUpdated(@NonNull AuthorizationStatus authorizationStatus) {
+        if ((backgroundEvents & AUTHORIZATION_STATUS) != 0) {
+            backgroundListener.onAuthorizationStatusUpdated(authorizationStatus);
+        }
+        publish(AUTHORIZATION_STATUS, authorizationStatus);
+    }
+
+    @Override
+    public void onFrameSegmentationUpdated(@NonNull FrameSegmentation frameSegmentation) {
+        if ((backgroundEvents & FRAME_SEGMENTATION) != 0) {
+            backgroundListener.onFrameSegmentationUpdated(frameSegmentation);
+        }
+        publish(FRAME_SEGMENTATION, frameSegmentation);
+    }
+
+    @Override
+    public void onFrameDetectionsUpdated(@NonNull FrameDetections frameDetections) {
+        if ((backgroundEvents & FRAME_DETECTIONS) != 0) {
+            backgroundListener.onFrameDetectionsUpdated(frameDetections);
+        }
+        publish(FRAME_DETECTIONS, frameDetections);
+    }
+
+    @Override
+    public void onFrameSignClassificationsUpdated(@NonNull FrameSignClassifications frameSignClassifications) {
+        if ((backgroundEvents & FRAME_SIGN_CLASSIFICATIONS) != 0) {
+            backgroundListener.onFrameSignClassificationsUpdated(frameSignClassifications);
+        }
+        publish(FRAME_SIGN_CLASSIFICATIONS, frameSignClassifications);
+    }
+
+    @Override
+    public void onRoadDescriptionUpdated(@NonNull RoadDescription roadDescription) {
+        if ((backgroundEvents & ROAD_DESCRIPTION) != 0) {
+            backgroundListener.onRoadDescriptionUpdated(roadDescription);
+        }
+        publish(ROAD_DESCRIPTION, roadDescription);
+    }
+
+    @Override
+    public void onWorldDescriptionUpdated(@NonNull WorldDescription worldDescription) {
+        if ((backgroundEvents & WORLD_DESCRIPTION) != 0) {
+            backgroundListener.onWorldDescriptionUpdated(worldDescription);
+        }
+        publish(WORLD_DESCRIPTION, worldDescription);
+    }
+
+    @Override
+    public void onVehicleStateUpdated(@NonNull VehicleState vehicleState) {
+        if ((backgroundEvents & VEHICLE_STATE) != 0) {
+            backgroundListener.onVehicleStateUpdated(vehicleState);
+        }
+        publish(VEHICLE_STATE, vehicleState);
+    }
+
+    @Override
+    public void onCameraUpdated(@NonNull Camera camera) {
+        if ((backgroundEvents & CAMERA) != 0) {
+            backgroundListener.onCameraUpdated(camera);
+        }
+        publish(CAMERA, camera);
+    }
+
+    @Override
+    public void onCountryUpdated(@NonNull Country country) {
+        if ((backgroundEvents & COUNTRY) != 0) {
+            backgroundListener.onCountryUpdated(country);
+        }
+        publish(COUNTRY, country);
+    }
+
+    @Override
+    public void onUpdateCompleted() {
+        if ((backgroundEvents & UPDATE_COMPLETED) != 0) {
+            backgroundListener.onUpdateCompleted();
+        }
+        publish(UPDATE_COMPLETED, Boolean.TRUE);
+    }
+
+    private void publish(int type, @NonNull Object event) {
+        receivedEvents.incrementAndGet();
+        if ((uiEvents & type) == 0 || released) {
+            ignoredEvents.incrementAndGet();
+            return;
+        }
+        if (latestEvents.getAndSet(Integer.numberOfTrailingZeros(type), event) != null) {
+            coalescedEvents.incrementAndGet();
+        }
+        if (frameCallbackPosted.compareAndSet(false, true)) {
+            choreographer.postFrameCallback(frameCallback);
+        }
+    }
+
+    private void dispatch() {
+        // events published from now on need another frame callback
+        frameCallbackPosted.set(false);
+        if (released) {
+            // the callback was posted by an event that raced with release
+            return;
+        }
+        dispatchedFrames.incrementAndGet();
+
+        for (int slot = 0; slot < EVENT_TYPES; slot++) {
+            final Object event = latestEvents.getAndSet(slot, null);
+            if (event != null) {
+                deliver(1 << slot, event);
+            }
+        }
+    }
+
+    private void deliver(int type, @NonNull Object event) {
+        switch (type) {
+            case AUTHORIZATION_STATUS:
+                uiListener.onAuthorizationStatusUpdated((AuthorizationStatus) event);
+                break;
+            case FRAME_SEGMENTATION:
+                uiListener.onFrameSegmentationUpdated((FrameSegmentation) event);
+                break;
+            case FRAME_DETECTIONS:
+                uiListener.onFrameDetectionsUpdated((FrameDetections) event);
+                break;
+            case FRAME_SIGN_CLASSIFICATIONS:
+                uiListener.onFrameSignClassificationsUpdated((FrameSignClassifications) event);
+                break;
+            case ROAD_DESCRIPTION:
+                uiListener.onRoadDescriptionUpdated((RoadDescription) event);
+                break;
+            case WORLD_DESCRIPTION:
+                uiListener.onWorldDescriptionUpdated((WorldDescription) event);
+                break;
+            case VEHICLE_STATE:
+                uiListener.onVehicleStateUpdated((VehicleState) event);
+                break;
+            case CAMERA:
+                uiListener.onCameraUpdated((Camera) event);
+                break;
+            case COUNTRY:
+                uiListener.onCountryUpdated((Country) event);
+                break;
+            case UPDATE_COMPLETED:
+                uiListener.onUpdateCompleted();
+                break;
+        }
+    }
+}
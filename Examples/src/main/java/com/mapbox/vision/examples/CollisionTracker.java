@@ -0,0 +1,410 @@
+package com.mapbox.vision.examples;
+
+import java.util.Arrays;
+
+/**
+ * Tracks collision objects across updates and estimates time to collision with every one of them.
+ * <p>
+ * Every update gets positions of objects relative to the vehicle in meters. Each object is associated
+ * with the nearest track of the same class, whose predicted position is within {@code gateMeters}.
+ * Tracks are found through a uniform grid with {@code gateMeters} cells, so association is linear
+ * in number of objects. Unmatched objects start new tracks, tracks missed for more than
+ * {@code maxMissedUpdates} updates are dropped.
+ * <p>
+ * Every track keeps the last {@code historyLength} positions in a ring buffer. Velocity is the least squares
+ * slope over that history and time to collision is range divided by closing speed,
+ * smoothed exponentially with {@code smoothing} factor.
+ * <p>
+ * All state lives in arrays allocated in the constructor, {@link #update} doesn't allocate
+ * unless it gets more objects than {@code maxTracks}.
+ * Not thread safe. The class does not depend on Android, so it can be exercised on a plain JVM.
+ */
+public class CollisionTracker {
+
+    public static final int NO_TRACK = -1;
+    // time to collision of objects which are not approaching
+    public static final float NO_COLLISION = Float.POSITIVE_INFINITY;
+
+    private static final int EMPTY_CELL = -1;
+    private static final float NANOS_PER_SECOND = 1e9f;
+
+    private final int maxTracks;
+    private final int historyLength;
+    private final float gateMeters;
+    private final int maxMissedUpdates;
+    private final float smoothing;
+
+    // per track slot
+    private final int[] trackIds;
+    private final int[] trackClasses;
+    private final int[] missedUpdates;
+    private final float[] velocityX;
+    private final float[] velocityY;
+    private final float[] timeToCollision;
+    private final float[] predictedX;
+    private final float[] predictedY;
+    private final boolean[] matched;
+    // ring buffers, historyLength entries per slot
+    private final float[] historyX;
+    private final float[] historyY;
+    private final long[] historyNanos;
+    private final int[] historyHead;
+    private final int[] historySize;
+
+    private final int[] freeSlots;
+    private int freeSlotCount;
+    private final int[] activeSlots;
+    private int activeCount = 0;
+
+    // grid of predicted track positions, open addressing from cell key to the first slot of the cell
+    private final long[] cellKeys;
+    private final int[] cellHeads;
+    private final int cellMask;
+    private final int[] nextInCell;
+    private final int[] usedCells;
+    private int usedCellCount = 0;
+
+    // slot of every object of the last update
+    private int[] objectSlots;
+
+    private int nextTrackId = 0;
+    private long updates = 0;
+    private long createdTracks = 0;
+    private long droppedObjects = 0;
+
+    public CollisionTracker(
+            int maxTracks,
+            int historyLength,
+            float gateMeters,
+            int maxMissedUpdates,
+            float smoothing
+    ) {
+        if (maxTracks <= 0 || historyLength < 2 || gateMeters <= 0 || smoothing <= 0 || smoothing > 1) {
+            throw new IllegalArgumentException("Invalid tracker parameters");
+        }
+        this.maxTracks = maxTracks;
+        this.historyLength = historyLength;
+        this.gateMeters = gateMeters;
+        this.maxMissedUpdates = maxMissedUpdates;
+        this.smoothing = smoothing;
+
+        trackIds = new int[maxTracks];
+        trackClasses = new int[maxTracks];
+        missedUpdates = new int[maxTracks];
+        velocityX = new float[maxTracks];
+        velocityY = new float[maxTracks];
+        timeToCollision = new float[maxTracks];
+        predictedX = new float[maxTracks];
+        predictedY = new float[maxTracks];
+        matched = new boolean[maxTracks];
+        historyX = new float[maxTracks * historyLength];
+        historyY = new float[maxTracks * historyLength];
+        historyNanos = new long[maxTracks * historyLength];
+        historyHead = new int[maxTracks];
+        historySize = new int[maxTracks];
+
+        freeSlots = new int[maxTracks];
+        for (int i = 0; i < maxTracks; i++) {
+            freeSlots[i] = maxTracks - 1 - i;
+        }
+        freeSlotCount = maxTracks;
+        activeSlots = new int[maxTracks];
+
+        final int cells = Integer.highestOneBit(maxTracks * 4 - 1) << 1;
+        cellKeys = new long[cells];
+        cellHeads = new int[cells];
+        Arrays.fill(cellHeads, EMPTY_CELL);
+        cellMask = cells - 1;
+        nextInCell = new int[maxTracks];
+        usedCells = new int[maxTracks];
+        objectSlots = new int[maxTracks];
+    }
+
+    /**
+     * Associates objects with tracks and updates their velocity and time to collision.
+     *
+     * @param classes class of every object, objects of different classes are never associated
+     * @param xs      longitudinal position of every object relative to the vehicle, meters
+     * @param ys      lateral position of every object relative to the vehicle, meters
+     */
+    public void update(long nowNanos, int count, int[] classes, float[] xs, float[] ys) {
+        updates++;
+        if (objectSlots.length < count) {
+            // more objects than tracks, grows once per new maximum
+            objectSlots = new int[count];
+        }
+
+        predictAndIndexTracks(nowNanos);
+
+        for (int i = 0; i < count; i++) {
+            final int slot = findNearestTrack(classes[i], xs[i], ys[i]);
+            objectSlots[i] = slot;
+            if (slot != NO_TRACK) {
+                matched[slot] = true;
+            }
+        }
+
+        for (int i = 0; i < count; i++) {
+            int slot = objectSlots[i];
+            if (slot == NO_TRACK) {
+                slot = startTrack(classes[i]);
+                objectSlots[i] = slot;
+                if (slot == NO_TRACK) {
+                    droppedObjects++;
+                    continue;
+                }
+            }
+            missedUpdates[slot] = 0;
+            addToHistory(slot, nowNanos, xs[i], ys[i]);
+            updateMotion(slot, xs[i], ys[i]);
+        }
+
+        dropMissedTracks();
+        clearGrid();
+    }
+
+    /**
+     * Number of tracks after the last update, tracks are accessed by index from 0 to this count.
+     */
+    public int getTrackCount() {
+        return activeCount;
+    }
+
+    public int getTrackId(int index) {
+        return trackIds[activeSlots[index]];
+    }
+
+    public int getTrackClass(int index) {
+        return trackClasses[activeSlots[index]];
+    }
+
+    public float getX(int index) {
+        return latestX(activeSlots[index]);
+    }
+
+    public float getY(int index) {
+        return latestY(activeSlots[index]);
+    }
+
+    public float getVelocityX(int index) {
+        return velocityX[activeSlots[index]];
+    }
+
+    public float getVelocityY(int index) {
+        return velocityY[activeSlots[index]];
+    }
+
+    /**
+     * Smoothed time to collision in seconds, {@link #NO_COLLISION} if the object is not approaching.
+     */
+    public float getTimeToCollision(int index) {
+        return timeToCollision[activeSlots[index]];
+    }
+
+    /**
+     * Id of the track the object of the last update was associated with, {@link #NO_TRACK} if it was dropped
+     * because all tracks are taken.
+     */
+    public int getObjectTrackId(int object) {
+        final int slot = objectSlots[object];
+        return slot == NO_TRACK ? NO_TRACK : trackIds[slot];
+    }
+
+    public float getMinTimeToCollision() {
+        float min = NO_COLLISION;
+        for (int i = 0; i < activeCount; i++) {
+            min = Math.min(min, timeToCollision[activeSlots[i]]);
+        }
+        return min;
+    }
+
+    public long getUpdates() {
+        return updates;
+    }
+
+    public long getCreatedTracks() {
+        return createdTracks;
+    }
+
+    /**
+     * Objects which got no track because all {@code maxTracks} were taken.
+     */
+    public long getDroppedObjects() {
+        return droppedObjects;
+    }
+
+    private void predictAndIndexTracks(long nowNanos) {
+        for (int i = 0; i < activeCount; i++) {
+            final int slot = activeSlots[i];
+            matched[slot] = false;
+            // time since the track was last seen, longer than one update period for tracks that missed updates
+            final float dt = (nowNanos - latestNanos(slot)) / NANOS_PER_SECOND;
+            predictedX[slot] = latestX(slot) + velocityX[slot] * dt;
+            predictedY[slot] = latestY(slot) + velocityY[slot] * dt;
+
+            final int cell = findCell(cellKey(cellOf(predictedX[slot]), cellOf(predictedY[slot])), true);
+            nextInCell[slot] = cellHeads[cell];
+            cellHeads[cell] = slot;
+        }
+    }
+
+    private int findNearestTrack(int objectClass, float x, float y) {
+        final int cellX = cellOf(x);
+        final int cellY = cellOf(y);
+        final float maxDistanceSquared = gateMeters * gateMeters;
+        float bestDistanceSquared = Float.MAX_VALUE;
+        int best = NO_TRACK;
+        // gate is not larger than a cell, so candidates are in the neighbouring cells
+        for (int dx = -1; dx <= 1; dx++) {
+            for (int dy = -1; dy <= 1; dy++) {
+                final int cell = findCell(cellKey(cellX + dx, cellY + dy), false);
+                if (cell == EMPTY_CELL) {
+                    continue;
+                }
+                for (int slot = cellHeads[cell]; slot != EMPTY_CELL; slot = nextInCell[slot]) {
+                    if (matched[slot] || trackClasses[slot] != objectClass) {
+                        continue;
+                    }
+                    final float distanceX = predictedX[slot] - x;
+                    final float distanceY = predictedY[slot] - y;
+                    final float distanceSquared = distanceX * distanceX + distanceY * distanceY;
+                    if (distanceSquared <= maxDistanceSquared && distanceSquared < bestDistanceSquared) {
+                        bestDistanceSquared = distanceSquared;
+                        best = slot;
+                    }
+                }
+            }
+        }
+        return best;
+    }
+
+    private int startTrack(int objectClass) {
+        if (freeSlotCount == 0) {
+            return NO_TRACK;
+        }
+        final int slot = freeSlots[--freeSlotCount];
+        // taken by this update, so the next objects don't match it
+        matched[slot] = true;
+        trackIds[slot] = nextTrackId++;
+        trackClasses[slot] = objectClass;
+        velocityX[slot] = 0f;
+        velocityY[slot] = 0f;
+        timeToCollision[slot] = NO_COLLISION;
+        historyHead[slot] = 0;
+        historySize[slot] = 0;
+        activeSlots[activeCount++] = slot;
+        createdTracks++;
+        return slot;
+    }
+
+    private void dropMissedTracks() {
+        int kept = 0;
+        for (int i = 0; i < activeCount; i++) {
+            final int slot = activeSlots[i];
+            if (!matched[slot] && ++missedUpdates[slot] > maxMissedUpdates) {
+                freeSlots[freeSlotCount++] = slot;
+            } else {
+                activeSlots[kept++] = slot;
+            }
+        }
+        activeCount = kept;
+    }
+
+    private void addToHistory(int slot, long nowNanos, float x, float y) {
+        final int index = slot * historyLength + historyHead[slot];
+        historyX[index] = x;
+        historyY[index] = y;
+        historyNanos[index] = nowNanos;
+        historyHead[slot] = (historyHead[slot] + 1) % historyLength;
+        if (historySize[slot] < historyLength) {
+            historySize[slot]++;
+        }
+    }
+
+    private void updateMotion(int slot, float x, float y) {
+        final int size = historySize[slot];
+        if (size < 2) {
+            return;
+        }
+
+        // least squares slope of position over time, time relative to the latest sample
+        final int base = slot * historyLength;
+        final int latest = base + (historyHead[slot] + historyLength - 1) % historyLength;
+        final long latestNanos = historyNanos[latest];
+        float sumT = 0f, sumX = 0f, sumY = 0f, sumTT = 0f, sumTX = 0f, sumTY = 0f;
+        for (int i = 0; i < size; i++) {
+            final int index = base + i;
+            final float t = (historyNanos[index] - latestNanos) / NANOS_PER_SECOND;
+            sumT += t;
+            sumX += historyX[index];
+            sumY += historyY[index];
+            sumTT += t * t;
+            sumTX += t * historyX[index];
+            sumTY += t * historyY[index];
+        }
+        final float denominator = size * sumTT - sumT * sumT;
+        if (denominator <= 0f) {
+            return;
+        }
+        velocityX[slot] = (size * sumTX - sumT * sumX) / denominator;
+        velocityY[slot] = (size * sumTY - sumT * sumY) / denominator;
+
+        final float range = (float) Math.sqrt(x * x + y * y);
+        final float closingSpeed = range == 0f ? 0f : -(x * velocityX[slot] + y * velocityY[slot]) / range;
+        final float rawTimeToCollision = closingSpeed > 0f ? range / closingSpeed : NO_COLLISION;
+
+        final float previous = timeToCollision[slot];
+        if (previous == NO_COLLISION || rawTimeToCollision == NO_COLLISION) {
+            timeToCollision[slot] = rawTimeToCollision;
+        } else {
+            timeToCollision[slot] = previous + smoothing * (rawTimeToCollision - previous);
+        }
+    }
+
+    private long latestNanos(int slot) {
+        return historyNanos[slot * historyLength + (historyHead[slot] + historyLength - 1) % historyLength];
+    }
+
+    private float latestX(int slot) {
+        return historyX[slot * historyLength + (historyHead[slot] + historyLength - 1) % historyLength];
+    }
+
+    private float latestY(int slot) {
+        return historyY[slot * historyLength + (historyHead[slot] + historyLength - 1) % historyLength];
+    }
+
+    private int cellOf(float coordinate) {
+        return (int) Math.floor(coordinate / gateMeters);
+    }
+
+    private static long cellKey(int cellX, int cellY) {
+        return ((long) cellX << 32) | (cellY & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Index of the cell in the grid table, {@link #EMPTY_CELL} if the cell has no tracks and {@code insert} is false.
+     */
+    private int findCell(long key, boolean insert) {
+        long hash = key * 0x9E3779B97F4A7C15L;
+        int index = (int) (hash ^ (hash >>> 32)) & cellMask;
+        while (cellHeads[index] != EMPTY_CELL) {
+            if (cellKeys[index] == key) {
+                return index;
+            }
+            index = (index + 1) & cellMask;
+        }
+        if (!insert) {
+            return EMPTY_CELL;
+        }
+        cellKeys[index] = key;
+        usedCells[usedCellCount++] = index;
+        return index;
+    }
+
+    private void clearGrid() {
+        for (int i = 0; i < usedCellCount; i++) {
+            cellHeads[usedCells[i]] = EMPTY_CELL;
+        }
+        usedCellCount = 0;
+    }
+}
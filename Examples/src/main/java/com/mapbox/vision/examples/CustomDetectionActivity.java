@@ -1,12 +1,7 @@
 package com.mapbox.vision.examples;
 
-import android.graphics.Bitmap;
-import android.graphics.Canvas;
-import android.graphics.Color;
-import android.graphics.Paint;
 import android.graphics.RectF;
 import android.os.Bundle;
-import android.widget.ImageView;
 
 import com.mapbox.vision.VisionManager;
 import com.mapbox.vision.mobile.core.interfaces.VisionEventsListener;
@@ -18,96 +13,141 @@ import com.mapbox.vision.mobile.core.models.classification.FrameSignClassificati
 import com.mapbox.vision.mobile.core.models.detection.Detection;
 import com.mapbox.vision.mobile.core.models.detection.DetectionClass;
 import com.mapbox.vision.mobile.core.models.detection.FrameDetections;
-import com.mapbox.vision.mobile.core.models.frame.Image;
+import com.mapbox.vision.mobile.core.models.frame.ImageSize;
 import com.mapbox.vision.mobile.core.models.position.VehicleState;
 import com.mapbox.vision.mobile.core.models.road.RoadDescription;
 import com.mapbox.vision.mobile.core.models.world.WorldDescription;
 import com.mapbox.vision.performance.ModelPerformance;
 import com.mapbox.vision.performance.ModelPerformanceMode;
 import com.mapbox.vision.performance.ModelPerformanceRate;
+import com.mapbox.vision.utils.VisionLogger;
+import com.mapbox.vision.view.VisionView;
 
 import org.jetbrains.annotations.NotNull;
 
-import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
 
 public class CustomDetectionActivity extends BaseActivity {
 
+    private static final String TAG = CustomDetectionActivity.class.getSimpleName();
+
+    private static final float MIN_DETECTION_CONFIDENCE = 0.6f;
+    private static final int MAX_TRACKED_DETECTIONS = 64;
+    private static final float TRACK_MIN_IOU = 0.3f;
+    private static final int TRACK_MIN_HITS = 2;
+    // a box coasts on its velocity for up to this many model updates without a detection
+    private static final int TRACK_MAX_MISSED_UPDATES = 3;
+    // a bit more than the interval between model updates at the lowest rate
+    private static final long MAX_EXTRAPOLATION_NANOS = TimeUnit.MILLISECONDS.toNanos(300);
+    private static final long BLEND_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
     private Boolean visionManagerWasInit = false;
-    private ImageView detectionsView;
-    private Paint paint;
+    // Camera frames are shown by VisionView, only detections are drawn in Java on top of it.
+    private VisionView visionView;
+    private DetectionOverlayView overlayView;
+    private long lastStatsLogNanos = 0;
+    private long lastLoggedOverlayFrames = 0;
+    private long lastLoggedOverlayNanos = 0;
+
+    // Steps model rate down when updates are late and back up when there is headroom.
+    // Accessed only from Vision SDK callback thread.
+    private final ModelPerformanceController modelPerformanceController = ModelPerformanceController.createDefault(
+            level -> runOnUiThread(() -> {
+                if (visionManagerWasInit) {
+                    setModelPerformanceRate(ModelPerformanceController.getDefaultRate(level));
+                }
+            })
+    );
+    private long lastUpdateCompletedNanos = -1;
+
+    // Keeps boxes and ids stable when model rate is lowered or an object is missed on a frame.
+    // Accessed only from Vision SDK callback thread.
+    private final DetectionTracker detectionTracker = new DetectionTracker(
+            MAX_TRACKED_DETECTIONS,
+            TRACK_MIN_IOU,
+            TRACK_MIN_HITS,
+            TRACK_MAX_MISSED_UPDATES
+    );
+    private int[] detectionClasses = new int[MAX_TRACKED_DETECTIONS];
+    private float[] detectionConfidences = new float[MAX_TRACKED_DETECTIONS];
+    private float[] detectionBoxes = new float[MAX_TRACKED_DETECTIONS * 4];
+    private final float[] trackBox = new float[4];
+    private final float[] trackVelocity = new float[4];
+
+    // Moves boxes of tracked cars on every display frame between model updates.
+    private final DetectionPredictor detectionPredictor = new DetectionPredictor(
+            MAX_TRACKED_DETECTIONS,
+            MAX_EXTRAPOLATION_NANOS,
+            BLEND_NANOS
+    );
 
     // VisionEventsListener handles events from Vision SDK on background thread.
+    // All events are handled right on that thread, so they are not coalesced.
     private VisionEventsListener visionEventsListener = new VisionEventsListener() {
 
         @Override
         public void onAuthorizationStatusUpdated(@NotNull AuthorizationStatus authorizationStatus) {
-
-        }
-
-        @Override
-        public void onCameraUpdated(@NotNull Camera camera) {
-
         }
 
         @Override
-        public void onCountryUpdated(@NotNull Country country) {
-
+        public void onFrameSegmentationUpdated(@NotNull FrameSegmentation frameSegmentation) {
         }
 
         @Override
         public void onFrameDetectionsUpdated(@NotNull FrameDetections frameDetections) {
-            final Bitmap frameBitmap = convertImageToBitmap(frameDetections.getFrame().getImage());
-            // now we will draw current detections on canvas with frame bitmap
-            final Canvas canvas = new Canvas(frameBitmap);
-            for (final Detection detection : frameDetections.getDetections()) {
-                // we will draw only detected cars
-                // and filter detections which we are not confident with
-                if (detection.getDetectionClass() == DetectionClass.Car && detection.getConfidence() > 0.6) {
-                    drawSingleDetection(canvas, detection);
-                }
-            }
-            runOnUiThread(() -> {
-                // finally we update our image view on main thread
-                detectionsView.setImageBitmap(frameBitmap);
-            });
-        }
-
-        @Override
-        public void onFrameSegmentationUpdated(@NotNull FrameSegmentation frameSegmentation) {
-
+            final long now = System.nanoTime();
+            // only the frame size is needed to map boxes to the screen, pixels stay in native memory
+            final ImageSize size = frameDetections.getFrame().getImage().getSize();
+            overlayView.setFrameSize(size.getImageWidth(), size.getImageHeight());
+            trackDetections(frameDetections.getDetections(), now);
+            publishTrackedCars(now);
+            logStats();
         }
 
         @Override
         public void onFrameSignClassificationsUpdated(@NotNull FrameSignClassifications frameSignClassifications) {
-
         }
 
         @Override
         public void onRoadDescriptionUpdated(@NotNull RoadDescription roadDescription) {
-
         }
 
         @Override
-        public void onUpdateCompleted() {
-
+        public void onWorldDescriptionUpdated(@NotNull WorldDescription worldDescription) {
         }
 
         @Override
         public void onVehicleStateUpdated(@NotNull VehicleState vehicleState) {
+            detectionPredictor.setVehicleSpeed(vehicleState.getSpeed());
+        }
 
+        @Override
+        public void onCameraUpdated(@NotNull Camera camera) {
         }
 
         @Override
-        public void onWorldDescriptionUpdated(@NotNull WorldDescription worldDescription) {
+        public void onCountryUpdated(@NotNull Country country) {
+        }
 
+        @Override
+        public void onUpdateCompleted() {
+            // Frame capture time is not exposed for built-in camera,
+            // so time between completed updates is compared with the budget of the current rate.
+            final long now = System.nanoTime();
+            if (lastUpdateCompletedNanos >= 0) {
+                modelPerformanceController.onUpdateCompleted(now - lastUpdateCompletedNanos, now);
+            }
+            lastUpdateCompletedNanos = now;
         }
     };
 
     @Override
     public void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
-        detectionsView = findViewById(R.id.detections_view);
-        preparePaint();
+        visionView = findViewById(R.id.vision_view);
+        overlayView = findViewById(R.id.detections_overlay_view);
+        overlayView.setPredictor(detectionPredictor);
+        overlayView.setClassLabels(buildClassLabels());
     }
 
     @Override
@@ -132,72 +172,112 @@ public class CustomDetectionActivity extends BaseActivity {
         stopVisionManager();
     }
 
+    @Override
+    public void onResume() {
+        super.onResume();
+        visionView.onResume();
+    }
+
+    @Override
+    public void onPause() {
+        super.onPause();
+        visionView.onPause();
+    }
+
     private void startVisionManager() {
         if (allPermissionsGranted() && !visionManagerWasInit) {
             VisionManager.create();
-            VisionManager.setModelPerformance(
-                new ModelPerformance.On(
-                        ModelPerformanceMode.FIXED, ModelPerformanceRate.HIGH.INSTANCE
-                )
-            );
+            visionView.setVisionManager(VisionManager.INSTANCE);
+            setModelPerformanceRate(ModelPerformanceController.getDefaultRate(modelPerformanceController.getLevel()));
             VisionManager.setVisionEventsListener(visionEventsListener);
             VisionManager.start();
             visionManagerWasInit = true;
         }
     }
 
+    private void setModelPerformanceRate(final ModelPerformanceRate rate) {
+        VisionManager.setModelPerformance(new ModelPerformance.On(ModelPerformanceMode.FIXED, rate));
+    }
+
     private void stopVisionManager() {
         if (visionManagerWasInit) {
             VisionManager.stop();
             VisionManager.destroy();
             visionManagerWasInit = false;
+            lastUpdateCompletedNanos = -1;
         }
     }
 
-    private Bitmap convertImageToBitmap(final Image originalImage) {
-        final Bitmap bitmap = Bitmap.createBitmap(
-                originalImage.getSize().getImageWidth(),
-                originalImage.getSize().getImageHeight(),
-                Bitmap.Config.ARGB_8888
-        );
-        // prepare direct ByteBuffer that will hold camera frame data
-        ByteBuffer buffer = ByteBuffer.allocateDirect(originalImage.sizeInBytes());
-        // associate underlying native ByteBuffer with our buffer
-        originalImage.copyPixels(buffer);
-        buffer.rewind();
-        // copy ByteBuffer to bitmap
-        bitmap.copyPixelsFromBuffer(buffer);
-        return bitmap;
+    private void logStats() {
+        final long now = System.nanoTime();
+        if (now - lastStatsLogNanos >= TimeUnit.SECONDS.toNanos(1)) {
+            lastStatsLogNanos = now;
+            final long overlayFrames = overlayView.getDrawnFrames();
+            final long overlayNanos = overlayView.getDrawNanos();
+            if (overlayFrames > lastLoggedOverlayFrames) {
+                VisionLogger.Companion.d(
+                        TAG,
+                        "Detection overlay: " + (overlayFrames - lastLoggedOverlayFrames) + " frames, "
+                                + (overlayNanos - lastLoggedOverlayNanos) / (overlayFrames - lastLoggedOverlayFrames) / 1000
+                                + " us per frame"
+                );
+            }
+            lastLoggedOverlayFrames = overlayFrames;
+            lastLoggedOverlayNanos = overlayNanos;
+            VisionLogger.Companion.d(
+                    TAG,
+                    "Detection tracker: tracks " + detectionTracker.getTrackCount()
+                            + ", created " + detectionTracker.getCreatedTracks()
+                            + " in " + detectionTracker.getUpdates() + " updates"
+            );
+        }
     }
 
-    private void drawSingleDetection(final Canvas canvas, final Detection detection) {
-        // first thing we get coordinates of bounding box
-        final RectF relativeBbox = detection.getBoundingBox();
-        // we need to transform them from relative (range [0, 1]) to absolute in terms of canvas(frame) size
-        // we do not care about screen resolution at all - we will use cropCenter mode
-        final RectF absoluteBbox = new RectF(
-                relativeBbox.left * canvas.getWidth(),
-                relativeBbox.top * canvas.getHeight(),
-                relativeBbox.right * canvas.getWidth(),
-                relativeBbox.bottom * canvas.getHeight()
-        );
-        // we want to draw circle bounds, we need radius and center for that
-        final float radius = (float) Math.sqrt(
-                Math.pow(absoluteBbox.centerX() - absoluteBbox.left, 2) +
-                        Math.pow(absoluteBbox.centerY() - absoluteBbox.top, 2)
-        );
-        canvas.drawCircle(
-                absoluteBbox.centerX(),
-                absoluteBbox.centerY(),
-                radius,
-                paint
-        );
+    private void trackDetections(final Detection[] detections, final long now) {
+        if (detectionClasses.length < detections.length) {
+            detectionClasses = new int[detections.length];
+            detectionConfidences = new float[detections.length];
+            detectionBoxes = new float[detections.length * 4];
+        }
+        int count = 0;
+        for (final Detection detection : detections) {
+            // filter detections which we are not confident with
+            if (detection.getConfidence() <= MIN_DETECTION_CONFIDENCE) {
+                continue;
+            }
+            final RectF box = detection.getBoundingBox();
+            detectionClasses[count] = detection.getDetectionClass().ordinal();
+            detectionConfidences[count] = (float) detection.getConfidence();
+            detectionBoxes[count * 4] = box.left;
+            detectionBoxes[count * 4 + 1] = box.top;
+            detectionBoxes[count * 4 + 2] = box.right;
+            detectionBoxes[count * 4 + 3] = box.bottom;
+            count++;
+        }
+        detectionTracker.update(now, count, detectionClasses, detectionConfidences, detectionBoxes);
+    }
+
+    private void publishTrackedCars(final long now) {
+        detectionPredictor.beginSnapshot(now);
+        for (int i = 0; i < detectionTracker.getTrackCount(); i++) {
+            // we will draw only cars, tracks should be confirmed by a few detections to filter out false ones
+            if (detectionTracker.getTrackClass(i) == DetectionClass.Car.ordinal() && detectionTracker.isConfirmed(i)) {
+                detectionTracker.getBox(i, now, trackBox);
+                detectionTracker.getBoxVelocity(i, trackVelocity);
+                detectionPredictor.add(detectionTracker.getTrackId(i), DetectionClass.Car.ordinal(), trackBox, trackVelocity);
+            }
+        }
+        detectionPredictor.publishSnapshot();
+        overlayView.onSnapshotPublished();
     }
 
-    private void preparePaint() {
-        paint = new Paint(Paint.ANTI_ALIAS_FLAG);
-        paint.setColor(Color.GREEN);
-        paint.setStrokeWidth(5f);
-        paint.setStyle(Paint.Style.STROKE);
+    private static String[] buildClassLabels() {
+        // labels are prepared once, so the overlay doesn't build strings on every frame
+        final DetectionClass[] detectionClasses = DetectionClass.values();
+        final String[] labels = new String[detectionClasses.length];
+        for (final DetectionClass detectionClass : detectionClasses) {
+            labels[detectionClass.ordinal()] = detectionClass.name();
+        }
+        return labels;
     }
 }
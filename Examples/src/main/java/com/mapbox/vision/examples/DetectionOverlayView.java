@@ -0,0 +1,177 @@
+package com.mapbox.vision.examples;
+
+import android.content.Context;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Paint;
+import android.util.AttributeSet;
+import android.view.View;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+/**
+ * Transparent view drawing boxes of {@link DetectionPredictor} on every display frame while they move.
+ * <p>
+ * The view is meant to be placed above {@code VisionView}, which shows the camera frame with center crop scaling,
+ * so only circles and labels are drawn here and frame pixels are never copied to Java.
+ * Every frame the boxes are turned into an {@link OverlayDrawList} that is then replayed on the canvas.
+ * Call {@link #onSnapshotPublished} from any thread after a new snapshot is published to restart drawing.
+ */
+public class DetectionOverlayView extends View {
+
+    private static final int MAX_OBJECTS = 64;
+    // circle and label for every object
+    private static final int MAX_DRAW_COMMANDS = MAX_OBJECTS * 2;
+    private static final float STROKE_WIDTH = 5f;
+    private static final float LABEL_TEXT_SIZE = 36f;
+    private static final float LABEL_PADDING = 8f;
+
+    @Nullable
+    private DetectionPredictor predictor = null;
+    @Nullable
+    private String[] classLabels = null;
+    private volatile int frameWidth = 0;
+    private volatile int frameHeight = 0;
+
+    private final int[] ids = new int[MAX_OBJECTS];
+    private final int[] classes = new int[MAX_OBJECTS];
+    private final float[] boxes = new float[MAX_OBJECTS * 4];
+    private final OverlayDrawList drawList = new OverlayDrawList(MAX_DRAW_COMMANDS);
+
+    private final Paint strokePaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    private final Paint textPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    @Nullable
+    private Canvas canvas = null;
+    private final OverlayDrawList.Renderer canvasRenderer = new OverlayDrawList.Renderer() {
+        @Override
+        public void drawRect(float left, float top, float right, float bottom, int color) {
+            strokePaint.setColor(color);
+            canvas.drawRect(left, top, right, bottom, strokePaint);
+        }
+
+        @Override
+        public void drawCircle(float centerX, float centerY, float radius, int color) {
+            strokePaint.setColor(color);
+            canvas.drawCircle(centerX, centerY, radius, strokePaint);
+        }
+
+        @Override
+        public void drawLabel(float x, float y, String text, int color) {
+            textPaint.setColor(color);
+            canvas.drawText(text, x, y, textPaint);
+        }
+    };
+
+    // written on the main thread, can be read from any thread
+    private volatile long drawnFrames = 0;
+    private volatile long drawNanos = 0;
+
+    public DetectionOverlayView(Context context) {
+        this(context, null);
+    }
+
+    public DetectionOverlayView(Context context, @Nullable AttributeSet attrs) {
+        super(context, attrs);
+        strokePaint.setStrokeWidth(STROKE_WIDTH);
+        strokePaint.setStyle(Paint.Style.STROKE);
+        textPaint.setTextSize(LABEL_TEXT_SIZE);
+    }
+
+    /**
+     * Predictor should be created with no more than {@link #MAX_OBJECTS} objects. Called on the main thread.
+     */
+    public void setPredictor(@Nullable DetectionPredictor predictor) {
+        this.predictor = predictor;
+        postInvalidateOnAnimation();
+    }
+
+    /**
+     * Labels drawn next to objects, indexed by object class. Objects without a label get only a circle.
+     * Called on the main thread.
+     */
+    public void setClassLabels(@Nullable String[] classLabels) {
+        this.classLabels = classLabels;
+        postInvalidateOnAnimation();
+    }
+
+    /**
+     * Size of camera frames boxes are relative to, can be called from any thread.
+     */
+    public void setFrameSize(int width, int height) {
+        frameWidth = width;
+        frameHeight = height;
+    }
+
+    public void onSnapshotPublished() {
+        postInvalidateOnAnimation();
+    }
+
+    /**
+     * Number of frames drawn with objects.
+     */
+    public long getDrawnFrames() {
+        return drawnFrames;
+    }
+
+    /**
+     * Total time spent building and drawing those frames.
+     */
+    public long getDrawNanos() {
+        return drawNanos;
+    }
+
+    @Override
+    protected void onDraw(@NonNull Canvas canvas) {
+        super.onDraw(canvas);
+        final DetectionPredictor predictor = this.predictor;
+        final int frameWidth = this.frameWidth;
+        final int frameHeight = this.frameHeight;
+        if (predictor == null || frameWidth == 0 || frameHeight == 0) {
+            return;
+        }
+
+        final long now = System.nanoTime();
+        final int count = predictor.predict(now, ids, classes, boxes);
+        buildDrawList(count, frameWidth, frameHeight);
+        this.canvas = canvas;
+        drawList.replay(canvasRenderer);
+        this.canvas = null;
+        if (count > 0) {
+            drawNanos += System.nanoTime() - now;
+            drawnFrames++;
+        }
+
+        // keep drawing every display frame only while boxes move
+        if (predictor.isMoving(now)) {
+            postInvalidateOnAnimation();
+        }
+    }
+
+    private void buildDrawList(int count, int frameWidth, int frameHeight) {
+        // same mapping as center crop of the frame to the view
+        final float scale = Math.max((float) getWidth() / frameWidth, (float) getHeight() / frameHeight);
+        final float offsetX = (getWidth() - frameWidth * scale) / 2;
+        final float offsetY = (getHeight() - frameHeight * scale) / 2;
+        final String[] classLabels = this.classLabels;
+
+        drawList.clear();
+        for (int i = 0; i < count; i++) {
+            final float left = offsetX + boxes[i * 4] * frameWidth * scale;
+            final float top = offsetY + boxes[i * 4 + 1] * frameHeight * scale;
+            final float right = offsetX + boxes[i * 4 + 2] * frameWidth * scale;
+            final float bottom = offsetY + boxes[i * 4 + 3] * frameHeight * scale;
+            final float centerX = (left + right) / 2;
+            final float centerY = (top + bottom) / 2;
+            // circle around the box, radius is half of the diagonal
+            final float radius = (float) Math.hypot(right - left, bottom - top) / 2;
+            drawList.addCircle(centerX, centerY, radius, Color.GREEN);
+
+            final int detectionClass = classes[i];
+            if (classLabels != null && detectionClass >= 0 && detectionClass < classLabels.length
+                    && classLabels[detectionClass] != null) {
+                drawList.addLabel(left, centerY - radius - LABEL_PADDING, classLabels[detectionClass], Color.GREEN);
+            }
+        }
+    }
+}
@@ -0,0 +1,228 @@
+package com.mapbox.vision.examples;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Predicts detection boxes at display rate from tracks updated at model rate.
+ * <p>
+ * The detection thread publishes a snapshot of tracks with their box velocities after every model update:
+ * {@link #beginSnapshot}, {@link #add} for every track, {@link #publishSnapshot}. The render thread calls
+ * {@link #predict} on every display frame and gets boxes extrapolated to the display time,
+ * at most {@code maxExtrapolationNanos} ahead of the snapshot.
+ * <p>
+ * Box motion in the image is mostly caused by the vehicle's own motion, so velocities are scaled
+ * by the ratio of the latest vehicle speed to the speed at the snapshot time. When a new snapshot arrives,
+ * the difference between the box shown before and the new prediction fades out during {@code blendNanos},
+ * so boxes move smoothly instead of jumping to the corrected position.
+ * <p>
+ * Snapshots are passed through a lock-free triple buffer and nothing is allocated after construction.
+ * One thread may publish and one thread may predict. The class does not depend on Android,
+ * so it can be exercised on a plain JVM.
+ */
+public class DetectionPredictor {
+
+    // vehicle is considered standing below this speed, m/s, and velocities are not scaled
+    private static final float MIN_SCALED_VEHICLE_SPEED = 1f;
+    private static final float MAX_SPEED_SCALE = 2f;
+    private static final float NANOS_PER_SECOND = 1e9f;
+    private static final long NO_SWITCH = Long.MIN_VALUE;
+
+    private static final int INDEX_MASK = 0b11;
+    private static final int DIRTY = 0b100;
+
+    private static final class Snapshot {
+        long nanos;
+        float vehicleSpeed;
+        int count;
+        final int[] ids;
+        final int[] classes;
+        // left, top, right, bottom
+        final float[] boxes;
+        // center x, center y, width, height per second
+        final float[] velocities;
+
+        Snapshot(int maxObjects) {
+            ids = new int[maxObjects];
+            classes = new int[maxObjects];
+            boxes = new float[maxObjects * 4];
+            velocities = new float[maxObjects * 4];
+        }
+    }
+
+    private final int maxObjects;
+    private final long maxExtrapolationNanos;
+    private final long blendNanos;
+
+    private final Snapshot[] snapshots = new Snapshot[3];
+    // index of the published snapshot, with DIRTY flag if the render thread hasn't taken it yet
+    private final AtomicInteger middle = new AtomicInteger(1);
+    private volatile float vehicleSpeed = 0f;
+
+    // accessed only on the detection thread
+    private int back = 0;
+
+    // accessed only on the render thread
+    private int front = 2;
+    private long switchNanos = NO_SWITCH;
+    // correction of every box of the front snapshot at switchNanos
+    private final float[] corrections;
+    // boxes returned by the last predict
+    private int shownCount = 0;
+    private final int[] shownIds;
+    private final float[] shownBoxes;
+
+    public DetectionPredictor(int maxObjects, long maxExtrapolationNanos, long blendNanos) {
+        this.maxObjects = maxObjects;
+        this.maxExtrapolationNanos = maxExtrapolationNanos;
+        this.blendNanos = blendNanos;
+        for (int i = 0; i < snapshots.length; i++) {
+            snapshots[i] = new Snapshot(maxObjects);
+        }
+        corrections = new float[maxObjects * 4];
+        shownIds = new int[maxObjects];
+        shownBoxes = new float[maxObjects * 4];
+    }
+
+    /**
+     * Latest vehicle speed in m/s, can be called from any thread.
+     */
+    public void setVehicleSpeed(float speed) {
+        vehicleSpeed = speed;
+    }
+
+    /**
+     * Starts a snapshot of tracks at the time of the model update. Called on the detection thread.
+     */
+    public void beginSnapshot(long nowNanos) {
+        final Snapshot snapshot = snapshots[back];
+        snapshot.nanos = nowNanos;
+        snapshot.vehicleSpeed = vehicleSpeed;
+        snapshot.count = 0;
+    }
+
+    /**
+     * Adds a track to the snapshot, tracks above {@code maxObjects} are ignored.
+     *
+     * @param box      left, top, right and bottom at the snapshot time
+     * @param velocity center x, center y, width and height change per second
+     */
+    public void add(int id, int detectionClass, float[] box, float[] velocity) {
+        final Snapshot snapshot = snapshots[back];
+        final int index = snapshot.count;
+        if (index == maxObjects) {
+            return;
+        }
+        snapshot.ids[index] = id;
+        snapshot.classes[index] = detectionClass;
+        System.arraycopy(box, 0, snapshot.boxes, index * 4, 4);
+        System.arraycopy(velocity, 0, snapshot.velocities, index * 4, 4);
+        snapshot.count++;
+    }
+
+    /**
+     * Makes the snapshot visible to {@link #predict}.
+     */
+    public void publishSnapshot() {
+        back = middle.getAndSet(back | DIRTY) & INDEX_MASK;
+    }
+
+    /**
+     * Predicts boxes of the latest snapshot at {@code nowNanos}. Called on the render thread.
+     *
+     * @param ids     id of every box, at least {@code maxObjects} long
+     * @param classes class of every box, at least {@code maxObjects} long
+     * @param boxes   left, top, right and bottom of every box, at least {@code maxObjects * 4} long
+     * @return number of boxes
+     */
+    public int predict(long nowNanos, int[] ids, int[] classes, float[] boxes) {
+        if ((middle.get() & DIRTY) != 0) {
+            front = middle.getAndSet(front) & INDEX_MASK;
+            startBlend(nowNanos);
+        }
+
+        final Snapshot snapshot = snapshots[front];
+        final float blend = switchNanos == NO_SWITCH || nowNanos - switchNanos >= blendNanos
+                ? 0f
+                : 1f - (float) (nowNanos - switchNanos) / blendNanos;
+        final float dt = extrapolationSeconds(snapshot, nowNanos);
+        for (int i = 0; i < snapshot.count; i++) {
+            ids[i] = snapshot.ids[i];
+            classes[i] = snapshot.classes[i];
+            predictBox(snapshot, i, dt, boxes);
+            for (int k = 0; k < 4; k++) {
+                boxes[i * 4 + k] += corrections[i * 4 + k] * blend;
+            }
+        }
+
+        shownCount = snapshot.count;
+        System.arraycopy(ids, 0, shownIds, 0, shownCount);
+        System.arraycopy(boxes, 0, shownBoxes, 0, shownCount * 4);
+        return snapshot.count;
+    }
+
+    /**
+     * Whether boxes predicted at {@code nowNanos} can differ from the last predicted ones,
+     * i.e. a new snapshot is published or boxes are still extrapolated or blended. Called on the render thread.
+     */
+    public boolean isMoving(long nowNanos) {
+        if ((middle.get() & DIRTY) != 0) {
+            return true;
+        }
+        final Snapshot snapshot = snapshots[front];
+        if (snapshot.count == 0) {
+            return false;
+        }
+        return nowNanos - snapshot.nanos < maxExtrapolationNanos
+                || (switchNanos != NO_SWITCH && nowNanos - switchNanos < blendNanos);
+    }
+
+    private void startBlend(long nowNanos) {
+        final Snapshot snapshot = snapshots[front];
+        final float dt = extrapolationSeconds(snapshot, nowNanos);
+        for (int i = 0; i < snapshot.count; i++) {
+            // objects are few, linear search is cheaper than any index
+            int shown = -1;
+            for (int j = 0; j < shownCount; j++) {
+                if (shownIds[j] == snapshot.ids[i]) {
+                    shown = j;
+                    break;
+                }
+            }
+            if (shown < 0) {
+                // a new object appears where it was detected
+                for (int k = 0; k < 4; k++) {
+                    corrections[i * 4 + k] = 0f;
+                }
+                continue;
+            }
+            predictBox(snapshot, i, dt, corrections);
+            for (int k = 0; k < 4; k++) {
+                corrections[i * 4 + k] = shownBoxes[shown * 4 + k] - corrections[i * 4 + k];
+            }
+        }
+        switchNanos = nowNanos;
+    }
+
+    private float extrapolationSeconds(Snapshot snapshot, long nowNanos) {
+        final long elapsedNanos = Math.max(0, Math.min(nowNanos - snapshot.nanos, maxExtrapolationNanos));
+        float dt = elapsedNanos / NANOS_PER_SECOND;
+        if (snapshot.vehicleSpeed >= MIN_SCALED_VEHICLE_SPEED) {
+            dt *= Math.max(0f, Math.min(vehicleSpeed / snapshot.vehicleSpeed, MAX_SPEED_SCALE));
+        }
+        return dt;
+    }
+
+    private static void predictBox(Snapshot snapshot, int index, float dt, float[] boxes) {
+        final int offset = index * 4;
+        final float[] box = snapshot.boxes;
+        final float[] velocity = snapshot.velocities;
+        final float centerX = (box[offset] + box[offset + 2]) / 2 + velocity[offset] * dt;
+        final float centerY = (box[offset + 1] + box[offset + 3]) / 2 + velocity[offset + 1] * dt;
+        final float halfWidth = Math.max(0f, box[offset + 2] - box[offset] + velocity[offset + 2] * dt) / 2;
+        final float halfHeight = Math.max(0f, box[offset + 3] - box[offset + 1] + velocity[offset + 3] * dt) / 2;
+        boxes[offset] = centerX - halfWidth;
+        boxes[offset + 1] = centerY - halfHeight;
+        boxes[offset + 2] = centerX + halfWidth;
+        boxes[offset + 3] = centerY + halfHeight;
+    }
+}
@@ -0,0 +1,357 @@
+package com.mapbox.vision.examples;
+
+import java.util.Arrays;
+
+/**
+ * Tracking by detection over frame detections, gives detected objects stable ids between model updates.
+ * <p>
+ * Boxes are relative to the frame size. Every track has a constant velocity model of box center and size,
+ * corrected by each associated detection with an alpha-beta filter (a steady state Kalman filter).
+ * Detections are associated with tracks of the same class greedily, in order of decreasing IoU
+ * between the detection and the track box predicted to the detection time. Pairs with IoU below
+ * {@code minIou} are never associated.
+ * <p>
+ * A track is confirmed after {@code minHits} associated detections and dropped after
+ * {@code maxMissedUpdates} updates without one. Until then it coasts on its velocity,
+ * so a box doesn't disappear when the model skips an object on a single frame.
+ * <p>
+ * All state lives in arrays allocated in the constructor, {@link #update} doesn't allocate
+ * unless it gets more detections than {@code maxTracks} or unusually many overlapping boxes.
+ * Not thread safe. The class does not depend on Android, so it can be exercised on a plain JVM.
+ */
+public class DetectionTracker {
+
+    public static final int NO_TRACK = -1;
+
+    private static final float NANOS_PER_SECOND = 1e9f;
+    private static final float POSITION_GAIN = 0.6f;
+    private static final float VELOCITY_GAIN = 0.2f;
+
+    private final float minIou;
+    private final int minHits;
+    private final int maxMissedUpdates;
+
+    // per track slot, box is center and size
+    private final int[] trackIds;
+    private final int[] trackClasses;
+    private final float[] confidences;
+    private final float[] centerX;
+    private final float[] centerY;
+    private final float[] width;
+    private final float[] height;
+    private final float[] velocityCenterX;
+    private final float[] velocityCenterY;
+    private final float[] velocityWidth;
+    private final float[] velocityHeight;
+    private final long[] updateNanos;
+    private final int[] hits;
+    private final int[] missedUpdates;
+    private final boolean[] matched;
+
+    private final int[] freeSlots;
+    private int freeSlotCount;
+    private final int[] activeSlots;
+    private int activeCount = 0;
+
+    // candidate pairs, IoU bits in the high half and slot and detection in the low half
+    private long[] pairs;
+    private int[] detectionSlots;
+
+    private int nextTrackId = 0;
+    private long updates = 0;
+    private long createdTracks = 0;
+    private long droppedDetections = 0;
+
+    public DetectionTracker(int maxTracks, float minIou, int minHits, int maxMissedUpdates) {
+        if (maxTracks <= 0 || maxTracks > 0xFFFF || minIou <= 0 || minIou > 1 || minHits <= 0) {
+            throw new IllegalArgumentException("Invalid tracker parameters");
+        }
+        this.minIou = minIou;
+        this.minHits = minHits;
+        this.maxMissedUpdates = maxMissedUpdates;
+
+        trackIds = new int[maxTracks];
+        trackClasses = new int[maxTracks];
+        confidences = new float[maxTracks];
+        centerX = new float[maxTracks];
+        centerY = new float[maxTracks];
+        width = new float[maxTracks];
+        height = new float[maxTracks];
+        velocityCenterX = new float[maxTracks];
+        velocityCenterY = new float[maxTracks];
+        velocityWidth = new float[maxTracks];
+        velocityHeight = new float[maxTracks];
+        updateNanos = new long[maxTracks];
+        hits = new int[maxTracks];
+        missedUpdates = new int[maxTracks];
+        matched = new boolean[maxTracks];
+
+        freeSlots = new int[maxTracks];
+        for (int i = 0; i < maxTracks; i++) {
+            freeSlots[i] = maxTracks - 1 - i;
+        }
+        freeSlotCount = maxTracks;
+        activeSlots = new int[maxTracks];
+
+        pairs = new long[maxTracks * 4];
+        detectionSlots = new int[maxTracks];
+    }
+
+    /**
+     * Associates detections of a frame with tracks and corrects the tracks.
+     *
+     * @param classes     class of every detection, detections of different classes are never associated
+     * @param confidences confidence of every detection
+     * @param boxes       left, top, right and bottom of every detection relative to the frame size
+     */
+    public void update(long nowNanos, int count, int[] classes, float[] confidences, float[] boxes) {
+        updates++;
+        if (detectionSlots.length < count) {
+            // more detections than tracks, grows once per new maximum
+            detectionSlots = new int[count];
+        }
+        for (int i = 0; i < count; i++) {
+            detectionSlots[i] = NO_TRACK;
+        }
+        for (int i = 0; i < activeCount; i++) {
+            matched[activeSlots[i]] = false;
+        }
+
+        associate(nowNanos, count, classes, boxes);
+
+        for (int i = 0; i < count; i++) {
+            int slot = detectionSlots[i];
+            if (slot == NO_TRACK) {
+                slot = startTrack(nowNanos, classes[i], boxes, i);
+                detectionSlots[i] = slot;
+                if (slot == NO_TRACK) {
+                    droppedDetections++;
+                    continue;
+                }
+            } else {
+                correctTrack(slot, nowNanos, boxes, i);
+            }
+            this.confidences[slot] = confidences[i];
+            hits[slot]++;
+            missedUpdates[slot] = 0;
+        }
+
+        dropMissedTracks();
+    }
+
+    /**
+     * Number of tracks after the last update, tracks are accessed by index from 0 to this count.
+     */
+    public int getTrackCount() {
+        return activeCount;
+    }
+
+    public int getTrackId(int index) {
+        return trackIds[activeSlots[index]];
+    }
+
+    public int getTrackClass(int index) {
+        return trackClasses[activeSlots[index]];
+    }
+
+    /**
+     * Confidence of the last detection associated with the track.
+     */
+    public float getConfidence(int index) {
+        return confidences[activeSlots[index]];
+    }
+
+    /**
+     * Whether the track has got enough detections to be shown.
+     */
+    public boolean isConfirmed(int index) {
+        return hits[activeSlots[index]] >= minHits;
+    }
+
+    /**
+     * Whether the track was associated with a detection on the last update, otherwise it coasts.
+     */
+    public boolean isDetected(int index) {
+        return missedUpdates[activeSlots[index]] == 0;
+    }
+
+    /**
+     * Writes box of the track predicted to {@code nowNanos} to {@code box} as left, top, right and bottom.
+     */
+    public void getBox(int index, long nowNanos, float[] box) {
+        predictBox(activeSlots[index], nowNanos, box, 0);
+    }
+
+    /**
+     * Writes velocity of the track to {@code velocity} as change of box center x, center y, width and height
+     * per second.
+     */
+    public void getBoxVelocity(int index, float[] velocity) {
+        final int slot = activeSlots[index];
+        velocity[0] = velocityCenterX[slot];
+        velocity[1] = velocityCenterY[slot];
+        velocity[2] = velocityWidth[slot];
+        velocity[3] = velocityHeight[slot];
+    }
+
+    /**
+     * Id of the track the detection of the last update was associated with, {@link #NO_TRACK} if it was dropped
+     * because all tracks are taken.
+     */
+    public int getDetectionTrackId(int detection) {
+        final int slot = detectionSlots[detection];
+        return slot == NO_TRACK ? NO_TRACK : trackIds[slot];
+    }
+
+    public long getUpdates() {
+        return updates;
+    }
+
+    public long getCreatedTracks() {
+        return createdTracks;
+    }
+
+    /**
+     * Detections which got no track because all {@code maxTracks} were taken.
+     */
+    public long getDroppedDetections() {
+        return droppedDetections;
+    }
+
+    private void associate(long nowNanos, int count, int[] classes, float[] boxes) {
+        int pairCount = 0;
+        for (int i = 0; i < activeCount; i++) {
+            final int slot = activeSlots[i];
+            final float dt = (nowNanos - updateNanos[slot]) / NANOS_PER_SECOND;
+            final float halfWidth = Math.max(0f, width[slot] + velocityWidth[slot] * dt) / 2;
+            final float halfHeight = Math.max(0f, height[slot] + velocityHeight[slot] * dt) / 2;
+            final float left = centerX[slot] + velocityCenterX[slot] * dt - halfWidth;
+            final float top = centerY[slot] + velocityCenterY[slot] * dt - halfHeight;
+            final float right = left + halfWidth * 2;
+            final float bottom = top + halfHeight * 2;
+
+            for (int j = 0; j < count; j++) {
+                if (classes[j] != trackClasses[slot]) {
+                    continue;
+                }
+                final float iou = iou(left, top, right, bottom, boxes, j * 4);
+                if (iou >= minIou) {
+                    if (pairCount == pairs.length) {
+                        // overlapping boxes of one class are rare, grows only in crowded scenes
+                        pairs = Arrays.copyOf(pairs, pairCount * 2);
+                    }
+                    // IoU is positive, so bits of the float order the same way as values
+                    pairs[pairCount++] = ((long) Float.floatToIntBits(iou) << 32) | ((long) slot << 16) | j;
+                }
+            }
+        }
+
+        sortDescending(pairs, pairCount);
+        for (int i = 0; i < pairCount; i++) {
+            final int slot = (int) (pairs[i] >>> 16) & 0xFFFF;
+            final int detection = (int) pairs[i] & 0xFFFF;
+            if (!matched[slot] && detectionSlots[detection] == NO_TRACK) {
+                matched[slot] = true;
+                detectionSlots[detection] = slot;
+            }
+        }
+    }
+
+    private int startTrack(long nowNanos, int detectionClass, float[] boxes, int detection) {
+        if (freeSlotCount == 0) {
+            return NO_TRACK;
+        }
+        final int slot = freeSlots[--freeSlotCount];
+        final int offset = detection * 4;
+        matched[slot] = true;
+        trackIds[slot] = nextTrackId++;
+        trackClasses[slot] = detectionClass;
+        centerX[slot] = (boxes[offset] + boxes[offset + 2]) / 2;
+        centerY[slot] = (boxes[offset + 1] + boxes[offset + 3]) / 2;
+        width[slot] = boxes[offset + 2] - boxes[offset];
+        height[slot] = boxes[offset + 3] - boxes[offset + 1];
+        velocityCenterX[slot] = 0f;
+        velocityCenterY[slot] = 0f;
+        velocityWidth[slot] = 0f;
+        velocityHeight[slot] = 0f;
+        updateNanos[slot] = nowNanos;
+        hits[slot] = 0;
+        activeSlots[activeCount++] = slot;
+        createdTracks++;
+        return slot;
+    }
+
+    private void correctTrack(int slot, long nowNanos, float[] boxes, int detection) {
+        final int offset = detection * 4;
+        final float dt = (nowNanos - updateNanos[slot]) / NANOS_PER_SECOND;
+        if (dt <= 0f) {
+            return;
+        }
+        centerX[slot] = correct(slot, centerX, velocityCenterX, (boxes[offset] + boxes[offset + 2]) / 2, dt);
+        centerY[slot] = correct(slot, centerY, velocityCenterY, (boxes[offset + 1] + boxes[offset + 3]) / 2, dt);
+        width[slot] = correct(slot, width, velocityWidth, boxes[offset + 2] - boxes[offset], dt);
+        height[slot] = correct(slot, height, velocityHeight, boxes[offset + 3] - boxes[offset + 1], dt);
+        updateNanos[slot] = nowNanos;
+    }
+
+    private static float correct(int slot, float[] values, float[] velocities, float measured, float dt) {
+        final float predicted = values[slot] + velocities[slot] * dt;
+        final float residual = measured - predicted;
+        velocities[slot] += VELOCITY_GAIN * residual / dt;
+        return predicted + POSITION_GAIN * residual;
+    }
+
+    private void predictBox(int slot, long nowNanos, float[] box, int offset) {
+        final float dt = (nowNanos - updateNanos[slot]) / NANOS_PER_SECOND;
+        final float halfWidth = Math.max(0f, width[slot] + velocityWidth[slot] * dt) / 2;
+        final float halfHeight = Math.max(0f, height[slot] + velocityHeight[slot] * dt) / 2;
+        final float x = centerX[slot] + velocityCenterX[slot] * dt;
+        final float y = centerY[slot] + velocityCenterY[slot] * dt;
+        box[offset] = x - halfWidth;
+        box[offset + 1] = y - halfHeight;
+        box[offset + 2] = x + halfWidth;
+        box[offset + 3] = y + halfHeight;
+    }
+
+    private void dropMissedTracks() {
+        int kept = 0;
+        for (int i = 0; i < activeCount; i++) {
+            final int slot = activeSlots[i];
+            // tentative tracks are dropped on the first miss, they are likely false detections
+            final boolean drop = !matched[slot]
+                    && (++missedUpdates[slot] > maxMissedUpdates || hits[slot] < minHits);
+            if (drop) {
+                freeSlots[freeSlotCount++] = slot;
+            } else {
+                activeSlots[kept++] = slot;
+            }
+        }
+        activeCount = kept;
+    }
+
+    private static float iou(float left, float top, float right, float bottom, float[] boxes, int offset) {
+        final float intersectionWidth = Math.min(right, boxes[offset + 2]) - Math.max(left, boxes[offset]);
+        final float intersectionHeight = Math.min(bottom, boxes[offset + 3]) - Math.max(top, boxes[offset + 1]);
+        if (intersectionWidth <= 0f || intersectionHeight <= 0f) {
+            return 0f;
+        }
+        final float intersection = intersectionWidth * intersectionHeight;
+        final float union = (right - left) * (bottom - top)
+                + (boxes[offset + 2] - boxes[offset]) * (boxes[offset + 3] - boxes[offset + 1])
+                - intersection;
+        return union <= 0f ? 0f : intersection / union;
+    }
+
+    // insertion sort, candidate pairs are few since boxes of different objects rarely overlap
+    private static void sortDescending(long[] values, int count) {
+        for (int i = 1; i < count; i++) {
+            final long value = values[i];
+            int j = i - 1;
+            while (j >= 0 && values[j] < value) {
+                values[j + 1] = values[j];
+                j--;
+            }
+            values[j + 1] = value;
+        }
+    }
+}
@@ -0,0 +1,186 @@
+package com.mapbox.vision.examples;
+
+import com.mapbox.vision.VisionManager;
+import com.mapbox.vision.mobile.core.interfaces.VisionEventsListener;
+import com.mapbox.vision.mobile.core.models.AuthorizationStatus;
+import com.mapbox.vision.mobile.core.models.Camera;
+import com.mapbox.vision.mobile.core.models.Country;
+import com.mapbox.vision.mobile.core.models.FrameSegmentation;
+import com.mapbox.vision.mobile.core.models.classification.FrameSignClassifications;
+import com.mapbox.vision.mobile.core.models.detection.FrameDetections;
+import com.mapbox.vision.mobile.core.models.frame.Image;
+import com.mapbox.vision.mobile.core.models.frame.ImageSize;
+import com.mapbox.vision.mobile.core.models.position.VehicleState;
+import com.mapbox.vision.mobile.core.models.road.RoadDescription;
+import com.mapbox.vision.mobile.core.models.world.WorldDescription;
+import com.mapbox.vision.utils.VisionLogger;
+import com.mapbox.vision.view.VisionView;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Example shows how drivable area can be measured on the segmentation mask of Vision SDK.
+ * <p>
+ * The mask is copied once per frame and measured by {@link DrivableAreaStats} on Vision SDK thread,
+ * statistics are logged when the example is stopped.
+ */
+public class DrivableAreaActivity extends BaseActivity {
+
+    private static final String TAG = DrivableAreaActivity.class.getSimpleName();
+    // index of the road class for another segmentation model
+    private static final String EXTRA_ROAD_CLASS = "road_class";
+    // index of Road in the classes of the segmentation model: Crosswalk, Hood, MarkupDashed, MarkupDouble,
+    // MarkupOther, MarkupSolid, Other, Road, RoadEdge, Sidewalk
+    private static final int ROAD_CLASS = 7;
+    // road borders are measured on this row, as a fraction of the mask height
+    private static final float BORDER_ROW = 0.75f;
+
+    private VisionView visionView;
+    private boolean visionManagerWasInit = false;
+
+    // used only on Vision SDK thread
+    private DrivableAreaStats drivableAreaStats;
+    private ByteBuffer segmentationMask = ByteBuffer.allocateDirect(0);
+    private long unsupportedMasks = 0;
+
+    // VisionEventsListener handles events from Vision SDK on background thread.
+    private VisionEventsListener visionEventsListener = new VisionEventsListener() {
+
+        @Override
+        public void onAuthorizationStatusUpdated(@NotNull AuthorizationStatus authorizationStatus) {
+        }
+
+        @Override
+        public void onFrameSegmentationUpdated(@NotNull FrameSegmentation frameSegmentation) {
+            // the mask is valid only during this callback, so it's copied once and measured on the copy
+            final Image mask = frameSegmentation.getSegmentation();
+            final ImageSize size = mask.getSize();
+            final int width = size.getImageWidth();
+            final int height = size.getImageHeight();
+            if (mask.sizeInBytes() != width * height) {
+                // runs are built from one class byte per pixel
+                if (unsupportedMasks++ == 0) {
+                    VisionLogger.Companion.e(
+                            TAG,
+                            "Unsupported segmentation mask: " + mask.sizeInBytes() + " bytes for "
+                                    + width + "x" + height + ", one class byte per pixel is expected"
+                    );
+                }
+                return;
+            }
+            if (segmentationMask.capacity() < width * height) {
+                segmentationMask = ByteBuffer.allocateDirect(width * height);
+            }
+            segmentationMask.clear();
+            mask.copyPixels(segmentationMask);
+            segmentationMask.rewind();
+            drivableAreaStats.update(segmentationMask, width, height, width);
+        }
+
+        @Override
+        public void onFrameDetectionsUpdated(@NotNull FrameDetections frameDetections) {
+        }
+
+        @Override
+        public void onFrameSignClassificationsUpdated(@NotNull FrameSignClassifications frameSignClassifications) {
+        }
+
+        @Override
+        public void onRoadDescriptionUpdated(@NotNull RoadDescription roadDescription) {
+        }
+
+        @Override
+        public void onWorldDescriptionUpdated(@NotNull WorldDescription worldDescription) {
+        }
+
+        @Override
+        public void onVehicleStateUpdated(@NotNull VehicleState vehicleState) {
+        }
+
+        @Override
+        public void onCameraUpdated(@NotNull Camera camera) {
+        }
+
+        @Override
+        public void onCountryUpdated(@NotNull Country country) {
+        }
+
+        @Override
+        public void onUpdateCompleted() {
+        }
+    };
+
+    @Override
+    protected void initViews() {
+        setContentView(R.layout.activity_main);
+        visionView = findViewById(R.id.vision_view);
+    }
+
+    @Override
+    protected void onPermissionsGranted() {
+        startVisionManager();
+    }
+
+    @Override
+    protected void onStart() {
+        super.onStart();
+        startVisionManager();
+    }
+
+    @Override
+    protected void onStop() {
+        super.onStop();
+        stopVisionManager();
+    }
+
+    @Override
+    protected void onResume() {
+        super.onResume();
+        visionView.onResume();
+    }
+
+    @Override
+    protected void onPause() {
+        super.onPause();
+        visionView.onPause();
+    }
+
+    private void startVisionManager() {
+        if (allPermissionsGranted() && !visionManagerWasInit) {
+            drivableAreaStats = new DrivableAreaStats(
+                    getIntent().getIntExtra(EXTRA_ROAD_CLASS, ROAD_CLASS),
+                    BORDER_ROW
+            );
+            unsupportedMasks = 0;
+
+            VisionManager.create();
+            visionView.setVisionManager(VisionManager.INSTANCE);
+            VisionManager.setVisionEventsListener(visionEventsListener);
+            VisionManager.start();
+
+            visionManagerWasInit = true;
+        }
+    }
+
+    private void stopVisionManager() {
+        if (visionManagerWasInit) {
+            VisionManager.stop();
+            VisionManager.destroy();
+
+            VisionLogger.Companion.d(
+                    TAG,
+                    "Segmentation: " + drivableAreaStats.getFrames() + " masks of road class "
+                            + drivableAreaStats.getRoadClass() + ", unsupported " + unsupportedMasks
+                            + ", " + drivableAreaStats.getMeanEncodedBytes() + " bytes per encoded mask"
+                            + ", drivable area " + Math.round(drivableAreaStats.getMeanAreaShare() * 100)
+                            + "% of the lower half"
+                            + ", width " + Math.round(drivableAreaStats.getMeanWidthShare() * 100)
+                            + "% of the frame"
+            );
+
+            visionManagerWasInit = false;
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package com.mapbox.vision.examples;
+
+import androidx.annotation.NonNull;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Drivable area measured on segmentation masks: the share of the lower half of the frame covered by the road class
+ * and the width of the road on one row below the horizon.
+ * <p>
+ * The road class is the index of the road in the classes of the segmentation model in use, it's passed explicitly
+ * since class indices are defined by the model. Every mask is encoded into {@link SegmentationRuns} once
+ * and both measurements walk the runs.
+ * <p>
+ * Instances are not thread safe. The class does not depend on Android, so it can be exercised on a plain JVM.
+ */
+public class DrivableAreaStats {
+
+    private static final int MAX_ROW_SPANS = 32;
+
+    private final int roadClass;
+    private final float borderRow;
+    private final SegmentationRuns runs = new SegmentationRuns();
+    private final int[] spanStarts = new int[MAX_ROW_SPANS];
+    private final int[] spanEnds = new int[MAX_ROW_SPANS];
+
+    private float areaShare = 0;
+    private float widthShare = 0;
+    private long frames = 0;
+    private long encodedBytes = 0;
+    private double areaShareSum = 0;
+    private double widthShareSum = 0;
+
+    /**
+     * @param roadClass segmentation class of the road, in {@code [0, SegmentationRuns.MAX_CLASSES)}
+     * @param borderRow row the road width is measured on, as a fraction of the mask height in {@code [0.5, 1)}
+     */
+    public DrivableAreaStats(int roadClass, float borderRow) {
+        if (roadClass < 0 || roadClass >= SegmentationRuns.MAX_CLASSES) {
+            throw new IllegalArgumentException("Road class " + roadClass + " is out of [0, " + SegmentationRuns.MAX_CLASSES + ")");
+        }
+        if (!(borderRow >= 0.5f && borderRow < 1)) {
+            throw new IllegalArgumentException("Border row " + borderRow + " is out of [0.5, 1)");
+        }
+        this.roadClass = roadClass;
+        this.borderRow = borderRow;
+    }
+
+    /**
+     * Measures the mask. The buffer position is not changed.
+     *
+     * @param mask      class of every pixel, rows start at the buffer position
+     * @param rowStride distance between rows in bytes, at least {@code width}
+     */
+    public void update(@NonNull ByteBuffer mask, int width, int height, int rowStride) {
+        runs.encode(mask, width, height, rowStride);
+
+        final int top = height / 2;
+        final long roadArea = runs.getArea(roadClass, 0, top, width, height);
+        areaShare = (float) ((double) roadArea / ((long) width * (height - top)));
+
+        // the widest span is the road the vehicle is on, others are e.g. a road across a median
+        final int spans = runs.getRowSpans((int) (height * borderRow), roadClass, spanStarts, spanEnds);
+        int roadWidth = 0;
+        for (int i = 0; i < spans; i++) {
+            roadWidth = Math.max(roadWidth, spanEnds[i] - spanStarts[i]);
+        }
+        widthShare = (float) roadWidth / width;
+
+        frames++;
+        encodedBytes += runs.getEncodedBytes();
+        areaShareSum += areaShare;
+        widthShareSum += widthShare;
+    }
+
+    public int getRoadClass() {
+        return roadClass;
+    }
+
+    /**
+     * Share of the lower half of the last mask covered by the road.
+     */
+    public float getAreaShare() {
+        return areaShare;
+    }
+
+    /**
+     * Width of the road on the border row of the last mask, as a share of the mask width.
+     */
+    public float getWidthShare() {
+        return widthShare;
+    }
+
+    public long getFrames() {
+        return frames;
+    }
+
+    public double getMeanAreaShare() {
+        return frames == 0 ? 0 : areaShareSum / frames;
+    }
+
+    public double getMeanWidthShare() {
+        return frames == 0 ? 0 : widthShareSum / frames;
+    }
+
+    public long getMeanEncodedBytes() {
+        return frames == 0 ? 0 : encodedBytes / frames;
+    }
+}
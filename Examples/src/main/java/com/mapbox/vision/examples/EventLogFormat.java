@@ -0,0 +1,179 @@
+package com.mapbox.vision.examples;
+
+import androidx.annotation.NonNull;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Constants and varint coding shared by {@link EventLogWriter} and {@link EventLogReader}.
+ * <p>
+ * Event log is a header followed by blocks. Every block holds events of one type stored column by column:
+ * <pre>
+ * header: magic "VEL", version byte
+ * block:  type byte, event count varint, payload length varint, payload
+ * </pre>
+ * Inside a payload every column is a run of zigzag varints. Timestamps and slowly changing values
+ * (coordinates, speed) are stored as deltas to the previous event of the block, so they mostly take one or two bytes.
+ * Floating point values are quantized with the scales below.
+ * <p>
+ * Column layout of every type is defined by {@link #newColumns}. Event columns hold one value per event,
+ * the first of them is the time in microseconds. Object columns, if any, hold one value per detected object
+ * and follow the event columns, number of objects of an event is in {@link #OBJECT_COUNT_COLUMN}.
+ */
+final class EventLogFormat {
+
+    static final byte[] MAGIC = {'V', 'E', 'L'};
+    static final byte VERSION = 1;
+    static final int HEADER_BYTES = MAGIC.length + 1;
+
+    static final byte TYPE_VEHICLE_STATE = 1;
+    static final byte TYPE_FRAME_DETECTIONS = 2;
+    static final byte TYPE_ROAD_DESCRIPTION = 3;
+    static final byte TYPE_WORLD_DESCRIPTION = 4;
+    static final byte TYPE_ROAD_RESTRICTIONS = 5;
+
+    // 1e-7 degree is about 1 cm
+    static final double COORDINATE_SCALE = 1e7;
+    // centimeters per second
+    static final float SPEED_SCALE = 100f;
+    static final float CONFIDENCE_SCALE = 1000f;
+    // bounding boxes are relative to frame size
+    static final float BOX_SCALE = 10000f;
+    static final float LANE_POSITION_SCALE = 1000f;
+    // centimeters
+    static final float WORLD_SCALE = 100f;
+    static final float SPEED_LIMIT_SCALE = 10f;
+
+    static final int TIME_COLUMN = 0;
+    static final int OBJECT_COUNT_COLUMN = 1;
+
+    // block header is type, count and length varints
+    static final int MAX_BLOCK_HEADER_BYTES = 1 + 5 + 5;
+    static final int MAX_VARINT_BYTES = 10;
+
+    private EventLogFormat() {
+    }
+
+    static void putVarLong(@NonNull ByteBuffer buffer, long value) {
+        long zigzag = (value << 1) ^ (value >> 63);
+        while ((zigzag & ~0x7FL) != 0) {
+            buffer.put((byte) ((zigzag & 0x7F) | 0x80));
+            zigzag >>>= 7;
+        }
+        buffer.put((byte) zigzag);
+    }
+
+    static long getVarLong(@NonNull ByteBuffer buffer) {
+        long zigzag = 0;
+        int shift = 0;
+        byte b;
+        do {
+            if (shift >= 64) {
+                throw new IllegalStateException("Malformed varint at " + buffer.position());
+            }
+            b = buffer.get();
+            zigzag |= (long) (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        return (zigzag >>> 1) ^ -(zigzag & 1);
+    }
+
+    static int getVarInt(@NonNull ByteBuffer buffer) {
+        return (int) getVarLong(buffer);
+    }
+
+    static int quantize(float value, float scale) {
+        return Math.round(value * scale);
+    }
+
+    static final class Column {
+        final boolean delta;
+        final boolean perObject;
+        long[] values = new long[64];
+        int size = 0;
+
+        Column(boolean delta, boolean perObject) {
+            this.delta = delta;
+            this.perObject = perObject;
+        }
+
+        void add(long value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        void clear() {
+            size = 0;
+        }
+
+        void encode(@NonNull ByteBuffer buffer) {
+            long previous = 0;
+            for (int i = 0; i < size; i++) {
+                final long value = values[i];
+                putVarLong(buffer, delta ? value - previous : value);
+                previous = value;
+            }
+        }
+
+        void decode(@NonNull ByteBuffer buffer, int count) {
+            if (values.length < count) {
+                values = new long[count];
+            }
+            long previous = 0;
+            for (int i = 0; i < count; i++) {
+                final long value = delta ? previous + getVarLong(buffer) : getVarLong(buffer);
+                values[i] = value;
+                previous = value;
+            }
+            size = count;
+        }
+    }
+
+    @NonNull
+    static Column[] newColumns(byte type) {
+        switch (type) {
+            case TYPE_VEHICLE_STATE:
+                // time, latitude, longitude, speed
+                return new Column[]{
+                        eventColumn(true), eventColumn(true), eventColumn(true), eventColumn(true)
+                };
+            case TYPE_FRAME_DETECTIONS:
+                // time, object count | class, confidence, left, top, right, bottom
+                return new Column[]{
+                        eventColumn(true), eventColumn(false),
+                        objectColumn(), objectColumn(), objectColumn(), objectColumn(), objectColumn(), objectColumn()
+                };
+            case TYPE_ROAD_DESCRIPTION:
+                // time, lane count, current lane index, relative position in the current lane
+                return new Column[]{
+                        eventColumn(true), eventColumn(false), eventColumn(false), eventColumn(false)
+                };
+            case TYPE_WORLD_DESCRIPTION:
+                // time, object count | class, x, y
+                return new Column[]{
+                        eventColumn(true), eventColumn(false),
+                        objectColumn(), objectColumn(), objectColumn()
+                };
+            case TYPE_ROAD_RESTRICTIONS:
+                // time, min speed, max speed
+                return new Column[]{
+                        eventColumn(true), eventColumn(true), eventColumn(true)
+                };
+            default:
+                throw new IllegalArgumentException("Unknown event type " + type);
+        }
+    }
+
+    @NonNull
+    private static Column eventColumn(boolean delta) {
+        return new Column(delta, false);
+    }
+
+    @NonNull
+    private static Column objectColumn() {
+        return new Column(false, true);
+    }
+}
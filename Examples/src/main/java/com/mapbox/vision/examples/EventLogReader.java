@@ -0,0 +1,279 @@
+package com.mapbox.vision.examples;
+
+import androidx.annotation.NonNull;
+
+import com.mapbox.vision.examples.EventLogFormat.Column;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+
+import static com.mapbox.vision.examples.EventLogFormat.BOX_SCALE;
+import static com.mapbox.vision.examples.EventLogFormat.CONFIDENCE_SCALE;
+import static com.mapbox.vision.examples.EventLogFormat.COORDINATE_SCALE;
+import static com.mapbox.vision.examples.EventLogFormat.HEADER_BYTES;
+import static com.mapbox.vision.examples.EventLogFormat.LANE_POSITION_SCALE;
+import static com.mapbox.vision.examples.EventLogFormat.MAGIC;
+import static com.mapbox.vision.examples.EventLogFormat.MAX_BLOCK_HEADER_BYTES;
+import static com.mapbox.vision.examples.EventLogFormat.OBJECT_COUNT_COLUMN;
+import static com.mapbox.vision.examples.EventLogFormat.SPEED_LIMIT_SCALE;
+import static com.mapbox.vision.examples.EventLogFormat.SPEED_SCALE;
+import static com.mapbox.vision.examples.EventLogFormat.TIME_COLUMN;
+import static com.mapbox.vision.examples.EventLogFormat.TYPE_FRAME_DETECTIONS;
+import static com.mapbox.vision.examples.EventLogFormat.TYPE_ROAD_DESCRIPTION;
+import static com.mapbox.vision.examples.EventLogFormat.TYPE_ROAD_RESTRICTIONS;
+import static com.mapbox.vision.examples.EventLogFormat.TYPE_VEHICLE_STATE;
+import static com.mapbox.vision.examples.EventLogFormat.TYPE_WORLD_DESCRIPTION;
+import static com.mapbox.vision.examples.EventLogFormat.VERSION;
+import static com.mapbox.vision.examples.EventLogFormat.WORLD_SCALE;
+import static com.mapbox.vision.examples.EventLogFormat.getVarInt;
+import static com.mapbox.vision.examples.EventLogFormat.newColumns;
+
+/**
+ * Reads an event log written by {@link EventLogWriter} block by block, without loading the whole file.
+ * <p>
+ * Events of one block are passed to the {@link Visitor} in order of writing. Events of different types
+ * are stored in different blocks, so they are interleaved only with the block granularity,
+ * use the time to merge them if the order matters.
+ * <p>
+ * Not thread safe. The class does not depend on Android, so it can be exercised on a plain JVM.
+ */
+public class EventLogReader implements Closeable {
+
+    /**
+     * Arrays passed to the visitor are reused between events and are valid only during the call.
+     */
+    public interface Visitor {
+        void onVehicleState(long timeMicros, double latitude, double longitude, float speed);
+
+        void onFrameDetections(long timeMicros, int count, int[] classes, float[] confidences, float[] boxes);
+
+        void onRoadDescription(long timeMicros, int laneCount, int currentLaneIndex, float currentLaneRelativePosition);
+
+        void onWorldDescription(long timeMicros, int count, int[] classes, float[] positions);
+
+        void onRoadRestrictions(long timeMicros, float minSpeed, float maxSpeed);
+    }
+
+    private static final int READ_BUFFER_BYTES = 64 * 1024;
+
+    private final FileChannel channel;
+    private ByteBuffer buffer = ByteBuffer.allocate(READ_BUFFER_BYTES);
+    private boolean endOfFile = false;
+    private boolean truncated = false;
+
+    private final Column[][] columns = new Column[TYPE_ROAD_RESTRICTIONS + 1][];
+
+    private int[] classes = new int[16];
+    private float[] confidences = new float[16];
+    private float[] coordinates = new float[64];
+
+    public EventLogReader(@NonNull File file) throws IOException {
+        channel = new FileInputStream(file).getChannel();
+        buffer.limit(0);
+        if (!fill(HEADER_BYTES)) {
+            channel.close();
+            throw new IOException("Not an event log " + file);
+        }
+        final byte[] magic = new byte[MAGIC.length];
+        buffer.get(magic);
+        final byte version = buffer.get();
+        if (!Arrays.equals(magic, MAGIC) || version != VERSION) {
+            channel.close();
+            throw new IOException("Not an event log of version " + VERSION + ": " + file);
+        }
+    }
+
+    /**
+     * Reads the next block and passes its events to the visitor.
+     *
+     * @return false if there are no more blocks
+     * @throws IOException if the file can't be read
+     */
+    public boolean readBlock(@NonNull Visitor visitor) throws IOException {
+        fill(MAX_BLOCK_HEADER_BYTES);
+        if (!buffer.hasRemaining()) {
+            return false;
+        }
+
+        final byte type = buffer.get();
+        final int events;
+        final int payloadBytes;
+        try {
+            events = getVarInt(buffer);
+            payloadBytes = getVarInt(buffer);
+        } catch (RuntimeException e) {
+            // the writer didn't finish the block header
+            truncated = true;
+            return false;
+        }
+        if (!fill(payloadBytes)) {
+            truncated = true;
+            return false;
+        }
+
+        final int payloadEnd = buffer.position() + payloadBytes;
+        final int limit = buffer.limit();
+        buffer.limit(payloadEnd);
+        try {
+            decodeBlock(type, events, visitor);
+        } finally {
+            buffer.limit(limit);
+            buffer.position(payloadEnd);
+        }
+        return true;
+    }
+
+    /**
+     * Reads all remaining blocks.
+     */
+    public void readAll(@NonNull Visitor visitor) throws IOException {
+        while (readBlock(visitor)) {
+            // keep reading
+        }
+    }
+
+    /**
+     * True if the log ends with an incomplete block, e.g. the writer wasn't closed.
+     * Complete blocks before it are read as usual.
+     */
+    public boolean isTruncated() {
+        return truncated;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    /**
+     * Makes sure at least {@code bytes} are available in the buffer, unless the file ends earlier.
+     *
+     * @return true if the bytes are available
+     */
+    private boolean fill(int bytes) throws IOException {
+        if (buffer.remaining() >= bytes) {
+            return true;
+        }
+        if (buffer.capacity() < bytes) {
+            final ByteBuffer larger = ByteBuffer.allocate(bytes + READ_BUFFER_BYTES);
+            larger.put(buffer);
+            buffer = larger;
+        } else {
+            buffer.compact();
+        }
+        while (buffer.position() < bytes && !endOfFile) {
+            if (channel.read(buffer) < 0) {
+                endOfFile = true;
+            }
+        }
+        buffer.flip();
+        return buffer.remaining() >= bytes;
+    }
+
+    private void decodeBlock(byte type, int events, @NonNull Visitor visitor) {
+        if (type < TYPE_VEHICLE_STATE || type > TYPE_ROAD_RESTRICTIONS) {
+            // written by a newer version, payload length lets us skip it
+            return;
+        }
+        if (columns[type] == null) {
+            columns[type] = newColumns(type);
+        }
+        final Column[] blockColumns = columns[type];
+
+        // object columns follow the event columns, so the object count column is decoded before them
+        int objects = -1;
+        for (Column column : blockColumns) {
+            if (!column.perObject) {
+                column.decode(buffer, events);
+            } else {
+                if (objects < 0) {
+                    objects = sum(blockColumns[OBJECT_COUNT_COLUMN]);
+                }
+                column.decode(buffer, objects);
+            }
+        }
+
+        final long[] times = blockColumns[TIME_COLUMN].values;
+        switch (type) {
+            case TYPE_VEHICLE_STATE:
+                for (int i = 0; i < events; i++) {
+                    visitor.onVehicleState(
+                            times[i],
+                            blockColumns[1].values[i] / COORDINATE_SCALE,
+                            blockColumns[2].values[i] / COORDINATE_SCALE,
+                            blockColumns[3].values[i] / SPEED_SCALE
+                    );
+                }
+                break;
+            case TYPE_FRAME_DETECTIONS:
+                for (int i = 0, object = 0; i < events; i++) {
+                    final int count = (int) blockColumns[OBJECT_COUNT_COLUMN].values[i];
+                    ensureObjectCapacity(count, 4);
+                    for (int j = 0; j < count; j++, object++) {
+                        classes[j] = (int) blockColumns[2].values[object];
+                        confidences[j] = blockColumns[3].values[object] / CONFIDENCE_SCALE;
+                        coordinates[j * 4] = blockColumns[4].values[object] / BOX_SCALE;
+                        coordinates[j * 4 + 1] = blockColumns[5].values[object] / BOX_SCALE;
+                        coordinates[j * 4 + 2] = blockColumns[6].values[object] / BOX_SCALE;
+                        coordinates[j * 4 + 3] = blockColumns[7].values[object] / BOX_SCALE;
+                    }
+                    visitor.onFrameDetections(times[i], count, classes, confidences, coordinates);
+                }
+                break;
+            case TYPE_ROAD_DESCRIPTION:
+                for (int i = 0; i < events; i++) {
+                    visitor.onRoadDescription(
+                            times[i],
+                            (int) blockColumns[1].values[i],
+                            (int) blockColumns[2].values[i],
+                            blockColumns[3].values[i] / LANE_POSITION_SCALE
+                    );
+                }
+                break;
+            case TYPE_WORLD_DESCRIPTION:
+                for (int i = 0, object = 0; i < events; i++) {
+                    final int count = (int) blockColumns[OBJECT_COUNT_COLUMN].values[i];
+                    ensureObjectCapacity(count, 2);
+                    for (int j = 0; j < count; j++, object++) {
+                        classes[j] = (int) blockColumns[2].values[object];
+                        coordinates[j * 2] = blockColumns[3].values[object] / WORLD_SCALE;
+                        coordinates[j * 2 + 1] = blockColumns[4].values[object] / WORLD_SCALE;
+                    }
+                    visitor.onWorldDescription(times[i], count, classes, coordinates);
+                }
+                break;
+            case TYPE_ROAD_RESTRICTIONS:
+                for (int i = 0; i < events; i++) {
+                    visitor.onRoadRestrictions(
+                            times[i],
+                            blockColumns[1].values[i] / SPEED_LIMIT_SCALE,
+                            blockColumns[2].values[i] / SPEED_LIMIT_SCALE
+                    );
+                }
+                break;
+        }
+    }
+
+    private void ensureObjectCapacity(int count, int coordinatesPerObject) {
+        if (classes.length < count) {
+            classes = new int[count];
+            confidences = new float[count];
+        }
+        if (coordinates.length < count * coordinatesPerObject) {
+            coordinates = new float[count * coordinatesPerObject];
+        }
+    }
+
+    private static int sum(@NonNull Column column) {
+        long sum = 0;
+        for (int i = 0; i < column.size; i++) {
+            sum += column.values[i];
+        }
+        return (int) sum;
+    }
+}
@@ -0,0 +1,138 @@
+package com.mapbox.vision.examples;
+
+import android.graphics.RectF;
+
+import androidx.annotation.NonNull;
+
+import com.mapbox.vision.mobile.core.models.detection.Detection;
+import com.mapbox.vision.mobile.core.models.detection.FrameDetections;
+import com.mapbox.vision.mobile.core.models.position.GeoCoordinate;
+import com.mapbox.vision.mobile.core.models.position.VehicleState;
+import com.mapbox.vision.mobile.core.models.road.RoadDescription;
+import com.mapbox.vision.mobile.core.models.world.WorldDescription;
+import com.mapbox.vision.mobile.core.models.world.WorldObject;
+import com.mapbox.vision.safety.core.VisionSafetyListener;
+import com.mapbox.vision.safety.core.models.CollisionObject;
+import com.mapbox.vision.safety.core.models.RoadRestrictions;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Records Vision and Vision Safety events to an {@link EventLogWriter} event log,
+ * which can be read back with {@link EventLogReader} for offline analysis.
+ * <p>
+ * Register it both as {@code VisionEventsListener} and {@link VisionSafetyListener},
+ * or as a per-session listener of {@link BatchReplayRunner}. Events are timestamped with
+ * {@link System#nanoTime()} when they are received.
+ */
+public class EventLogRecorder extends SelectiveVisionEventsListener implements VisionSafetyListener, Closeable {
+
+    private static final int BLOCK_EVENTS = 256;
+
+    private final EventLogWriter writer;
+
+    // used only on Vision SDK thread
+    private int[] classes = new int[16];
+    private float[] confidences = new float[16];
+    private float[] coordinates = new float[64];
+
+    public EventLogRecorder(@NonNull File file) throws IOException {
+        super(FRAME_DETECTIONS | ROAD_DESCRIPTION | WORLD_DESCRIPTION | VEHICLE_STATE);
+        writer = new EventLogWriter(file, BLOCK_EVENTS);
+    }
+
+    @NonNull
+    public EventLogWriter getWriter() {
+        return writer;
+    }
+
+    @Override
+    public void onFrameDetectionsUpdated(@NonNull FrameDetections frameDetections) {
+        final Detection[] detections = frameDetections.getDetections();
+        final int count = detections.length;
+        ensureObjectCapacity(count, 4);
+        for (int i = 0; i < count; i++) {
+            final Detection detection = detections[i];
+            final RectF box = detection.getBoundingBox();
+            classes[i] = detection.getDetectionClass().ordinal();
+            confidences[i] = (float) detection.getConfidence();
+            coordinates[i * 4] = box.left;
+            coordinates[i * 4 + 1] = box.top;
+            coordinates[i * 4 + 2] = box.right;
+            coordinates[i * 4 + 3] = box.bottom;
+        }
+        writer.writeFrameDetections(nowMicros(), count, classes, confidences, coordinates);
+    }
+
+    @Override
+    public void onRoadDescriptionUpdated(@NonNull RoadDescription roadDescription) {
+        writer.writeRoadDescription(
+                nowMicros(),
+                roadDescription.getLanes().length,
+                roadDescription.getCurrentLaneIndex(),
+                roadDescription.getCurrentLaneRelativePosition()
+        );
+    }
+
+    @Override
+    public void onWorldDescriptionUpdated(@NonNull WorldDescription worldDescription) {
+        final WorldObject[] objects = worldDescription.getObjects();
+        final int count = objects.length;
+        ensureObjectCapacity(count, 2);
+        for (int i = 0; i < count; i++) {
+            final WorldObject object = objects[i];
+            classes[i] = object.getDetectionClass().ordinal();
+            coordinates[i * 2] = (float) object.getPosition().getX();
+            coordinates[i * 2 + 1] = (float) object.getPosition().getY();
+        }
+        writer.writeWorldDescription(nowMicros(), count, classes, coordinates);
+    }
+
+    @Override
+    public void onVehicleStateUpdated(@NonNull VehicleState vehicleState) {
+        final GeoCoordinate geoCoordinate = vehicleState.getGeoLocation().getGeoCoordinate();
+        writer.writeVehicleState(
+                nowMicros(),
+                geoCoordinate.getLatitude(),
+                geoCoordinate.getLongitude(),
+                vehicleState.getSpeed()
+        );
+    }
+
+    @Override
+    public void onCollisionsUpdated(@NonNull CollisionObject[] collisions) {
+    }
+
+    @Override
+    public void onRoadRestrictionsUpdated(@NonNull RoadRestrictions roadRestrictions) {
+        writer.writeRoadRestrictions(
+                nowMicros(),
+                roadRestrictions.getSpeedLimits().getCar().getMin(),
+                roadRestrictions.getSpeedLimits().getCar().getMax()
+        );
+    }
+
+    /**
+     * Writes buffered events and closes the log. Events received after that are ignored.
+     */
+    @Override
+    public void close() throws IOException {
+        writer.close();
+    }
+
+    private void ensureObjectCapacity(int count, int coordinatesPerObject) {
+        if (classes.length < count) {
+            classes = new int[count];
+            confidences = new float[count];
+        }
+        if (coordinates.length < count * coordinatesPerObject) {
+            coordinates = new float[count * coordinatesPerObject];
+        }
+    }
+
+    private static long nowMicros() {
+        return System.nanoTime() / 1000;
+    }
+}
@@ -0,0 +1,343 @@
+package com.mapbox.vision.examples;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.mapbox.vision.examples.EventLogFormat.Column;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.mapbox.vision.examples.EventLogFormat.BOX_SCALE;
+import static com.mapbox.vision.examples.EventLogFormat.CONFIDENCE_SCALE;
+import static com.mapbox.vision.examples.EventLogFormat.COORDINATE_SCALE;
+import static com.mapbox.vision.examples.EventLogFormat.HEADER_BYTES;
+import static com.mapbox.vision.examples.EventLogFormat.LANE_POSITION_SCALE;
+import static com.mapbox.vision.examples.EventLogFormat.MAGIC;
+import static com.mapbox.vision.examples.EventLogFormat.MAX_BLOCK_HEADER_BYTES;
+import static com.mapbox.vision.examples.EventLogFormat.MAX_VARINT_BYTES;
+import static com.mapbox.vision.examples.EventLogFormat.SPEED_LIMIT_SCALE;
+import static com.mapbox.vision.examples.EventLogFormat.SPEED_SCALE;
+import static com.mapbox.vision.examples.EventLogFormat.TYPE_FRAME_DETECTIONS;
+import static com.mapbox.vision.examples.EventLogFormat.TYPE_ROAD_DESCRIPTION;
+import static com.mapbox.vision.examples.EventLogFormat.TYPE_ROAD_RESTRICTIONS;
+import static com.mapbox.vision.examples.EventLogFormat.TYPE_VEHICLE_STATE;
+import static com.mapbox.vision.examples.EventLogFormat.TYPE_WORLD_DESCRIPTION;
+import static com.mapbox.vision.examples.EventLogFormat.VERSION;
+import static com.mapbox.vision.examples.EventLogFormat.WORLD_SCALE;
+import static com.mapbox.vision.examples.EventLogFormat.newColumns;
+import static com.mapbox.vision.examples.EventLogFormat.putVarLong;
+
+/**
+ * Appends events to a compact binary event log, see {@link EventLogFormat}.
+ * <p>
+ * Events are buffered in columns per type, every {@code blockEvents} events of a type are encoded into a block.
+ * Encoded blocks are written to the file by a background thread, so the caller only pays for encoding.
+ * If the writer thread falls behind by {@link #MAX_QUEUED_BLOCKS} blocks the caller waits for it,
+ * events are never dropped.
+ * <p>
+ * Write methods are thread safe, events written after {@link #close} are ignored. The class does not depend on Android, so it can be exercised on a plain JVM.
+ */
+public class EventLogWriter implements Closeable {
+
+    static final int MAX_QUEUED_BLOCKS = 32;
+
+    private static final ByteBuffer END_OF_LOG = ByteBuffer.allocate(0);
+
+    private final FileChannel channel;
+    private final int blockEvents;
+
+    // guarded by this
+    private final PendingBlock vehicleStates = new PendingBlock(TYPE_VEHICLE_STATE);
+    private final PendingBlock frameDetections = new PendingBlock(TYPE_FRAME_DETECTIONS);
+    private final PendingBlock roadDescriptions = new PendingBlock(TYPE_ROAD_DESCRIPTION);
+    private final PendingBlock worldDescriptions = new PendingBlock(TYPE_WORLD_DESCRIPTION);
+    private final PendingBlock roadRestrictions = new PendingBlock(TYPE_ROAD_RESTRICTIONS);
+    private ByteBuffer payload = ByteBuffer.allocate(64 * 1024);
+    private boolean closed = false;
+    private long events = 0;
+
+    private final BlockingQueue<ByteBuffer> writeQueue = new ArrayBlockingQueue<>(MAX_QUEUED_BLOCKS + 1);
+    // written blocks are reused for encoding
+    private final BlockingQueue<ByteBuffer> freeBuffers = new ArrayBlockingQueue<>(MAX_QUEUED_BLOCKS);
+    private final Thread writerThread = new Thread(this::writeBlocks, "EventLogWriter");
+    private final AtomicLong bytesWritten = new AtomicLong();
+    @Nullable
+    private volatile IOException writeError = null;
+
+    private static final class PendingBlock {
+        final byte type;
+        final Column[] columns;
+        int events = 0;
+
+        PendingBlock(byte type) {
+            this.type = type;
+            this.columns = newColumns(type);
+        }
+    }
+
+    /**
+     * Opens the log for appending, the file is created if it doesn't exist.
+     */
+    public EventLogWriter(@NonNull File file, int blockEvents) throws IOException {
+        if (blockEvents <= 0) {
+            throw new IllegalArgumentException("Block should hold at least one event, got " + blockEvents);
+        }
+        this.blockEvents = blockEvents;
+        this.channel = new FileOutputStream(file, true).getChannel();
+        try {
+            if (channel.size() == 0) {
+                final ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+                header.put(MAGIC).put(VERSION).flip();
+                while (header.hasRemaining()) {
+                    channel.write(header);
+                }
+                bytesWritten.addAndGet(HEADER_BYTES);
+            }
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+        writerThread.start();
+    }
+
+    public synchronized void writeVehicleState(long timeMicros, double latitude, double longitude, float speed) {
+        if (closed) {
+            return;
+        }
+        final Column[] columns = startEvent(vehicleStates, timeMicros);
+        columns[1].add(Math.round(latitude * COORDINATE_SCALE));
+        columns[2].add(Math.round(longitude * COORDINATE_SCALE));
+        columns[3].add(EventLogFormat.quantize(speed, SPEED_SCALE));
+        endEvent(vehicleStates);
+    }
+
+    /**
+     * @param boxes left, top, right and bottom of every detection relative to the frame size
+     */
+    public synchronized void writeFrameDetections(
+            long timeMicros,
+            int count,
+            @NonNull int[] classes,
+            @NonNull float[] confidences,
+            @NonNull float[] boxes
+    ) {
+        if (closed) {
+            return;
+        }
+        final Column[] columns = startEvent(frameDetections, timeMicros);
+        columns[1].add(count);
+        for (int i = 0; i < count; i++) {
+            columns[2].add(classes[i]);
+            columns[3].add(EventLogFormat.quantize(confidences[i], CONFIDENCE_SCALE));
+            columns[4].add(EventLogFormat.quantize(boxes[i * 4], BOX_SCALE));
+            columns[5].add(EventLogFormat.quantize(boxes[i * 4 + 1], BOX_SCALE));
+            columns[6].add(EventLogFormat.quantize(boxes[i * 4 + 2], BOX_SCALE));
+            columns[7].add(EventLogFormat.quantize(boxes[i * 4 + 3], BOX_SCALE));
+        }
+        endEvent(frameDetections);
+    }
+
+    public synchronized void writeRoadDescription(
+            long timeMicros,
+            int laneCount,
+            int currentLaneIndex,
+            float currentLaneRelativePosition
+    ) {
+        if (closed) {
+            return;
+        }
+        final Column[] columns = startEvent(roadDescriptions, timeMicros);
+        columns[1].add(laneCount);
+        columns[2].add(currentLaneIndex);
+        columns[3].add(EventLogFormat.quantize(currentLaneRelativePosition, LANE_POSITION_SCALE));
+        endEvent(roadDescriptions);
+    }
+
+    /**
+     * @param positions x and y of every object in meters
+     */
+    public synchronized void writeWorldDescription(
+            long timeMicros,
+            int count,
+            @NonNull int[] classes,
+            @NonNull float[] positions
+    ) {
+        if (closed) {
+            return;
+        }
+        final Column[] columns = startEvent(worldDescriptions, timeMicros);
+        columns[1].add(count);
+        for (int i = 0; i < count; i++) {
+            columns[2].add(classes[i]);
+            columns[3].add(EventLogFormat.quantize(positions[i * 2], WORLD_SCALE));
+            columns[4].add(EventLogFormat.quantize(positions[i * 2 + 1], WORLD_SCALE));
+        }
+        endEvent(worldDescriptions);
+    }
+
+    public synchronized void writeRoadRestrictions(long timeMicros, float minSpeed, float maxSpeed) {
+        if (closed) {
+            return;
+        }
+        final Column[] columns = startEvent(roadRestrictions, timeMicros);
+        columns[1].add(EventLogFormat.quantize(minSpeed, SPEED_LIMIT_SCALE));
+        columns[2].add(EventLogFormat.quantize(maxSpeed, SPEED_LIMIT_SCALE));
+        endEvent(roadRestrictions);
+    }
+
+    /**
+     * Encodes partially filled blocks and queues them for writing. Doesn't wait for the write.
+     */
+    public synchronized void flush() {
+        if (closed) {
+            return;
+        }
+        encodeBlock(vehicleStates);
+        encodeBlock(frameDetections);
+        encodeBlock(roadDescriptions);
+        encodeBlock(worldDescriptions);
+        encodeBlock(roadRestrictions);
+    }
+
+    /**
+     * Writes all buffered events and closes the file.
+     *
+     * @throws IOException if any block failed to be written
+     */
+    @Override
+    public void close() throws IOException {
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            flush();
+            closed = true;
+            enqueue(END_OF_LOG);
+        }
+        try {
+            writerThread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        channel.close();
+        final IOException error = writeError;
+        if (error != null) {
+            throw error;
+        }
+    }
+
+    public synchronized long getEvents() {
+        return events;
+    }
+
+    /**
+     * Bytes actually written to the file, including the header.
+     */
+    public long getBytesWritten() {
+        return bytesWritten.get();
+    }
+
+    @Nullable
+    public IOException getWriteError() {
+        return writeError;
+    }
+
+    @NonNull
+    private Column[] startEvent(@NonNull PendingBlock block, long timeMicros) {
+        block.columns[EventLogFormat.TIME_COLUMN].add(timeMicros);
+        return block.columns;
+    }
+
+    private void endEvent(@NonNull PendingBlock block) {
+        events++;
+        block.events++;
+        if (block.events == blockEvents) {
+            encodeBlock(block);
+        }
+    }
+
+    private void encodeBlock(@NonNull PendingBlock block) {
+        if (block.events == 0) {
+            return;
+        }
+
+        int maxPayloadBytes = 0;
+        for (Column column : block.columns) {
+            maxPayloadBytes += column.size * MAX_VARINT_BYTES;
+        }
+        if (payload.capacity() < maxPayloadBytes) {
+            payload = ByteBuffer.allocate(maxPayloadBytes);
+        }
+        payload.clear();
+        for (Column column : block.columns) {
+            column.encode(payload);
+            column.clear();
+        }
+        payload.flip();
+
+        final int blockBytes = MAX_BLOCK_HEADER_BYTES + payload.remaining();
+        ByteBuffer encoded = freeBuffers.poll();
+        if (encoded == null || encoded.capacity() < blockBytes) {
+            encoded = ByteBuffer.allocate(Math.max(blockBytes, payload.capacity()));
+        }
+        encoded.clear();
+        encoded.put(block.type);
+        putVarLong(encoded, block.events);
+        putVarLong(encoded, payload.remaining());
+        encoded.put(payload);
+        encoded.flip();
+        block.events = 0;
+
+        enqueue(encoded);
+    }
+
+    private void enqueue(@NonNull ByteBuffer buffer) {
+        boolean interrupted = false;
+        while (true) {
+            try {
+                writeQueue.put(buffer);
+                break;
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void writeBlocks() {
+        while (true) {
+            final ByteBuffer buffer;
+            try {
+                buffer = writeQueue.take();
+            } catch (InterruptedException e) {
+                continue;
+            }
+            if (buffer == END_OF_LOG) {
+                return;
+            }
+            // after the first failure blocks are skipped, the error is reported by close
+            if (writeError == null) {
+                try {
+                    final int bytes = buffer.remaining();
+                    while (buffer.hasRemaining()) {
+                        channel.write(buffer);
+                    }
+                    bytesWritten.addAndGet(bytes);
+                } catch (IOException e) {
+                    writeError = e;
+                }
+            }
+            freeBuffers.offer(buffer);
+        }
+    }
+}
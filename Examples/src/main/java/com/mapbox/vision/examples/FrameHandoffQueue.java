@@ -0,0 +1,230 @@
+package com.mapbox.vision.examples;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded lock-free handoff of frames from one producer thread to one consumer thread.
+ * <p>
+ * Producer never blocks: frame data is copied to a preallocated slot and, when the queue is full,
+ * a frame is dropped according to {@link Policy}. Consumer takes frames with {@link #poll} and gives
+ * the slot back with {@link #release} once it is done with the data.
+ * <p>
+ * The class does not depend on Android, so it can be exercised on a plain JVM.
+ *
+ * @param <M> frame metadata passed along with the data, eg. format and size.
+ */
+public class FrameHandoffQueue<M> {
+
+    public enum Policy {
+        // Full queue drops the oldest queued frame to make room for the new one.
+        DROP_OLDEST,
+        // Full queue rejects the new frame.
+        DROP_NEWEST,
+        // Only the most recent frame is kept, capacity is ignored.
+        KEEP_LATEST
+    }
+
+    public static class Frame<M> {
+
+        private ByteBuffer buffer = ByteBuffer.allocateDirect(0);
+        private M metadata;
+        private long enqueuedNanos;
+
+        @NonNull
+        public ByteBuffer getBuffer() {
+            return buffer;
+        }
+
+        public M getMetadata() {
+            return metadata;
+        }
+
+        void set(@NonNull ByteBuffer source, M metadata, long nowNanos) {
+            final int position = source.position();
+            final int size = source.limit();
+            if (buffer.capacity() < size) {
+                buffer = ByteBuffer.allocateDirect(size);
+            }
+            buffer.clear();
+            source.position(0);
+            buffer.put(source);
+            buffer.flip();
+            source.position(position);
+            this.metadata = metadata;
+            this.enqueuedNanos = nowNanos;
+        }
+    }
+
+    private static final int FRESH = 1 << 8;
+    private static final int INDEX_MASK = FRESH - 1;
+
+    private final Policy policy;
+    private final int capacity;
+    private final Frame<M>[] slots;
+
+    // DROP_OLDEST and DROP_NEWEST: ring of capacity + 2 slots addressed by sequence numbers.
+    // Two extra slots let producer keep writing while consumer holds a slot that was already dropped from the queue.
+    private final AtomicLong head = new AtomicLong();
+    private final AtomicLong tail = new AtomicLong();
+    private volatile long readingSequence = -1;
+
+    // KEEP_LATEST: triple buffer, producer and consumer exchange slots through `latest`.
+    private final AtomicInteger latest = new AtomicInteger(2);
+    private int producerSlot = 0;
+    private int consumerSlot = 1;
+
+    private final AtomicLong offeredFrames = new AtomicLong();
+    private final AtomicLong droppedFrames = new AtomicLong();
+    private final AtomicLong deliveredFrames = new AtomicLong();
+    private final AtomicLong totalLatencyNanos = new AtomicLong();
+    private final AtomicLong maxLatencyNanos = new AtomicLong();
+
+    @SuppressWarnings("unchecked")
+    public FrameHandoffQueue(@NonNull Policy policy, int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity should be positive, got " + capacity);
+        }
+        this.policy = policy;
+        this.capacity = policy == Policy.KEEP_LATEST ? 1 : capacity;
+        final int slotCount = policy == Policy.KEEP_LATEST ? 3 : capacity + 2;
+        slots = (Frame<M>[]) new Frame<?>[slotCount];
+        for (int i = 0; i < slotCount; i++) {
+            slots[i] = new Frame<>();
+        }
+    }
+
+    /**
+     * Copies {@code source} from 0 to its limit into the queue. Must be called from a single producer thread.
+     *
+     * @return false if this frame was dropped.
+     */
+    public boolean offer(@NonNull ByteBuffer source, M metadata, long nowNanos) {
+        offeredFrames.incrementAndGet();
+        if (policy == Policy.KEEP_LATEST) {
+            return offerLatest(source, metadata, nowNanos);
+        }
+
+        final long sequence = tail.get();
+        final long reading = readingSequence;
+        if (reading >= 0 && (sequence - reading) % slots.length == 0) {
+            // the slot is still used by consumer, even though the queue dropped its frame
+            droppedFrames.incrementAndGet();
+            return false;
+        }
+
+        while (true) {
+            final long first = head.get();
+            if (sequence - first < capacity) {
+                break;
+            }
+            if (policy == Policy.DROP_NEWEST) {
+                droppedFrames.incrementAndGet();
+                return false;
+            }
+            if (head.compareAndSet(first, first + 1)) {
+                droppedFrames.incrementAndGet();
+                break;
+            }
+            // consumer took the oldest frame meanwhile, check again
+        }
+
+        slots[(int) (sequence % slots.length)].set(source, metadata, nowNanos);
+        tail.set(sequence + 1);
+        return true;
+    }
+
+    /**
+     * Returns the oldest queued frame or {@code null} if there is none. Must be called from a single consumer thread,
+     * and every returned frame should be passed to {@link #release} before next call.
+     */
+    @Nullable
+    public Frame<M> poll(long nowNanos) {
+        final Frame<M> frame = policy == Policy.KEEP_LATEST ? pollLatest() : pollRing();
+        if (frame != null) {
+            final long latency = nowNanos - frame.enqueuedNanos;
+            deliveredFrames.incrementAndGet();
+            totalLatencyNanos.addAndGet(latency);
+            long max;
+            while (latency > (max = maxLatencyNanos.get()) && !maxLatencyNanos.compareAndSet(max, latency)) {
+                // retry
+            }
+        }
+        return frame;
+    }
+
+    public void release(@NonNull Frame<M> frame) {
+        if (policy != Policy.KEEP_LATEST) {
+            readingSequence = -1;
+        }
+    }
+
+    @NonNull
+    public Policy getPolicy() {
+        return policy;
+    }
+
+    public long getOfferedFrames() {
+        return offeredFrames.get();
+    }
+
+    public long getDroppedFrames() {
+        return droppedFrames.get();
+    }
+
+    public long getDeliveredFrames() {
+        return deliveredFrames.get();
+    }
+
+    /**
+     * Average time frames spent in the queue.
+     */
+    public long getAverageLatencyNanos() {
+        final long delivered = deliveredFrames.get();
+        return delivered == 0 ? 0 : totalLatencyNanos.get() / delivered;
+    }
+
+    public long getMaxLatencyNanos() {
+        return maxLatencyNanos.get();
+    }
+
+    @Nullable
+    private Frame<M> pollRing() {
+        while (true) {
+            final long first = head.get();
+            if (first >= tail.get()) {
+                readingSequence = -1;
+                return null;
+            }
+            // announce the slot before claiming it, so producer won't overwrite it if it drops this frame meanwhile
+            readingSequence = first;
+            if (head.compareAndSet(first, first + 1)) {
+                return slots[(int) (first % slots.length)];
+            }
+        }
+    }
+
+    private boolean offerLatest(@NonNull ByteBuffer source, M metadata, long nowNanos) {
+        slots[producerSlot].set(source, metadata, nowNanos);
+        final int previous = latest.getAndSet(producerSlot | FRESH);
+        producerSlot = previous & INDEX_MASK;
+        if ((previous & FRESH) != 0) {
+            // previous frame was replaced before consumer took it
+            droppedFrames.incrementAndGet();
+        }
+        return true;
+    }
+
+    @Nullable
+    private Frame<M> pollLatest() {
+        if ((latest.get() & FRESH) == 0) {
+            return null;
+        }
+        consumerSlot = latest.getAndSet(consumerSlot) & INDEX_MASK;
+        return slots[consumerSlot];
+    }
+}
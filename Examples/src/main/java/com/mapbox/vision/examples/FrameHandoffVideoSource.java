@@ -0,0 +1,193 @@
+package com.mapbox.vision.examples;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.mapbox.vision.mobile.core.models.CameraParameters;
+import com.mapbox.vision.mobile.core.models.frame.ImageFormat;
+import com.mapbox.vision.mobile.core.models.frame.ImageSize;
+import com.mapbox.vision.utils.VisionLogger;
+import com.mapbox.vision.video.videosource.VideoSource;
+import com.mapbox.vision.video.videosource.VideoSourceListener;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * {@link VideoSource} that wraps another one and decouples its producer thread from Vision SDK.
+ * <p>
+ * Frames from the wrapped source are copied to {@link FrameHandoffQueue} and delivered to Vision SDK on a separate thread,
+ * so camera callbacks return immediately even if Vision SDK can't keep up, and stale frames are dropped by the chosen policy.
+ * Camera parameters are passed through immediately.
+ * <p>
+ * Sources that get frames from a callback of their own, rather than through the attached listener,
+ * can queue them with {@link #offerFrame}.
+ */
+public class FrameHandoffVideoSource implements VideoSource {
+
+    private static final String TAG = FrameHandoffVideoSource.class.getSimpleName();
+    private static final long STATS_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(5);
+
+    private final VideoSource videoSource;
+    private final FrameHandoffQueue.Policy policy;
+    private final int capacity;
+
+    @Nullable
+    private volatile FrameHandoffQueue<FrameInfo> queue;
+    @Nullable
+    private volatile VideoSourceListener visionListener;
+    @Nullable
+    private volatile Thread consumerThread;
+    private volatile boolean running = false;
+
+    // accessed only from producer thread
+    @Nullable
+    private FrameInfo lastFrameInfo;
+
+    public FrameHandoffVideoSource(
+            @NonNull VideoSource videoSource,
+            @NonNull FrameHandoffQueue.Policy policy,
+            int capacity
+    ) {
+        this.videoSource = videoSource;
+        this.policy = policy;
+        this.capacity = capacity;
+    }
+
+    @Override
+    public void attach(@NonNull VideoSourceListener videoSourceListener) {
+        visionListener = videoSourceListener;
+        queue = new FrameHandoffQueue<>(policy, capacity);
+        running = true;
+        consumerThread = new Thread(this::deliverFrames, "FrameHandoff");
+        consumerThread.start();
+
+        videoSource.attach(producerListener);
+    }
+
+    @Override
+    public void detach() {
+        videoSource.detach();
+
+        running = false;
+        if (consumerThread != null) {
+            LockSupport.unpark(consumerThread);
+            try {
+                consumerThread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            consumerThread = null;
+        }
+        visionListener = null;
+    }
+
+    @Nullable
+    public FrameHandoffQueue<?> getQueue() {
+        return queue;
+    }
+
+    /**
+     * Copies the frame to the queue, frames offered before {@link #attach} are ignored.
+     * Should be called from the thread the wrapped source produces frames on.
+     */
+    public void offerFrame(@NonNull ByteBuffer data, @NonNull ImageFormat imageFormat, @NonNull ImageSize imageSize) {
+        final FrameHandoffQueue<FrameInfo> currentQueue = queue;
+        if (currentQueue == null) {
+            return;
+        }
+        if (lastFrameInfo == null || !lastFrameInfo.matches(imageFormat, imageSize)) {
+            lastFrameInfo = new FrameInfo(imageFormat, imageSize);
+        }
+        currentQueue.offer(data, lastFrameInfo, System.nanoTime());
+        final Thread consumer = consumerThread;
+        if (consumer != null) {
+            LockSupport.unpark(consumer);
+        }
+    }
+
+    private final VideoSourceListener producerListener = new VideoSourceListener() {
+        @Override
+        public void onNewFrame(
+                @NonNull FrameHolder frameHolder,
+                @NonNull ImageFormat imageFormat,
+                @NonNull ImageSize imageSize
+        ) {
+            final FrameHandoffQueue<FrameInfo> currentQueue = queue;
+            if (!(frameHolder instanceof FrameHolder.ByteBufferHolder) || currentQueue == null) {
+                // only frames in memory can be queued
+                final VideoSourceListener listener = visionListener;
+                if (listener != null) {
+                    listener.onNewFrame(frameHolder, imageFormat, imageSize);
+                }
+                return;
+            }
+
+            offerFrame(((FrameHolder.ByteBufferHolder) frameHolder).getByteBuffer(), imageFormat, imageSize);
+        }
+
+        @Override
+        public void onNewCameraParameters(@NonNull CameraParameters cameraParameters) {
+            final VideoSourceListener listener = visionListener;
+            if (listener != null) {
+                listener.onNewCameraParameters(cameraParameters);
+            }
+        }
+    };
+
+    private void deliverFrames() {
+        final FrameHandoffQueue<FrameInfo> currentQueue = queue;
+        long lastStatsNanos = System.nanoTime();
+        while (running) {
+            final long now = System.nanoTime();
+            final FrameHandoffQueue.Frame<FrameInfo> frame = currentQueue.poll(now);
+            if (frame == null) {
+                // woken by offerFrame or detach, a frame offered right after the poll leaves a permit and is not missed
+                LockSupport.park(this);
+                continue;
+            }
+
+            final VideoSourceListener listener = visionListener;
+            if (listener != null) {
+                listener.onNewFrame(
+                        new VideoSourceListener.FrameHolder.ByteBufferHolder(frame.getBuffer()),
+                        frame.getMetadata().imageFormat,
+                        frame.getMetadata().imageSize
+                );
+            }
+            currentQueue.release(frame);
+
+            if (now - lastStatsNanos > STATS_INTERVAL_NANOS) {
+                lastStatsNanos = now;
+                logStats(currentQueue);
+            }
+        }
+    }
+
+    private static void logStats(@NonNull FrameHandoffQueue<?> queue) {
+        VisionLogger.Companion.d(
+                TAG,
+                queue.getPolicy() + ": offered " + queue.getOfferedFrames()
+                        + ", dropped " + queue.getDroppedFrames()
+                        + ", delivered " + queue.getDeliveredFrames()
+                        + ", average latency " + TimeUnit.NANOSECONDS.toMicros(queue.getAverageLatencyNanos()) + " us"
+                        + ", max latency " + TimeUnit.NANOSECONDS.toMicros(queue.getMaxLatencyNanos()) + " us"
+        );
+    }
+
+    private static class FrameInfo {
+
+        final ImageFormat imageFormat;
+        final ImageSize imageSize;
+
+        FrameInfo(@NonNull ImageFormat imageFormat, @NonNull ImageSize imageSize) {
+            this.imageFormat = imageFormat;
+            this.imageSize = imageSize;
+        }
+
+        boolean matches(@NonNull ImageFormat imageFormat, @NonNull ImageSize imageSize) {
+            return this.imageFormat == imageFormat && this.imageSize.equals(imageSize);
+        }
+    }
+}
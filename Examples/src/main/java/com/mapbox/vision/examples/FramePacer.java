@@ -0,0 +1,63 @@
+package com.mapbox.vision.examples;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Calculates how long to wait before delivering a frame, so frames are delivered at the rate
+ * they were recorded with.
+ * <p>
+ * The first frame anchors presentation time to the wall clock. If delivery falls behind
+ * by more than {@code maxLagNanos} (slow consumer, seek, pause), the pacer re-anchors instead of
+ * delivering the backlog in a burst.
+ */
+public class FramePacer {
+
+    private final long maxLagNanos;
+
+    private long basePresentationTimeUs = -1;
+    private long baseNanos = 0;
+    private long resyncCount = 0;
+
+    public FramePacer(long maxLagNanos) {
+        this.maxLagNanos = maxLagNanos;
+    }
+
+    public FramePacer() {
+        this(TimeUnit.MILLISECONDS.toNanos(200));
+    }
+
+    /**
+     * Returns delay in nanoseconds to wait before the frame with {@code presentationTimeUs} should be delivered.
+     */
+    public long delayNanos(long presentationTimeUs, long nowNanos) {
+        if (basePresentationTimeUs < 0 || presentationTimeUs < basePresentationTimeUs) {
+            anchor(presentationTimeUs, nowNanos);
+            return 0;
+        }
+
+        final long dueNanos = baseNanos + TimeUnit.MICROSECONDS.toNanos(presentationTimeUs - basePresentationTimeUs);
+        final long delay = dueNanos - nowNanos;
+        if (delay < -maxLagNanos) {
+            anchor(presentationTimeUs, nowNanos);
+            resyncCount++;
+            return 0;
+        }
+        return Math.max(0, delay);
+    }
+
+    public void reset() {
+        basePresentationTimeUs = -1;
+    }
+
+    /**
+     * Number of times the pacer gave up catching up with the stream and re-anchored.
+     */
+    public long getResyncCount() {
+        return resyncCount;
+    }
+
+    private void anchor(long presentationTimeUs, long nowNanos) {
+        basePresentationTimeUs = presentationTimeUs;
+        baseNanos = nowNanos;
+    }
+}
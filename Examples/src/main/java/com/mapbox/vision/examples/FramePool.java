@@ -0,0 +1,175 @@
+package com.mapbox.vision.examples;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bounded pool of reusable frame objects (direct buffers, Bitmaps, etc.) keyed by frame size and format.
+ * <p>
+ * Each key owns a ring of at most {@code capacity} frames. A frame is handed out by {@link #acquire}
+ * and stays busy until it is given back with {@link #release}, usually after the UI thread has replaced it on screen.
+ * When every frame of the ring is still busy {@link #acquire} returns {@code null}, and the caller is expected
+ * to drop the frame instead of allocating a new one.
+ * <p>
+ * The class has no Android dependencies, so it can be exercised on a plain JVM.
+ */
+public class FramePool<T> {
+
+    /**
+     * Creates new frame object when the pool has a free slot for it.
+     */
+    public interface Factory<T> {
+        @NonNull
+        T create(int width, int height, int format);
+    }
+
+    private static final long STATS_WINDOW_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final Factory<T> factory;
+    private final int capacity;
+    private final Map<Long, Ring<T>> rings = new HashMap<>();
+
+    private long allocations = 0;
+    private long allocationsAvoided = 0;
+    private long droppedFrames = 0;
+
+    private long windowStartNanos = -1;
+    private long windowAllocationsAvoided = 0;
+    private long allocationsAvoidedPerSecond = 0;
+
+    public FramePool(@NonNull Factory<T> factory, int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity should be positive, got " + capacity);
+        }
+        this.factory = factory;
+        this.capacity = capacity;
+    }
+
+    /**
+     * Returns free frame for given size and format or {@code null} if all frames are still in use.
+     */
+    @Nullable
+    public synchronized T acquire(int width, int height, int format, long nowNanos) {
+        final long key = key(width, height, format);
+        Ring<T> ring = rings.get(key);
+        if (ring == null) {
+            ring = new Ring<>(capacity);
+            rings.put(key, ring);
+        }
+
+        T frame = ring.takeFree();
+        if (frame != null) {
+            allocationsAvoided++;
+            countAvoidedAllocation(nowNanos);
+        } else if (ring.size < capacity) {
+            frame = factory.create(width, height, format);
+            ring.add(frame);
+            allocations++;
+        } else {
+            droppedFrames++;
+        }
+        return frame;
+    }
+
+    /**
+     * Returns frame to the pool, so it can be handed out again.
+     */
+    public synchronized void release(@NonNull T frame) {
+        for (Ring<T> ring : rings.values()) {
+            if (ring.release(frame)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Forgets all frames. Frames that are still in use will not be returned to the pool.
+     */
+    public synchronized void clear() {
+        rings.clear();
+    }
+
+    public synchronized long getAllocations() {
+        return allocations;
+    }
+
+    public synchronized long getAllocationsAvoided() {
+        return allocationsAvoided;
+    }
+
+    public synchronized long getDroppedFrames() {
+        return droppedFrames;
+    }
+
+    /**
+     * Number of allocations avoided during the last complete second.
+     */
+    public synchronized long getAllocationsAvoidedPerSecond() {
+        return allocationsAvoidedPerSecond;
+    }
+
+    private void countAvoidedAllocation(long nowNanos) {
+        if (windowStartNanos < 0) {
+            windowStartNanos = nowNanos;
+        }
+        final long elapsed = nowNanos - windowStartNanos;
+        if (elapsed >= STATS_WINDOW_NANOS) {
+            // report zero if more than one whole window passed without acquisitions
+            allocationsAvoidedPerSecond = elapsed < 2 * STATS_WINDOW_NANOS ? windowAllocationsAvoided : 0;
+            windowAllocationsAvoided = 0;
+            windowStartNanos = nowNanos;
+        }
+        windowAllocationsAvoided++;
+    }
+
+    private static long key(int width, int height, int format) {
+        return ((long) width << 40) | ((long) (height & 0xFFFFF) << 20) | (format & 0xFFFFF);
+    }
+
+    private static class Ring<T> {
+
+        private final Object[] frames;
+        private final boolean[] busy;
+        private int size = 0;
+        private int next = 0;
+
+        Ring(int capacity) {
+            frames = new Object[capacity];
+            busy = new boolean[capacity];
+        }
+
+        @SuppressWarnings("unchecked")
+        @Nullable
+        T takeFree() {
+            for (int i = 0; i < size; i++) {
+                final int index = (next + i) % size;
+                if (!busy[index]) {
+                    busy[index] = true;
+                    next = (index + 1) % size;
+                    return (T) frames[index];
+                }
+            }
+            return null;
+        }
+
+        void add(@NonNull T frame) {
+            frames[size] = frame;
+            busy[size] = true;
+            size++;
+        }
+
+        boolean release(@NonNull T frame) {
+            for (int i = 0; i < size; i++) {
+                if (frames[i] == frame) {
+                    busy[i] = false;
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
@@ -0,0 +1,174 @@
+package com.mapbox.vision.examples;
+
+import androidx.annotation.NonNull;
+
+import java.util.Arrays;
+
+/**
+ * Static spatial index of geo points for radius queries.
+ * <p>
+ * Points are bucketed into a grid of cells roughly {@code cellSizeMeters} high and stored cell by cell
+ * in primitive arrays, so querying allocates nothing.
+ * A radius query visits only the cells overlapping the query circle and checks exact distance for points in them.
+ * <p>
+ * The class does not depend on Android, so it can be exercised on a plain JVM.
+ */
+public class GeoGridIndex {
+
+    // Same value Mapbox SDK uses to measure distance between LatLng.
+    private static final double EARTH_RADIUS_METERS = 6378137;
+    static final double METERS_PER_DEGREE = Math.PI * EARTH_RADIUS_METERS / 180;
+    private static final int CELL_BITS = 32;
+
+    /**
+     * Reusable output of {@link #query}.
+     */
+    public static class Result {
+
+        private int[] indices = new int[16];
+        private double[] distances = new double[16];
+        private int size = 0;
+
+        public int size() {
+            return size;
+        }
+
+        /**
+         * Index of the found point in the arrays the index was built from.
+         */
+        public int index(int i) {
+            return indices[i];
+        }
+
+        public double distanceMeters(int i) {
+            return distances[i];
+        }
+
+        void clear() {
+            size = 0;
+        }
+
+        void add(int index, double distance) {
+            if (size == indices.length) {
+                indices = Arrays.copyOf(indices, size * 2);
+                distances = Arrays.copyOf(distances, size * 2);
+            }
+            indices[size] = index;
+            distances[size] = distance;
+            size++;
+        }
+    }
+
+    private final double[] latitudes;
+    private final double[] longitudes;
+    private final double cellSizeDegrees;
+
+    // Sorted keys of non empty cells, points of the cell i are pointIndices[cellStarts[i]..cellStarts[i + 1]).
+    private final long[] cellKeys;
+    private final int[] cellStarts;
+    private final int[] pointIndices;
+
+    public GeoGridIndex(@NonNull double[] latitudes, @NonNull double[] longitudes, double cellSizeMeters) {
+        if (latitudes.length != longitudes.length) {
+            throw new IllegalArgumentException("Latitudes and longitudes should have the same length");
+        }
+        this.latitudes = latitudes;
+        this.longitudes = longitudes;
+        this.cellSizeDegrees = cellSizeMeters / METERS_PER_DEGREE;
+
+        final int count = latitudes.length;
+        final long[] keys = new long[count];
+        for (int i = 0; i < count; i++) {
+            keys[i] = cellKey(row(latitudes[i]), column(longitudes[i]));
+        }
+
+        // distinct cells in key order
+        final long[] sortedKeys = keys.clone();
+        Arrays.sort(sortedKeys);
+        int cells = 0;
+        for (int i = 0; i < count; i++) {
+            if (i == 0 || sortedKeys[i] != sortedKeys[i - 1]) {
+                sortedKeys[cells++] = sortedKeys[i];
+            }
+        }
+        cellKeys = Arrays.copyOf(sortedKeys, cells);
+
+        // counting sort of points by cell
+        final int[] cellOfPoint = new int[count];
+        cellStarts = new int[cells + 1];
+        for (int i = 0; i < count; i++) {
+            cellOfPoint[i] = Arrays.binarySearch(cellKeys, keys[i]);
+            cellStarts[cellOfPoint[i] + 1]++;
+        }
+        for (int cell = 0; cell < cells; cell++) {
+            cellStarts[cell + 1] += cellStarts[cell];
+        }
+        final int[] next = Arrays.copyOf(cellStarts, cells);
+        pointIndices = new int[count];
+        for (int i = 0; i < count; i++) {
+            pointIndices[next[cellOfPoint[i]]++] = i;
+        }
+    }
+
+    public int size() {
+        return latitudes.length;
+    }
+
+    /**
+     * Finds all points not further than {@code radiusMeters} from given location.
+     */
+    public void query(double latitude, double longitude, double radiusMeters, @NonNull Result result) {
+        result.clear();
+
+        final double latitudeDelta = radiusMeters / METERS_PER_DEGREE;
+        // longitude degrees are shorter closer to the poles, use the widest span the circle can have
+        final double cos = Math.max(Math.cos(Math.toRadians(Math.min(90, Math.abs(latitude) + latitudeDelta))), 1e-6);
+        final double longitudeDelta = Math.min(180, latitudeDelta / cos);
+
+        final int minRow = row(latitude - latitudeDelta);
+        final int maxRow = row(latitude + latitudeDelta);
+        final int minColumn = column(longitude - longitudeDelta);
+        final int maxColumn = column(longitude + longitudeDelta);
+
+        for (int row = minRow; row <= maxRow; row++) {
+            for (int column = minColumn; column <= maxColumn; column++) {
+                final int cell = Arrays.binarySearch(cellKeys, cellKey(row, column));
+                if (cell < 0) {
+                    continue;
+                }
+                for (int i = cellStarts[cell]; i < cellStarts[cell + 1]; i++) {
+                    final int index = pointIndices[i];
+                    final double distance = distanceMeters(latitude, longitude, latitudes[index], longitudes[index]);
+                    if (distance <= radiusMeters) {
+                        result.add(index, distance);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Haversine distance, matches LatLng.distanceTo of Mapbox SDK.
+     */
+    public static double distanceMeters(double latitude1, double longitude1, double latitude2, double longitude2) {
+        final double phi1 = Math.toRadians(latitude1);
+        final double phi2 = Math.toRadians(latitude2);
+        final double sinHalfDeltaPhi = Math.sin((phi2 - phi1) / 2);
+        final double sinHalfDeltaLambda = Math.sin(Math.toRadians(longitude2 - longitude1) / 2);
+        final double a = sinHalfDeltaPhi * sinHalfDeltaPhi
+                + Math.cos(phi1) * Math.cos(phi2) * sinHalfDeltaLambda * sinHalfDeltaLambda;
+        return 2 * EARTH_RADIUS_METERS * Math.atan2(Math.sqrt(a), Math.sqrt(1 - a));
+    }
+
+    private int row(double latitude) {
+        return (int) Math.floor(latitude / cellSizeDegrees);
+    }
+
+    private int column(double longitude) {
+        return (int) Math.floor(longitude / cellSizeDegrees);
+    }
+
+    private static long cellKey(int row, int column) {
+        return ((long) row << CELL_BITS) | (column & 0xFFFFFFFFL);
+    }
+}
@@ -0,0 +1,106 @@
+package com.mapbox.vision.examples;
+
+import androidx.annotation.Nullable;
+
+import com.mapbox.vision.ar.core.models.ManeuverType;
+
+/**
+ * Maps maneuver types of Directions API to maneuver codes of {@link RouteGeometry}.
+ * <p>
+ * Known maneuver names are put into a perfect hash table once: table size is picked so that no two names
+ * share a slot, so a lookup is one hash and at most one {@code equals}.
+ */
+public final class ManeuverCodes {
+
+    private static final String[] NAMES = {
+            "turn",
+            "depart",
+            "arrive",
+            "merge",
+            "on ramp",
+            "off ramp",
+            "fork",
+            "roundabout",
+            "exit roundabout",
+            "end of road",
+            "new name",
+            "continue",
+            "rotary",
+            "roundabout turn",
+            "notification",
+            "exit rotary",
+    };
+
+    private static final ManeuverType[] TYPES = {
+            ManeuverType.Turn,
+            ManeuverType.Depart,
+            ManeuverType.Arrive,
+            ManeuverType.Merge,
+            ManeuverType.OnRamp,
+            ManeuverType.OffRamp,
+            ManeuverType.Fork,
+            ManeuverType.Roundabout,
+            ManeuverType.RoundaboutExit,
+            ManeuverType.EndOfRoad,
+            ManeuverType.NewName,
+            ManeuverType.Continue,
+            ManeuverType.Rotary,
+            ManeuverType.RoundaboutTurn,
+            ManeuverType.Notification,
+            ManeuverType.RotaryExit,
+    };
+
+    private static final String[] TABLE_NAMES;
+    private static final byte[] TABLE_CODES;
+    private static final int TABLE_MASK;
+
+    static {
+        int size = Integer.highestOneBit(NAMES.length) * 2;
+        String[] names;
+        while ((names = buildTable(size)) == null) {
+            size *= 2;
+        }
+        TABLE_NAMES = names;
+        TABLE_MASK = size - 1;
+        TABLE_CODES = new byte[size];
+        for (int slot = 0; slot < size; slot++) {
+            TABLE_CODES[slot] = RouteGeometry.NO_MANEUVER;
+        }
+        for (int i = 0; i < NAMES.length; i++) {
+            TABLE_CODES[slot(NAMES[i], TABLE_MASK)] = RouteGeometry.toManeuverCode(TYPES[i]);
+        }
+    }
+
+    private ManeuverCodes() {
+    }
+
+    /**
+     * Returns maneuver code for maneuver type of Directions API,
+     * {@link RouteGeometry#NO_MANEUVER} for null or unknown types.
+     */
+    public static byte toManeuverCode(@Nullable String maneuver) {
+        if (maneuver == null) {
+            return RouteGeometry.NO_MANEUVER;
+        }
+        final int slot = slot(maneuver, TABLE_MASK);
+        return maneuver.equals(TABLE_NAMES[slot]) ? TABLE_CODES[slot] : RouteGeometry.NO_MANEUVER;
+    }
+
+    @Nullable
+    private static String[] buildTable(int size) {
+        final String[] names = new String[size];
+        for (String name : NAMES) {
+            final int slot = slot(name, size - 1);
+            if (names[slot] != null) {
+                return null;
+            }
+            names[slot] = name;
+        }
+        return names;
+    }
+
+    private static int slot(String name, int mask) {
+        final int hash = name.hashCode();
+        return (hash ^ (hash >>> 16)) & mask;
+    }
+}
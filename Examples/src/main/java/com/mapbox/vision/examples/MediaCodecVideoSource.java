@@ -0,0 +1,260 @@
+package com.mapbox.vision.examples;
+
+import android.media.Image;
+import android.media.MediaCodec;
+import android.media.MediaCodecInfo;
+import android.media.MediaExtractor;
+import android.media.MediaFormat;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.mapbox.vision.mobile.core.models.frame.ImageFormat;
+import com.mapbox.vision.mobile.core.models.frame.ImageSize;
+import com.mapbox.vision.utils.VisionLogger;
+import com.mapbox.vision.video.videosource.VideoSource;
+import com.mapbox.vision.video.videosource.VideoSourceListener;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link VideoSource} that decodes video file sequentially with {@link MediaCodec}
+ * and feeds RGBA frames to Vision SDK at the frame rate of the video.
+ * <p>
+ * Decoding and pacing are done by {@link PacedFramePump}: decoder writes frames to a small ring of reused
+ * direct ByteBuffers and stops decoding while Vision SDK is busy with previous frames.
+ * <p>
+ * Decoders output YUV 420 to buffers, RGB is only produced when decoding to a Surface, and Vision SDK takes RGB frames.
+ * So every frame is converted by {@link YuvConverter} on the decoder thread, which adds to the decoding time
+ * of every frame. Average conversion time is logged when the source is detached.
+ */
+public class MediaCodecVideoSource implements VideoSource {
+
+    private static final String TAG = MediaCodecVideoSource.class.getSimpleName();
+
+    private static final int BUFFER_COUNT = 3;
+    private static final long CODEC_TIMEOUT_US = 10_000;
+
+    private final String path;
+
+    @Nullable
+    private MediaExtractor extractor;
+    @Nullable
+    private MediaCodec codec;
+    @Nullable
+    private PacedFramePump pump;
+    @Nullable
+    private DecoderFrameProducer frameProducer;
+
+    public MediaCodecVideoSource(@NonNull String path) {
+        this.path = path;
+    }
+
+    @Override
+    public void attach(@NonNull VideoSourceListener videoSourceListener) {
+        try {
+            extractor = new MediaExtractor();
+            extractor.setDataSource(path);
+            final MediaFormat format = selectVideoTrack(extractor);
+            if (format == null) {
+                VisionLogger.Companion.e(TAG, "No video track found in " + path);
+                release();
+                return;
+            }
+
+            final ImageSize imageSize = new ImageSize(
+                    format.getInteger(MediaFormat.KEY_WIDTH),
+                    format.getInteger(MediaFormat.KEY_HEIGHT)
+            );
+            format.setInteger(
+                    MediaFormat.KEY_COLOR_FORMAT,
+                    MediaCodecInfo.CodecCapabilities.COLOR_FormatYUV420Flexible
+            );
+            codec = MediaCodec.createDecoderByType(format.getString(MediaFormat.KEY_MIME));
+            codec.configure(format, null, null, 0);
+            codec.start();
+
+            frameProducer = new DecoderFrameProducer(extractor, codec, imageSize);
+            pump = new PacedFramePump(
+                    BUFFER_COUNT,
+                    imageSize.getImageWidth() * imageSize.getImageHeight() * 4,
+                    frameProducer,
+                    new PacedFramePump.FrameConsumer() {
+                        @Override
+                        public void onFrame(@NonNull ByteBuffer buffer, long presentationTimeUs) {
+                            videoSourceListener.onNewFrame(
+                                    new VideoSourceListener.FrameHolder.ByteBufferHolder(buffer),
+                                    ImageFormat.RGBA,
+                                    imageSize
+                            );
+                        }
+
+                        @Override
+                        public void onEndOfStream(@Nullable Throwable error) {
+                            if (error != null) {
+                                VisionLogger.Companion.e(TAG, "Video decoding failed: " + error);
+                            }
+                        }
+                    },
+                    new FramePacer()
+            );
+            pump.start();
+        } catch (IOException | RuntimeException e) {
+            VisionLogger.Companion.e(TAG, "Can not open " + path + ": " + e);
+            release();
+        }
+    }
+
+    @Override
+    public void detach() {
+        if (pump != null) {
+            pump.stop();
+            pump = null;
+        }
+        if (frameProducer != null) {
+            final long conversions = frameProducer.getConversions();
+            if (conversions > 0) {
+                VisionLogger.Companion.d(
+                        TAG,
+                        "Converted " + conversions + " frames from YUV to RGBA, "
+                                + TimeUnit.NANOSECONDS.toMicros(frameProducer.getConversionNanos() / conversions)
+                                + " us per frame on the decoder thread"
+                );
+            }
+            frameProducer = null;
+        }
+        release();
+    }
+
+    private void release() {
+        if (codec != null) {
+            try {
+                codec.stop();
+            } catch (IllegalStateException e) {
+                // codec was not started
+            }
+            codec.release();
+            codec = null;
+        }
+        if (extractor != null) {
+            extractor.release();
+            extractor = null;
+        }
+    }
+
+    @Nullable
+    private static MediaFormat selectVideoTrack(@NonNull MediaExtractor extractor) {
+        for (int i = 0; i < extractor.getTrackCount(); i++) {
+            final MediaFormat format = extractor.getTrackFormat(i);
+            final String mime = format.getString(MediaFormat.KEY_MIME);
+            if (mime != null && mime.startsWith("video/")) {
+                extractor.selectTrack(i);
+                return format;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Runs decoder until next frame is ready and converts it to RGBA.
+     */
+    private static class DecoderFrameProducer implements PacedFramePump.FrameProducer {
+
+        private final MediaExtractor extractor;
+        private final MediaCodec codec;
+        private final ImageSize imageSize;
+        private final MediaCodec.BufferInfo bufferInfo = new MediaCodec.BufferInfo();
+        private final YuvConverter yuvConverter = new YuvConverter();
+        private boolean inputDone = false;
+        // read after the pump has stopped
+        private long conversions = 0;
+        private long conversionNanos = 0;
+
+        DecoderFrameProducer(
+                @NonNull MediaExtractor extractor,
+                @NonNull MediaCodec codec,
+                @NonNull ImageSize imageSize
+        ) {
+            this.extractor = extractor;
+            this.codec = codec;
+            this.imageSize = imageSize;
+        }
+
+        @Override
+        public long produceFrame(@NonNull ByteBuffer buffer) {
+            while (!Thread.currentThread().isInterrupted()) {
+                if (!inputDone) {
+                    queueInput();
+                }
+
+                final int outputIndex = codec.dequeueOutputBuffer(bufferInfo, CODEC_TIMEOUT_US);
+                if (outputIndex < 0) {
+                    // try again later, output format or buffers changed
+                    continue;
+                }
+
+                final boolean endOfStream = (bufferInfo.flags & MediaCodec.BUFFER_FLAG_END_OF_STREAM) != 0;
+                if (bufferInfo.size > 0) {
+                    final Image image = codec.getOutputImage(outputIndex);
+                    if (image != null) {
+                        convert(image, buffer);
+                        image.close();
+                        final long presentationTimeUs = bufferInfo.presentationTimeUs;
+                        codec.releaseOutputBuffer(outputIndex, false);
+                        return presentationTimeUs;
+                    }
+                }
+                codec.releaseOutputBuffer(outputIndex, false);
+                if (endOfStream) {
+                    return PacedFramePump.END_OF_STREAM;
+                }
+            }
+            return PacedFramePump.END_OF_STREAM;
+        }
+
+        long getConversions() {
+            return conversions;
+        }
+
+        long getConversionNanos() {
+            return conversionNanos;
+        }
+
+        private void queueInput() {
+            final int inputIndex = codec.dequeueInputBuffer(CODEC_TIMEOUT_US);
+            if (inputIndex < 0) {
+                return;
+            }
+            final ByteBuffer inputBuffer = codec.getInputBuffer(inputIndex);
+            final int sampleSize = inputBuffer == null ? -1 : extractor.readSampleData(inputBuffer, 0);
+            if (sampleSize < 0) {
+                codec.queueInputBuffer(inputIndex, 0, 0, 0, MediaCodec.BUFFER_FLAG_END_OF_STREAM);
+                inputDone = true;
+            } else {
+                codec.queueInputBuffer(inputIndex, 0, sampleSize, extractor.getSampleTime(), 0);
+                extractor.advance();
+            }
+        }
+
+        private void convert(@NonNull Image image, @NonNull ByteBuffer rgba) {
+            final long start = System.nanoTime();
+            final Image.Plane[] planes = image.getPlanes();
+            yuvConverter.yuv420ToRgba(
+                    planes[0].getBuffer(),
+                    planes[0].getRowStride(),
+                    planes[1].getBuffer(),
+                    planes[2].getBuffer(),
+                    planes[1].getRowStride(),
+                    planes[1].getPixelStride(),
+                    // decoded image can be padded, only visible part of it is converted
+                    Math.min(image.getWidth(), imageSize.getImageWidth()),
+                    Math.min(image.getHeight(), imageSize.getImageHeight()),
+                    rgba
+            );
+            conversionNanos += System.nanoTime() - start;
+            conversions++;
+        }
+    }
+}
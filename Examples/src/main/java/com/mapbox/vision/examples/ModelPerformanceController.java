@@ -0,0 +1,249 @@
+package com.mapbox.vision.examples;
+
+import androidx.annotation.NonNull;
+
+import com.mapbox.vision.performance.ModelPerformanceRate;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Closed-loop controller that picks model performance level to hold the latency budget.
+ * <p>
+ * Latency samples are aggregated into fixed windows. A window is "slow" if its average latency is above
+ * the budget of the current level plus hysteresis, and "fast" if it is below that budget minus hysteresis.
+ * The level steps down after several slow windows in a row and steps up after a longer run of fast windows,
+ * with a cooldown after every change, so the controller does not oscillate around the budget.
+ * Every step down doubles the fast windows needed for the next step up, up to 8 times,
+ * so a level the device can't hold is retried less and less often. Every {@code windowsToStepUp} windows
+ * a stepped up level holds without a slow window halve it back, so a passing slowdown is forgotten.
+ * <p>
+ * If latency can be measured independently of the rate, e.g. from frame capture to result, one budget fits all levels.
+ * If only the time between updates is known, it grows when the rate is lowered, so every level needs its own budget
+ * derived from its expected update period. Otherwise lowering the rate would make every later window look slow.
+ * <p>
+ * Levels are indexes from 0 (lowest rate) to {@code levelCount - 1} (highest rate).
+ * {@link #createDefault} switches between the model rates of {@link #getDefaultRate},
+ * with budgets for the time between updates.
+ * The class does not depend on Android, so it can be driven by a simulated latency trace.
+ */
+public class ModelPerformanceController {
+
+    public interface Listener {
+        void onLevelChanged(int level);
+    }
+
+    private static final float DEFAULT_HYSTERESIS = 0.2f;
+    private static final int DEFAULT_WINDOWS_TO_STEP_DOWN = 2;
+    private static final int DEFAULT_WINDOWS_TO_STEP_UP = 5;
+    private static final long DEFAULT_WINDOW_NANOS = TimeUnit.SECONDS.toNanos(1);
+    private static final int MAX_STEP_UP_BACKOFF = 8;
+
+    // Model rates of the default levels, from the lowest to the highest.
+    private static final ModelPerformanceRate[] DEFAULT_RATES = new ModelPerformanceRate[]{
+            ModelPerformanceRate.LOW.INSTANCE,
+            ModelPerformanceRate.MEDIUM.INSTANCE,
+            ModelPerformanceRate.HIGH.INSTANCE
+    };
+    // Longest acceptable time between updates at every default rate, tune them for the target device.
+    // Time between updates grows when the rate is lowered, so the budget has to follow the rate,
+    // otherwise the controller would never step up again.
+    private static final long[] DEFAULT_UPDATE_PERIOD_BUDGETS_NANOS = new long[]{
+            TimeUnit.MILLISECONDS.toNanos(400),
+            TimeUnit.MILLISECONDS.toNanos(200),
+            TimeUnit.MILLISECONDS.toNanos(100)
+    };
+
+    private final int levelCount;
+    private final long[] slowLatencyNanos;
+    private final long[] fastLatencyNanos;
+    private final int windowsToStepDown;
+    private final int windowsToStepUp;
+    private final long windowNanos;
+    private final Listener listener;
+
+    private int level;
+
+    private long windowStartNanos = -1;
+    private long windowLatencySum = 0;
+    private int windowSamples = 0;
+
+    private int slowWindows = 0;
+    private int fastWindows = 0;
+    private int cooldownWindows = 0;
+    private int stepUpBackoff = 1;
+    // windows the current level held without a slow one since it was stepped up to, -1 if it was not
+    private int heldWindows = -1;
+
+    private long lastAverageLatencyNanos = 0;
+    private float lastUpdateRate = 0;
+    private int levelChanges = 0;
+
+    /**
+     * @param latencyBudgetsNanos latency budget of every level, from the lowest rate to the highest one
+     */
+    public ModelPerformanceController(
+            @NonNull long[] latencyBudgetsNanos,
+            int initialLevel,
+            float hysteresis,
+            int windowsToStepDown,
+            int windowsToStepUp,
+            long windowNanos,
+            @NonNull Listener listener
+    ) {
+        final int levelCount = latencyBudgetsNanos.length;
+        if (levelCount == 0 || initialLevel < 0 || initialLevel >= levelCount) {
+            throw new IllegalArgumentException("Initial level " + initialLevel + " is out of [0, " + levelCount + ")");
+        }
+        this.levelCount = levelCount;
+        this.level = initialLevel;
+        this.slowLatencyNanos = new long[levelCount];
+        this.fastLatencyNanos = new long[levelCount];
+        for (int i = 0; i < levelCount; i++) {
+            slowLatencyNanos[i] = (long) (latencyBudgetsNanos[i] * (1 + hysteresis));
+            fastLatencyNanos[i] = (long) (latencyBudgetsNanos[i] * (1 - hysteresis));
+        }
+        this.windowsToStepDown = windowsToStepDown;
+        this.windowsToStepUp = windowsToStepUp;
+        this.windowNanos = windowNanos;
+        this.listener = listener;
+    }
+
+    /**
+     * @param latencyBudgetsNanos latency budget of every level, from the lowest rate to the highest one
+     */
+    public ModelPerformanceController(
+            @NonNull long[] latencyBudgetsNanos,
+            int initialLevel,
+            @NonNull Listener listener
+    ) {
+        this(
+                latencyBudgetsNanos,
+                initialLevel,
+                DEFAULT_HYSTERESIS,
+                DEFAULT_WINDOWS_TO_STEP_DOWN,
+                DEFAULT_WINDOWS_TO_STEP_UP,
+                DEFAULT_WINDOW_NANOS,
+                listener
+        );
+    }
+
+    /**
+     * Same latency budget for all levels, for latency that doesn't depend on the rate.
+     */
+    public ModelPerformanceController(
+            int levelCount,
+            int initialLevel,
+            long latencyBudgetNanos,
+            @NonNull Listener listener
+    ) {
+        this(sameBudgets(levelCount, latencyBudgetNanos), initialLevel, listener);
+    }
+
+    /**
+     * Controller of the default model rates starting at the highest one, fed with the time between updates.
+     */
+    @NonNull
+    public static ModelPerformanceController createDefault(@NonNull Listener listener) {
+        return new ModelPerformanceController(DEFAULT_UPDATE_PERIOD_BUDGETS_NANOS, DEFAULT_RATES.length - 1, listener);
+    }
+
+    /**
+     * Model rate of the level of a controller made by {@link #createDefault}.
+     */
+    @NonNull
+    public static ModelPerformanceRate getDefaultRate(int level) {
+        return DEFAULT_RATES[level];
+    }
+
+    /**
+     * Adds latency of one completed update. Listener is called from this method when the level changes.
+     */
+    public void onUpdateCompleted(long latencyNanos, long nowNanos) {
+        if (windowStartNanos < 0) {
+            windowStartNanos = nowNanos;
+        }
+        windowLatencySum += latencyNanos;
+        windowSamples++;
+
+        final long elapsed = nowNanos - windowStartNanos;
+        if (elapsed >= windowNanos) {
+            closeWindow(elapsed);
+            windowStartNanos = nowNanos;
+        }
+    }
+
+    public int getLevel() {
+        return level;
+    }
+
+    public long getLastAverageLatencyNanos() {
+        return lastAverageLatencyNanos;
+    }
+
+    /**
+     * Updates per second in the last complete window.
+     */
+    public float getLastUpdateRate() {
+        return lastUpdateRate;
+    }
+
+    public int getLevelChanges() {
+        return levelChanges;
+    }
+
+    private void closeWindow(long elapsedNanos) {
+        lastAverageLatencyNanos = windowLatencySum / windowSamples;
+        lastUpdateRate = windowSamples * (float) TimeUnit.SECONDS.toNanos(1) / elapsedNanos;
+        windowLatencySum = 0;
+        windowSamples = 0;
+
+        if (cooldownWindows > 0) {
+            cooldownWindows--;
+            return;
+        }
+
+        if (lastAverageLatencyNanos > slowLatencyNanos[level]) {
+            slowWindows++;
+            fastWindows = 0;
+        } else if (lastAverageLatencyNanos < fastLatencyNanos[level]) {
+            fastWindows++;
+            slowWindows = 0;
+        } else {
+            slowWindows = 0;
+            fastWindows = 0;
+        }
+
+        if (slowWindows >= windowsToStepDown && level > 0) {
+            stepUpBackoff = Math.min(stepUpBackoff * 2, MAX_STEP_UP_BACKOFF);
+            changeLevel(level - 1);
+            heldWindows = -1;
+        } else if (fastWindows >= windowsToStepUp * stepUpBackoff && level < levelCount - 1) {
+            changeLevel(level + 1);
+            heldWindows = 0;
+        } else if (heldWindows >= 0) {
+            heldWindows = slowWindows > 0 ? 0 : heldWindows + 1;
+            if (heldWindows >= windowsToStepUp) {
+                stepUpBackoff = Math.max(stepUpBackoff / 2, 1);
+                heldWindows = 0;
+            }
+        }
+    }
+
+    @NonNull
+    private static long[] sameBudgets(int levelCount, long latencyBudgetNanos) {
+        final long[] budgets = new long[Math.max(levelCount, 0)];
+        Arrays.fill(budgets, latencyBudgetNanos);
+        return budgets;
+    }
+
+    private void changeLevel(int newLevel) {
+        level = newLevel;
+        levelChanges++;
+        slowWindows = 0;
+        fastWindows = 0;
+        // let the pipeline settle on the new rate before judging it
+        cooldownWindows = windowsToStepDown;
+        listener.onLevelChanged(level);
+    }
+}
@@ -0,0 +1,51 @@
+package com.mapbox.vision.examples;
+
+import android.location.Location;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.mapbox.api.directions.v5.models.DirectionsResponse;
+import com.mapbox.services.android.navigation.v5.route.RouteFetcher;
+import com.mapbox.services.android.navigation.v5.route.RouteListener;
+import com.mapbox.services.android.navigation.v5.routeprogress.RouteProgress;
+
+/**
+ * {@link RerouteFetcher} requesting routes from Directions API with {@link RouteFetcher}.
+ * Only the listener of the latest request gets the result.
+ */
+public class NetworkRerouteFetcher implements RerouteFetcher, RouteListener {
+
+    private final RouteFetcher routeFetcher;
+    @Nullable
+    private RouteListener pendingListener = null;
+
+    public NetworkRerouteFetcher(@NonNull RouteFetcher routeFetcher) {
+        this.routeFetcher = routeFetcher;
+        routeFetcher.addRouteListener(this);
+    }
+
+    @Override
+    public void findRoute(@NonNull Location location, @NonNull RouteProgress routeProgress, @NonNull RouteListener listener) {
+        pendingListener = listener;
+        routeFetcher.findRouteFromRouteProgress(location, routeProgress);
+    }
+
+    @Override
+    public void onResponseReceived(DirectionsResponse response, RouteProgress routeProgress) {
+        final RouteListener listener = pendingListener;
+        pendingListener = null;
+        if (listener != null) {
+            listener.onResponseReceived(response, routeProgress);
+        }
+    }
+
+    @Override
+    public void onErrorReceived(Throwable throwable) {
+        final RouteListener listener = pendingListener;
+        pendingListener = null;
+        if (listener != null) {
+            listener.onErrorReceived(throwable);
+        }
+    }
+}
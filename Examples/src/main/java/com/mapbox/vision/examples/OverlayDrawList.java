@@ -0,0 +1,123 @@
+package com.mapbox.vision.examples;
+
+/**
+ * Reusable list of overlay drawing commands: rectangles, circles and text labels.
+ * <p>
+ * Commands are added between {@link #clear()} and {@link #replay(Renderer)}, coordinates are in pixels
+ * of the target surface. Arrays are allocated once with a fixed capacity, commands above it are dropped
+ * and counted, and labels keep a reference to the given string, so building and replaying a frame
+ * allocates nothing as long as label strings are prepared in advance.
+ * <p>
+ * The list should be used from one thread. The class does not depend on Android,
+ * so it can be exercised on a plain JVM.
+ */
+public class OverlayDrawList {
+
+    public interface Renderer {
+        void drawRect(float left, float top, float right, float bottom, int color);
+
+        void drawCircle(float centerX, float centerY, float radius, int color);
+
+        void drawLabel(float x, float y, String text, int color);
+    }
+
+    private static final byte OP_RECT = 0;
+    private static final byte OP_CIRCLE = 1;
+    private static final byte OP_LABEL = 2;
+
+    // every command takes this many coordinates, unused ones are left as is
+    private static final int COORDINATES_PER_COMMAND = 4;
+
+    private final int capacity;
+    private final byte[] ops;
+    private final int[] colors;
+    private final float[] coordinates;
+    private final String[] labels;
+    private int size = 0;
+    private long droppedCommands = 0;
+
+    public OverlayDrawList(int capacity) {
+        this.capacity = capacity;
+        ops = new byte[capacity];
+        colors = new int[capacity];
+        coordinates = new float[capacity * COORDINATES_PER_COMMAND];
+        labels = new String[capacity];
+    }
+
+    public void clear() {
+        // drop label references so strings of old frames can be collected
+        for (int i = 0; i < size; i++) {
+            labels[i] = null;
+        }
+        size = 0;
+    }
+
+    public void addRect(float left, float top, float right, float bottom, int color) {
+        add(OP_RECT, left, top, right, bottom, color, null);
+    }
+
+    public void addCircle(float centerX, float centerY, float radius, int color) {
+        add(OP_CIRCLE, centerX, centerY, radius, 0f, color, null);
+    }
+
+    /**
+     * @param x left of the text
+     * @param y baseline of the text
+     */
+    public void addLabel(float x, float y, String text, int color) {
+        add(OP_LABEL, x, y, 0f, 0f, color, text);
+    }
+
+    /**
+     * Passes all commands to the renderer in the order they were added.
+     */
+    public void replay(Renderer renderer) {
+        for (int i = 0; i < size; i++) {
+            final int offset = i * COORDINATES_PER_COMMAND;
+            switch (ops[i]) {
+                case OP_RECT:
+                    renderer.drawRect(
+                            coordinates[offset],
+                            coordinates[offset + 1],
+                            coordinates[offset + 2],
+                            coordinates[offset + 3],
+                            colors[i]
+                    );
+                    break;
+                case OP_CIRCLE:
+                    renderer.drawCircle(coordinates[offset], coordinates[offset + 1], coordinates[offset + 2], colors[i]);
+                    break;
+                case OP_LABEL:
+                    renderer.drawLabel(coordinates[offset], coordinates[offset + 1], labels[i], colors[i]);
+                    break;
+            }
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Number of commands dropped because the list was full.
+     */
+    public long getDroppedCommands() {
+        return droppedCommands;
+    }
+
+    private void add(byte op, float a, float b, float c, float d, int color, String label) {
+        if (size == capacity) {
+            droppedCommands++;
+            return;
+        }
+        final int offset = size * COORDINATES_PER_COMMAND;
+        ops[size] = op;
+        colors[size] = color;
+        coordinates[offset] = a;
+        coordinates[offset + 1] = b;
+        coordinates[offset + 2] = c;
+        coordinates[offset + 3] = d;
+        labels[size] = label;
+        size++;
+    }
+}
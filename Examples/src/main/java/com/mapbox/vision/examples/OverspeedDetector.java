@@ -0,0 +1,143 @@
+package com.mapbox.vision.examples;
+
+import androidx.annotation.NonNull;
+
+/**
+ * Decides whether the vehicle is overspeeding from a stream of speed updates and the latest speed limit.
+ * <p>
+ * Speed limit can be published from any thread with {@link #setSpeedLimit}, it's picked up by the next {@link #update}.
+ * Speed has to exceed the limit by {@code hysteresis} to start overspeeding and drop below the limit to stop,
+ * and either condition should hold for {@code debounceNanos}, so noisy speed around the limit doesn't make
+ * the state flicker. Listener is called only when the state or the limit actually changes.
+ * <p>
+ * {@link #update} should be called from one thread, listener is called on that thread.
+ * The class does not depend on Android, so it can be exercised on a plain JVM.
+ */
+public class OverspeedDetector {
+
+    public static final float UNKNOWN_SPEED_LIMIT = -1f;
+
+    public enum State {
+        // speed limit is not known yet
+        UNKNOWN,
+        NORMAL,
+        OVERSPEEDING
+    }
+
+    public interface Listener {
+        /**
+         * @param speedLimit new speed limit, {@link #UNKNOWN_SPEED_LIMIT} if it's not known anymore
+         */
+        void onSpeedLimitChanged(float speedLimit);
+
+        void onStateChanged(@NonNull State state);
+    }
+
+    private static final long NO_PENDING_TRANSITION = Long.MIN_VALUE;
+
+    private final float hysteresis;
+    private final long debounceNanos;
+    private final Listener listener;
+
+    // written by the restrictions thread, read by the updating thread
+    private volatile float publishedSpeedLimit = UNKNOWN_SPEED_LIMIT;
+
+    // accessed only on the updating thread
+    private float speedLimit = UNKNOWN_SPEED_LIMIT;
+    private State state = State.UNKNOWN;
+    private long pendingSinceNanos = NO_PENDING_TRANSITION;
+    private long updates = 0;
+    private long transitions = 0;
+
+    public OverspeedDetector(float hysteresis, long debounceNanos, @NonNull Listener listener) {
+        this.hysteresis = hysteresis;
+        this.debounceNanos = debounceNanos;
+        this.listener = listener;
+    }
+
+    /**
+     * Publishes the speed limit, negative value means the limit is unknown and zero means there is no limit.
+     * Can be called from any thread.
+     */
+    public void setSpeedLimit(float speedLimit) {
+        publishedSpeedLimit = speedLimit < 0 ? UNKNOWN_SPEED_LIMIT : speedLimit;
+    }
+
+    /**
+     * Evaluates the speed against the latest published speed limit.
+     *
+     * @return state after the update
+     */
+    @NonNull
+    public State update(float speed, long nowNanos) {
+        updates++;
+
+        final float limit = publishedSpeedLimit;
+        if (limit != speedLimit) {
+            speedLimit = limit;
+            listener.onSpeedLimitChanged(limit);
+            // the new limit is a new situation, the old pending transition doesn't apply
+            pendingSinceNanos = NO_PENDING_TRANSITION;
+            if (limit == UNKNOWN_SPEED_LIMIT) {
+                setState(State.UNKNOWN);
+            } else if (state == State.UNKNOWN) {
+                setState(State.NORMAL);
+            }
+        }
+        if (state == State.UNKNOWN) {
+            return state;
+        }
+
+        final State target = targetState(speed);
+        if (target == state) {
+            pendingSinceNanos = NO_PENDING_TRANSITION;
+        } else if (pendingSinceNanos == NO_PENDING_TRANSITION) {
+            pendingSinceNanos = nowNanos;
+        }
+        if (pendingSinceNanos != NO_PENDING_TRANSITION && nowNanos - pendingSinceNanos >= debounceNanos) {
+            pendingSinceNanos = NO_PENDING_TRANSITION;
+            setState(target);
+        }
+        return state;
+    }
+
+    @NonNull
+    public State getState() {
+        return state;
+    }
+
+    public long getUpdates() {
+        return updates;
+    }
+
+    /**
+     * Number of state changes, i.e. how many times the listener was asked to update the alert.
+     */
+    public long getTransitions() {
+        return transitions;
+    }
+
+    @NonNull
+    private State targetState(float speed) {
+        // zero limit means there is no maximum speed
+        if (speedLimit == 0) {
+            return State.NORMAL;
+        }
+        if (speed > speedLimit + hysteresis) {
+            return State.OVERSPEEDING;
+        }
+        if (speed <= speedLimit) {
+            return State.NORMAL;
+        }
+        // inside the hysteresis band the current state holds
+        return state;
+    }
+
+    private void setState(@NonNull State newState) {
+        if (newState != state) {
+            state = newState;
+            transitions++;
+            listener.onStateChanged(newState);
+        }
+    }
+}
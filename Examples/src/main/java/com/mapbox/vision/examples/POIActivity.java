@@ -3,10 +3,6 @@ package com.mapbox.vision.examples;
 import android.content.res.AssetManager;
 import android.graphics.Bitmap;
 import android.graphics.BitmapFactory;
-import android.graphics.Canvas;
-import android.graphics.Color;
-import android.graphics.Paint;
-import android.graphics.PorterDuff;
 import android.graphics.Rect;
 import android.os.Environment;
 import android.widget.ImageView;
@@ -15,28 +11,23 @@ import android.widget.TextView;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 
-import com.mapbox.mapboxsdk.geometry.LatLng;
 import com.mapbox.vision.VisionReplayManager;
 import com.mapbox.vision.mobile.core.interfaces.VisionEventsListener;
-import com.mapbox.vision.mobile.core.models.AuthorizationStatus;
 import com.mapbox.vision.mobile.core.models.Camera;
-import com.mapbox.vision.mobile.core.models.Country;
-import com.mapbox.vision.mobile.core.models.FrameSegmentation;
-import com.mapbox.vision.mobile.core.models.classification.FrameSignClassifications;
-import com.mapbox.vision.mobile.core.models.detection.FrameDetections;
 import com.mapbox.vision.mobile.core.models.frame.PixelCoordinate;
 import com.mapbox.vision.mobile.core.models.position.GeoCoordinate;
 import com.mapbox.vision.mobile.core.models.position.GeoLocation;
 import com.mapbox.vision.mobile.core.models.position.VehicleState;
-import com.mapbox.vision.mobile.core.models.road.RoadDescription;
 import com.mapbox.vision.mobile.core.models.world.WorldCoordinate;
-import com.mapbox.vision.mobile.core.models.world.WorldDescription;
+import com.mapbox.vision.utils.VisionLogger;
 import com.mapbox.vision.view.VisionView;
 
+import java.io.File;
 import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 import static android.view.View.GONE;
 
@@ -51,9 +42,29 @@ public class POIActivity extends BaseActivity {
     private static final int LABEL_ABOVE_GROUND_METERS = 8;
     // Download session from tutorial and push to device
     private static final String SESSION_PATH = Environment.getExternalStorageDirectory().getAbsolutePath() + "/session";
+    // Session files are read into page cache ahead of replay, up to this size
+    private static final long SESSION_PREFETCH_MAX_BYTES = 256L * 1024 * 1024;
+    // Projections of POI are reused while the vehicle moves less than this distance and turns less than this angle
+    private static final double POSE_CHANGE_THRESHOLD_METERS = 0.3;
+    private static final float POSE_CHANGE_THRESHOLD_DEGREES = 0.5f;
+    private static final long POSE_MAX_AGE_NANOS = TimeUnit.MILLISECONDS.toNanos(500);
+
+    private static final String TAG = POIActivity.class.getSimpleName();
 
     private List<POI> poiList = new ArrayList<>();
+    // Spatial index over poiList, finds POI near the vehicle without checking every POI.
+    private GeoGridIndex poiIndex = buildPOIIndex(poiList);
+    // Preallocated state for every POI in poiList, updated in place.
+    private POIState[] poiStates = buildPOIStates(poiList);
+    private final PoseProjectionCache poseProjectionCache = new PoseProjectionCache(
+            POSE_CHANGE_THRESHOLD_METERS,
+            POSE_CHANGE_THRESHOLD_DEGREES,
+            POSE_MAX_AGE_NANOS
+    );
     private boolean visionReplayManagerWasInit = false;
+    @Nullable
+    private ReplaySessionPrefetcher sessionPrefetcher = null;
+    private CoalescingVisionEventsListener coalescingEventsListener = null;
 
     @Nullable
     private ImageView poiView = null;
@@ -62,120 +73,117 @@ public class POIActivity extends BaseActivity {
     @Nullable
     private TextView cameraCalibrationView = null;
 
-    private VisionEventsListener visionEventsListener = new VisionEventsListener() {
+    private VisionEventsListener visionEventsListener = new SelectiveVisionEventsListener(
+            SelectiveVisionEventsListener.CAMERA | SelectiveVisionEventsListener.VEHICLE_STATE
+    ) {
 
         private boolean cameraCalibrated = false;
-        private Paint paint = new Paint();
-        private Canvas canvasCameraFrame = new Canvas();
-        private Bitmap bitmapCameraFrame = Bitmap.createBitmap(1, 1, Bitmap.Config.ARGB_8888);
-
-        public void onAuthorizationStatusUpdated(@NonNull AuthorizationStatus authorizationStatus) { }
-
-        public void onFrameSegmentationUpdated(@NonNull FrameSegmentation frameSegmentation) { }
-
-        public void onFrameDetectionsUpdated(@NonNull FrameDetections frameDetections) { }
-
-        public void onFrameSignClassificationsUpdated(@NonNull FrameSignClassifications frameSignClassifications) { }
-
-        public void onRoadDescriptionUpdated(@NonNull RoadDescription roadDescription) { }
-
-        public void onWorldDescriptionUpdated(@NonNull WorldDescription worldDescription) { }
+        @Nullable
+        private POIOverlayCompositor overlayCompositor = null;
+        private final GeoGridIndex.Result nearbyPOI = new GeoGridIndex.Result();
+        private final List<POIState> nearbyPOIStates = new ArrayList<>();
+        private final List<POIState> visiblePOIStates = new ArrayList<>();
+        private long lastProjectionStatsLogNanos = 0;
 
         public void onCameraUpdated(@NonNull Camera camera) {
             if (camera.getCalibrationProgress() == 1.0f && !cameraCalibrated) {
                 cameraCalibrated = true;
-                bitmapCameraFrame = Bitmap.createBitmap(camera.getFrameWidth(), camera.getFrameHeight(), Bitmap.Config.ARGB_8888);
-                canvasCameraFrame = new Canvas(bitmapCameraFrame);
-                runOnUiThread (() -> {
-                    if (cameraCalibrationView != null) {
-                        cameraCalibrationView.setVisibility(GONE);
-                    }
-                });
-            } else {
-                runOnUiThread ( () -> {
-                    if (cameraCalibrationView != null) {
-                        String text = getString(R.string.camera_calibration_progress, (int)(camera.getCalibrationProgress() * 100));
-                        cameraCalibrationView.setText(text);
-                    }
-                });
+                overlayCompositor = new POIOverlayCompositor(camera.getFrameWidth(), camera.getFrameHeight());
+                poseProjectionCache.invalidate();
             }
+            // calibration progress is shown by uiEventsListener
         }
 
-        public void onCountryUpdated(@NonNull Country country) { }
-
-        public void onUpdateCompleted() { }
-
         public void onVehicleStateUpdated(@NonNull VehicleState vehicleState) {
             if (cameraCalibrated) {
-                updatePOIStateAndDraw(vehicleState.getGeoLocation());
+                updatePOIStateAndDraw(vehicleState.getGeoLocation(), vehicleState.getHeading());
             }
         }
 
-        private void updatePOIStateAndDraw(GeoLocation newVehicleGeoLocation) {
+        private void updatePOIStateAndDraw(GeoLocation newVehicleGeoLocation, float vehicleHeading) {
             if (poiList.isEmpty()) {
                 return;
             }
 
-            List<POIState> poiStateList = calculatePOIStateListRegardingVehicle(newVehicleGeoLocation.getGeoCoordinate());
+            final GeoCoordinate vehicleGeoCoordinate = newVehicleGeoLocation.getGeoCoordinate();
+            final long now = System.nanoTime();
+            poseProjectionCache.updatePose(
+                    vehicleGeoCoordinate.getLatitude(),
+                    vehicleGeoCoordinate.getLongitude(),
+                    vehicleHeading,
+                    now
+            );
+            logProjectionStats(now);
+
+            List<POIState> poiStateList = calculatePOIStateListRegardingVehicle(vehicleGeoCoordinate);
             poiStateList = filterPOIByDistance(poiStateList);
-            if (poiStateList.isEmpty()) {
+            // Empty list is drawn as well, so labels of POI which went out of sight are erased
+            final Bitmap overlayBitmap = updateBitmapByPOIList(poiStateList);
+            if (overlayBitmap == null) {
+                // nothing has changed since the last shown frame
                 return;
             }
-            final List<POIDrawData> poiDrawDataList = preparePOIDrawData(poiStateList);
-            updateBitmapByPOIList(poiDrawDataList);
+            final POIOverlayCompositor compositor = overlayCompositor;
             runOnUiThread(() -> {
                 if (poiView != null) {
-                    poiView.setImageBitmap(bitmapCameraFrame);
+                    poiView.setImageBitmap(overlayBitmap);
                 }
+                // now the other overlay buffer can be drawn
+                compositor.onDisplayed(overlayBitmap);
             });
         }
 
         // Calculate POI distance to vehicle and WorldCoordinates regarding the vehicle
         private List<POIState> calculatePOIStateListRegardingVehicle(@NonNull GeoCoordinate currentVehicleGeoCoordinate) {
-            final List<POIState> poiStateList = new ArrayList<>();
-            final LatLng currentVehicleLatLng = new LatLng(currentVehicleGeoCoordinate.getLatitude(), currentVehicleGeoCoordinate.getLongitude());
-            for (POI poi: poiList) {
-                final LatLng latLng = new LatLng(poi.getLatitude(), poi.getLongitude());
-                final GeoCoordinate geoCoordinate = new GeoCoordinate(latLng.getLatitude(), latLng.getLongitude());
-                final WorldCoordinate worldCoordinate = VisionReplayManager.geoToWorld(geoCoordinate);
-                if (worldCoordinate == null) {
-                    continue;
+            nearbyPOIStates.clear();
+            // Only POI close enough to be drawn are projected to the world coordinates
+            poiIndex.query(
+                    currentVehicleGeoCoordinate.getLatitude(),
+                    currentVehicleGeoCoordinate.getLongitude(),
+                    MIN_DISTANCE_METERS_FOR_DRAW_LABEL,
+                    nearbyPOI
+            );
+            for (int i = 0; i < nearbyPOI.size(); i++) {
+                final POIState poiState = poiStates[nearbyPOI.index(i)];
+                poiState.distanceToVehicle = (int) nearbyPOI.distanceMeters(i);
+                // Projection is reused until the vehicle moves far enough
+                if (!poseProjectionCache.checkValid(poiState.projectionEpoch)) {
+                    projectPOI(poiState);
+                    poiState.projectionEpoch = poseProjectionCache.getEpoch();
+                }
+                if (poiState.worldCoordinate != null) {
+                    nearbyPOIStates.add(poiState);
                 }
-                int distanceToVehicle = (int)latLng.distanceTo(currentVehicleLatLng);
-                POIState poiState = new POIState(poi, distanceToVehicle, worldCoordinate);
-                poiStateList.add(poiState);
             }
-            return poiStateList;
+            return nearbyPOIStates;
+        }
+
+        private void projectPOI(@NonNull POIState poiState) {
+            final POI poi = poiState.getPOI();
+            poiState.worldCoordinate = VisionReplayManager.geoToWorld(
+                    new GeoCoordinate(poi.getLatitude(), poi.getLongitude())
+            );
+            if (poiState.worldCoordinate != null) {
+                calculatePOIScreenRect(poiState.worldCoordinate, poiState.poiBitmapRect);
+            }
         }
 
         // Show only POI which is close enough and behind the car
         @NonNull
         private List<POIState> filterPOIByDistance(List<POIState> poiStateList) {
-            final List<POIState> result = new ArrayList<>();
+            visiblePOIStates.clear();
             for (POIState poiState: poiStateList) {
-                double x = poiState.worldCoordinate.getX();
+                double x = poiState.getWorldCoordinate().getX();
                 if (x > 0 && poiState.getDistanceToVehicle() < MIN_DISTANCE_METERS_FOR_DRAW_LABEL) {
-                    result.add(poiState);
+                    poiState.poiBitmapAlpha = calculatePOILabelAlpha(poiState);
+                    visiblePOIStates.add(poiState);
                 }
             }
-            return result;
-        }
-
-        @NonNull
-        private List<POIDrawData> preparePOIDrawData(List<POIState> poiStateList){
-
-            // Prepare bounding rect for POI in mobile screen coordinates
-            final List<POIDrawData> poiDrawDataList = new ArrayList<>();
-            for (POIState poiState: poiStateList) {
-                final Rect poiBitmapRect = calculatePOIScreenRect(poiState.getWorldCoordinate());
-                final int poiLabelAlpha = calculatePOILabelAlpha(poiState);
-                final POIDrawData poiDrawData = new POIDrawData(poiState.getPOI().getBitmap(), poiBitmapRect, poiLabelAlpha);
-                poiDrawDataList.add(poiDrawData);
-            }
-            return poiDrawDataList;
+            return visiblePOIStates;
         }
 
-        private Rect calculatePOIScreenRect(@NonNull WorldCoordinate poiWorldCoordinate) {
+        // Prepare bounding rect for POI in mobile screen coordinates
+        private void calculatePOIScreenRect(@NonNull WorldCoordinate poiWorldCoordinate, @NonNull Rect poiBitmapRect) {
 
             // Calculate left top coordinate of POI in real world using POI world coordinate
             final WorldCoordinate worldLeftTop = poiWorldCoordinate.copy(
@@ -191,12 +199,12 @@ public class POIActivity extends BaseActivity {
                     poiWorldCoordinate.getZ() + LABEL_ABOVE_GROUND_METERS
             );
 
-            Rect poiBitmapRect = new Rect(0, 0, 0, 0);
+            poiBitmapRect.set(0, 0, 0, 0);
 
             // Calculate POI left top position on camera frame from real word coordinates
             PixelCoordinate pixelLeftTop = VisionReplayManager.worldToPixel(worldLeftTop);
             if (pixelLeftTop == null) {
-                return poiBitmapRect;
+                return;
             }
             poiBitmapRect.left = pixelLeftTop.getX();
             poiBitmapRect.top = pixelLeftTop.getY();
@@ -204,12 +212,10 @@ public class POIActivity extends BaseActivity {
             // Calculate POI right bottom position on camera frame from real word coordinates
             PixelCoordinate pixelRightTop = VisionReplayManager.worldToPixel(worldRightBottom);
             if (pixelRightTop == null) {
-                return poiBitmapRect;
+                return;
             }
             poiBitmapRect.right = pixelRightTop.getX();
             poiBitmapRect.bottom = pixelRightTop.getY();
-
-            return poiBitmapRect;
         }
 
         private int calculatePOILabelAlpha(@NonNull POIState poiState) {
@@ -217,11 +223,44 @@ public class POIActivity extends BaseActivity {
             return (int)((minDistance / (float)DISTANCE_FOR_ALPHA_APPEAR_METERS) * 255);
         }
 
-        private void updateBitmapByPOIList(@NonNull List<POIDrawData> poiDrawDataList) {
-            canvasCameraFrame.drawColor(Color.TRANSPARENT, PorterDuff.Mode.CLEAR);
-            for (POIDrawData drawPoi : poiDrawDataList) {
-                paint.setAlpha(drawPoi.getPOIBitmapAlpha());
-                canvasCameraFrame.drawBitmap(drawPoi.getPOIBitmap(), null, drawPoi.getPOIBitmapRect(), paint);
+        private void logProjectionStats(long now) {
+            if (now - lastProjectionStatsLogNanos >= TimeUnit.SECONDS.toNanos(5)) {
+                lastProjectionStatsLogNanos = now;
+                VisionLogger.Companion.d(
+                        TAG,
+                        "POI projection cache: hit rate " + poseProjectionCache.getHitRate()
+                                + ", projections per second " + poseProjectionCache.getProjectionsPerSecond()
+                );
+            }
+        }
+
+        @Nullable
+        private Bitmap updateBitmapByPOIList(@NonNull List<POIState> poiStateList) {
+            if (overlayCompositor == null) {
+                return null;
+            }
+            overlayCompositor.beginFrame();
+            for (POIState poiState : poiStateList) {
+                overlayCompositor.addLabel(poiState.getPOI().getBitmap(), poiState.getPOIBitmapRect(), poiState.getPOIBitmapAlpha());
+            }
+            return overlayCompositor.endFrame();
+        }
+    };
+
+    // Gets only the latest events on the main thread, at most once per display frame.
+    private VisionEventsListener uiEventsListener = new SelectiveVisionEventsListener(
+            SelectiveVisionEventsListener.CAMERA
+    ) {
+
+        public void onCameraUpdated(@NonNull Camera camera) {
+            if (cameraCalibrationView == null) {
+                return;
+            }
+            if (camera.getCalibrationProgress() == 1.0f) {
+                cameraCalibrationView.setVisibility(GONE);
+            } else {
+                String text = getString(R.string.camera_calibration_progress, (int)(camera.getCalibrationProgress() * 100));
+                cameraCalibrationView.setText(text);
             }
         }
     };
@@ -238,6 +277,8 @@ public class POIActivity extends BaseActivity {
         visionView = findViewById(R.id.vision_view);
         cameraCalibrationView = findViewById(R.id.camera_calibration_text);
         poiList = providePOIList();
+        poiIndex = buildPOIIndex(poiList);
+        poiStates = buildPOIStates(poiList);
     }
 
     @Override
@@ -270,8 +311,20 @@ public class POIActivity extends BaseActivity {
 
     private void startVisionManager() {
         if (allPermissionsGranted() && !visionReplayManagerWasInit && visionView != null) {
+            sessionPrefetcher = new ReplaySessionPrefetcher(
+                    new File(SESSION_PATH),
+                    SESSION_PREFETCH_MAX_BYTES,
+                    (bytes, elapsedNanos, error) -> VisionLogger.Companion.d(
+                            TAG,
+                            "Session prefetch: " + bytes / 1024 + " KB in "
+                                    + TimeUnit.NANOSECONDS.toMillis(elapsedNanos) + " ms"
+                                    + (error != null ? ", failed: " + error : "")
+                    )
+            );
+            sessionPrefetcher.start();
             VisionReplayManager.create(SESSION_PATH);
-            VisionReplayManager.setVisionEventsListener(visionEventsListener);
+            coalescingEventsListener = new CoalescingVisionEventsListener(visionEventsListener, uiEventsListener);
+            VisionReplayManager.setVisionEventsListener(coalescingEventsListener);
             visionView.setVisionManager(VisionReplayManager.INSTANCE);
             VisionReplayManager.start();
             visionReplayManagerWasInit = true;
@@ -282,6 +335,14 @@ public class POIActivity extends BaseActivity {
         if (visionReplayManagerWasInit) {
             VisionReplayManager.stop();
             VisionReplayManager.destroy();
+            if (coalescingEventsListener != null) {
+                coalescingEventsListener.release();
+                coalescingEventsListener = null;
+            }
+            if (sessionPrefetcher != null) {
+                sessionPrefetcher.stop();
+                sessionPrefetcher = null;
+            }
             visionReplayManagerWasInit = false;
         }
     }
@@ -292,6 +353,24 @@ public class POIActivity extends BaseActivity {
         return Arrays.asList(poiGasStation, poiCarWash);
     }
 
+    private static GeoGridIndex buildPOIIndex(@NonNull List<POI> poiList) {
+        final double[] latitudes = new double[poiList.size()];
+        final double[] longitudes = new double[poiList.size()];
+        for (int i = 0; i < poiList.size(); i++) {
+            latitudes[i] = poiList.get(i).getLatitude();
+            longitudes[i] = poiList.get(i).getLongitude();
+        }
+        return new GeoGridIndex(latitudes, longitudes, MIN_DISTANCE_METERS_FOR_DRAW_LABEL);
+    }
+
+    private static POIState[] buildPOIStates(@NonNull List<POI> poiList) {
+        final POIState[] poiStates = new POIState[poiList.size()];
+        for (int i = 0; i < poiStates.length; i++) {
+            poiStates[i] = new POIState(poiList.get(i));
+        }
+        return poiStates;
+    }
+
     private Bitmap getBitmapFromAssets(@NonNull String asset) {
         final AssetManager assetManager = this.getAssets();
         try {
@@ -329,45 +408,20 @@ public class POIActivity extends BaseActivity {
         }
     }
 
-    private static class POIDrawData {
-
-        @NonNull
-        private Bitmap poiBitmap;
-        private Rect poiBitmapRect;
-        private int poiBitmapAlpha;
-
-        POIDrawData(@NonNull Bitmap poiBitmap, Rect poiBitmapRect, int poiBitmapAlpha) {
-            this.poiBitmap = poiBitmap;
-            this.poiBitmapRect = poiBitmapRect;
-            this.poiBitmapAlpha = poiBitmapAlpha;
-        }
-
-        @NonNull
-        Bitmap getPOIBitmap() {
-            return poiBitmap;
-        }
-
-        Rect getPOIBitmapRect() {
-            return poiBitmapRect;
-        }
-
-        int getPOIBitmapAlpha() {
-            return poiBitmapAlpha;
-        }
-    }
-
     private static class POIState {
 
         @NonNull
-        private POI poi;
-        @NonNull
+        private final POI poi;
+        @Nullable
         private WorldCoordinate worldCoordinate;
         private int distanceToVehicle;
+        private final Rect poiBitmapRect = new Rect();
+        private int poiBitmapAlpha;
+        // PoseProjectionCache epoch worldCoordinate and poiBitmapRect were calculated in
+        private int projectionEpoch = -1;
 
-        POIState(@NonNull POI poi, int distanceToVehicle, @NonNull WorldCoordinate worldCoordinate) {
+        POIState(@NonNull POI poi) {
             this.poi = poi;
-            this.distanceToVehicle = distanceToVehicle;
-            this.worldCoordinate = worldCoordinate;
         }
 
         @NonNull
@@ -383,5 +437,13 @@ public class POIActivity extends BaseActivity {
         int getDistanceToVehicle() {
             return distanceToVehicle;
         }
+
+        Rect getPOIBitmapRect() {
+            return poiBitmapRect;
+        }
+
+        int getPOIBitmapAlpha() {
+            return poiBitmapAlpha;
+        }
     }
 }
@@ -0,0 +1,173 @@
+package com.mapbox.vision.examples;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Paint;
+import android.graphics.PorterDuff;
+import android.graphics.Rect;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.Arrays;
+
+/**
+ * Draws POI labels into a double-buffered overlay, repainting only the regions that changed.
+ * <p>
+ * Labels of a frame are added between {@link #beginFrame()} and {@link #endFrame()} on the drawing thread.
+ * If the labels are the same as in the last shown frame, nothing is drawn and {@link #endFrame()} returns {@code null}.
+ * Otherwise the back buffer is repainted inside the union of the labels it had before and the new labels,
+ * and returned to be shown. UI thread calls {@link #onDisplayed(Bitmap)} once it has shown the buffer,
+ * until then the other buffer is still on screen and the next changed frame is skipped.
+ */
+public class POIOverlayCompositor {
+
+    private static class Buffer {
+        final Bitmap bitmap;
+        final Canvas canvas;
+        // union of labels drawn into this buffer last time
+        final Rect drawnBounds = new Rect();
+
+        Buffer(int width, int height) {
+            bitmap = Bitmap.createBitmap(width, height, Bitmap.Config.ARGB_8888);
+            canvas = new Canvas(bitmap);
+        }
+    }
+
+    private final Buffer[] buffers;
+    private int backIndex = 0;
+    private volatile boolean displayPending = false;
+
+    private final Paint paint = new Paint();
+    private final Rect dirty = new Rect();
+
+    // labels of the frame being built
+    private final Labels current = new Labels();
+    // labels of the last frame returned from endFrame
+    private final Labels shown = new Labels();
+
+    private long drawnFrames = 0;
+    private long skippedFrames = 0;
+
+    public POIOverlayCompositor(int width, int height) {
+        buffers = new Buffer[]{new Buffer(width, height), new Buffer(width, height)};
+    }
+
+    public void beginFrame() {
+        current.clear();
+    }
+
+    public void addLabel(@NonNull Bitmap bitmap, @NonNull Rect rect, int alpha) {
+        current.add(bitmap, rect, alpha);
+    }
+
+    /**
+     * Draws the frame and returns the bitmap to show, or {@code null} if there is nothing new to show.
+     */
+    @Nullable
+    public Bitmap endFrame() {
+        if (current.contentEquals(shown)) {
+            skippedFrames++;
+            return null;
+        }
+        if (displayPending) {
+            // UI thread still shows the other buffer, labels will be compared with `shown` again next frame
+            skippedFrames++;
+            return null;
+        }
+
+        final Buffer back = buffers[backIndex];
+        dirty.set(back.drawnBounds);
+        current.unionBounds(dirty);
+
+        if (!dirty.isEmpty()) {
+            back.canvas.save();
+            back.canvas.clipRect(dirty);
+            back.canvas.drawColor(Color.TRANSPARENT, PorterDuff.Mode.CLEAR);
+            for (int i = 0; i < current.size; i++) {
+                paint.setAlpha(current.alphas[i]);
+                back.canvas.drawBitmap(current.bitmaps[i], null, current.rects[i], paint);
+            }
+            back.canvas.restore();
+        }
+
+        back.drawnBounds.setEmpty();
+        current.unionBounds(back.drawnBounds);
+        shown.copyFrom(current);
+        backIndex = 1 - backIndex;
+        displayPending = true;
+        drawnFrames++;
+        return back.bitmap;
+    }
+
+    /**
+     * Called on UI thread after bitmap returned from {@link #endFrame()} is set to the view.
+     */
+    public void onDisplayed(@NonNull Bitmap bitmap) {
+        displayPending = false;
+    }
+
+    public long getDrawnFrames() {
+        return drawnFrames;
+    }
+
+    public long getSkippedFrames() {
+        return skippedFrames;
+    }
+
+    private static class Labels {
+
+        Bitmap[] bitmaps = new Bitmap[4];
+        Rect[] rects = new Rect[4];
+        int[] alphas = new int[4];
+        int size = 0;
+
+        void clear() {
+            Arrays.fill(bitmaps, 0, size, null);
+            size = 0;
+        }
+
+        void add(@NonNull Bitmap bitmap, @NonNull Rect rect, int alpha) {
+            if (size == bitmaps.length) {
+                bitmaps = Arrays.copyOf(bitmaps, size * 2);
+                rects = Arrays.copyOf(rects, size * 2);
+                alphas = Arrays.copyOf(alphas, size * 2);
+            }
+            if (rects[size] == null) {
+                rects[size] = new Rect();
+            }
+            bitmaps[size] = bitmap;
+            rects[size].set(rect);
+            alphas[size] = alpha;
+            size++;
+        }
+
+        void copyFrom(@NonNull Labels other) {
+            clear();
+            for (int i = 0; i < other.size; i++) {
+                add(other.bitmaps[i], other.rects[i], other.alphas[i]);
+            }
+        }
+
+        boolean contentEquals(@NonNull Labels other) {
+            if (size != other.size) {
+                return false;
+            }
+            for (int i = 0; i < size; i++) {
+                if (bitmaps[i] != other.bitmaps[i]
+                        || alphas[i] != other.alphas[i]
+                        || !rects[i].equals(other.rects[i])) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        void unionBounds(@NonNull Rect bounds) {
+            for (int i = 0; i < size; i++) {
+                bounds.union(rects[i]);
+            }
+        }
+    }
+}
@@ -0,0 +1,185 @@
+package com.mapbox.vision.examples;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Moves frames from a {@link FrameProducer} (eg. video decoder) to a {@link FrameConsumer} (eg. Vision SDK)
+ * through a small ring of reused direct ByteBuffers.
+ * <p>
+ * Producer and consumer run on their own threads. Consumer receives frames paced by {@link FramePacer},
+ * and producer blocks while all buffers are queued or being consumed, so a slow consumer slows down decoding
+ * instead of growing memory.
+ * <p>
+ * The class does not depend on Android, so it can be driven by a synthetic producer on a plain JVM.
+ */
+public class PacedFramePump {
+
+    /**
+     * Presentation time returned by {@link FrameProducer#produceFrame} when there are no more frames.
+     */
+    public static final long END_OF_STREAM = -1;
+
+    public interface FrameProducer {
+        /**
+         * Writes next frame to {@code buffer} starting from its current position.
+         *
+         * @return presentation time of the frame in microseconds or {@link #END_OF_STREAM}
+         */
+        long produceFrame(@NonNull ByteBuffer buffer) throws Exception;
+    }
+
+    public interface FrameConsumer {
+        /**
+         * Called on consumer thread. {@code buffer} can be used only until this method returns.
+         */
+        void onFrame(@NonNull ByteBuffer buffer, long presentationTimeUs);
+
+        /**
+         * Called once when producer runs out of frames or fails with {@code error}.
+         */
+        void onEndOfStream(@Nullable Throwable error);
+    }
+
+    private static class Frame {
+        final ByteBuffer buffer;
+        long presentationTimeUs;
+
+        Frame(int sizeBytes) {
+            buffer = ByteBuffer.allocateDirect(sizeBytes);
+        }
+    }
+
+    private final FrameProducer producer;
+    private final FrameConsumer consumer;
+    private final FramePacer pacer;
+    private final ArrayBlockingQueue<Frame> freeFrames;
+    private final ArrayBlockingQueue<Frame> readyFrames;
+
+    private final AtomicLong producedFrames = new AtomicLong();
+    private final AtomicLong deliveredFrames = new AtomicLong();
+    private final AtomicLong producerBlockedNanos = new AtomicLong();
+
+    private volatile boolean running = false;
+    private Thread producerThread;
+    private Thread consumerThread;
+
+    public PacedFramePump(
+            int bufferCount,
+            int frameSizeBytes,
+            @NonNull FrameProducer producer,
+            @NonNull FrameConsumer consumer,
+            @NonNull FramePacer pacer
+    ) {
+        if (bufferCount < 2) {
+            throw new IllegalArgumentException("At least 2 buffers are required, got " + bufferCount);
+        }
+        this.producer = producer;
+        this.consumer = consumer;
+        this.pacer = pacer;
+        freeFrames = new ArrayBlockingQueue<>(bufferCount);
+        readyFrames = new ArrayBlockingQueue<>(bufferCount);
+        for (int i = 0; i < bufferCount; i++) {
+            freeFrames.add(new Frame(frameSizeBytes));
+        }
+    }
+
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        running = true;
+        pacer.reset();
+        producerThread = new Thread(this::produceLoop, "FramePumpProducer");
+        consumerThread = new Thread(this::consumeLoop, "FramePumpConsumer");
+        producerThread.start();
+        consumerThread.start();
+    }
+
+    /**
+     * Stops both threads and waits for them to finish.
+     */
+    public synchronized void stop() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        producerThread.interrupt();
+        consumerThread.interrupt();
+        try {
+            producerThread.join();
+            consumerThread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public long getProducedFrames() {
+        return producedFrames.get();
+    }
+
+    public long getDeliveredFrames() {
+        return deliveredFrames.get();
+    }
+
+    /**
+     * Total time producer spent waiting for a free buffer, ie. how much back-pressure consumer applied.
+     */
+    public long getProducerBlockedNanos() {
+        return producerBlockedNanos.get();
+    }
+
+    private void produceLoop() {
+        try {
+            while (running) {
+                final long waitStart = System.nanoTime();
+                final Frame frame = freeFrames.take();
+                producerBlockedNanos.addAndGet(System.nanoTime() - waitStart);
+
+                frame.buffer.clear();
+                frame.presentationTimeUs = producer.produceFrame(frame.buffer);
+                readyFrames.put(frame);
+                if (frame.presentationTimeUs == END_OF_STREAM) {
+                    return;
+                }
+                producedFrames.incrementAndGet();
+            }
+        } catch (InterruptedException e) {
+            // stopped
+        } catch (Exception e) {
+            running = false;
+            consumerThread.interrupt();
+            consumer.onEndOfStream(e);
+        }
+    }
+
+    private void consumeLoop() {
+        try {
+            while (running) {
+                final Frame frame = readyFrames.take();
+                if (frame.presentationTimeUs == END_OF_STREAM) {
+                    running = false;
+                    consumer.onEndOfStream(null);
+                    return;
+                }
+
+                final long delay = pacer.delayNanos(frame.presentationTimeUs, System.nanoTime());
+                if (delay > 0) {
+                    TimeUnit.NANOSECONDS.sleep(delay);
+                }
+
+                frame.buffer.rewind();
+                consumer.onFrame(frame.buffer, frame.presentationTimeUs);
+                deliveredFrames.incrementAndGet();
+                freeFrames.put(frame);
+            }
+        } catch (InterruptedException e) {
+            // stopped
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package com.mapbox.vision.examples;
+
+import androidx.annotation.NonNull;
+
+/**
+ * Streaming decoder of encoded polylines.
+ * <p>
+ * Decodes the same format and gives the same coordinates as {@code PolylineUtils.decode},
+ * but passes every point to a {@link Sink} as primitive values instead of building a list of {@code Point}.
+ * <p>
+ * The class does not depend on Android, so it can be exercised on a plain JVM.
+ */
+public final class PolylineDecoder {
+
+    public interface Sink {
+        void onPoint(double latitude, double longitude);
+    }
+
+    private PolylineDecoder() {
+    }
+
+    /**
+     * Decodes {@code encoded} polyline with given precision, for example 6 for polyline6 of Directions API.
+     *
+     * @return number of decoded points
+     */
+    public static int decode(@NonNull String encoded, int precision, @NonNull Sink sink) {
+        final double factor = Math.pow(10, precision);
+        final int length = encoded.length();
+        int index = 0;
+        int latitude = 0;
+        int longitude = 0;
+        int points = 0;
+
+        while (index < length) {
+            long result = 0;
+            int shift = 0;
+            int b;
+            do {
+                b = nextChunk(encoded, index++);
+                result |= (long) (b & 0x1f) << shift;
+                shift += 5;
+            } while (b >= 0x20);
+            latitude += (result & 1) != 0 ? ~(result >> 1) : (result >> 1);
+
+            result = 0;
+            shift = 0;
+            do {
+                b = nextChunk(encoded, index++);
+                result |= (long) (b & 0x1f) << shift;
+                shift += 5;
+            } while (b >= 0x20);
+            longitude += (result & 1) != 0 ? ~(result >> 1) : (result >> 1);
+
+            sink.onPoint(latitude / factor, longitude / factor);
+            points++;
+        }
+        return points;
+    }
+
+    private static int nextChunk(@NonNull String encoded, int index) {
+        if (index >= encoded.length()) {
+            throw new IllegalArgumentException("Polyline is truncated at " + index);
+        }
+        return encoded.charAt(index) - 63;
+    }
+}
@@ -0,0 +1,119 @@
+package com.mapbox.vision.examples;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decides when projections computed for previous vehicle pose can be reused.
+ * <p>
+ * Every significant pose change starts a new epoch. A projection made in the current epoch is still valid,
+ * older ones have to be recomputed. Pose counts as changed when the vehicle moved further than
+ * {@code thresholdMeters}, turned by more than {@code thresholdDegrees}, or when the epoch is older than
+ * {@code maxAgeNanos}, which covers changes neither of them reflects, like camera pitch.
+ * <p>
+ * The class does not depend on Android, so it can be exercised on a plain JVM.
+ */
+public class PoseProjectionCache {
+
+    private static final long STATS_WINDOW_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final double thresholdMeters;
+    private final float thresholdDegrees;
+    private final long maxAgeNanos;
+
+    private int epoch = 0;
+    private double epochLatitude = Double.NaN;
+    private double epochLongitude = Double.NaN;
+    private float epochHeading = 0f;
+    private long epochStartNanos = 0;
+
+    private long hits = 0;
+    private long projections = 0;
+    private long windowStartNanos = -1;
+    private long windowProjections = 0;
+    private long projectionsPerSecond = 0;
+
+    public PoseProjectionCache(double thresholdMeters, float thresholdDegrees, long maxAgeNanos) {
+        this.thresholdMeters = thresholdMeters;
+        this.thresholdDegrees = thresholdDegrees;
+        this.maxAgeNanos = maxAgeNanos;
+    }
+
+    /**
+     * Updates vehicle pose and returns current epoch.
+     *
+     * @param heading vehicle heading in degrees
+     */
+    public int updatePose(double latitude, double longitude, float heading, long nowNanos) {
+        if (Double.isNaN(epochLatitude)
+                || nowNanos - epochStartNanos > maxAgeNanos
+                || headingDifference(epochHeading, heading) > thresholdDegrees
+                || GeoGridIndex.distanceMeters(epochLatitude, epochLongitude, latitude, longitude) > thresholdMeters) {
+            epoch++;
+            epochLatitude = latitude;
+            epochLongitude = longitude;
+            epochHeading = heading;
+            epochStartNanos = nowNanos;
+        }
+        rollStatsWindow(nowNanos);
+        return epoch;
+    }
+
+    public int getEpoch() {
+        return epoch;
+    }
+
+    /**
+     * Forgets the pose, so every cached projection becomes invalid.
+     */
+    public void invalidate() {
+        epochLatitude = Double.NaN;
+    }
+
+    /**
+     * Returns true if projection made in {@code projectionEpoch} can be reused, and counts it as a cache hit.
+     * Otherwise counts a new projection which the caller is expected to make.
+     */
+    public boolean checkValid(int projectionEpoch) {
+        if (projectionEpoch == epoch) {
+            hits++;
+            return true;
+        }
+        projections++;
+        windowProjections++;
+        return false;
+    }
+
+    public float getHitRate() {
+        final long total = hits + projections;
+        return total == 0 ? 0f : hits / (float) total;
+    }
+
+    public long getProjections() {
+        return projections;
+    }
+
+    /**
+     * Projections made during the last complete second.
+     */
+    public long getProjectionsPerSecond() {
+        return projectionsPerSecond;
+    }
+
+    /**
+     * Returns the angle between two headings in degrees, in [0, 180], so turning from 359 to 1 is 2 degrees.
+     */
+    static float headingDifference(float from, float to) {
+        final float difference = Math.abs(to - from) % 360f;
+        return difference > 180f ? 360f - difference : difference;
+    }
+
+    private void rollStatsWindow(long nowNanos) {
+        if (windowStartNanos < 0) {
+            windowStartNanos = nowNanos;
+        } else if (nowNanos - windowStartNanos >= STATS_WINDOW_NANOS) {
+            projectionsPerSecond = windowProjections * STATS_WINDOW_NANOS / (nowNanos - windowStartNanos);
+            windowProjections = 0;
+            windowStartNanos = nowNanos;
+        }
+    }
+}
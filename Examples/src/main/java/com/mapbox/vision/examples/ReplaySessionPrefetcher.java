@@ -0,0 +1,133 @@
+package com.mapbox.vision.examples;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Warms up page cache for files of a recorded session before and during replay.
+ * <p>
+ * Files are read through one reused buffer on a background thread, which leaves their pages in page cache,
+ * so reads made by replay are served from memory instead of storage. Nothing is mapped, so prefetching
+ * doesn't hold any memory of its own besides the buffer.
+ * No more than {@code maxPrefetchBytes} are prefetched, so a long session doesn't evict itself.
+ * <p>
+ * {@link #stop()} waits for the prefetch thread, so the listener is never called after it returns.
+ * <p>
+ * The class does not depend on Android, so it can be exercised on a plain JVM.
+ */
+public class ReplaySessionPrefetcher {
+
+    public interface Listener {
+        /**
+         * Called on the prefetch thread when all files are prefetched or the limit is reached.
+         */
+        void onPrefetchCompleted(long bytes, long elapsedNanos, @Nullable IOException error);
+    }
+
+    private static final int READ_BUFFER_BYTES = 256 * 1024;
+
+    private final File sessionDir;
+    private final long maxPrefetchBytes;
+    @Nullable
+    private final Listener listener;
+
+    @Nullable
+    private Thread prefetchThread = null;
+    private volatile boolean stopped = false;
+    private final AtomicLong prefetchedBytes = new AtomicLong();
+
+    public ReplaySessionPrefetcher(@NonNull File sessionDir, long maxPrefetchBytes, @Nullable Listener listener) {
+        this.sessionDir = sessionDir;
+        this.maxPrefetchBytes = maxPrefetchBytes;
+        this.listener = listener;
+    }
+
+    public void start() {
+        if (prefetchThread != null) {
+            return;
+        }
+        stopped = false;
+        prefetchThread = new Thread(this::prefetch, "SessionPrefetch");
+        prefetchThread.setPriority(Thread.MIN_PRIORITY);
+        prefetchThread.start();
+    }
+
+    public void stop() {
+        if (prefetchThread == null) {
+            return;
+        }
+        stopped = true;
+        // interrupted read closes the channel, so the thread finishes right away
+        prefetchThread.interrupt();
+        try {
+            prefetchThread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        prefetchThread = null;
+    }
+
+    public long getPrefetchedBytes() {
+        return prefetchedBytes.get();
+    }
+
+    private void prefetch() {
+        final long startNanos = System.nanoTime();
+        final ByteBuffer buffer = ByteBuffer.allocateDirect(READ_BUFFER_BYTES);
+        IOException error = null;
+        try {
+            prefetchDir(sessionDir, buffer);
+        } catch (IOException e) {
+            error = e;
+        }
+        if (listener != null && !stopped) {
+            listener.onPrefetchCompleted(prefetchedBytes.get(), System.nanoTime() - startNanos, error);
+        }
+    }
+
+    private void prefetchDir(@NonNull File dir, @NonNull ByteBuffer buffer) throws IOException {
+        final File[] files = dir.listFiles();
+        if (files == null) {
+            throw new IOException("Can't list session directory " + dir);
+        }
+        // replay reads session files from the start, prefetch them in a stable order
+        Arrays.sort(files);
+        for (File file : files) {
+            if (stopped || prefetchedBytes.get() >= maxPrefetchBytes) {
+                return;
+            }
+            if (file.isDirectory()) {
+                prefetchDir(file, buffer);
+            } else {
+                prefetchFile(file, buffer);
+            }
+        }
+    }
+
+    private void prefetchFile(@NonNull File file, @NonNull ByteBuffer buffer) throws IOException {
+        try (RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r");
+             FileChannel channel = randomAccessFile.getChannel()) {
+            while (true) {
+                final long remaining = maxPrefetchBytes - prefetchedBytes.get();
+                if (stopped || remaining <= 0) {
+                    return;
+                }
+                buffer.clear();
+                buffer.limit((int) Math.min(buffer.capacity(), remaining));
+                final int read = channel.read(buffer);
+                if (read < 0) {
+                    return;
+                }
+                prefetchedBytes.addAndGet(read);
+            }
+        }
+    }
+}
@@ -0,0 +1,173 @@
+package com.mapbox.vision.examples;
+
+import android.location.Location;
+import android.os.Handler;
+import android.os.Looper;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.mapbox.api.directions.v5.models.DirectionsResponse;
+import com.mapbox.api.directions.v5.models.DirectionsRoute;
+import com.mapbox.api.directions.v5.models.LegStep;
+import com.mapbox.api.directions.v5.models.RouteLeg;
+import com.mapbox.geojson.Point;
+import com.mapbox.services.android.navigation.v5.route.RouteListener;
+import com.mapbox.services.android.navigation.v5.routeprogress.RouteProgress;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * {@link RerouteFetcher} keeping the latest reroute responses in an LRU cache.
+ * <p>
+ * Responses are keyed by grid cells of the off-route location and of the route destination,
+ * and by a bucket of the heading, so a route for the opposite direction is never reused.
+ * Going off route again at the same place and heading is answered without waiting for the network,
+ * locations without bearing and other requests are passed to the wrapped fetcher.
+ * <p>
+ * Cached responses are delivered asynchronously on the main thread, like network responses,
+ * so the listener never runs inside the navigation callback that asked for the route.
+ */
+public class RerouteCache implements RerouteFetcher {
+
+    private static final float HEADING_BUCKET_DEGREES = 45f;
+
+    private static final class Key {
+        final long originCell;
+        final long destinationCell;
+        final int headingBucket;
+
+        Key(long originCell, long destinationCell, int headingBucket) {
+            this.originCell = originCell;
+            this.destinationCell = destinationCell;
+            this.headingBucket = headingBucket;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key)) return false;
+            final Key key = (Key) o;
+            return originCell == key.originCell
+                    && destinationCell == key.destinationCell
+                    && headingBucket == key.headingBucket;
+        }
+
+        @Override
+        public int hashCode() {
+            int result = (int) (originCell ^ (originCell >>> 32));
+            result = 31 * result + (int) (destinationCell ^ (destinationCell >>> 32));
+            return 31 * result + headingBucket;
+        }
+    }
+
+    private final RerouteFetcher fetcher;
+    private final double cellSizeDegrees;
+    private final Map<Key, DirectionsResponse> responses;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+    private long hits = 0;
+    private long misses = 0;
+
+    public RerouteCache(@NonNull RerouteFetcher fetcher, final int capacity, double cellSizeMeters) {
+        this.fetcher = fetcher;
+        this.cellSizeDegrees = cellSizeMeters / GeoGridIndex.METERS_PER_DEGREE;
+        this.responses = new LinkedHashMap<Key, DirectionsResponse>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, DirectionsResponse> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    @Override
+    public void findRoute(
+            @NonNull Location location,
+            @NonNull RouteProgress routeProgress,
+            @NonNull final RouteListener listener
+    ) {
+        final Point destination = destinationOf(routeProgress.directionsRoute());
+        if (destination == null || !location.hasBearing()) {
+            // without heading a cached route could lead the opposite way
+            fetcher.findRoute(location, routeProgress, listener);
+            return;
+        }
+
+        final Key key = new Key(
+                cell(location.getLatitude(), location.getLongitude()),
+                cell(destination.latitude(), destination.longitude()),
+                headingBucket(location.getBearing())
+        );
+        final DirectionsResponse cached = responses.get(key);
+        if (cached != null) {
+            hits++;
+            mainHandler.post(() -> listener.onResponseReceived(cached, routeProgress));
+            return;
+        }
+
+        misses++;
+        fetcher.findRoute(location, routeProgress, new RouteListener() {
+            @Override
+            public void onResponseReceived(DirectionsResponse response, RouteProgress routeProgress) {
+                if (response != null && !response.routes().isEmpty()) {
+                    responses.put(key, response);
+                }
+                listener.onResponseReceived(response, routeProgress);
+            }
+
+            @Override
+            public void onErrorReceived(Throwable throwable) {
+                listener.onErrorReceived(throwable);
+            }
+        });
+    }
+
+    /**
+     * Reroutes answered from the cache.
+     */
+    public long getHits() {
+        return hits;
+    }
+
+    /**
+     * Reroutes with heading that were not in the cache and were passed to the wrapped fetcher.
+     */
+    public long getMisses() {
+        return misses;
+    }
+
+    /**
+     * Drops cached responses and cached responses not delivered yet.
+     * Should be called when the listener can no longer handle routes, eg. when navigation is stopped.
+     */
+    public void clear() {
+        mainHandler.removeCallbacksAndMessages(null);
+        responses.clear();
+    }
+
+    private long cell(double latitude, double longitude) {
+        final long row = (long) Math.floor(latitude / cellSizeDegrees);
+        final long column = (long) Math.floor(longitude / cellSizeDegrees);
+        return (row << 32) | (column & 0xFFFFFFFFL);
+    }
+
+    private static int headingBucket(float bearing) {
+        // bearing is in [0, 360), the modulo guards against 360 itself
+        return (int) (bearing / HEADING_BUCKET_DEGREES) % (int) (360 / HEADING_BUCKET_DEGREES);
+    }
+
+    @Nullable
+    private static Point destinationOf(@Nullable DirectionsRoute route) {
+        if (route == null || route.legs() == null || route.legs().isEmpty()) {
+            return null;
+        }
+        final List<RouteLeg> legs = route.legs();
+        final List<LegStep> steps = legs.get(legs.size() - 1).steps();
+        if (steps == null || steps.isEmpty()) {
+            return null;
+        }
+        return steps.get(steps.size() - 1).maneuver().location();
+    }
+}
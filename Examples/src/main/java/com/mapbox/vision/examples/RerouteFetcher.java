@@ -0,0 +1,19 @@
+package com.mapbox.vision.examples;
+
+import android.location.Location;
+
+import androidx.annotation.NonNull;
+
+import com.mapbox.services.android.navigation.v5.route.RouteListener;
+import com.mapbox.services.android.navigation.v5.routeprogress.RouteProgress;
+
+/**
+ * Finds a new route when the vehicle goes off route.
+ * <p>
+ * Result is passed to {@link RouteListener} the same way {@code RouteFetcher} does it,
+ * so network requests can be replaced with a cache or a local stand-in.
+ */
+public interface RerouteFetcher {
+
+    void findRoute(@NonNull Location location, @NonNull RouteProgress routeProgress, @NonNull RouteListener listener);
+}
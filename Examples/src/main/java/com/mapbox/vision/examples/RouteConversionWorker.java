@@ -0,0 +1,184 @@
+package com.mapbox.vision.examples;
+
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.os.Looper;
+
+import androidx.annotation.NonNull;
+
+import com.mapbox.api.directions.v5.models.DirectionsRoute;
+import com.mapbox.vision.ar.core.models.RoutePoint;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Converts {@link DirectionsRoute} to AR route window on a dedicated thread.
+ * <p>
+ * Every {@link #submit} cancels the conversion still in flight, so after a burst of reroutes only the latest route
+ * is converted to the end. The result is passed to the listener on the main thread,
+ * stale results are never delivered.
+ */
+public class RouteConversionWorker {
+
+    public interface Listener {
+        /**
+         * Called on the main thread.
+         */
+        void onRouteConverted(@NonNull Result result);
+    }
+
+    public static class Result {
+        @NonNull
+        public final RouteGeometry geometry;
+        @NonNull
+        public final RouteWindow window;
+        // points of the initial window
+        @NonNull
+        public final RoutePoint[] windowPoints;
+        public final float durationRemaining;
+        public final int fullRouteSize;
+        public final long conversionNanos;
+        // totals of the worker's RouteConverter at the moment of this conversion
+        public final long reusedSteps;
+        public final long decodedSteps;
+        final long generation;
+
+        Result(
+                @NonNull RouteGeometry geometry,
+                @NonNull RouteWindow window,
+                @NonNull RoutePoint[] windowPoints,
+                float durationRemaining,
+                int fullRouteSize,
+                long conversionNanos,
+                long reusedSteps,
+                long decodedSteps,
+                long generation
+        ) {
+            this.geometry = geometry;
+            this.window = window;
+            this.windowPoints = windowPoints;
+            this.durationRemaining = durationRemaining;
+            this.fullRouteSize = fullRouteSize;
+            this.conversionNanos = conversionNanos;
+            this.reusedSteps = reusedSteps;
+            this.decodedSteps = decodedSteps;
+            this.generation = generation;
+        }
+    }
+
+    // used only on the worker thread
+    private final RouteConverter routeConverter;
+    private final double simplificationToleranceMeters;
+    private final double lookAheadMeters;
+    private final Listener listener;
+
+    private final HandlerThread workerThread = new HandlerThread("RouteConversion");
+    private final Handler workerHandler;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+    private final AtomicLong generation = new AtomicLong();
+
+    private final AtomicLong conversions = new AtomicLong();
+    private final AtomicLong cancelledConversions = new AtomicLong();
+    private final AtomicLong totalConversionNanos = new AtomicLong();
+    private final AtomicLong maxConversionNanos = new AtomicLong();
+
+    public RouteConversionWorker(
+            int stepCacheCapacity,
+            double simplificationToleranceMeters,
+            double lookAheadMeters,
+            @NonNull Listener listener
+    ) {
+        this.routeConverter = new RouteConverter(stepCacheCapacity);
+        this.simplificationToleranceMeters = simplificationToleranceMeters;
+        this.lookAheadMeters = lookAheadMeters;
+        this.listener = listener;
+        workerThread.start();
+        workerHandler = new Handler(workerThread.getLooper());
+    }
+
+    /**
+     * Starts conversion of the route, cancelling the previous one.
+     */
+    public void submit(@NonNull final DirectionsRoute route, final float durationRemaining) {
+        final long routeGeneration = generation.incrementAndGet();
+        workerHandler.post(() -> convert(route, durationRemaining, routeGeneration));
+    }
+
+    /**
+     * Cancels conversion in flight and stops the worker thread. Worker can't be used after that.
+     */
+    public void release() {
+        generation.incrementAndGet();
+        workerThread.quit();
+        mainHandler.removeCallbacksAndMessages(null);
+    }
+
+    public long getConversions() {
+        return conversions.get();
+    }
+
+    public long getCancelledConversions() {
+        return cancelledConversions.get();
+    }
+
+    public long getAverageConversionNanos() {
+        final long count = conversions.get();
+        return count == 0 ? 0 : totalConversionNanos.get() / count;
+    }
+
+    public long getMaxConversionNanos() {
+        return maxConversionNanos.get();
+    }
+
+    private void convert(@NonNull DirectionsRoute route, float durationRemaining, final long routeGeneration) {
+        final RouteConverter.Cancellation cancellation = () -> generation.get() != routeGeneration;
+        if (cancellation.isCancelled()) {
+            cancelledConversions.incrementAndGet();
+            return;
+        }
+
+        final long startNanos = System.nanoTime();
+        final RouteGeometry fullGeometry;
+        try {
+            fullGeometry = routeConverter.convert(route, cancellation);
+        } catch (CancellationException e) {
+            cancelledConversions.incrementAndGet();
+            return;
+        }
+        final RouteGeometry geometry = RouteSimplifier.simplify(fullGeometry, simplificationToleranceMeters);
+        final RouteWindow window = new RouteWindow(geometry, lookAheadMeters);
+        final RoutePoint[] windowPoints = window.toRoutePoints();
+        final long conversionNanos = System.nanoTime() - startNanos;
+
+        // metrics are written only by the worker thread
+        conversions.incrementAndGet();
+        totalConversionNanos.addAndGet(conversionNanos);
+        if (conversionNanos > maxConversionNanos.get()) {
+            maxConversionNanos.set(conversionNanos);
+        }
+
+        final Result result = new Result(
+                geometry,
+                window,
+                windowPoints,
+                durationRemaining,
+                fullGeometry.size(),
+                conversionNanos,
+                routeConverter.getReusedSteps(),
+                routeConverter.getDecodedSteps(),
+                routeGeneration
+        );
+        if (cancellation.isCancelled()) {
+            cancelledConversions.incrementAndGet();
+            return;
+        }
+        mainHandler.post(() -> {
+            // a newer route could be submitted while this result was waiting for the main thread
+            if (generation.get() == result.generation) {
+                listener.onRouteConverted(result);
+            }
+        });
+    }
+}
@@ -0,0 +1,121 @@
+package com.mapbox.vision.examples;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.mapbox.api.directions.v5.models.DirectionsRoute;
+import com.mapbox.api.directions.v5.models.LegStep;
+import com.mapbox.api.directions.v5.models.RouteLeg;
+import com.mapbox.core.constants.Constants;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+
+/**
+ * Converts {@link DirectionsRoute} to {@link RouteGeometry}.
+ * <p>
+ * Decoded step geometries are kept in an LRU cache keyed by encoded polyline. A reroute usually shares
+ * most of its steps with the previous route, so only the changed steps are decoded again,
+ * the rest is spliced from the cache.
+ * <p>
+ * Not thread safe, should be used from one thread.
+ */
+public class RouteConverter {
+
+    public interface Cancellation {
+        boolean isCancelled();
+    }
+
+    private static final int ROUTE_GEOMETRY_INITIAL_CAPACITY = 1024;
+    private static final int STEP_GEOMETRY_INITIAL_CAPACITY = 64;
+
+    private final Map<String, RouteGeometry> stepGeometries;
+
+    private long reusedSteps = 0;
+    private long decodedSteps = 0;
+
+    public RouteConverter(final int stepCacheCapacity) {
+        stepGeometries = new LinkedHashMap<String, RouteGeometry>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, RouteGeometry> eldest) {
+                return size() > stepCacheCapacity;
+            }
+        };
+    }
+
+    @NonNull
+    public RouteGeometry convert(@NonNull DirectionsRoute route) {
+        return convert(route, null);
+    }
+
+    /**
+     * Converts the route, checking {@code cancellation} before every step.
+     *
+     * @throws CancellationException if conversion was cancelled
+     */
+    @NonNull
+    public RouteGeometry convert(@NonNull DirectionsRoute route, @Nullable Cancellation cancellation) {
+        RouteGeometry.Builder builder = new RouteGeometry.Builder(ROUTE_GEOMETRY_INITIAL_CAPACITY);
+
+        List<RouteLeg> legs = route.legs();
+        if (legs != null) {
+            for (RouteLeg leg : legs) {
+
+                List<LegStep> steps = leg.steps();
+                if (steps != null) {
+                    for (LegStep step : steps) {
+                        if (cancellation != null && cancellation.isCancelled()) {
+                            throw new CancellationException("Route conversion is cancelled");
+                        }
+                        builder.add(
+                                step.maneuver().location().latitude(),
+                                step.maneuver().location().longitude(),
+                                ManeuverCodes.toManeuverCode(step.maneuver().type())
+                        );
+
+                        String geometry = step.geometry();
+                        if (geometry != null) {
+                            builder.addAll(getStepGeometry(geometry));
+                        }
+                    }
+                }
+            }
+        }
+
+        return builder.build();
+    }
+
+    /**
+     * Number of steps taken from the cache instead of decoding.
+     */
+    public long getReusedSteps() {
+        return reusedSteps;
+    }
+
+    public long getDecodedSteps() {
+        return decodedSteps;
+    }
+
+    @NonNull
+    private RouteGeometry getStepGeometry(@NonNull String geometry) {
+        RouteGeometry stepGeometry = stepGeometries.get(geometry);
+        if (stepGeometry != null) {
+            reusedSteps++;
+            return stepGeometry;
+        }
+
+        // Step geometry is decoded straight into the builder, without intermediate list of Point.
+        final RouteGeometry.Builder builder = new RouteGeometry.Builder(STEP_GEOMETRY_INITIAL_CAPACITY);
+        PolylineDecoder.decode(
+                geometry,
+                Constants.PRECISION_6,
+                (latitude, longitude) -> builder.add(latitude, longitude, RouteGeometry.NO_MANEUVER)
+        );
+        stepGeometry = builder.build();
+        stepGeometries.put(geometry, stepGeometry);
+        decodedSteps++;
+        return stepGeometry;
+    }
+}
@@ -0,0 +1,149 @@
+package com.mapbox.vision.examples;
+
+import androidx.annotation.NonNull;
+
+import com.mapbox.vision.ar.core.models.ManeuverType;
+import com.mapbox.vision.ar.core.models.RoutePoint;
+import com.mapbox.vision.mobile.core.models.position.GeoCoordinate;
+
+import java.util.Arrays;
+
+/**
+ * Compact route geometry, points are stored in parallel primitive arrays.
+ * <p>
+ * Every point has latitude, longitude and maneuver code, which is ordinal of {@link ManeuverType}.
+ * {@link RoutePoint} objects Vision AR SDK needs are created only for the requested range of points.
+ */
+public class RouteGeometry {
+
+    private static final ManeuverType[] MANEUVER_TYPES = ManeuverType.values();
+
+    public static final byte NO_MANEUVER = toManeuverCode(ManeuverType.None);
+
+    private final double[] latitudes;
+    private final double[] longitudes;
+    private final byte[] maneuvers;
+    private final int size;
+
+    private RouteGeometry(@NonNull double[] latitudes, @NonNull double[] longitudes, @NonNull byte[] maneuvers, int size) {
+        this.latitudes = latitudes;
+        this.longitudes = longitudes;
+        this.maneuvers = maneuvers;
+        this.size = size;
+    }
+
+    public static byte toManeuverCode(@NonNull ManeuverType maneuverType) {
+        return (byte) maneuverType.ordinal();
+    }
+
+    @NonNull
+    public static ManeuverType toManeuverType(byte maneuverCode) {
+        return MANEUVER_TYPES[maneuverCode];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public double latitude(int index) {
+        return latitudes[index];
+    }
+
+    public double longitude(int index) {
+        return longitudes[index];
+    }
+
+    public byte maneuver(int index) {
+        return maneuvers[index];
+    }
+
+    /**
+     * Creates route points for points in [from, to) range.
+     */
+    @NonNull
+    public RoutePoint[] toRoutePoints(int from, int to) {
+        if (from < 0 || to > size || from > to) {
+            throw new IndexOutOfBoundsException("Range [" + from + ", " + to + ") is out of [0, " + size + ")");
+        }
+        final RoutePoint[] routePoints = new RoutePoint[to - from];
+        for (int i = from; i < to; i++) {
+            routePoints[i - from] = new RoutePoint(
+                    new GeoCoordinate(latitudes[i], longitudes[i]),
+                    toManeuverType(maneuvers[i])
+            );
+        }
+        return routePoints;
+    }
+
+    @NonNull
+    public RoutePoint[] toRoutePoints() {
+        return toRoutePoints(0, size);
+    }
+
+    public static class Builder {
+
+        private double[] latitudes;
+        private double[] longitudes;
+        private byte[] maneuvers;
+        private int size = 0;
+
+        public Builder(int initialCapacity) {
+            final int capacity = Math.max(initialCapacity, 16);
+            latitudes = new double[capacity];
+            longitudes = new double[capacity];
+            maneuvers = new byte[capacity];
+        }
+
+        public int size() {
+            return size;
+        }
+
+        @NonNull
+        public Builder add(double latitude, double longitude, byte maneuver) {
+            if (size == latitudes.length) {
+                final int capacity = size * 2;
+                latitudes = Arrays.copyOf(latitudes, capacity);
+                longitudes = Arrays.copyOf(longitudes, capacity);
+                maneuvers = Arrays.copyOf(maneuvers, capacity);
+            }
+            latitudes[size] = latitude;
+            longitudes[size] = longitude;
+            maneuvers[size] = maneuver;
+            size++;
+            return this;
+        }
+
+        @NonNull
+        public Builder addAll(@NonNull RouteGeometry geometry) {
+            final int newSize = size + geometry.size;
+            if (newSize > latitudes.length) {
+                final int capacity = Math.max(newSize, size * 2);
+                latitudes = Arrays.copyOf(latitudes, capacity);
+                longitudes = Arrays.copyOf(longitudes, capacity);
+                maneuvers = Arrays.copyOf(maneuvers, capacity);
+            }
+            System.arraycopy(geometry.latitudes, 0, latitudes, size, geometry.size);
+            System.arraycopy(geometry.longitudes, 0, longitudes, size, geometry.size);
+            System.arraycopy(geometry.maneuvers, 0, maneuvers, size, geometry.size);
+            size = newSize;
+            return this;
+        }
+
+        /**
+         * Builds geometry of all points added so far. Builder can't be used after that.
+         */
+        @NonNull
+        public RouteGeometry build() {
+            final RouteGeometry geometry = new RouteGeometry(
+                    Arrays.copyOf(latitudes, size),
+                    Arrays.copyOf(longitudes, size),
+                    Arrays.copyOf(maneuvers, size),
+                    size
+            );
+            latitudes = null;
+            longitudes = null;
+            maneuvers = null;
+            return geometry;
+        }
+    }
+}
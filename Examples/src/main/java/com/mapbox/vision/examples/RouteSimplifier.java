@@ -0,0 +1,123 @@
+package com.mapbox.vision.examples;
+
+import androidx.annotation.NonNull;
+
+/**
+ * Douglas-Peucker simplification of {@link RouteGeometry}.
+ * <p>
+ * Points with maneuvers, first and last points are always kept. Geometry between two such points
+ * is simplified independently, so a maneuver never moves and never gets dropped.
+ * Distances are measured in meters on a local equirectangular projection, which is accurate enough
+ * for the few hundred meters between maneuvers.
+ * <p>
+ * The class does not depend on Android, so it can be exercised on a plain JVM with recorded routes.
+ */
+public final class RouteSimplifier {
+
+    private RouteSimplifier() {
+    }
+
+    @NonNull
+    public static RouteGeometry simplify(@NonNull RouteGeometry geometry, double toleranceMeters) {
+        final int size = geometry.size();
+        if (size <= 2) {
+            return geometry;
+        }
+
+        final boolean[] keep = new boolean[size];
+        // stack of [first, last] ranges still to be simplified
+        final int[] stack = new int[2 * size];
+
+        int anchor = 0;
+        keep[0] = true;
+        for (int i = 1; i < size; i++) {
+            if (i == size - 1 || geometry.maneuver(i) != RouteGeometry.NO_MANEUVER) {
+                keep[i] = true;
+                simplifyRange(geometry, anchor, i, toleranceMeters, keep, stack);
+                anchor = i;
+            }
+        }
+
+        int kept = 0;
+        for (int i = 0; i < size; i++) {
+            if (keep[i]) {
+                kept++;
+            }
+        }
+        if (kept == size) {
+            return geometry;
+        }
+        final RouteGeometry.Builder builder = new RouteGeometry.Builder(kept);
+        for (int i = 0; i < size; i++) {
+            if (keep[i]) {
+                builder.add(geometry.latitude(i), geometry.longitude(i), geometry.maneuver(i));
+            }
+        }
+        return builder.build();
+    }
+
+    private static void simplifyRange(
+            @NonNull RouteGeometry geometry,
+            int first,
+            int last,
+            double toleranceMeters,
+            @NonNull boolean[] keep,
+            @NonNull int[] stack
+    ) {
+        final double metersPerDegreeLatitude = GeoGridIndex.METERS_PER_DEGREE;
+        final double metersPerDegreeLongitude = metersPerDegreeLatitude
+                * Math.cos(Math.toRadians(geometry.latitude(first)));
+        final double originLatitude = geometry.latitude(first);
+        final double originLongitude = geometry.longitude(first);
+
+        int top = 0;
+        stack[top++] = first;
+        stack[top++] = last;
+        while (top > 0) {
+            final int end = stack[--top];
+            final int start = stack[--top];
+            if (end - start < 2) {
+                continue;
+            }
+
+            final double startX = (geometry.longitude(start) - originLongitude) * metersPerDegreeLongitude;
+            final double startY = (geometry.latitude(start) - originLatitude) * metersPerDegreeLatitude;
+            final double endX = (geometry.longitude(end) - originLongitude) * metersPerDegreeLongitude;
+            final double endY = (geometry.latitude(end) - originLatitude) * metersPerDegreeLatitude;
+
+            double maxDistance = -1;
+            int farthest = -1;
+            for (int i = start + 1; i < end; i++) {
+                final double x = (geometry.longitude(i) - originLongitude) * metersPerDegreeLongitude;
+                final double y = (geometry.latitude(i) - originLatitude) * metersPerDegreeLatitude;
+                final double distance = distanceToSegment(x, y, startX, startY, endX, endY);
+                if (distance > maxDistance) {
+                    maxDistance = distance;
+                    farthest = i;
+                }
+            }
+
+            if (maxDistance > toleranceMeters) {
+                keep[farthest] = true;
+                stack[top++] = start;
+                stack[top++] = farthest;
+                stack[top++] = farthest;
+                stack[top++] = end;
+            }
+        }
+    }
+
+    /**
+     * Distance from point (x, y) to segment (x1, y1) - (x2, y2) on a plane.
+     */
+    static double distanceToSegment(double x, double y, double x1, double y1, double x2, double y2) {
+        final double dx = x2 - x1;
+        final double dy = y2 - y1;
+        final double lengthSquared = dx * dx + dy * dy;
+        double t = lengthSquared == 0 ? 0 : ((x - x1) * dx + (y - y1) * dy) / lengthSquared;
+        t = Math.max(0, Math.min(1, t));
+        final double px = x1 + t * dx - x;
+        final double py = y1 + t * dy - y;
+        return Math.sqrt(px * px + py * py);
+    }
+}
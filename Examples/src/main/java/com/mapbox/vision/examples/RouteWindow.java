@@ -0,0 +1,125 @@
+package com.mapbox.vision.examples;
+
+import androidx.annotation.NonNull;
+
+import com.mapbox.vision.ar.core.models.RoutePoint;
+
+/**
+ * Sliding window of route points around the vehicle.
+ * <p>
+ * Window starts at the route point just behind the vehicle and spans {@code lookAheadMeters} of the route ahead.
+ * Vehicle position is matched to the route segment closest to it, searching forward from the last matched segment,
+ * so an update costs only as much as the distance travelled since the previous one.
+ * <p>
+ * Apart from {@link #toRoutePoints()} the class does not depend on Android, so it can be exercised on a plain JVM
+ * with recorded routes and locations.
+ */
+public class RouteWindow {
+
+    // Matching never looks further ahead than this, which is more than the vehicle moves between two progress updates.
+    private static final double SEARCH_AHEAD_METERS = 500;
+
+    private final RouteGeometry geometry;
+    private final double lookAheadMeters;
+    // distance along the route from the first point to every point
+    private final double[] routeDistances;
+
+    private int segment = -1;
+    private int start = 0;
+    private int end = 0;
+
+    public RouteWindow(@NonNull RouteGeometry geometry, double lookAheadMeters) {
+        this.geometry = geometry;
+        this.lookAheadMeters = lookAheadMeters;
+
+        final int size = geometry.size();
+        routeDistances = new double[size];
+        for (int i = 1; i < size; i++) {
+            routeDistances[i] = routeDistances[i - 1] + GeoGridIndex.distanceMeters(
+                    geometry.latitude(i - 1),
+                    geometry.longitude(i - 1),
+                    geometry.latitude(i),
+                    geometry.longitude(i)
+            );
+        }
+        updateWindow(0);
+    }
+
+    /**
+     * Matches vehicle position to the route.
+     *
+     * @return true if the window has changed and should be passed to Vision AR SDK again
+     */
+    public boolean update(double latitude, double longitude) {
+        final int size = geometry.size();
+        if (size < 2) {
+            return false;
+        }
+
+        final double metersPerDegreeLatitude = GeoGridIndex.METERS_PER_DEGREE;
+        final double metersPerDegreeLongitude = metersPerDegreeLatitude * Math.cos(Math.toRadians(latitude));
+
+        // the whole route is searched until the vehicle is matched for the first time
+        final int from = Math.max(segment, 0);
+        final double searchLimit = segment < 0 ? Double.MAX_VALUE : routeDistances[from] + SEARCH_AHEAD_METERS;
+
+        int closest = from;
+        double closestDistance = Double.MAX_VALUE;
+        for (int i = from; i < size - 1 && routeDistances[i] <= searchLimit; i++) {
+            final double distance = RouteSimplifier.distanceToSegment(
+                    0,
+                    0,
+                    (geometry.longitude(i) - longitude) * metersPerDegreeLongitude,
+                    (geometry.latitude(i) - latitude) * metersPerDegreeLatitude,
+                    (geometry.longitude(i + 1) - longitude) * metersPerDegreeLongitude,
+                    (geometry.latitude(i + 1) - latitude) * metersPerDegreeLatitude
+            );
+            if (distance < closestDistance) {
+                closestDistance = distance;
+                closest = i;
+            }
+        }
+
+        if (closest == segment) {
+            return false;
+        }
+        segment = closest;
+        return updateWindow(closest);
+    }
+
+    /**
+     * Index of the first route point in the window.
+     */
+    public int getStart() {
+        return start;
+    }
+
+    /**
+     * Index after the last route point in the window.
+     */
+    public int getEnd() {
+        return end;
+    }
+
+    @NonNull
+    public RoutePoint[] toRoutePoints() {
+        return geometry.toRoutePoints(start, end);
+    }
+
+    private boolean updateWindow(int newStart) {
+        final int size = geometry.size();
+        int newEnd = newStart;
+        while (newEnd < size && routeDistances[newEnd] - routeDistances[newStart] <= lookAheadMeters) {
+            newEnd++;
+        }
+        // include the point past look ahead distance, so the window covers it completely
+        newEnd = Math.min(newEnd + 1, size);
+
+        if (newStart == start && newEnd == end) {
+            return false;
+        }
+        start = newStart;
+        end = newEnd;
+        return true;
+    }
+}
@@ -5,33 +5,41 @@ import android.widget.FrameLayout;
 import android.widget.ImageView;
 import android.widget.TextView;
 
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 import androidx.core.content.ContextCompat;
 
 import com.mapbox.vision.VisionManager;
 import com.mapbox.vision.mobile.core.interfaces.VisionEventsListener;
-import com.mapbox.vision.mobile.core.models.AuthorizationStatus;
-import com.mapbox.vision.mobile.core.models.Camera;
-import com.mapbox.vision.mobile.core.models.Country;
-import com.mapbox.vision.mobile.core.models.FrameSegmentation;
-import com.mapbox.vision.mobile.core.models.classification.FrameSignClassifications;
-import com.mapbox.vision.mobile.core.models.detection.FrameDetections;
 import com.mapbox.vision.mobile.core.models.position.VehicleState;
-import com.mapbox.vision.mobile.core.models.road.RoadDescription;
-import com.mapbox.vision.mobile.core.models.world.WorldDescription;
+import com.mapbox.vision.mobile.core.models.world.WorldObject;
 import com.mapbox.vision.safety.VisionSafetyManager;
 import com.mapbox.vision.safety.core.VisionSafetyListener;
 import com.mapbox.vision.safety.core.models.CollisionObject;
 import com.mapbox.vision.safety.core.models.RoadRestrictions;
+import com.mapbox.vision.utils.VisionLogger;
 import com.mapbox.vision.view.VisionView;
 
 import org.jetbrains.annotations.NotNull;
 
+import java.util.concurrent.TimeUnit;
+
 /**
  * Example shows how overspeed can be detected using Vision and VisionSafety SDKs combined.
  */
 public class SafetyActivity extends BaseActivity {
 
-    private float maxAllowedSpeed = -1f;
+    private static final String TAG = SafetyActivity.class.getSimpleName();
+    // m/s over the limit to start the alert
+    private static final float OVERSPEED_HYSTERESIS = 0.5f;
+    private static final long OVERSPEED_DEBOUNCE_NANOS = TimeUnit.MILLISECONDS.toNanos(500);
+    private static final int MAX_TRACKED_COLLISIONS = 64;
+    private static final int COLLISION_HISTORY_LENGTH = 8;
+    private static final float COLLISION_GATE_METERS = 2f;
+    private static final int COLLISION_MAX_MISSED_UPDATES = 3;
+    private static final float TIME_TO_COLLISION_SMOOTHING = 0.3f;
+    private static final float COLLISION_WARNING_SECONDS = 2f;
+
     private boolean visionManagerWasInit = false;
     private VisionView visionView;
     private FrameLayout speedAlertView;
@@ -51,80 +59,88 @@ public class SafetyActivity extends BaseActivity {
     private final SpeedLimit overspeeding = new SpeedLimit(R.drawable.speed_limit_overspeeding, android.R.color.white);
     private final SpeedLimit normal = new SpeedLimit(R.drawable.speed_limit_normal, android.R.color.black);
 
-    // this listener handles events from Vision SDK
-    private VisionEventsListener visionEventsListener = new VisionEventsListener() {
-
-        @Override
-        public void onAuthorizationStatusUpdated(@NotNull AuthorizationStatus authorizationStatus) {
-        }
-
-        @Override
-        public void onFrameSegmentationUpdated(@NotNull FrameSegmentation frameSegmentation) {
-        }
-
-        @Override
-        public void onFrameDetectionsUpdated(@NotNull FrameDetections frameDetections) {
-        }
-
-        @Override
-        public void onFrameSignClassificationsUpdated(@NotNull FrameSignClassifications frameSignClassifications) {
-        }
-
-        @Override
-        public void onRoadDescriptionUpdated(@NotNull RoadDescription roadDescription) {
-        }
-
-        @Override
-        public void onWorldDescriptionUpdated(@NotNull WorldDescription worldDescription) {
-        }
+    @Nullable
+    private CoalescingVisionEventsListener coalescingEventsListener = null;
+
+    // called on the main thread, only when the speed limit or overspeed state changes
+    private final OverspeedDetector overspeedDetector = new OverspeedDetector(
+            OVERSPEED_HYSTERESIS,
+            OVERSPEED_DEBOUNCE_NANOS,
+            new OverspeedDetector.Listener() {
+                @Override
+                public void onSpeedLimitChanged(float speedLimit) {
+                    if (speedLimit == OverspeedDetector.UNKNOWN_SPEED_LIMIT) {
+                        speedAlertView.setVisibility(View.GONE);
+                    } else {
+                        // set speed limit
+                        speedLimitValueView.setText(String.valueOf((int) speedLimit));
+                        // start showing alert view
+                        speedAlertView.setVisibility(View.VISIBLE);
+                    }
+                }
+
+                @Override
+                public void onStateChanged(@NonNull OverspeedDetector.State state) {
+                    final SpeedLimit currentSpeedState = state == OverspeedDetector.State.OVERSPEEDING ? overspeeding : normal;
+                    speedLimitSignView.setImageResource(currentSpeedState.imageResId);
+                    speedLimitValueView.setTextColor(ContextCompat.getColor(
+                            SafetyActivity.this,
+                            currentSpeedState.textColorId)
+                    );
+                }
+            }
+    );
+
+    // used only on Vision Safety thread
+    private final CollisionTracker collisionTracker = new CollisionTracker(
+            MAX_TRACKED_COLLISIONS,
+            COLLISION_HISTORY_LENGTH,
+            COLLISION_GATE_METERS,
+            COLLISION_MAX_MISSED_UPDATES,
+            TIME_TO_COLLISION_SMOOTHING
+    );
+    private int[] collisionClasses = new int[MAX_TRACKED_COLLISIONS];
+    private float[] collisionXs = new float[MAX_TRACKED_COLLISIONS];
+    private float[] collisionYs = new float[MAX_TRACKED_COLLISIONS];
+    private long collisionWarnings = 0;
+
+    // this listener handles events from Vision SDK on the main thread
+    private VisionEventsListener visionEventsListener = new SelectiveVisionEventsListener(
+            SelectiveVisionEventsListener.VEHICLE_STATE
+    ) {
 
         @Override
         public void onVehicleStateUpdated(@NotNull VehicleState vehicleState) {
-            // do nothing if we did not find any speed limit signs
-            if (maxAllowedSpeed == -1f) return;
-
-            // current speed of our car
-            final float mySpeed = vehicleState.getSpeed();
-            final SpeedLimit currentSpeedState = (mySpeed > maxAllowedSpeed && maxAllowedSpeed > 0) ? overspeeding : normal;
-            // all VisionListener callbacks are executed on a background thread. Need switch to a main thread
-            runOnUiThread(() -> {
-                speedLimitSignView.setImageResource(currentSpeedState.imageResId);
-                speedLimitValueView.setTextColor(ContextCompat.getColor(
-                        SafetyActivity.this,
-                        currentSpeedState.textColorId)
-                );
-            });
-        }
-
-        @Override
-        public void onCameraUpdated(@NotNull Camera camera) {
-        }
-
-        @Override
-        public void onCountryUpdated(@NotNull Country country) {
-        }
-
-        @Override
-        public void onUpdateCompleted() {
+            // called on the main thread by CoalescingVisionEventsListener, at most once per display frame
+            overspeedDetector.update(vehicleState.getSpeed(), System.nanoTime());
         }
     };
 
     private VisionSafetyListener visionSafetyListener = new VisionSafetyListener() {
         @Override
         public void onCollisionsUpdated(@NotNull CollisionObject[] collisions) {
+            final int count = collisions.length;
+            if (collisionClasses.length < count) {
+                collisionClasses = new int[count];
+                collisionXs = new float[count];
+                collisionYs = new float[count];
+            }
+            for (int i = 0; i < count; i++) {
+                final WorldObject object = collisions[i].getObject();
+                collisionClasses[i] = object.getDetectionClass().ordinal();
+                collisionXs[i] = (float) object.getPosition().getX();
+                collisionYs[i] = (float) object.getPosition().getY();
+            }
+            collisionTracker.update(System.nanoTime(), count, collisionClasses, collisionXs, collisionYs);
+            if (collisionTracker.getMinTimeToCollision() < COLLISION_WARNING_SECONDS) {
+                collisionWarnings++;
+            }
         }
 
         @Override
         public void onRoadRestrictionsUpdated(@NotNull RoadRestrictions roadRestrictions) {
-            maxAllowedSpeed = roadRestrictions.getSpeedLimits().getCar().getMax();
-            if (maxAllowedSpeed != -1f) {
-                runOnUiThread(() -> {
-                    // set speed limit
-                    speedLimitValueView.setText(String.valueOf((int) maxAllowedSpeed));
-                    // start showing alert view
-                    speedAlertView.setVisibility(View.VISIBLE);
-                });
-            }
+            // picked up by the next vehicle state update on the main thread
+            overspeedDetector.setSpeedLimit(roadRestrictions.getSpeedLimits().getCar().getMax());
         }
     };
 
@@ -171,7 +187,10 @@ public class SafetyActivity extends BaseActivity {
             VisionManager.create();
             visionView.setVisionManager(VisionManager.INSTANCE);
             VisionManager.start();
-            VisionManager.setVisionEventsListener(visionEventsListener);
+            // all VisionListener callbacks are executed on a background thread,
+            // only the latest events are passed to the main thread once per display frame
+            coalescingEventsListener = new CoalescingVisionEventsListener(visionEventsListener);
+            VisionManager.setVisionEventsListener(coalescingEventsListener);
 
             VisionSafetyManager.create(VisionManager.INSTANCE);
             VisionSafetyManager.setVisionSafetyListener(visionSafetyListener);
@@ -187,6 +206,29 @@ public class SafetyActivity extends BaseActivity {
             VisionManager.stop();
             VisionManager.destroy();
 
+            if (coalescingEventsListener != null) {
+                coalescingEventsListener.release();
+                VisionLogger.Companion.d(
+                        TAG,
+                        "Coalesced " + coalescingEventsListener.getCoalescedEvents()
+                                + ", ignored " + coalescingEventsListener.getIgnoredEvents()
+                                + " of " + coalescingEventsListener.getReceivedEvents() + " events"
+                );
+                coalescingEventsListener = null;
+            }
+            VisionLogger.Companion.d(
+                    TAG,
+                    "Overspeed state changed " + overspeedDetector.getTransitions()
+                            + " times in " + overspeedDetector.getUpdates() + " updates"
+            );
+            VisionLogger.Companion.d(
+                    TAG,
+                    "Tracked " + collisionTracker.getCreatedTracks()
+                            + " collision objects in " + collisionTracker.getUpdates() + " updates"
+                            + ", dropped " + collisionTracker.getDroppedObjects()
+                            + ", warnings " + collisionWarnings
+            );
+
             visionManagerWasInit = false;
         }
     }
@@ -0,0 +1,240 @@
+package com.mapbox.vision.examples;
+
+import androidx.annotation.NonNull;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Run-length encoded segmentation mask with class statistics computed on the encoded form.
+ * <p>
+ * The mask is one class byte per pixel, e.g. the segmentation of {@code FrameSegmentation} copied once.
+ * Every row is stored as runs of the same class covering it from left to right: a run keeps its class
+ * and exclusive end, its start is the end of the previous run of the row. Road, lane and sky areas
+ * give a few runs per row, so a 1280x720 mask of 900 KB usually encodes into tens of KB and queries walk runs
+ * instead of pixels: per-class area is kept from encoding, region queries binary search the first run
+ * of every row, and only the requested region can be decoded back to pixels.
+ * <p>
+ * Arrays are reused between {@link #encode} calls and grow only when a mask has more runs than any before.
+ * Instances are not thread safe. The class does not depend on Android, so it can be exercised on a plain JVM.
+ */
+public class SegmentationRuns {
+
+    public static final int MAX_CLASSES = 256;
+    // run ends are stored as unsigned shorts
+    public static final int MAX_WIDTH = 0xFFFF;
+
+    private static final long BYTE_REPEAT = 0x0101010101010101L;
+
+    private int width = 0;
+    private int height = 0;
+    private int runCount = 0;
+    // index of the first run of every row, rowStarts[height] is the run count
+    private int[] rowStarts = new int[1];
+    private short[] runEnds = new short[0];
+    private byte[] runClasses = new byte[0];
+    private final long[] classAreas = new long[MAX_CLASSES];
+
+    /**
+     * Encodes the mask, replacing the previous one. The buffer position is not changed.
+     *
+     * @param mask      class of every pixel, rows start at the buffer position
+     * @param rowStride distance between rows in bytes, at least {@code width}
+     */
+    public void encode(@NonNull ByteBuffer mask, int width, int height, int rowStride) {
+        if (width <= 0 || width > MAX_WIDTH || height <= 0 || rowStride < width) {
+            throw new IllegalArgumentException("Invalid mask size " + width + "x" + height + ", row stride " + rowStride);
+        }
+        this.width = width;
+        this.height = height;
+        if (rowStarts.length < height + 1) {
+            rowStarts = new int[height + 1];
+        }
+        Arrays.fill(classAreas, 0);
+
+        int runs = 0;
+        int rowOffset = mask.position();
+        for (int y = 0; y < height; y++, rowOffset += rowStride) {
+            rowStarts[y] = runs;
+            int x = 0;
+            while (x < width) {
+                final int start = x;
+                final byte value = mask.get(rowOffset + x);
+                x++;
+                // long runs are compared 8 pixels at a time
+                final long pattern = (value & 0xFF) * BYTE_REPEAT;
+                while (x + 8 <= width && mask.getLong(rowOffset + x) == pattern) {
+                    x += 8;
+                }
+                while (x < width && mask.get(rowOffset + x) == value) {
+                    x++;
+                }
+                if (runs == runEnds.length) {
+                    final int capacity = Math.max(runs * 2, height * 4);
+                    runEnds = Arrays.copyOf(runEnds, capacity);
+                    runClasses = Arrays.copyOf(runClasses, capacity);
+                }
+                runEnds[runs] = (short) x;
+                runClasses[runs] = value;
+                classAreas[value & 0xFF] += x - start;
+                runs++;
+            }
+        }
+        rowStarts[height] = runs;
+        runCount = runs;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public int getRunCount() {
+        return runCount;
+    }
+
+    /**
+     * Size of the encoded mask in bytes, to compare with {@code width * height} of the raw one.
+     */
+    public int getEncodedBytes() {
+        return runCount * 3 + (height + 1) * 4;
+    }
+
+    /**
+     * Number of pixels of the class in the whole mask.
+     */
+    public long getArea(int segmentationClass) {
+        return classAreas[segmentationClass];
+    }
+
+    public int getClassAt(int x, int y) {
+        checkRegion(x, y, x + 1, y + 1);
+        return runClasses[findRun(y, x)] & 0xFF;
+    }
+
+    /**
+     * Number of pixels of the class in the region, {@code right} and {@code bottom} are exclusive.
+     */
+    public long getArea(int segmentationClass, int left, int top, int right, int bottom) {
+        checkRegion(left, top, right, bottom);
+        long area = 0;
+        for (int y = top; y < bottom; y++) {
+            final int rowEnd = rowStarts[y + 1];
+            for (int run = findRun(y, left); run < rowEnd; run++) {
+                final int start = runStart(y, run);
+                if (start >= right) {
+                    break;
+                }
+                if ((runClasses[run] & 0xFF) == segmentationClass) {
+                    area += Math.min(runEnd(run), right) - Math.max(start, left);
+                }
+            }
+        }
+        return area;
+    }
+
+    /**
+     * Number of pixels of every class in the region, {@code right} and {@code bottom} are exclusive.
+     *
+     * @param areas filled with the area of every class, at least {@link #MAX_CLASSES} long
+     */
+    public void getAreas(int left, int top, int right, int bottom, @NonNull long[] areas) {
+        checkRegion(left, top, right, bottom);
+        Arrays.fill(areas, 0, MAX_CLASSES, 0);
+        for (int y = top; y < bottom; y++) {
+            final int rowEnd = rowStarts[y + 1];
+            for (int run = findRun(y, left); run < rowEnd; run++) {
+                final int start = runStart(y, run);
+                if (start >= right) {
+                    break;
+                }
+                areas[runClasses[run] & 0xFF] += Math.min(runEnd(run), right) - Math.max(start, left);
+            }
+        }
+    }
+
+    /**
+     * Spans of the class in the row, e.g. to find left and right borders of the drivable area.
+     *
+     * @param starts first pixel of every span
+     * @param ends   exclusive end of every span
+     * @return number of spans written, at most the length of the arrays
+     */
+    public int getRowSpans(int y, int segmentationClass, @NonNull int[] starts, @NonNull int[] ends) {
+        if (y < 0 || y >= height) {
+            throw new IllegalArgumentException("Row " + y + " is out of [0, " + height + ")");
+        }
+        final int capacity = Math.min(starts.length, ends.length);
+        int count = 0;
+        for (int run = rowStarts[y]; run < rowStarts[y + 1] && count < capacity; run++) {
+            if ((runClasses[run] & 0xFF) == segmentationClass) {
+                starts[count] = runStart(y, run);
+                ends[count] = runEnd(run);
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Decodes the region back to pixels, {@code right} and {@code bottom} are exclusive.
+     *
+     * @param classes filled row by row with the class of every pixel of the region,
+     *                at least {@code (right - left) * (bottom - top)} long
+     */
+    public void decode(int left, int top, int right, int bottom, @NonNull byte[] classes) {
+        checkRegion(left, top, right, bottom);
+        final int regionWidth = right - left;
+        int offset = 0;
+        for (int y = top; y < bottom; y++, offset += regionWidth) {
+            final int rowEnd = rowStarts[y + 1];
+            for (int run = findRun(y, left); run < rowEnd; run++) {
+                final int start = runStart(y, run);
+                if (start >= right) {
+                    break;
+                }
+                Arrays.fill(
+                        classes,
+                        offset + Math.max(start, left) - left,
+                        offset + Math.min(runEnd(run), right) - left,
+                        runClasses[run]
+                );
+            }
+        }
+    }
+
+    private int runStart(int y, int run) {
+        return run == rowStarts[y] ? 0 : runEnd(run - 1);
+    }
+
+    private int runEnd(int run) {
+        return runEnds[run] & 0xFFFF;
+    }
+
+    // index of the run of the row containing x, binary search over run ends
+    private int findRun(int y, int x) {
+        int low = rowStarts[y];
+        int high = rowStarts[y + 1] - 1;
+        while (low < high) {
+            final int middle = (low + high) >>> 1;
+            if (runEnd(middle) <= x) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private void checkRegion(int left, int top, int right, int bottom) {
+        if (left < 0 || top < 0 || right > width || bottom > height || left > right || top > bottom) {
+            throw new IllegalArgumentException(
+                    "Region [" + left + ", " + top + ", " + right + ", " + bottom + ") is out of "
+                            + width + "x" + height + " mask"
+            );
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package com.mapbox.vision.examples;
+
+import androidx.annotation.NonNull;
+
+import com.mapbox.vision.mobile.core.interfaces.VisionEventsListener;
+import com.mapbox.vision.mobile.core.models.AuthorizationStatus;
+import com.mapbox.vision.mobile.core.models.Camera;
+import com.mapbox.vision.mobile.core.models.Country;
+import com.mapbox.vision.mobile.core.models.FrameSegmentation;
+import com.mapbox.vision.mobile.core.models.classification.FrameSignClassifications;
+import com.mapbox.vision.mobile.core.models.detection.FrameDetections;
+import com.mapbox.vision.mobile.core.models.position.VehicleState;
+import com.mapbox.vision.mobile.core.models.road.RoadDescription;
+import com.mapbox.vision.mobile.core.models.world.WorldDescription;
+
+/**
+ * {@link VisionEventsListener} that declares which events it is interested in.
+ * <p>
+ * Subclasses pass a mask of event flags to the constructor and override only the corresponding methods,
+ * the rest are empty. Wrappers like {@link CoalescingVisionEventsListener} check the mask
+ * and don't dispatch events nobody consumes.
+ */
+public class SelectiveVisionEventsListener implements VisionEventsListener {
+
+    public static final int AUTHORIZATION_STATUS = 1;
+    public static final int FRAME_SEGMENTATION = 1 << 1;
+    public static final int FRAME_DETECTIONS = 1 << 2;
+    public static final int FRAME_SIGN_CLASSIFICATIONS = 1 << 3;
+    public static final int ROAD_DESCRIPTION = 1 << 4;
+    public static final int WORLD_DESCRIPTION = 1 << 5;
+    public static final int VEHICLE_STATE = 1 << 6;
+    public static final int CAMERA = 1 << 7;
+    public static final int COUNTRY = 1 << 8;
+    public static final int UPDATE_COMPLETED = 1 << 9;
+    public static final int ALL_EVENTS = (1 << 10) - 1;
+
+    private final int events;
+
+    public SelectiveVisionEventsListener(int events) {
+        if ((events & ~ALL_EVENTS) != 0) {
+            throw new IllegalArgumentException("Unknown events in mask " + Integer.toBinaryString(events));
+        }
+        this.events = events;
+    }
+
+    /**
+     * Mask of events this listener is interested in.
+     */
+    public final int getEvents() {
+        return events;
+    }
+
+    public final boolean isSubscribed(int event) {
+        return (events & event) != 0;
+    }
+
+    /**
+     * Returns events mask of any listener, listeners other than {@link SelectiveVisionEventsListener}
+     * are interested in all events.
+     */
+    public static int eventsOf(@NonNull VisionEventsListener listener) {
+        return listener instanceof SelectiveVisionEventsListener
+                ? ((SelectiveVisionEventsListener) listener).events
+                : ALL_EVENTS;
+    }
+
+    @Override
+    public void onAuthorizationStatusUpdated(@NonNull AuthorizationStatus authorizationStatus) {
+    }
+
+    @Override
+    public void onFrameSegmentationUpdated(@NonNull FrameSegmentation frameSegmentation) {
+    }
+
+    @Override
+    public void onFrameDetectionsUpdated(@NonNull FrameDetections frameDetections) {
+    }
+
+    @Override
+    public void onFrameSignClassificationsUpdated(@NonNull FrameSignClassifications frameSignClassifications) {
+    }
+
+    @Override
+    public void onRoadDescriptionUpdated(@NonNull RoadDescription roadDescription) {
+    }
+
+    @Override
+    public void onWorldDescriptionUpdated(@NonNull WorldDescription worldDescription) {
+    }
+
+    @Override
+    public void onVehicleStateUpdated(@NonNull VehicleState vehicleState) {
+    }
+
+    @Override
+    public void onCameraUpdated(@NonNull Camera camera) {
+    }
+
+    @Override
+    public void onCountryUpdated(@NonNull Country country) {
+    }
+
+    @Override
+    public void onUpdateCompleted() {
+    }
+}
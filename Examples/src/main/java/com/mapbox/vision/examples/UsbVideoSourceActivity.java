@@ -10,8 +10,18 @@ import android.os.HandlerThread;
 import androidx.annotation.NonNull;
 
 import com.mapbox.vision.VisionManager;
+import com.mapbox.vision.mobile.core.interfaces.VisionEventsListener;
+import com.mapbox.vision.mobile.core.models.AuthorizationStatus;
+import com.mapbox.vision.mobile.core.models.Camera;
+import com.mapbox.vision.mobile.core.models.Country;
+import com.mapbox.vision.mobile.core.models.FrameSegmentation;
+import com.mapbox.vision.mobile.core.models.classification.FrameSignClassifications;
+import com.mapbox.vision.mobile.core.models.detection.FrameDetections;
 import com.mapbox.vision.mobile.core.models.frame.ImageFormat;
 import com.mapbox.vision.mobile.core.models.frame.ImageSize;
+import com.mapbox.vision.mobile.core.models.position.VehicleState;
+import com.mapbox.vision.mobile.core.models.road.RoadDescription;
+import com.mapbox.vision.mobile.core.models.world.WorldDescription;
 import com.mapbox.vision.performance.ModelPerformance;
 import com.mapbox.vision.performance.ModelPerformanceMode;
 import com.mapbox.vision.performance.ModelPerformanceRate;
@@ -21,6 +31,8 @@ import com.mapbox.vision.view.VisionView;
 import com.serenegiant.usb.USBMonitor;
 import com.serenegiant.usb.UVCCamera;
 
+import org.jetbrains.annotations.NotNull;
+
 /**
  * Example shows how Vision SDK can work with external USB camera.
  * [UVCCamera](https://github.com/saki4510t/UVCCamera) library is used to connect to the USB camera itself,
@@ -37,11 +49,6 @@ public class UsbVideoSourceActivity extends BaseActivity {
 
     private boolean visionManagerWasInit = false;
 
-    /**
-     * Vision SDK will attach listener to get frames and camera parameters from the USB camera.
-     */
-    private VideoSourceListener usbVideoSourceListener;
-
     /**
      * VideoSource implementation that connects to USB camera and feeds frames to VisionManager.
      */
@@ -49,6 +56,7 @@ public class UsbVideoSourceActivity extends BaseActivity {
         /**
          * VisionManager will attach [videoSourceListener] after [VisionManager.create] is called.
          * Here we open USB camera connection, and proceed connection via [onDeviceConnectListener] callbacks.
+         * Frames are offered to [handoffVideoSource] directly, so the listener isn't kept.
          *
          * NOTE : method is called from the same thread, that [VisionManager.create] is called.
          */
@@ -62,7 +70,6 @@ public class UsbVideoSourceActivity extends BaseActivity {
             {
                 // Init and register USBMonitor.
                 synchronized (UsbVideoSourceActivity.this) {
-                    usbVideoSourceListener = videoSourceListener;
                     usbMonitor = new USBMonitor(UsbVideoSourceActivity.this, onDeviceConnectListener);
                     usbMonitor.register();
                 }
@@ -87,7 +94,6 @@ public class UsbVideoSourceActivity extends BaseActivity {
                         uvcCamera.stopPreview();
                         releaseCamera();
                     }
-                    usbVideoSourceListener = null;
                 }
             });
 
@@ -95,6 +101,78 @@ public class UsbVideoSourceActivity extends BaseActivity {
         }
     };
 
+    /**
+     * Camera callbacks should not wait for Vision SDK, so frames are handed over through a queue
+     * that keeps only the latest frame if Vision SDK is busy.
+     */
+    private final FrameHandoffVideoSource handoffVideoSource = new FrameHandoffVideoSource(
+            usbVideoSource,
+            FrameHandoffQueue.Policy.KEEP_LATEST,
+            1
+    );
+
+    // Steps model rate down when updates are late and back up when there is headroom.
+    // Accessed only from Vision SDK callback thread.
+    private final ModelPerformanceController modelPerformanceController = ModelPerformanceController.createDefault(
+            level -> runOnUiThread(() -> {
+                if (visionManagerWasInit) {
+                    setModelPerformanceRate(ModelPerformanceController.getDefaultRate(level));
+                }
+            })
+    );
+    private long lastUpdateCompletedNanos = -1;
+
+    // Update times are measured on Vision SDK thread, coalescing them would hide late updates.
+    private final VisionEventsListener visionEventsListener = new VisionEventsListener() {
+
+        @Override
+        public void onAuthorizationStatusUpdated(@NotNull AuthorizationStatus authorizationStatus) {
+        }
+
+        @Override
+        public void onFrameSegmentationUpdated(@NotNull FrameSegmentation frameSegmentation) {
+        }
+
+        @Override
+        public void onFrameDetectionsUpdated(@NotNull FrameDetections frameDetections) {
+        }
+
+        @Override
+        public void onFrameSignClassificationsUpdated(@NotNull FrameSignClassifications frameSignClassifications) {
+        }
+
+        @Override
+        public void onRoadDescriptionUpdated(@NotNull RoadDescription roadDescription) {
+        }
+
+        @Override
+        public void onWorldDescriptionUpdated(@NotNull WorldDescription worldDescription) {
+        }
+
+        @Override
+        public void onVehicleStateUpdated(@NotNull VehicleState vehicleState) {
+        }
+
+        @Override
+        public void onCameraUpdated(@NotNull Camera camera) {
+        }
+
+        @Override
+        public void onCountryUpdated(@NotNull Country country) {
+        }
+
+        @Override
+        public void onUpdateCompleted() {
+            // Time between completed updates includes waiting for a camera frame in the queue,
+            // so it's compared with the budget of the current rate.
+            final long now = System.nanoTime();
+            if (lastUpdateCompletedNanos >= 0) {
+                modelPerformanceController.onUpdateCompleted(now - lastUpdateCompletedNanos, now);
+            }
+            lastUpdateCompletedNanos = now;
+        }
+    };
+
     private USBMonitor usbMonitor;
     private UVCCamera uvcCamera;
 
@@ -135,10 +213,9 @@ public class UsbVideoSourceActivity extends BaseActivity {
 
     private void startVisionManager() {
         if (allPermissionsGranted() && !visionManagerWasInit) {
-            VisionManager.create(usbVideoSource);
-            VisionManager.setModelPerformance(
-                new ModelPerformance.On(ModelPerformanceMode.FIXED, ModelPerformanceRate.HIGH.INSTANCE)
-            );
+            VisionManager.create(handoffVideoSource);
+            setModelPerformanceRate(ModelPerformanceController.getDefaultRate(modelPerformanceController.getLevel()));
+            VisionManager.setVisionEventsListener(visionEventsListener);
             visionView.setVisionManager(VisionManager.INSTANCE);
             VisionManager.start();
 
@@ -146,12 +223,17 @@ public class UsbVideoSourceActivity extends BaseActivity {
         }
     }
 
+    private void setModelPerformanceRate(final ModelPerformanceRate rate) {
+        VisionManager.setModelPerformance(new ModelPerformance.On(ModelPerformanceMode.FIXED, rate));
+    }
+
     private void stopVisionManager() {
         if (visionManagerWasInit) {
             VisionManager.stop();
             VisionManager.destroy();
 
             visionManagerWasInit = false;
+            lastUpdateCompletedNanos = -1;
         }
     }
 
@@ -223,13 +305,10 @@ public class UsbVideoSourceActivity extends BaseActivity {
         uvcCamera.setPreviewTexture(surfaceTexture);
         uvcCamera.startPreview();
 
-        // Set callback that will feed frames from the USB camera to Vision SDK
+        // Set callback that will feed frames from the USB camera to Vision SDK.
+        // libuvc converts frames to RGBX natively, the queue only decides which of them Vision SDK gets.
         uvcCamera.setFrameCallback(
-                (frame) -> usbVideoSourceListener.onNewFrame(
-                        new VideoSourceListener.FrameHolder.ByteBufferHolder(frame),
-                        ImageFormat.RGBA,
-                        CAMERA_FRAME_SIZE
-                ),
+                (frame) -> handoffVideoSource.offerFrame(frame, ImageFormat.RGBA, CAMERA_FRAME_SIZE),
                 UVCCamera.PIXEL_FORMAT_RGBX
         );
     }
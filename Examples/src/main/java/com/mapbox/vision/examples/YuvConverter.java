@@ -0,0 +1,185 @@
+package com.mapbox.vision.examples;
+
+import androidx.annotation.NonNull;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Converts YUV frames to RGBA in plain Java, BT.601 limited range.
+ * <p>
+ * Conversion works row by row through reused scratch arrays, so no memory is allocated per frame.
+ * Instances are not thread safe.
+ */
+public class YuvConverter {
+
+    /**
+     * Packed and semi-planar layouts produced by cameras.
+     */
+    public enum Layout {
+        // 4:2:2 packed, Y0 U Y1 V for every pair of pixels.
+        YUYV,
+        // 4:2:0 semi-planar, Y plane followed by interleaved V U plane.
+        NV21;
+
+        /**
+         * Minimal row stride in bytes of the frame with given width.
+         */
+        public int minRowStride(int width) {
+            return this == YUYV ? width * 2 : width;
+        }
+
+        /**
+         * Size in bytes of the frame with given row stride and height.
+         */
+        public int frameSizeBytes(int rowStride, int height) {
+            return this == YUYV ? rowStride * height : rowStride * height + rowStride * ((height + 1) / 2);
+        }
+    }
+
+    private byte[] rowY = new byte[0];
+    private byte[] rowU = new byte[0];
+    private byte[] rowV = new byte[0];
+    private byte[] rowRgba = new byte[0];
+
+    /**
+     * Converts YUV 4:2:0 frame given as three planes (I420, NV12, NV21 and flexible YUV_420_888 layouts)
+     * to tightly packed RGBA written to {@code rgba} starting from its current position.
+     */
+    public void yuv420ToRgba(
+            @NonNull ByteBuffer yPlane,
+            int yRowStride,
+            @NonNull ByteBuffer uPlane,
+            @NonNull ByteBuffer vPlane,
+            int uvRowStride,
+            int uvPixelStride,
+            int width,
+            int height,
+            @NonNull ByteBuffer rgba
+    ) {
+        final int chromaWidth = (width + 1) / 2;
+        final int chromaRowLength = (chromaWidth - 1) * uvPixelStride + 1;
+        ensureRowCapacity(width, width, chromaRowLength);
+
+        for (int row = 0; row < height; row++) {
+            readRow(yPlane, row * yRowStride, rowY, width);
+            final int chromaOffset = (row / 2) * uvRowStride;
+            readRow(uPlane, chromaOffset, rowU, chromaRowLength);
+            readRow(vPlane, chromaOffset, rowV, chromaRowLength);
+
+            for (int x = 0; x < width; x++) {
+                final int chromaIndex = (x / 2) * uvPixelStride;
+                writePixel(
+                        rowRgba,
+                        x * 4,
+                        rowY[x] & 0xFF,
+                        rowU[chromaIndex] & 0xFF,
+                        rowV[chromaIndex] & 0xFF
+                );
+            }
+            rgba.put(rowRgba, 0, width * 4);
+        }
+    }
+
+    /**
+     * Converts frame in {@code layout} to tightly packed RGBA written to {@code rgba} starting from its current position.
+     * Both layouts share chroma between pairs of pixels, so width should be even.
+     */
+    public void toRgba(
+            @NonNull Layout layout,
+            @NonNull ByteBuffer source,
+            int rowStride,
+            int width,
+            int height,
+            @NonNull ByteBuffer rgba
+    ) {
+        checkWidth(width);
+        switch (layout) {
+            case YUYV:
+                yuyvToRgba(source, rowStride, width, height, rgba);
+                break;
+            case NV21:
+                nv21ToRgba(source, rowStride, width, height, rgba);
+                break;
+        }
+    }
+
+    private void yuyvToRgba(@NonNull ByteBuffer source, int rowStride, int width, int height, @NonNull ByteBuffer rgba) {
+        ensureRowCapacity(width * 2, width, 0);
+
+        for (int row = 0; row < height; row++) {
+            readRow(source, row * rowStride, rowY, width * 2);
+            // two pixels share U and V
+            for (int x = 0; x < width; x += 2) {
+                final int in = x * 2;
+                final int u = rowY[in + 1] & 0xFF;
+                final int v = rowY[in + 3] & 0xFF;
+                writePixel(rowRgba, x * 4, rowY[in] & 0xFF, u, v);
+                writePixel(rowRgba, x * 4 + 4, rowY[in + 2] & 0xFF, u, v);
+            }
+            rgba.put(rowRgba, 0, width * 4);
+        }
+    }
+
+    private void nv21ToRgba(@NonNull ByteBuffer source, int rowStride, int width, int height, @NonNull ByteBuffer rgba) {
+        final int chromaPlaneOffset = rowStride * height;
+        ensureRowCapacity(width, width, width);
+
+        for (int row = 0; row < height; row++) {
+            readRow(source, row * rowStride, rowY, width);
+            // V and U are interleaved, so the whole chroma row goes to a single scratch array
+            readRow(source, chromaPlaneOffset + (row / 2) * rowStride, rowU, width);
+            for (int x = 0; x < width; x += 2) {
+                final int v = rowU[x] & 0xFF;
+                final int u = rowU[x + 1] & 0xFF;
+                writePixel(rowRgba, x * 4, rowY[x] & 0xFF, u, v);
+                writePixel(rowRgba, x * 4 + 4, rowY[x + 1] & 0xFF, u, v);
+            }
+            rgba.put(rowRgba, 0, width * 4);
+        }
+    }
+
+    /**
+     * Packed and semi-planar layouts have no chroma for the last column of an odd width,
+     * so such frames are rejected instead of producing RGBA rows shorter than the width.
+     */
+    static void checkWidth(int width) {
+        if (width <= 0 || (width & 1) != 0) {
+            throw new IllegalArgumentException("Width should be positive and even, got " + width);
+        }
+    }
+
+    void ensureRowCapacity(int lumaRowLength, int width, int chromaRowLength) {
+        if (rowY.length < lumaRowLength) {
+            rowY = new byte[lumaRowLength];
+        }
+        if (rowRgba.length < width * 4) {
+            rowRgba = new byte[width * 4];
+        }
+        if (rowU.length < chromaRowLength) {
+            rowU = new byte[chromaRowLength];
+            rowV = new byte[chromaRowLength];
+        }
+    }
+
+    static void readRow(@NonNull ByteBuffer plane, int offset, @NonNull byte[] row, int length) {
+        // plane position is restored, so planes can be shared between calls
+        final int position = plane.position();
+        plane.position(offset);
+        plane.get(row, 0, Math.min(length, plane.remaining()));
+        plane.position(position);
+    }
+
+    static void writePixel(@NonNull byte[] out, int offset, int y, int u, int v) {
+        final int c = Math.max(0, y - 16) * 298;
+        final int d = u - 128;
+        final int e = v - 128;
+        out[offset] = clamp((c + 409 * e + 128) >> 8);
+        out[offset + 1] = clamp((c - 100 * d - 208 * e + 128) >> 8);
+        out[offset + 2] = clamp((c + 516 * d + 128) >> 8);
+        out[offset + 3] = (byte) 0xFF;
+    }
+
+    private static byte clamp(int value) {
+        return (byte) (value < 0 ? 0 : (value > 255 ? 255 : value));
+    }
+}
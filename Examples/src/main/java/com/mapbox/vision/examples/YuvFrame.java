@@ -0,0 +1,96 @@
+package com.mapbox.vision.examples;
+
+import androidx.annotation.NonNull;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Camera frame kept in its native YUV layout together with stride metadata.
+ * <p>
+ * Consumers that understand YUV read {@link #getData()} directly. RGBA is produced lazily by {@link #getRgba()},
+ * at most once per frame and only if some consumer asks for it, into a direct buffer reused between frames.
+ */
+public class YuvFrame {
+
+    private final YuvConverter.Layout layout;
+    private final int width;
+    private final int height;
+    private final int rowStride;
+    private final YuvConverter converter = new YuvConverter();
+    private final ByteBuffer rgba;
+
+    private ByteBuffer data;
+    private boolean rgbaReady = false;
+    private long rgbaConversions = 0;
+
+    public YuvFrame(@NonNull YuvConverter.Layout layout, int width, int height, int rowStride) {
+        YuvConverter.checkWidth(width);
+        if (rowStride < layout.minRowStride(width)) {
+            throw new IllegalArgumentException("Row stride " + rowStride + " is too small for width " + width);
+        }
+        this.layout = layout;
+        this.width = width;
+        this.height = height;
+        this.rowStride = rowStride;
+        this.rgba = ByteBuffer.allocateDirect(width * height * 4);
+    }
+
+    public YuvFrame(@NonNull YuvConverter.Layout layout, int width, int height) {
+        this(layout, width, height, layout.minRowStride(width));
+    }
+
+    /**
+     * Points this frame to new camera data. {@code data} is not copied and should stay valid while the frame is used.
+     */
+    public void wrap(@NonNull ByteBuffer data) {
+        if (data.capacity() < layout.frameSizeBytes(rowStride, height)) {
+            throw new IllegalArgumentException("Frame buffer is too small: " + data.capacity());
+        }
+        this.data = data;
+        rgbaReady = false;
+    }
+
+    @NonNull
+    public ByteBuffer getData() {
+        return data;
+    }
+
+    @NonNull
+    public YuvConverter.Layout getLayout() {
+        return layout;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public int getRowStride() {
+        return rowStride;
+    }
+
+    /**
+     * Returns frame converted to RGBA, converting it on first call after {@link #wrap}.
+     */
+    @NonNull
+    public ByteBuffer getRgba() {
+        if (!rgbaReady) {
+            rgba.clear();
+            converter.toRgba(layout, data, rowStride, width, height, rgba);
+            rgbaReady = true;
+            rgbaConversions++;
+        }
+        rgba.rewind();
+        return rgba;
+    }
+
+    /**
+     * Number of frames that had to be converted to RGBA.
+     */
+    public long getRgbaConversions() {
+        return rgbaConversions;
+    }
+}
@@ -17,22 +17,44 @@ import com.mapbox.vision.mobile.core.models.detection.Detection
 import com.mapbox.vision.mobile.core.models.detection.DetectionClass
 import com.mapbox.vision.mobile.core.models.detection.FrameDetections
 import com.mapbox.vision.mobile.core.models.frame.Image
+import com.mapbox.vision.mobile.core.models.frame.ImageFormat
 import com.mapbox.vision.mobile.core.models.position.VehicleState
 import com.mapbox.vision.mobile.core.models.road.RoadDescription
 import com.mapbox.vision.mobile.core.models.world.WorldDescription
 import com.mapbox.vision.performance.ModelPerformance
 import com.mapbox.vision.performance.ModelPerformanceMode
 import com.mapbox.vision.performance.ModelPerformanceRate
+import com.mapbox.vision.utils.VisionLogger
 import java.nio.ByteBuffer
+import java.util.concurrent.TimeUnit
 import kotlin.math.pow
 import kotlin.math.sqrt
-import kotlinx.android.synthetic.main.activity_custom_detection.*
+import kotlinx.android.synthetic.main.activity_custom_detection_kt.*
 
 class CustomDetectionActivityKt : BaseActivity() {
 
+    companion object {
+        private val TAG = CustomDetectionActivityKt::class.java.simpleName
+
+        // One frame is shown on screen, one is being drawn and one is waiting in the main looper queue.
+        private const val FRAME_POOL_CAPACITY = 3
+        // ARGB_8888 Bitmap takes RGBA bytes as they are
+        private const val RGBA_BYTES_PER_PIXEL = 4
+    }
+
     private var visionManagerWasInit = false
     private lateinit var paint: Paint
 
+    // Frames are reused between detection events instead of allocating new Bitmap and ByteBuffer each time.
+    private val framePool = FramePool<BitmapFrame>(
+        FramePool.Factory { width, height, _ -> BitmapFrame(width, height) },
+        FRAME_POOL_CAPACITY
+    )
+    // Frame currently shown by detections_view, accessed only from main thread.
+    private var displayedFrame: BitmapFrame? = null
+    private var lastPoolStatsLogNanos = 0L
+    private var unsupportedFrames = 0L
+
     // VisionEventsListener handles events from Vision SDK on background thread.
     private val visionEventsListener = object : VisionEventsListener {
 
@@ -42,20 +64,31 @@ class CustomDetectionActivityKt : BaseActivity() {
 
         override fun onFrameDetectionsUpdated(frameDetections: FrameDetections) {
 
-            fun convertImageToBitmap(originalImage: Image): Bitmap {
-                val bitmap = Bitmap.createBitmap(
-                    originalImage.size.imageWidth,
-                    originalImage.size.imageHeight,
-                    Bitmap.Config.ARGB_8888
-                )
-                // prepare direct ByteBuffer that will hold camera frame data
-                val buffer = ByteBuffer.allocateDirect(originalImage.sizeInBytes())
-                // associate underlying native ByteBuffer with our buffer
-                originalImage.copyPixels(buffer)
-                buffer.rewind()
-                // copy ByteBuffer to bitmap
-                bitmap.copyPixelsFromBuffer(buffer)
-                return bitmap
+            fun convertImageToBitmap(originalImage: Image): BitmapFrame? {
+                val size = originalImage.size
+                val sizeInBytes = originalImage.sizeInBytes()
+                if (originalImage.format != ImageFormat.RGBA ||
+                    sizeInBytes != size.imageWidth * size.imageHeight * RGBA_BYTES_PER_PIXEL
+                ) {
+                    // Bitmap copies tightly packed RGBA rows only, other formats and padded rows would be garbled
+                    if (unsupportedFrames++ == 0L) {
+                        VisionLogger.e(
+                            TAG,
+                            "Unsupported frame: ${originalImage.format} $sizeInBytes bytes for " +
+                                    "${size.imageWidth}x${size.imageHeight}, tightly packed RGBA is expected"
+                        )
+                    }
+                    return null
+                }
+                // take Bitmap and direct ByteBuffer of the right size from the pool
+                val frame = framePool.acquire(
+                    size.imageWidth,
+                    size.imageHeight,
+                    originalImage.format.ordinal,
+                    System.nanoTime()
+                ) ?: return null
+                frame.copyPixels(originalImage)
+                return frame
             }
 
             fun drawSingleDetection(canvas: Canvas, detection: Detection) {
@@ -82,9 +115,10 @@ class CustomDetectionActivityKt : BaseActivity() {
                 )
             }
 
-            val frameBitmap = convertImageToBitmap(frameDetections.frame.image)
+            // all frames are still in use by main thread or the frame can't be shown, skip this one
+            val frame = convertImageToBitmap(frameDetections.frame.image) ?: return
             // now we will draw current detections on canvas with frame bitmap
-            val canvas = Canvas(frameBitmap)
+            val canvas = Canvas(frame.bitmap)
             for (detection in frameDetections.detections) {
                 // we will draw only detected cars
                 // and filter detections which we are not confident with
@@ -94,8 +128,12 @@ class CustomDetectionActivityKt : BaseActivity() {
             }
             runOnUiThread {
                 // finally we update our image view on main thread
-                detections_view.setImageBitmap(frameBitmap)
+                detections_view.setImageBitmap(frame.bitmap)
+                // previous frame is not displayed anymore and can be reused
+                displayedFrame?.let { framePool.release(it) }
+                displayedFrame = frame
             }
+            logFramePoolStats()
         }
 
         override fun onFrameSignClassificationsUpdated(frameSignClassifications: FrameSignClassifications) {}
@@ -123,7 +161,7 @@ class CustomDetectionActivityKt : BaseActivity() {
     }
 
     override fun initViews() {
-        setContentView(R.layout.activity_custom_detection)
+        setContentView(R.layout.activity_custom_detection_kt)
     }
 
     override fun onStart() {
@@ -158,10 +196,44 @@ class CustomDetectionActivityKt : BaseActivity() {
         }
     }
 
+    private fun logFramePoolStats() {
+        val now = System.nanoTime()
+        if (now - lastPoolStatsLogNanos >= TimeUnit.SECONDS.toNanos(1)) {
+            lastPoolStatsLogNanos = now
+            VisionLogger.d(
+                TAG,
+                "Frame pool: allocations avoided per second ${framePool.allocationsAvoidedPerSecond}" +
+                        ", allocations ${framePool.allocations}, dropped frames ${framePool.droppedFrames}" +
+                        ", unsupported frames $unsupportedFrames"
+            )
+        }
+    }
+
     private fun preparePaint() {
         paint = Paint(Paint.ANTI_ALIAS_FLAG)
         paint.color = Color.GREEN
         paint.strokeWidth = 5f
         paint.style = Paint.Style.STROKE
     }
+
+    /**
+     * Reusable ARGB_8888 Bitmap with direct ByteBuffer for the image data.
+     */
+    private class BitmapFrame(width: Int, height: Int) {
+        val bitmap: Bitmap = Bitmap.createBitmap(width, height, Bitmap.Config.ARGB_8888)
+        // sized by the image, copyPixels writes sizeInBytes whatever the Bitmap holds
+        private var buffer: ByteBuffer? = null
+
+        fun copyPixels(image: Image) {
+            val sizeInBytes = image.sizeInBytes()
+            val frameBuffer = buffer?.takeIf { it.capacity() == sizeInBytes }
+                ?: ByteBuffer.allocateDirect(sizeInBytes).also { buffer = it }
+            frameBuffer.clear()
+            // copy camera frame data to our native ByteBuffer
+            image.copyPixels(frameBuffer)
+            frameBuffer.rewind()
+            // copy ByteBuffer to bitmap
+            bitmap.copyPixelsFromBuffer(frameBuffer)
+        }
+    }
 }
@@ -0,0 +1,91 @@
+package com.mapbox.vision.examples;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+public class CollisionTrackerTest {
+
+    // 20 updates per second
+    private static final long UPDATE_NANOS = 50_000_000L;
+    private static final float UPDATE_SECONDS = 0.05f;
+
+    @Test
+    public void trackIdsAreStableWhenObjectsAreReordered() {
+        final CollisionTracker tracker = new CollisionTracker(64, 8, 3f, 3, 0.3f);
+        final int[] classes = {1, 1};
+        final float[] xs = new float[2];
+        final float[] ys = new float[2];
+        final Random random = new Random(1);
+        int approachingId = CollisionTracker.NO_TRACK;
+
+        for (int i = 0; i < 30; i++) {
+            // approaching at 10 m/s from 50 m with noise, receding at 5 m/s, order swapped every update
+            final int approaching = i % 2;
+            final int receding = 1 - approaching;
+            xs[approaching] = 50f - 10f * i * UPDATE_SECONDS + (float) random.nextGaussian() * 0.05f;
+            ys[approaching] = 0.5f;
+            xs[receding] = 20f + 5f * i * UPDATE_SECONDS;
+            ys[receding] = -3f;
+            tracker.update(i * UPDATE_NANOS, 2, classes, xs, ys);
+
+            if (i == 0) {
+                approachingId = tracker.getObjectTrackId(approaching);
+            } else {
+                assertEquals(approachingId, tracker.getObjectTrackId(approaching));
+            }
+        }
+        assertEquals(2, tracker.getCreatedTracks());
+
+        for (int i = 0; i < tracker.getTrackCount(); i++) {
+            if (tracker.getTrackId(i) == approachingId) {
+                assertEquals(-10f, tracker.getVelocityX(i), 0.5f);
+                // true time to collision is about 3.54 s, smoothing lags behind it
+                assertEquals(tracker.getX(i) / 10f, tracker.getTimeToCollision(i), 0.2f);
+            } else {
+                assertEquals(CollisionTracker.NO_COLLISION, tracker.getTimeToCollision(i), 0f);
+            }
+        }
+    }
+
+    @Test
+    public void fastObjectKeepsTrackAfterMissedUpdates() {
+        final CollisionTracker tracker = new CollisionTracker(16, 8, 1.5f, 3, 0.3f);
+        final int[] classes = {1};
+        final float[] xs = new float[1];
+        final float[] ys = {0f};
+
+        // 20 m/s is 1 m per update, so a prediction one update ahead misses the gate after two missed updates
+        long now = 0;
+        for (int i = 0; i < 10; i++, now += UPDATE_NANOS) {
+            xs[0] = 60f - 20f * i * UPDATE_SECONDS;
+            tracker.update(now, 1, classes, xs, ys);
+        }
+        final int id = tracker.getObjectTrackId(0);
+        for (int i = 10; i < 12; i++, now += UPDATE_NANOS) {
+            tracker.update(now, 0, classes, xs, ys);
+        }
+        xs[0] = 60f - 20f * 12 * UPDATE_SECONDS;
+        tracker.update(now, 1, classes, xs, ys);
+
+        assertEquals(id, tracker.getObjectTrackId(0));
+        assertEquals(1, tracker.getCreatedTracks());
+    }
+
+    @Test
+    public void missedTracksAreDropped() {
+        final CollisionTracker tracker = new CollisionTracker(16, 8, 3f, 3, 0.3f);
+        final int[] classes = {1};
+        final float[] xs = {20f};
+        final float[] ys = {0f};
+        tracker.update(0, 1, classes, xs, ys);
+        for (int i = 1; i <= 3; i++) {
+            tracker.update(i * UPDATE_NANOS, 0, classes, xs, ys);
+            assertEquals(1, tracker.getTrackCount());
+        }
+        tracker.update(4 * UPDATE_NANOS, 0, classes, xs, ys);
+        assertEquals(0, tracker.getTrackCount());
+    }
+}
@@ -0,0 +1,242 @@
+package com.mapbox.vision.examples;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class DetectionTrackerTest {
+
+    private static final long FRAME_NANOS = 200_000_000L;
+    private static final float FRAME_SECONDS = 0.2f;
+    private static final int MAX_TRACKS = 64;
+    private static final float MIN_IOU = 0.3f;
+    private static final int MIN_HITS = 2;
+    private static final int MAX_MISSED_UPDATES = 3;
+
+    private static final int OBJECTS = 8;
+    private static final int FRAMES = 600;
+    private static final float MISS_RATE = 0.15f;
+    private static final float HALF_SIZE = 0.03f;
+
+    private final DetectionTracker tracker = new DetectionTracker(MAX_TRACKS, MIN_IOU, MIN_HITS, MAX_MISSED_UPDATES);
+    private final int[] classes = new int[MAX_TRACKS];
+    private final float[] confidences = new float[MAX_TRACKS];
+    private final float[] boxes = new float[MAX_TRACKS * 4];
+    private final float[] box = new float[4];
+
+    @Test
+    public void movingObjectKeepsItsTrack() {
+        float x = 0.2f;
+        final float velocity = 0.1f;
+        long now = 0;
+        int trackId = DetectionTracker.NO_TRACK;
+        for (int frame = 0; frame < 20; frame++) {
+            now += FRAME_NANOS;
+            x += velocity * FRAME_SECONDS;
+            setDetection(0, 0, x, 0.5f);
+            tracker.update(now, 1, classes, confidences, boxes);
+
+            assertEquals(1, tracker.getTrackCount());
+            assertEquals(frame + 1 >= MIN_HITS, tracker.isConfirmed(0));
+            assertTrue(tracker.isDetected(0));
+            if (frame == 0) {
+                trackId = tracker.getTrackId(0);
+            }
+            assertEquals(trackId, tracker.getTrackId(0));
+            assertEquals(trackId, tracker.getDetectionTrackId(0));
+        }
+
+        final float[] velocities = new float[4];
+        tracker.getBoxVelocity(0, velocities);
+        assertEquals(velocity, velocities[0], 0.005f);
+        assertEquals(0, velocities[1], 0.005f);
+
+        // the model skips the object, the track coasts on its velocity
+        for (int frame = 0; frame < MAX_MISSED_UPDATES; frame++) {
+            now += FRAME_NANOS;
+            x += velocity * FRAME_SECONDS;
+            tracker.update(now, 0, classes, confidences, boxes);
+            assertEquals(1, tracker.getTrackCount());
+            assertFalse(tracker.isDetected(0));
+            tracker.getBox(0, now, box);
+            assertEquals(x, (box[0] + box[2]) / 2, 0.005f);
+        }
+
+        now += FRAME_NANOS;
+        x += velocity * FRAME_SECONDS;
+        setDetection(0, 0, x, 0.5f);
+        tracker.update(now, 1, classes, confidences, boxes);
+        assertEquals(trackId, tracker.getDetectionTrackId(0));
+        assertEquals(1, tracker.getCreatedTracks());
+        assertEquals(MAX_MISSED_UPDATES + 21, tracker.getUpdates());
+    }
+
+    @Test
+    public void tracksAreDroppedAfterMissedUpdates() {
+        long now = FRAME_NANOS;
+        setDetection(0, 0, 0.2f, 0.5f);
+        setDetection(1, 0, 0.6f, 0.5f);
+        tracker.update(now, 2, classes, confidences, boxes);
+        assertEquals(2, tracker.getTrackCount());
+
+        // the tentative track of the second detection is dropped on its first miss
+        now += FRAME_NANOS;
+        tracker.update(now, 1, classes, confidences, boxes);
+        assertEquals(1, tracker.getTrackCount());
+        assertTrue(tracker.isConfirmed(0));
+
+        for (int frame = 0; frame < MAX_MISSED_UPDATES; frame++) {
+            now += FRAME_NANOS;
+            tracker.update(now, 0, classes, confidences, boxes);
+            assertEquals(1, tracker.getTrackCount());
+        }
+        now += FRAME_NANOS;
+        tracker.update(now, 0, classes, confidences, boxes);
+        assertEquals(0, tracker.getTrackCount());
+    }
+
+    @Test
+    public void detectionsOfDifferentClassesAreNotAssociated() {
+        setDetection(0, 0, 0.5f, 0.5f);
+        setDetection(1, 1, 0.5f, 0.5f);
+        tracker.update(FRAME_NANOS, 2, classes, confidences, boxes);
+        tracker.update(2 * FRAME_NANOS, 2, classes, confidences, boxes);
+
+        assertEquals(2, tracker.getTrackCount());
+        assertEquals(2, tracker.getCreatedTracks());
+        final int firstTrack = tracker.getDetectionTrackId(0);
+        final int secondTrack = tracker.getDetectionTrackId(1);
+        assertTrue(firstTrack != secondTrack);
+        for (int i = 0; i < tracker.getTrackCount(); i++) {
+            assertEquals(tracker.getTrackId(i) == firstTrack ? 0 : 1, tracker.getTrackClass(i));
+        }
+    }
+
+    @Test
+    public void detectionsOverMaxTracksAreDropped() {
+        final DetectionTracker smallTracker = new DetectionTracker(2, MIN_IOU, MIN_HITS, MAX_MISSED_UPDATES);
+        for (int i = 0; i < 3; i++) {
+            setDetection(i, 0, 0.2f + i * 0.3f, 0.5f);
+        }
+        smallTracker.update(FRAME_NANOS, 3, classes, confidences, boxes);
+
+        assertEquals(2, smallTracker.getTrackCount());
+        assertEquals(DetectionTracker.NO_TRACK, smallTracker.getDetectionTrackId(2));
+        assertEquals(1, smallTracker.getDroppedDetections());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void invalidParametersAreRejected() {
+        new DetectionTracker(MAX_TRACKS, 0, MIN_HITS, MAX_MISSED_UPDATES);
+    }
+
+    /**
+     * Objects moving across a 5 fps detection stream, the model misses every object on 15% of frames.
+     * Confirmed tracks flicker far less than raw detections and stay close to the true boxes.
+     */
+    @Test
+    public void tracksSmoothMissedDetections() {
+        final Random random = new Random(2);
+        final float[] x = new float[OBJECTS];
+        final float[] y = new float[OBJECTS];
+        final float[] velocity = new float[OBJECTS];
+        for (int i = 0; i < OBJECTS; i++) {
+            x[i] = 0.1f + i * 0.1f;
+            y[i] = 0.1f + i * 0.1f;
+            velocity[i] = (random.nextFloat() - 0.5f) * 0.05f;
+        }
+
+        final boolean[] detected = new boolean[OBJECTS];
+        final boolean[] shown = new boolean[OBJECTS];
+        final boolean[] wasDetected = new boolean[OBJECTS];
+        final boolean[] wasShown = new boolean[OBJECTS];
+        final int[] detectionObjects = new int[OBJECTS];
+        final int[] trackIds = new int[OBJECTS];
+        Arrays.fill(trackIds, DetectionTracker.NO_TRACK);
+        int detectionFlips = 0;
+        int trackFlips = 0;
+        int idSwitches = 0;
+        double centerError = 0;
+        int shownBoxes = 0;
+
+        long now = 0;
+        for (int frame = 0; frame < FRAMES; frame++) {
+            now += FRAME_NANOS;
+            int count = 0;
+            for (int i = 0; i < OBJECTS; i++) {
+                x[i] += velocity[i] * FRAME_SECONDS;
+                if (x[i] < 0.05f || x[i] > 0.95f) {
+                    velocity[i] = -velocity[i];
+                }
+                detected[i] = random.nextFloat() >= MISS_RATE;
+                if (detected[i]) {
+                    setDetection(count, i % 3, x[i] + (float) random.nextGaussian() * 0.003f, y[i]);
+                    detectionObjects[count++] = i;
+                }
+            }
+            tracker.update(now, count, classes, confidences, boxes);
+
+            for (int detection = 0; detection < count; detection++) {
+                final int object = detectionObjects[detection];
+                final int trackId = tracker.getDetectionTrackId(detection);
+                if (trackIds[object] != DetectionTracker.NO_TRACK && trackIds[object] != trackId) {
+                    idSwitches++;
+                }
+                trackIds[object] = trackId;
+            }
+
+            Arrays.fill(shown, false);
+            for (int track = 0; track < tracker.getTrackCount(); track++) {
+                if (!tracker.isConfirmed(track)) {
+                    continue;
+                }
+                tracker.getBox(track, now, box);
+                final float centerX = (box[0] + box[2]) / 2;
+                final float centerY = (box[1] + box[3]) / 2;
+                int closest = 0;
+                float closestDistance = Float.MAX_VALUE;
+                for (int i = 0; i < OBJECTS; i++) {
+                    final float distance = Math.abs(x[i] - centerX) + Math.abs(y[i] - centerY);
+                    if (distance < closestDistance) {
+                        closestDistance = distance;
+                        closest = i;
+                    }
+                }
+                shown[closest] = true;
+                centerError += closestDistance;
+                shownBoxes++;
+            }
+
+            for (int i = 0; i < OBJECTS; i++) {
+                detectionFlips += detected[i] != wasDetected[i] ? 1 : 0;
+                trackFlips += shown[i] != wasShown[i] ? 1 : 0;
+                wasDetected[i] = detected[i];
+                wasShown[i] = shown[i];
+            }
+        }
+
+        final double meanCenterError = centerError / shownBoxes;
+        assertTrue(
+                "Visibility flips: detections " + detectionFlips + ", tracks " + trackFlips,
+                trackFlips * 5 < detectionFlips
+        );
+        // an object changes its id only when its track is lost and a new one is created
+        assertTrue("Id switches " + idSwitches, idSwitches <= tracker.getCreatedTracks() - OBJECTS);
+        assertTrue("Created tracks " + tracker.getCreatedTracks(), tracker.getCreatedTracks() < OBJECTS * 2);
+        assertTrue("Mean center error " + meanCenterError, meanCenterError < 0.01);
+    }
+
+    private void setDetection(int detection, int detectionClass, float centerX, float centerY) {
+        classes[detection] = detectionClass;
+        confidences[detection] = 0.8f;
+        boxes[detection * 4] = centerX - HALF_SIZE;
+        boxes[detection * 4 + 1] = centerY - HALF_SIZE;
+        boxes[detection * 4 + 2] = centerX + HALF_SIZE;
+        boxes[detection * 4 + 3] = centerY + HALF_SIZE;
+    }
+}
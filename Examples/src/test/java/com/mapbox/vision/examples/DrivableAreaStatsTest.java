@@ -0,0 +1,78 @@
+package com.mapbox.vision.examples;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+
+import static org.junit.Assert.assertEquals;
+
+public class DrivableAreaStatsTest {
+
+    private static final int WIDTH = 640;
+    private static final int HEIGHT = 360;
+    private static final float BORDER_ROW = 0.75f;
+
+    private static final int SKY = 0;
+    private static final int ROAD = 7;
+    private static final int SIDEWALK = 9;
+
+    /**
+     * Road widening towards the bottom with a narrower side road on the left, sidewalks around both.
+     * The sidewalk covers more of the lower half than the road, so the road can't be told by its area.
+     */
+    private static ByteBuffer createMask(int roadLeft, int roadRight) {
+        final ByteBuffer mask = ByteBuffer.allocateDirect(WIDTH * HEIGHT);
+        for (int y = 0; y < HEIGHT; y++) {
+            for (int x = 0; x < WIDTH; x++) {
+                int segmentationClass = y < HEIGHT / 2 ? SKY : SIDEWALK;
+                final boolean mainRoad = x >= roadLeft && x < roadRight;
+                final boolean sideRoad = x >= 20 && x < 60;
+                if (y >= HEIGHT / 2 && (mainRoad || sideRoad)) {
+                    segmentationClass = ROAD;
+                }
+                mask.put(y * WIDTH + x, (byte) segmentationClass);
+            }
+        }
+        return mask;
+    }
+
+    @Test
+    public void roadAreaAndWidthAreMeasured() {
+        final DrivableAreaStats stats = new DrivableAreaStats(ROAD, BORDER_ROW);
+        stats.update(createMask(300, 400), WIDTH, HEIGHT, WIDTH);
+
+        assertEquals(140f / WIDTH, stats.getAreaShare(), 1e-6f);
+        assertEquals(100f / WIDTH, stats.getWidthShare(), 1e-6f);
+
+        stats.update(createMask(200, 500), WIDTH, HEIGHT, WIDTH);
+        assertEquals(340f / WIDTH, stats.getAreaShare(), 1e-6f);
+        assertEquals(300f / WIDTH, stats.getWidthShare(), 1e-6f);
+
+        assertEquals(2, stats.getFrames());
+        assertEquals((140.0 + 340.0) / 2 / WIDTH, stats.getMeanAreaShare(), 1e-6);
+        assertEquals((100.0 + 300.0) / 2 / WIDTH, stats.getMeanWidthShare(), 1e-6);
+    }
+
+    @Test
+    public void maskWithoutRoadHasNoDrivableArea() {
+        final DrivableAreaStats stats = new DrivableAreaStats(ROAD + 1, BORDER_ROW);
+        final ByteBuffer mask = createMask(300, 400);
+        mask.position(WIDTH);
+        stats.update(mask, WIDTH, HEIGHT - 1, WIDTH);
+
+        assertEquals(WIDTH, mask.position());
+        assertEquals(0, stats.getAreaShare(), 0);
+        assertEquals(0, stats.getWidthShare(), 0);
+        assertEquals(1, stats.getFrames());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void invalidRoadClassIsRejected() {
+        new DrivableAreaStats(SegmentationRuns.MAX_CLASSES, BORDER_ROW);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void borderRowAboveHorizonIsRejected() {
+        new DrivableAreaStats(ROAD, 0.25f);
+    }
+}
@@ -0,0 +1,282 @@
+package com.mapbox.vision.examples;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class EventLogTest {
+
+    // 10 minutes at 30 fps
+    private static final int FRAMES = 30 * 600;
+    private static final int MAX_OBJECTS = 8;
+
+    private File logFile;
+    private File jsonFile;
+
+    @Before
+    public void setUp() throws IOException {
+        logFile = File.createTempFile("events", ".log");
+        jsonFile = File.createTempFile("events", ".json");
+        // writer appends to existing logs, so every test starts without one
+        assertTrue(logFile.delete());
+    }
+
+    @After
+    public void tearDown() {
+        logFile.delete();
+        jsonFile.delete();
+    }
+
+    @Test
+    public void roundTripIsExactUpToQuantization() throws IOException {
+        EventLogWriter writer = new EventLogWriter(logFile, 7);
+        writer.writeVehicleState(100, 37.1234567, -122.7654321, 12.34f);
+        writer.writeVehicleState(90, 37.1234568, -122.7654320, 12.30f);
+        writer.writeFrameDetections(
+                101,
+                2,
+                new int[]{3, 5},
+                new float[]{0.9f, 0.55f},
+                new float[]{0.1f, 0.2f, 0.3f, 0.4f, 0.5f, 0.6f, 0.7f, 0.8f}
+        );
+        writer.writeFrameDetections(102, 0, new int[0], new float[0], new float[0]);
+        writer.writeRoadRestrictions(103, -1f, 27.8f);
+        writer.close();
+        assertEquals(5, writer.getEvents());
+
+        // reopened log is appended to
+        writer = new EventLogWriter(logFile, 7);
+        writer.writeRoadDescription(104, 4, 2, 0.25f);
+        writer.writeWorldDescription(105, 1, new int[]{2}, new float[]{12.5f, -1.25f});
+        writer.close();
+
+        final List<String> events = readAll(logFile, false);
+        assertEquals(
+                Arrays.asList(
+                        "vehicleState 100 37.1234567 -122.7654321 12.34",
+                        "vehicleState 90 37.1234568 -122.765432 12.3",
+                        "frameDetections 101 [3, 5] [0.9, 0.55] [0.1, 0.2, 0.3, 0.4, 0.5, 0.6, 0.7, 0.8]",
+                        "frameDetections 102 [] [] []",
+                        "roadRestrictions 103 -1.0 27.8",
+                        "roadDescription 104 4 2 0.25",
+                        "worldDescription 105 [2] [12.5, -1.25]"
+                ),
+                events
+        );
+    }
+
+    @Test
+    public void tornTailIsIgnored() throws IOException {
+        final EventLogWriter writer = new EventLogWriter(logFile, 4);
+        for (int i = 0; i < 10; i++) {
+            writer.writeVehicleState(i, 37.0, -122.0, i);
+        }
+        writer.close();
+
+        // block type and a varint cut in the middle, as left by a crash during a write
+        try (FileOutputStream output = new FileOutputStream(logFile, true)) {
+            output.write(new byte[]{2, (byte) 0x85});
+        }
+
+        assertEquals(10, readAll(logFile, true).size());
+    }
+
+    /**
+     * Size of 10 minutes of synthetic events against equivalent JSON lines, every event is read back.
+     */
+    @Test
+    public void binaryLogIsSmallerThanJsonLines() throws IOException {
+        final EventLogWriter writer = new EventLogWriter(logFile, 256);
+        writeSyntheticEvents(new Random(1), writer, null);
+        writer.close();
+
+        try (Writer jsonWriter = new BufferedWriter(new FileWriter(jsonFile))) {
+            writeSyntheticEvents(new Random(1), null, jsonWriter);
+        }
+
+        final long[] counts = new long[5];
+        try (EventLogReader reader = new EventLogReader(logFile)) {
+            reader.readAll(new EventLogReader.Visitor() {
+                @Override
+                public void onVehicleState(long timeMicros, double latitude, double longitude, float speed) {
+                    counts[0]++;
+                }
+
+                @Override
+                public void onFrameDetections(
+                        long timeMicros, int count, int[] classes, float[] confidences, float[] boxes) {
+                    counts[1]++;
+                }
+
+                @Override
+                public void onRoadDescription(
+                        long timeMicros, int laneCount, int currentLaneIndex, float currentLaneRelativePosition) {
+                    counts[2]++;
+                }
+
+                @Override
+                public void onWorldDescription(long timeMicros, int count, int[] classes, float[] positions) {
+                    counts[3]++;
+                }
+
+                @Override
+                public void onRoadRestrictions(long timeMicros, float minSpeed, float maxSpeed) {
+                    counts[4]++;
+                }
+            });
+            assertFalse(reader.isTruncated());
+        }
+
+        assertArrayEquals(new long[]{FRAMES / 3, FRAMES, FRAMES, FRAMES, FRAMES / 30}, counts);
+        assertEquals(FRAMES / 3 + 3 * FRAMES + FRAMES / 30, writer.getEvents());
+        final double ratio = jsonFile.length() / (double) logFile.length();
+        assertTrue("Log is only " + ratio + " times smaller than JSON", ratio > 8);
+    }
+
+    // writes the same events either to the log or as JSON lines
+    private static void writeSyntheticEvents(Random random, EventLogWriter writer, Writer jsonWriter)
+            throws IOException {
+        final int[] classes = new int[MAX_OBJECTS];
+        final float[] confidences = new float[MAX_OBJECTS];
+        final float[] boxes = new float[MAX_OBJECTS * 4];
+        final float[] positions = new float[MAX_OBJECTS * 2];
+        final StringBuilder json = new StringBuilder();
+        double latitude = 37.7749;
+        double longitude = -122.4194;
+        float speed = 10f;
+        long time = 1_000_000;
+
+        for (int frame = 0; frame < FRAMES; frame++) {
+            time += 33_333 + random.nextInt(200);
+            final int count = 2 + random.nextInt(MAX_OBJECTS - 2);
+            for (int i = 0; i < count; i++) {
+                classes[i] = random.nextInt(7);
+                confidences[i] = 0.5f + random.nextFloat() / 2;
+                final float x = random.nextFloat() * 0.8f;
+                final float y = random.nextFloat() * 0.5f;
+                boxes[i * 4] = x;
+                boxes[i * 4 + 1] = y;
+                boxes[i * 4 + 2] = x + 0.1f;
+                boxes[i * 4 + 3] = y + 0.1f;
+                positions[i * 2] = random.nextFloat() * 50;
+                positions[i * 2 + 1] = random.nextFloat() * 8 - 4;
+            }
+            final float lanePosition = random.nextFloat();
+
+            if (writer != null) {
+                writer.writeFrameDetections(time, count, classes, confidences, boxes);
+                writer.writeRoadDescription(time, 3, 1, lanePosition);
+                writer.writeWorldDescription(time, count, classes, positions);
+            } else {
+                json.setLength(0);
+                json.append("{\"type\":\"frameDetections\",\"time\":").append(time).append(",\"detections\":[");
+                for (int i = 0; i < count; i++) {
+                    if (i > 0) {
+                        json.append(',');
+                    }
+                    json.append("{\"class\":").append(classes[i])
+                            .append(",\"confidence\":").append(confidences[i])
+                            .append(",\"boundingBox\":{\"left\":").append(boxes[i * 4])
+                            .append(",\"top\":").append(boxes[i * 4 + 1])
+                            .append(",\"right\":").append(boxes[i * 4 + 2])
+                            .append(",\"bottom\":").append(boxes[i * 4 + 3])
+                            .append("}}");
+                }
+                json.append("]}\n");
+                json.append("{\"type\":\"roadDescription\",\"time\":").append(time)
+                        .append(",\"laneCount\":3,\"currentLaneIndex\":1,\"currentLaneRelativePosition\":")
+                        .append(lanePosition).append("}\n");
+                json.append("{\"type\":\"worldDescription\",\"time\":").append(time).append(",\"objects\":[");
+                for (int i = 0; i < count; i++) {
+                    if (i > 0) {
+                        json.append(',');
+                    }
+                    json.append("{\"class\":").append(classes[i])
+                            .append(",\"x\":").append(positions[i * 2])
+                            .append(",\"y\":").append(positions[i * 2 + 1])
+                            .append('}');
+                }
+                json.append("]}\n");
+                jsonWriter.write(json.toString());
+            }
+
+            if (frame % 3 == 0) {
+                latitude += 1e-6 * random.nextDouble();
+                longitude += 1e-6 * random.nextDouble();
+                speed += random.nextFloat() - 0.5f;
+                if (writer != null) {
+                    writer.writeVehicleState(time, latitude, longitude, speed);
+                } else {
+                    jsonWriter.write("{\"type\":\"vehicleState\",\"time\":" + time + ",\"latitude\":" + latitude
+                            + ",\"longitude\":" + longitude + ",\"speed\":" + speed + "}\n");
+                }
+            }
+            if (frame % 30 == 0) {
+                if (writer != null) {
+                    writer.writeRoadRestrictions(time, 0f, 13.9f);
+                } else {
+                    jsonWriter.write("{\"type\":\"roadRestrictions\",\"time\":" + time
+                            + ",\"minSpeed\":0.0,\"maxSpeed\":13.9}\n");
+                }
+            }
+        }
+    }
+
+    private static List<String> readAll(File file, boolean expectTruncated) throws IOException {
+        final List<String> events = new ArrayList<>();
+        try (EventLogReader reader = new EventLogReader(file)) {
+            reader.readAll(new EventLogReader.Visitor() {
+                @Override
+                public void onVehicleState(long timeMicros, double latitude, double longitude, float speed) {
+                    events.add("vehicleState " + timeMicros + " " + latitude + " " + longitude + " " + speed);
+                }
+
+                @Override
+                public void onFrameDetections(
+                        long timeMicros, int count, int[] classes, float[] confidences, float[] boxes) {
+                    events.add("frameDetections " + timeMicros
+                            + " " + Arrays.toString(Arrays.copyOf(classes, count))
+                            + " " + Arrays.toString(Arrays.copyOf(confidences, count))
+                            + " " + Arrays.toString(Arrays.copyOf(boxes, count * 4)));
+                }
+
+                @Override
+                public void onRoadDescription(
+                        long timeMicros, int laneCount, int currentLaneIndex, float currentLaneRelativePosition) {
+                    events.add("roadDescription " + timeMicros + " " + laneCount + " " + currentLaneIndex
+                            + " " + currentLaneRelativePosition);
+                }
+
+                @Override
+                public void onWorldDescription(long timeMicros, int count, int[] classes, float[] positions) {
+                    events.add("worldDescription " + timeMicros
+                            + " " + Arrays.toString(Arrays.copyOf(classes, count))
+                            + " " + Arrays.toString(Arrays.copyOf(positions, count * 2)));
+                }
+
+                @Override
+                public void onRoadRestrictions(long timeMicros, float minSpeed, float maxSpeed) {
+                    events.add("roadRestrictions " + timeMicros + " " + minSpeed + " " + maxSpeed);
+                }
+            });
+            assertEquals(expectTruncated, reader.isTruncated());
+        }
+        return events;
+    }
+}
@@ -0,0 +1,215 @@
+package com.mapbox.vision.examples;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class FrameHandoffQueueTest {
+
+    private static final int FRAME_BYTES = 64;
+    private static final int STRESS_FRAMES = 200_000;
+
+    private final ByteBuffer source = ByteBuffer.allocateDirect(FRAME_BYTES);
+
+    @Test
+    public void dropOldestKeepsNewestFrames() {
+        final FrameHandoffQueue<Integer> queue = new FrameHandoffQueue<>(FrameHandoffQueue.Policy.DROP_OLDEST, 3);
+        for (int i = 0; i < 5; i++) {
+            assertTrue(offer(queue, i));
+        }
+        assertPolled(queue, 2);
+        assertPolled(queue, 3);
+        assertPolled(queue, 4);
+        assertNull(queue.poll(0));
+        assertCounters(queue, 5, 2, 3);
+    }
+
+    @Test
+    public void dropNewestKeepsOldestFrames() {
+        final FrameHandoffQueue<Integer> queue = new FrameHandoffQueue<>(FrameHandoffQueue.Policy.DROP_NEWEST, 3);
+        for (int i = 0; i < 5; i++) {
+            assertEquals(i < 3, offer(queue, i));
+        }
+        assertPolled(queue, 0);
+        assertPolled(queue, 1);
+        assertPolled(queue, 2);
+        assertNull(queue.poll(0));
+        assertCounters(queue, 5, 2, 3);
+    }
+
+    @Test
+    public void keepLatestDeliversOnlyLatestFrame() {
+        final FrameHandoffQueue<Integer> queue = new FrameHandoffQueue<>(FrameHandoffQueue.Policy.KEEP_LATEST, 3);
+        for (int i = 0; i < 5; i++) {
+            assertTrue(offer(queue, i));
+        }
+        assertPolled(queue, 4);
+        assertNull(queue.poll(0));
+
+        assertTrue(offer(queue, 5));
+        assertPolled(queue, 5);
+        assertNull(queue.poll(0));
+        assertCounters(queue, 6, 4, 2);
+    }
+
+    /**
+     * Sequence numbers go around the ring of capacity + 2 slots many times, with the queue full on every offer.
+     */
+    @Test
+    public void ringWrapsAround() {
+        for (FrameHandoffQueue.Policy policy : new FrameHandoffQueue.Policy[]{
+                FrameHandoffQueue.Policy.DROP_OLDEST,
+                FrameHandoffQueue.Policy.DROP_NEWEST
+        }) {
+            final FrameHandoffQueue<Integer> queue = new FrameHandoffQueue<>(policy, 2);
+            int frame = 0;
+            for (int round = 0; round < 100; round++) {
+                final int first = frame;
+                for (int i = 0; i < 3; i++) {
+                    offer(queue, frame++);
+                }
+                final int expected = policy == FrameHandoffQueue.Policy.DROP_OLDEST ? first + 1 : first;
+                assertPolled(queue, expected);
+                assertPolled(queue, expected + 1);
+                assertNull(queue.poll(0));
+            }
+            assertCounters(queue, 300, 100, 200);
+        }
+    }
+
+    @Test
+    public void heldFrameIsNotOverwritten() {
+        for (FrameHandoffQueue.Policy policy : FrameHandoffQueue.Policy.values()) {
+            final FrameHandoffQueue<Integer> queue = new FrameHandoffQueue<>(policy, 1);
+            offer(queue, 0);
+            final FrameHandoffQueue.Frame<Integer> held = queue.poll(0);
+            for (int i = 1; i < 20; i++) {
+                offer(queue, i);
+            }
+            assertFrame(held, 0);
+
+            queue.release(held);
+            final FrameHandoffQueue.Frame<Integer> next = queue.poll(0);
+            assertTrue(policy.name(), next.getMetadata() > 0);
+            assertFrame(next, next.getMetadata());
+            queue.release(next);
+        }
+    }
+
+    @Test
+    public void latencyIsMeasuredFromOffer() {
+        final FrameHandoffQueue<Integer> queue = new FrameHandoffQueue<>(FrameHandoffQueue.Policy.DROP_OLDEST, 2);
+        source.clear();
+        queue.offer(source, 0, 100);
+        queue.offer(source, 1, 200);
+        queue.release(queue.poll(400));
+        queue.release(queue.poll(1000));
+
+        assertEquals(550, queue.getAverageLatencyNanos());
+        assertEquals(800, queue.getMaxLatencyNanos());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void invalidCapacityIsRejected() {
+        new FrameHandoffQueue<Integer>(FrameHandoffQueue.Policy.DROP_OLDEST, 0);
+    }
+
+    /**
+     * Producer and consumer threads hand off frames as fast as they can. Every frame is either delivered once,
+     * in the order it was offered and with its whole data, or counted as dropped.
+     */
+    @Test
+    public void producerAndConsumerThreads() throws InterruptedException {
+        for (FrameHandoffQueue.Policy policy : FrameHandoffQueue.Policy.values()) {
+            final FrameHandoffQueue<Integer> queue = new FrameHandoffQueue<>(policy, 4);
+            final AtomicBoolean producerDone = new AtomicBoolean();
+            final AtomicReference<Throwable> producerError = new AtomicReference<>();
+            final Thread producer = new Thread(() -> {
+                try {
+                    final ByteBuffer frameData = ByteBuffer.allocateDirect(FRAME_BYTES);
+                    for (int i = 0; i < STRESS_FRAMES; i++) {
+                        fill(frameData, i);
+                        queue.offer(frameData, i, 0);
+                    }
+                } catch (Throwable e) {
+                    producerError.set(e);
+                } finally {
+                    producerDone.set(true);
+                }
+            }, "Producer");
+            producer.start();
+
+            int previous = -1;
+            long delivered = 0;
+            while (true) {
+                final boolean finished = producerDone.get();
+                final FrameHandoffQueue.Frame<Integer> frame = queue.poll(0);
+                if (frame == null) {
+                    if (finished) {
+                        break;
+                    }
+                    Thread.yield();
+                    continue;
+                }
+                final int sequence = frame.getMetadata();
+                assertTrue(policy + ": " + sequence + " after " + previous, sequence > previous);
+                assertFrame(frame, sequence);
+                queue.release(frame);
+                previous = sequence;
+                delivered++;
+            }
+            producer.join();
+
+            assertNull(producerError.get());
+            assertEquals(delivered, queue.getDeliveredFrames());
+            assertEquals(policy.name(), STRESS_FRAMES, queue.getDeliveredFrames() + queue.getDroppedFrames());
+            assertEquals(STRESS_FRAMES, queue.getOfferedFrames());
+            if (policy == FrameHandoffQueue.Policy.KEEP_LATEST) {
+                // the last frame is never replaced
+                assertEquals(STRESS_FRAMES - 1, previous);
+            }
+        }
+    }
+
+    private boolean offer(FrameHandoffQueue<Integer> queue, int frame) {
+        fill(source, frame);
+        return queue.offer(source, frame, 0);
+    }
+
+    private static void fill(ByteBuffer buffer, int frame) {
+        buffer.clear();
+        while (buffer.hasRemaining()) {
+            buffer.putInt(frame);
+        }
+        buffer.flip();
+    }
+
+    private static void assertPolled(FrameHandoffQueue<Integer> queue, int frame) {
+        final FrameHandoffQueue.Frame<Integer> polled = queue.poll(0);
+        assertFrame(polled, frame);
+        queue.release(polled);
+    }
+
+    private static void assertFrame(FrameHandoffQueue.Frame<Integer> polled, int frame) {
+        assertEquals(Integer.valueOf(frame), polled.getMetadata());
+        final ByteBuffer buffer = polled.getBuffer();
+        assertEquals(FRAME_BYTES, buffer.remaining());
+        for (int i = 0; i < FRAME_BYTES; i += 4) {
+            assertEquals(frame, buffer.getInt(i));
+        }
+    }
+
+    private static void assertCounters(FrameHandoffQueue<?> queue, long offered, long dropped, long delivered) {
+        assertEquals(offered, queue.getOfferedFrames());
+        assertEquals(dropped, queue.getDroppedFrames());
+        assertEquals(delivered, queue.getDeliveredFrames());
+        assertFalse(queue.getDeliveredFrames() + queue.getDroppedFrames() > queue.getOfferedFrames());
+    }
+}
@@ -0,0 +1,105 @@
+package com.mapbox.vision.examples;
+
+import com.mapbox.vision.mobile.core.models.CameraParameters;
+import com.mapbox.vision.mobile.core.models.frame.ImageFormat;
+import com.mapbox.vision.mobile.core.models.frame.ImageSize;
+import com.mapbox.vision.video.videosource.VideoSource;
+import com.mapbox.vision.video.videosource.VideoSourceListener;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+public class FrameHandoffVideoSourceTest {
+
+    private static final ImageSize FRAME_SIZE = new ImageSize(4, 2);
+    private static final int FRAMES = 50;
+
+    private VideoSourceListener producerListener;
+
+    private final VideoSource cameraSource = new VideoSource() {
+        @Override
+        public void attach(VideoSourceListener videoSourceListener) {
+            producerListener = videoSourceListener;
+        }
+
+        @Override
+        public void detach() {
+            producerListener = null;
+        }
+    };
+
+    private final BlockingQueue<Integer> deliveredFrames = new LinkedBlockingQueue<>();
+
+    private final VideoSourceListener visionListener = new VideoSourceListener() {
+        @Override
+        public void onNewFrame(FrameHolder frameHolder, ImageFormat imageFormat, ImageSize imageSize) {
+            assertEquals(ImageFormat.RGBA, imageFormat);
+            assertEquals(FRAME_SIZE, imageSize);
+            deliveredFrames.add(((FrameHolder.ByteBufferHolder) frameHolder).getByteBuffer().getInt(0));
+        }
+
+        @Override
+        public void onNewCameraParameters(CameraParameters cameraParameters) {
+        }
+    };
+
+    /**
+     * The delivery thread parks while the queue is empty, every frame offered after that wakes it up.
+     */
+    @Test
+    public void framesAreDeliveredInOrder() throws InterruptedException {
+        final FrameHandoffVideoSource handoffSource = new FrameHandoffVideoSource(
+                cameraSource,
+                FrameHandoffQueue.Policy.DROP_NEWEST,
+                FRAMES
+        );
+        handoffSource.attach(visionListener);
+        try {
+            assertNotNull(producerListener);
+
+            final ByteBuffer frame = ByteBuffer.allocateDirect(FRAME_SIZE.getImageWidth() * FRAME_SIZE.getImageHeight() * 4);
+            for (int i = 0; i < FRAMES; i++) {
+                frame.putInt(0, i);
+                if (i % 2 == 0) {
+                    producerListener.onNewFrame(
+                            new VideoSourceListener.FrameHolder.ByteBufferHolder(frame),
+                            ImageFormat.RGBA,
+                            FRAME_SIZE
+                    );
+                } else {
+                    handoffSource.offerFrame(frame, ImageFormat.RGBA, FRAME_SIZE);
+                }
+                if (i % 10 == 9) {
+                    // let the queue drain, so the next frame is offered to a parked thread
+                    for (int delivered = i - 9; delivered <= i; delivered++) {
+                        assertEquals(Integer.valueOf(delivered), deliveredFrames.poll(5, TimeUnit.SECONDS));
+                    }
+                }
+            }
+        } finally {
+            handoffSource.detach();
+        }
+        assertNull(producerListener);
+        assertEquals(FRAMES, handoffSource.getQueue().getDeliveredFrames());
+        assertEquals(0, handoffSource.getQueue().getDroppedFrames());
+    }
+
+    @Test
+    public void framesOfferedBeforeAttachAreIgnored() {
+        final FrameHandoffVideoSource handoffSource = new FrameHandoffVideoSource(
+                cameraSource,
+                FrameHandoffQueue.Policy.KEEP_LATEST,
+                1
+        );
+        handoffSource.offerFrame(ByteBuffer.allocateDirect(32), ImageFormat.RGBA, FRAME_SIZE);
+        assertNull(handoffSource.getQueue());
+    }
+}
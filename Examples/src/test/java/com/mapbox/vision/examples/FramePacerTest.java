@@ -0,0 +1,86 @@
+package com.mapbox.vision.examples;
+
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Drives the pacer with a fake clock: frames of a 25 fps video, 40 ms apart.
+ * The pacer never drops frames, it holds early ones and lets late ones go at once.
+ */
+public class FramePacerTest {
+
+    private static final long FRAME_US = 40_000;
+    private static final long FRAME_NANOS = TimeUnit.MICROSECONDS.toNanos(FRAME_US);
+    private static final long MAX_LAG_NANOS = TimeUnit.MILLISECONDS.toNanos(200);
+    // wall clock of the first frame, unrelated to presentation time
+    private static final long START_NANOS = 5_000_000_000L;
+
+    private final FramePacer pacer = new FramePacer(MAX_LAG_NANOS);
+
+    @Test
+    public void framesAreHeldUntilTheirTime() {
+        assertEquals(0, pacer.delayNanos(0, START_NANOS));
+        // decoder is ahead of the stream, frames wait for their presentation time
+        for (int frame = 1; frame < 10; frame++) {
+            assertEquals(frame * FRAME_NANOS, pacer.delayNanos(frame * FRAME_US, START_NANOS));
+        }
+        // consumer delivered every frame when it was due
+        for (int frame = 10; frame < 20; frame++) {
+            final long now = START_NANOS + frame * FRAME_NANOS - TimeUnit.MILLISECONDS.toNanos(5);
+            assertEquals(TimeUnit.MILLISECONDS.toNanos(5), pacer.delayNanos(frame * FRAME_US, now));
+        }
+        assertEquals(0, pacer.getResyncCount());
+    }
+
+    @Test
+    public void lateFramesAreDeliveredAtOnceToCatchUp() {
+        pacer.delayNanos(0, START_NANOS);
+        // consumer stalled for 150 ms, within the allowed lag
+        final long stalledNanos = START_NANOS + FRAME_NANOS + TimeUnit.MILLISECONDS.toNanos(150);
+        assertEquals(0, pacer.delayNanos(FRAME_US, stalledNanos));
+        assertEquals(0, pacer.delayNanos(2 * FRAME_US, stalledNanos));
+        assertEquals(0, pacer.delayNanos(4 * FRAME_US, stalledNanos));
+        // the schedule is kept, so the backlog is gone after a few frames
+        assertEquals(
+                5 * FRAME_NANOS - (stalledNanos - START_NANOS),
+                pacer.delayNanos(5 * FRAME_US, stalledNanos)
+        );
+        assertEquals(0, pacer.getResyncCount());
+    }
+
+    @Test
+    public void lagOverLimitReanchorsInsteadOfBursting() {
+        pacer.delayNanos(0, START_NANOS);
+        pacer.delayNanos(FRAME_US, START_NANOS + FRAME_NANOS);
+        // consumer stalled for a second, catching up would deliver 25 frames in a burst
+        final long stalledNanos = START_NANOS + 2 * FRAME_NANOS + TimeUnit.SECONDS.toNanos(1);
+        assertEquals(0, pacer.delayNanos(2 * FRAME_US, stalledNanos));
+        assertEquals(1, pacer.getResyncCount());
+        // the next frames are paced from the late one
+        assertEquals(FRAME_NANOS, pacer.delayNanos(3 * FRAME_US, stalledNanos));
+        assertEquals(2 * FRAME_NANOS, pacer.delayNanos(4 * FRAME_US, stalledNanos));
+    }
+
+    @Test
+    public void seekBackReanchors() {
+        pacer.delayNanos(10 * FRAME_US, START_NANOS);
+        final long now = START_NANOS + 3 * FRAME_NANOS;
+        assertEquals(0, pacer.delayNanos(2 * FRAME_US, now));
+        assertEquals(FRAME_NANOS, pacer.delayNanos(3 * FRAME_US, now));
+        // seeking is not a lag, so it is not counted
+        assertEquals(0, pacer.getResyncCount());
+    }
+
+    @Test
+    public void resetReanchorsOnNextFrame() {
+        pacer.delayNanos(0, START_NANOS);
+        pacer.reset();
+        final long now = START_NANOS + TimeUnit.SECONDS.toNanos(10);
+        assertEquals(0, pacer.delayNanos(FRAME_US, now));
+        assertEquals(FRAME_NANOS, pacer.delayNanos(2 * FRAME_US, now));
+        assertEquals(0, pacer.getResyncCount());
+    }
+}
@@ -0,0 +1,71 @@
+package com.mapbox.vision.examples;
+
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+public class FramePoolTest {
+
+    private static final long FRAME_NANOS = TimeUnit.MILLISECONDS.toNanos(40);
+
+    @Test
+    public void framesAreReusedAfterRelease() {
+        final FramePool<int[]> pool = new FramePool<>((width, height, format) -> new int[width * height], 2);
+        final int[] first = pool.acquire(4, 2, 0, 0);
+        final int[] second = pool.acquire(4, 2, 0, FRAME_NANOS);
+        assertNotNull(first);
+        assertNotNull(second);
+        assertEquals(8, first.length);
+
+        pool.release(first);
+        assertSame(first, pool.acquire(4, 2, 0, 2 * FRAME_NANOS));
+        assertEquals(2, pool.getAllocations());
+        assertEquals(1, pool.getAllocationsAvoided());
+    }
+
+    @Test
+    public void frameIsDroppedWhenAllFramesAreBusy() {
+        final FramePool<int[]> pool = new FramePool<>((width, height, format) -> new int[width * height], 1);
+        assertNotNull(pool.acquire(4, 2, 0, 0));
+        assertNull(pool.acquire(4, 2, 0, FRAME_NANOS));
+        assertEquals(1, pool.getDroppedFrames());
+        assertEquals(1, pool.getAllocations());
+    }
+
+    @Test
+    public void framesOfDifferentSizeOrFormatAreNotShared() {
+        final FramePool<int[]> pool = new FramePool<>((width, height, format) -> new int[width * height], 1);
+        final int[] frame = pool.acquire(4, 2, 0, 0);
+        pool.release(frame);
+        assertEquals(6, pool.acquire(3, 2, 0, FRAME_NANOS).length);
+        assertNotNull(pool.acquire(4, 2, 1, 2 * FRAME_NANOS));
+        assertEquals(3, pool.getAllocations());
+    }
+
+    /**
+     * Display loop of 25 fps that releases the previous frame once the next one is shown, as the activity does.
+     */
+    @Test
+    public void steadyDisplayLoopAllocatesOnlyOnce() {
+        final FramePool<int[]> pool = new FramePool<>((width, height, format) -> new int[width * height], 3);
+        int[] displayed = null;
+        long now = 0;
+        for (int i = 0; i < 90; i++, now += FRAME_NANOS) {
+            final int[] frame = pool.acquire(1280, 720, 0, now);
+            assertNotNull(frame);
+            if (displayed != null) {
+                pool.release(displayed);
+            }
+            displayed = frame;
+        }
+        assertEquals(2, pool.getAllocations());
+        assertEquals(88, pool.getAllocationsAvoided());
+        assertEquals(0, pool.getDroppedFrames());
+        assertEquals(25, pool.getAllocationsAvoidedPerSecond());
+    }
+}
@@ -0,0 +1,84 @@
+package com.mapbox.vision.examples;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+public class GeoGridIndexTest {
+
+    private static final double CELL_SIZE_METERS = 400;
+
+    @Test
+    public void queriesMatchBruteForceScan() {
+        final Random random = new Random(1);
+        final int count = 200_000;
+        final double[] latitudes = new double[count];
+        final double[] longitudes = new double[count];
+        fillRandomPoints(random, latitudes, longitudes);
+        final GeoGridIndex index = new GeoGridIndex(latitudes, longitudes, CELL_SIZE_METERS);
+        assertEquals(count, index.size());
+
+        final GeoGridIndex.Result result = new GeoGridIndex.Result();
+        // radius smaller than, equal to and larger than a cell
+        for (double radius : new double[]{100, CELL_SIZE_METERS, 1500}) {
+            for (int query = 0; query < 10; query++) {
+                final double latitude = 53.9 + random.nextDouble() * 0.5;
+                final double longitude = 27.5 + random.nextDouble() * 0.5;
+                index.query(latitude, longitude, radius, result);
+
+                int expectedCount = 0;
+                final int[] expected = new int[count];
+                for (int i = 0; i < count; i++) {
+                    if (GeoGridIndex.distanceMeters(latitude, longitude, latitudes[i], longitudes[i]) <= radius) {
+                        expected[expectedCount++] = i;
+                    }
+                }
+
+                final int[] found = new int[result.size()];
+                for (int i = 0; i < result.size(); i++) {
+                    found[i] = result.index(i);
+                    final double distance = GeoGridIndex.distanceMeters(
+                            latitude, longitude, latitudes[found[i]], longitudes[found[i]]
+                    );
+                    assertEquals(distance, result.distanceMeters(i), 1e-6);
+                }
+                Arrays.sort(found);
+                assertArrayEquals(Arrays.copyOf(expected, expectedCount), found);
+            }
+        }
+    }
+
+    @Test
+    public void distanceMatchesKnownValue() {
+        // one degree of latitude along a meridian, with the equatorial radius used by LatLng.distanceTo
+        assertEquals(111_319.49, GeoGridIndex.distanceMeters(53, 27, 54, 27), 0.01);
+        assertEquals(0, GeoGridIndex.distanceMeters(53.9, 27.5, 53.9, 27.5), 0);
+    }
+
+    @Test
+    public void queryFarFromAllPointsFindsNothing() {
+        final GeoGridIndex index = new GeoGridIndex(
+                new double[]{53.9, 53.91},
+                new double[]{27.5, 27.51},
+                CELL_SIZE_METERS
+        );
+        final GeoGridIndex.Result result = new GeoGridIndex.Result();
+        index.query(40.0, -74.0, 1000, result);
+        assertEquals(0, result.size());
+        index.query(53.9, 27.5, 10, result);
+        assertEquals(1, result.size());
+        assertEquals(0, result.index(0));
+    }
+
+    // points spread over about 55x33 km
+    private static void fillRandomPoints(Random random, double[] latitudes, double[] longitudes) {
+        for (int i = 0; i < latitudes.length; i++) {
+            latitudes[i] = 53.9 + random.nextDouble() * 0.5;
+            longitudes[i] = 27.5 + random.nextDouble() * 0.5;
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package com.mapbox.vision.examples;
+
+import com.mapbox.vision.ar.core.models.ManeuverType;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+
+public class ManeuverCodesTest {
+
+    private static final String[] NAMES = {
+            "turn",
+            "depart",
+            "arrive",
+            "merge",
+            "on ramp",
+            "off ramp",
+            "fork",
+            "roundabout",
+            "exit roundabout",
+            "end of road",
+            "new name",
+            "continue",
+            "rotary",
+            "roundabout turn",
+            "notification",
+            "exit rotary",
+    };
+
+    private static final String[] UNKNOWN_NAMES = {
+            "",
+            "Turn",
+            "turn ",
+            "uturn",
+            "on-ramp",
+            "exit",
+            "use lane",
+    };
+
+    @Test
+    public void knownNamesMapToTheSameTypesAsBefore() {
+        for (String name : NAMES) {
+            // names parsed from a response are not interned
+            final String parsed = new String(name.toCharArray());
+            assertNotSame(name, parsed);
+            final byte code = ManeuverCodes.toManeuverCode(parsed);
+            assertEquals(name, mapToManeuverType(name), RouteGeometry.toManeuverType(code));
+        }
+    }
+
+    @Test
+    public void unknownNamesHaveNoManeuver() {
+        assertEquals(RouteGeometry.NO_MANEUVER, ManeuverCodes.toManeuverCode(null));
+        for (String name : UNKNOWN_NAMES) {
+            assertEquals(name, RouteGeometry.NO_MANEUVER, ManeuverCodes.toManeuverCode(name));
+        }
+    }
+
+    // string switch of ArActivity that ManeuverCodes has replaced
+    private static ManeuverType mapToManeuverType(String maneuver) {
+        if (maneuver == null) {
+            return ManeuverType.None;
+        }
+        switch (maneuver) {
+            case "turn":
+                return ManeuverType.Turn;
+            case "depart":
+                return ManeuverType.Depart;
+            case "arrive":
+                return ManeuverType.Arrive;
+            case "merge":
+                return ManeuverType.Merge;
+            case "on ramp":
+                return ManeuverType.OnRamp;
+            case "off ramp":
+                return ManeuverType.OffRamp;
+            case "fork":
+                return ManeuverType.Fork;
+            case "roundabout":
+                return ManeuverType.Roundabout;
+            case "exit roundabout":
+                return ManeuverType.RoundaboutExit;
+            case "end of road":
+                return ManeuverType.EndOfRoad;
+            case "new name":
+                return ManeuverType.NewName;
+            case "continue":
+                return ManeuverType.Continue;
+            case "rotary":
+                return ManeuverType.Rotary;
+            case "roundabout turn":
+                return ManeuverType.RoundaboutTurn;
+            case "notification":
+                return ManeuverType.Notification;
+            case "exit rotary":
+                return ManeuverType.RotaryExit;
+            default:
+                return ManeuverType.None;
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package com.mapbox.vision.examples;
+
+import com.mapbox.vision.performance.ModelPerformanceRate;
+
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Drives the default controller with simulated time between updates, the way the examples feed it.
+ * Budgets are 400, 200 and 100 ms from the lowest rate to the highest one, windows are 1 s.
+ */
+public class ModelPerformanceControllerTest {
+
+    private static final int LOW = 0;
+    private static final int MEDIUM = 1;
+    private static final int HIGH = 2;
+
+    // time between updates at every level while something else loads the device, high rate can't be held
+    private static final long[] LOADED_PERIODS_MILLIS = {250, 150, 150};
+    // time between updates at every level when the device keeps up with any rate
+    private static final long[] FREE_PERIODS_MILLIS = {200, 100, 60};
+
+    private long nowNanos = 0;
+    private int listenerLevel = -1;
+    private int listenerCalls = 0;
+
+    private final ModelPerformanceController controller = ModelPerformanceController.createDefault(level -> {
+        listenerLevel = level;
+        listenerCalls++;
+    });
+
+    @Test
+    public void steadyUpdatesKeepTheLevel() {
+        // 110 ms is over the 100 ms budget of the high rate, but within the hysteresis
+        run(new long[]{110, 110, 110}, 60);
+        assertEquals(HIGH, controller.getLevel());
+        assertEquals(0, controller.getLevelChanges());
+        assertEquals(1e3f / 110, controller.getLastUpdateRate(), 0.1f);
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(110), controller.getLastAverageLatencyNanos());
+    }
+
+    @Test
+    public void stepsDownUnderLoadAndBackUpAfterIt() {
+        run(LOADED_PERIODS_MILLIS, 5);
+        assertEquals(MEDIUM, controller.getLevel());
+        assertEquals(MEDIUM, listenerLevel);
+
+        // the first step down doubles the 5 fast windows needed to step up
+        final int seconds = secondsToReach(FREE_PERIODS_MILLIS, HIGH, 60);
+        assertTrue("Stepped up in " + seconds + " s", seconds >= 10 && seconds <= 13);
+        assertEquals(HIGH, listenerLevel);
+        assertEquals(controller.getLevelChanges(), listenerCalls);
+    }
+
+    @Test
+    public void levelThatCantBeHeldIsRetriedLessOften() {
+        run(LOADED_PERIODS_MILLIS, 200);
+        // step ups after 10, 20, 40, 40 and 40 fast windows, every one followed by a step down
+        assertTrue("Changed level " + controller.getLevelChanges() + " times", controller.getLevelChanges() <= 11);
+        assertEquals(MEDIUM, controller.getLevel());
+    }
+
+    /**
+     * After a long load the step up backoff is at its maximum. Once the high rate holds again the backoff decays,
+     * so recovery from a short slowdown later takes as long as it would have the first time.
+     */
+    @Test
+    public void backoffDecaysAfterStepUpHolds() {
+        run(LOADED_PERIODS_MILLIS, 200);
+        assertTrue(secondsToReach(FREE_PERIODS_MILLIS, HIGH, 60) <= 45);
+
+        run(FREE_PERIODS_MILLIS, 30);
+        assertEquals(HIGH, controller.getLevel());
+
+        run(LOADED_PERIODS_MILLIS, 5);
+        assertEquals(MEDIUM, controller.getLevel());
+        final int seconds = secondsToReach(FREE_PERIODS_MILLIS, HIGH, 60);
+        assertTrue("Stepped up in " + seconds + " s", seconds <= 13);
+    }
+
+    @Test
+    public void backoffStaysWhenSteppedUpLevelDoesntHold() {
+        run(LOADED_PERIODS_MILLIS, 200);
+        assertTrue(secondsToReach(FREE_PERIODS_MILLIS, HIGH, 60) <= 45);
+
+        // the high rate holds for less than 5 windows, so the next step up still waits for 40 fast windows
+        run(FREE_PERIODS_MILLIS, 3);
+        run(LOADED_PERIODS_MILLIS, 5);
+        assertEquals(MEDIUM, controller.getLevel());
+        final int seconds = secondsToReach(FREE_PERIODS_MILLIS, HIGH, 60);
+        assertTrue("Stepped up in " + seconds + " s", seconds >= 35);
+    }
+
+    @Test
+    public void defaultRatesGoFromLowToHigh() {
+        assertSame(ModelPerformanceRate.LOW.INSTANCE, ModelPerformanceController.getDefaultRate(LOW));
+        assertSame(ModelPerformanceRate.HIGH.INSTANCE, ModelPerformanceController.getDefaultRate(HIGH));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void invalidInitialLevelIsRejected() {
+        new ModelPerformanceController(3, 3, TimeUnit.MILLISECONDS.toNanos(100), level -> {
+        });
+    }
+
+    /**
+     * Feeds updates at the period of the current level for the given time.
+     */
+    private void run(long[] periodsMillis, int seconds) {
+        final long endNanos = nowNanos + TimeUnit.SECONDS.toNanos(seconds);
+        while (nowNanos < endNanos) {
+            final long periodNanos = TimeUnit.MILLISECONDS.toNanos(periodsMillis[controller.getLevel()]);
+            nowNanos += periodNanos;
+            controller.onUpdateCompleted(periodNanos, nowNanos);
+        }
+    }
+
+    /**
+     * @return seconds it took to reach the level
+     */
+    private int secondsToReach(long[] periodsMillis, int level, int maxSeconds) {
+        for (int seconds = 1; seconds <= maxSeconds; seconds++) {
+            run(periodsMillis, 1);
+            if (controller.getLevel() == level) {
+                return seconds;
+            }
+        }
+        throw new AssertionError("Level " + level + " not reached in " + maxSeconds + " s");
+    }
+}
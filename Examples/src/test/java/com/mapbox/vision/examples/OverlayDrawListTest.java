@@ -0,0 +1,63 @@
+package com.mapbox.vision.examples;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class OverlayDrawListTest {
+
+    // renders every command into a line of text
+    private static class RecordingRenderer implements OverlayDrawList.Renderer {
+
+        final StringBuilder commands = new StringBuilder();
+
+        @Override
+        public void drawRect(float left, float top, float right, float bottom, int color) {
+            commands.append("rect ").append(left).append(' ').append(top).append(' ')
+                    .append(right).append(' ').append(bottom).append(' ').append(color).append('\n');
+        }
+
+        @Override
+        public void drawCircle(float centerX, float centerY, float radius, int color) {
+            commands.append("circle ").append(centerX).append(' ').append(centerY).append(' ')
+                    .append(radius).append(' ').append(color).append('\n');
+        }
+
+        @Override
+        public void drawLabel(float x, float y, String text, int color) {
+            commands.append("label ").append(x).append(' ').append(y).append(' ')
+                    .append(text).append(' ').append(color).append('\n');
+        }
+    }
+
+    @Test
+    public void commandsAreReplayedInOrder() {
+        final OverlayDrawList drawList = new OverlayDrawList(4);
+        drawList.addRect(1f, 2f, 3f, 4f, 5);
+        drawList.addCircle(6f, 7f, 8f, 9);
+        drawList.addLabel(10f, 11f, "Car", 12);
+
+        final RecordingRenderer renderer = new RecordingRenderer();
+        drawList.replay(renderer);
+        assertEquals(
+                "rect 1.0 2.0 3.0 4.0 5\ncircle 6.0 7.0 8.0 9\nlabel 10.0 11.0 Car 12\n",
+                renderer.commands.toString()
+        );
+    }
+
+    @Test
+    public void commandsAboveCapacityAreDropped() {
+        final OverlayDrawList drawList = new OverlayDrawList(2);
+        for (int i = 0; i < 5; i++) {
+            drawList.addCircle(i, i, 1f, 0);
+        }
+        assertEquals(2, drawList.size());
+        assertEquals(3, drawList.getDroppedCommands());
+
+        drawList.clear();
+        drawList.addLabel(0f, 0f, "Car", 0);
+        final RecordingRenderer renderer = new RecordingRenderer();
+        drawList.replay(renderer);
+        assertEquals("label 0.0 0.0 Car 0\n", renderer.commands.toString());
+    }
+}
@@ -0,0 +1,154 @@
+package com.mapbox.vision.examples;
+
+import androidx.annotation.NonNull;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Speed traces with an update every 100 ms against a 0.5 m/s hysteresis and a 500 ms debounce.
+ */
+public class OverspeedDetectorTest {
+
+    private static final float HYSTERESIS = 0.5f;
+    private static final long DEBOUNCE_NANOS = TimeUnit.MILLISECONDS.toNanos(500);
+    private static final long UPDATE_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+    private static final float LIMIT = 20f;
+
+    private final List<String> events = new ArrayList<>();
+    private final OverspeedDetector detector = new OverspeedDetector(
+            HYSTERESIS,
+            DEBOUNCE_NANOS,
+            new OverspeedDetector.Listener() {
+                @Override
+                public void onSpeedLimitChanged(float speedLimit) {
+                    events.add("limit " + speedLimit);
+                }
+
+                @Override
+                public void onStateChanged(@NonNull OverspeedDetector.State state) {
+                    events.add(state.name());
+                }
+            }
+    );
+    private long nowNanos = 0;
+
+    @Test
+    public void overspeedStartsAboveHysteresisAndEndsBelowLimit() {
+        detector.setSpeedLimit(LIMIT);
+        // within the hysteresis band nothing changes
+        run(20.4f, 10);
+        assertEquals(OverspeedDetector.State.NORMAL, detector.getState());
+
+        // the alert starts only once the speed stayed over the band for the debounce time
+        run(21f, 5);
+        assertEquals(OverspeedDetector.State.NORMAL, detector.getState());
+        run(21f, 1);
+        assertEquals(OverspeedDetector.State.OVERSPEEDING, detector.getState());
+
+        // back into the band, the alert holds
+        run(20.2f, 20);
+        assertEquals(OverspeedDetector.State.OVERSPEEDING, detector.getState());
+
+        // below the limit it stops after the debounce time
+        run(19f, 5);
+        assertEquals(OverspeedDetector.State.OVERSPEEDING, detector.getState());
+        run(19f, 1);
+        assertEquals(OverspeedDetector.State.NORMAL, detector.getState());
+
+        assertEquals(Arrays.asList("limit 20.0", "NORMAL", "OVERSPEEDING", "NORMAL"), events);
+        assertEquals(3, detector.getTransitions());
+    }
+
+    @Test
+    public void noiseAroundTheLimitDoesNotFlicker() {
+        detector.setSpeedLimit(LIMIT);
+        for (int i = 0; i < 100; i++) {
+            // over the band for 300 ms, then below the limit for 300 ms
+            run(i % 6 < 3 ? 21f : 19.5f, 1);
+        }
+        assertEquals(OverspeedDetector.State.NORMAL, detector.getState());
+        assertEquals(Arrays.asList("limit 20.0", "NORMAL"), events);
+        assertEquals(100, detector.getUpdates());
+    }
+
+    @Test
+    public void limitChangeWhileOverspeeding() {
+        detector.setSpeedLimit(LIMIT);
+        run(25f, 6);
+        assertEquals(OverspeedDetector.State.OVERSPEEDING, detector.getState());
+
+        // a higher limit ends the alert after the debounce time, not at once
+        detector.setSpeedLimit(30f);
+        run(25f, 5);
+        assertEquals(OverspeedDetector.State.OVERSPEEDING, detector.getState());
+        run(25f, 1);
+        assertEquals(OverspeedDetector.State.NORMAL, detector.getState());
+
+        // a lower limit starts it again, a pending transition of the previous limit is dropped
+        run(30.7f, 3);
+        detector.setSpeedLimit(LIMIT);
+        run(25f, 5);
+        assertEquals(OverspeedDetector.State.NORMAL, detector.getState());
+        run(25f, 1);
+        assertEquals(OverspeedDetector.State.OVERSPEEDING, detector.getState());
+
+        // zero limit means no limit
+        detector.setSpeedLimit(0f);
+        run(25f, 6);
+        assertEquals(OverspeedDetector.State.NORMAL, detector.getState());
+
+        assertEquals(
+                Arrays.asList(
+                        "limit 20.0", "NORMAL", "OVERSPEEDING",
+                        "limit 30.0", "NORMAL",
+                        "limit 20.0", "OVERSPEEDING",
+                        "limit 0.0", "NORMAL"
+                ),
+                events
+        );
+    }
+
+    @Test
+    public void unknownLimitHasNoAlert() {
+        run(50f, 10);
+        assertEquals(OverspeedDetector.State.UNKNOWN, detector.getState());
+        assertEquals(0, events.size());
+
+        detector.setSpeedLimit(LIMIT);
+        run(25f, 6);
+        assertEquals(OverspeedDetector.State.OVERSPEEDING, detector.getState());
+
+        // the limit is lost, e.g. the road has no known restrictions
+        detector.setSpeedLimit(OverspeedDetector.UNKNOWN_SPEED_LIMIT);
+        run(25f, 1);
+        assertEquals(OverspeedDetector.State.UNKNOWN, detector.getState());
+        run(25f, 10);
+        assertEquals(OverspeedDetector.State.UNKNOWN, detector.getState());
+
+        // any negative limit is unknown and doesn't repeat the change
+        detector.setSpeedLimit(-5f);
+        run(25f, 1);
+
+        assertEquals(
+                Arrays.asList(
+                        "limit 20.0", "NORMAL", "OVERSPEEDING",
+                        "limit -1.0", "UNKNOWN"
+                ),
+                events
+        );
+    }
+
+    private void run(float speed, int updates) {
+        for (int i = 0; i < updates; i++) {
+            nowNanos += UPDATE_NANOS;
+            detector.update(speed, nowNanos);
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package com.mapbox.vision.examples;
+
+import com.mapbox.geojson.Point;
+import com.mapbox.geojson.utils.PolylineUtils;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+public class PolylineDecoderTest {
+
+    private static final int PRECISION_5 = 5;
+    private static final int PRECISION_6 = 6;
+
+    @Test
+    public void knownPolylineIsDecoded() {
+        // example of the polyline algorithm documentation
+        final List<double[]> points = decode("_p~iF~ps|U_ulLnnqC_mqNvxq`@", PRECISION_5);
+        assertEquals(3, points.size());
+        assertPoint(38.5, -120.2, points.get(0));
+        assertPoint(40.7, -120.95, points.get(1));
+        assertPoint(43.252, -126.453, points.get(2));
+    }
+
+    @Test
+    public void decodedPointsAreTheSameAsPolylineUtils() {
+        final Random random = new Random(1);
+        for (int count : new int[]{1, 1000, 10000}) {
+            final String encoded = PolylineUtils.encode(randomPath(random, count), PRECISION_6);
+            final List<Point> expected = PolylineUtils.decode(encoded, PRECISION_6);
+            final List<double[]> points = decode(encoded, PRECISION_6);
+
+            assertEquals(expected.size(), points.size());
+            for (int i = 0; i < points.size(); i++) {
+                // bit for bit, not within a tolerance
+                assertEquals(expected.get(i).latitude(), points.get(i)[0], 0);
+                assertEquals(expected.get(i).longitude(), points.get(i)[1], 0);
+            }
+        }
+    }
+
+    @Test
+    public void emptyPolylineHasNoPoints() {
+        assertEquals(0, decode("", PRECISION_6).size());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void truncatedPolylineIsRejected() {
+        decode("_p~iF~ps|", PRECISION_5);
+    }
+
+    private static List<double[]> decode(String encoded, int precision) {
+        final List<double[]> points = new ArrayList<>();
+        PolylineDecoder.decode(
+                encoded,
+                precision,
+                (latitude, longitude) -> points.add(new double[]{latitude, longitude})
+        );
+        return points;
+    }
+
+    // random walk with steps up to about 500 m
+    private static List<Point> randomPath(Random random, int count) {
+        final List<Point> path = new ArrayList<>(count);
+        double latitude = 53.9;
+        double longitude = 27.6;
+        for (int i = 0; i < count; i++) {
+            latitude += (random.nextDouble() - 0.5) * 0.01;
+            longitude += (random.nextDouble() - 0.5) * 0.01;
+            path.add(Point.fromLngLat(longitude, latitude));
+        }
+        return path;
+    }
+
+    private static void assertPoint(double latitude, double longitude, double[] point) {
+        assertEquals(latitude, point[0], 1e-9);
+        assertEquals(longitude, point[1], 1e-9);
+    }
+}
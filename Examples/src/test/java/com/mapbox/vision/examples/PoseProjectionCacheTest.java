@@ -0,0 +1,122 @@
+package com.mapbox.vision.examples;
+
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Pose updates every 50 ms against a 0.3 m and 0.5 degree threshold and a 500 ms max age.
+ */
+public class PoseProjectionCacheTest {
+
+    private static final double THRESHOLD_METERS = 0.3;
+    private static final float THRESHOLD_DEGREES = 0.5f;
+    private static final long MAX_AGE_NANOS = TimeUnit.MILLISECONDS.toNanos(500);
+    private static final long UPDATE_NANOS = TimeUnit.MILLISECONDS.toNanos(50);
+
+    private static final double LATITUDE = 37.7749;
+    private static final double LONGITUDE = -122.4194;
+    // about 0.11 m along a meridian
+    private static final double LATITUDE_STEP = 1e-6;
+
+    private final PoseProjectionCache cache = new PoseProjectionCache(THRESHOLD_METERS, THRESHOLD_DEGREES, MAX_AGE_NANOS);
+    private long nowNanos = 0;
+
+    @Test
+    public void projectionsAreReusedWhileThePoseHolds() {
+        final int epoch = update(LATITUDE, 90f);
+        assertFalse(cache.checkValid(0));
+
+        // under the thresholds in both position and heading
+        assertEquals(epoch, update(LATITUDE + LATITUDE_STEP, 90.2f));
+        assertEquals(epoch, update(LATITUDE + 2 * LATITUDE_STEP, 89.7f));
+        assertTrue(cache.checkValid(epoch));
+        assertTrue(cache.checkValid(epoch));
+
+        assertEquals(1, cache.getProjections());
+        assertEquals(2f / 3, cache.getHitRate(), 1e-6f);
+    }
+
+    @Test
+    public void movementStartsNewEpoch() {
+        final int epoch = update(LATITUDE, 90f);
+        update(LATITUDE + 2 * LATITUDE_STEP, 90f);
+        assertEquals(epoch, cache.getEpoch());
+
+        // distance is measured from the start of the epoch, so slow creep is not missed
+        final int moved = update(LATITUDE + 3 * LATITUDE_STEP, 90f);
+        assertEquals(epoch + 1, moved);
+        assertFalse(cache.checkValid(epoch));
+        assertTrue(cache.checkValid(moved));
+    }
+
+    /**
+     * Turning on the spot changes what the camera sees while the position stays the same.
+     */
+    @Test
+    public void headingChangeStartsNewEpoch() {
+        final int epoch = update(LATITUDE, 90f);
+        assertEquals(epoch, update(LATITUDE, 90.4f));
+        final int turned = update(LATITUDE, 90.6f);
+        assertEquals(epoch + 1, turned);
+        assertFalse(cache.checkValid(epoch));
+    }
+
+    @Test
+    public void headingWrapsAroundNorth() {
+        final int epoch = update(LATITUDE, 359.8f);
+        assertEquals(epoch, update(LATITUDE, 0.2f));
+        assertEquals(epoch + 1, update(LATITUDE, 0.4f));
+
+        assertEquals(2f, PoseProjectionCache.headingDifference(359f, 1f), 1e-4f);
+        assertEquals(2f, PoseProjectionCache.headingDifference(1f, 359f), 1e-4f);
+        assertEquals(180f, PoseProjectionCache.headingDifference(90f, 270f), 1e-4f);
+    }
+
+    @Test
+    public void epochExpiresAfterMaxAge() {
+        final int epoch = update(LATITUDE, 90f);
+        for (int i = 1; i < 10; i++) {
+            assertEquals(epoch, update(LATITUDE, 90f));
+        }
+        // 500 ms since the epoch started
+        assertEquals(epoch, update(LATITUDE, 90f));
+        assertEquals(epoch + 1, update(LATITUDE, 90f));
+    }
+
+    @Test
+    public void invalidateStartsNewEpochOnNextUpdate() {
+        final int epoch = update(LATITUDE, 90f);
+        assertTrue(cache.checkValid(epoch));
+
+        cache.invalidate();
+        final int next = update(LATITUDE, 90f);
+        assertEquals(epoch + 1, next);
+        assertFalse(cache.checkValid(epoch));
+    }
+
+    @Test
+    public void projectionsPerSecondCountsCompleteSeconds() {
+        int epoch = cache.getEpoch();
+        for (int i = 0; i < 40; i++) {
+            // the vehicle moves on every update, so every POI is projected again
+            final int next = update(LATITUDE + 4 * i * LATITUDE_STEP, 90f);
+            assertEquals(epoch + 1, next);
+            epoch = next;
+            assertFalse(cache.checkValid(epoch - 1));
+            assertFalse(cache.checkValid(epoch - 1));
+        }
+        assertEquals(40, cache.getProjectionsPerSecond());
+        assertEquals(80, cache.getProjections());
+        assertEquals(0f, cache.getHitRate(), 0f);
+    }
+
+    private int update(double latitude, float heading) {
+        nowNanos += UPDATE_NANOS;
+        return cache.updatePose(latitude, LONGITUDE, heading, nowNanos);
+    }
+}
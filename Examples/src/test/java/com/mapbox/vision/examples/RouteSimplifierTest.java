@@ -0,0 +1,145 @@
+package com.mapbox.vision.examples;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class RouteSimplifierTest {
+
+    private static final int POINTS = 20_000;
+    private static final int MANEUVER_STEP = 400;
+    private static final byte MANEUVER = 1;
+    private static final double TOLERANCE_METERS = 0.5;
+    private static final double LOOK_AHEAD_METERS = 200;
+
+    private RouteGeometry route;
+
+    /**
+     * About 100 km of a gently curving road with a point every 5 m, jittered by a few centimeters,
+     * and a maneuver every 2 km.
+     */
+    @Before
+    public void setUp() {
+        final Random random = new Random(1);
+        final RouteGeometry.Builder builder = new RouteGeometry.Builder(POINTS);
+        double latitude = 53.9;
+        double longitude = 27.6;
+        for (int i = 0; i < POINTS; i++) {
+            final double heading = i * 0.0005;
+            latitude += Math.cos(heading) * 4.5e-5;
+            longitude += Math.sin(heading) * 7.6e-5;
+            builder.add(
+                    latitude + (random.nextDouble() - 0.5) * 1e-6,
+                    longitude + (random.nextDouble() - 0.5) * 1e-6,
+                    i % MANEUVER_STEP == 0 ? MANEUVER : RouteGeometry.NO_MANEUVER
+            );
+        }
+        route = builder.build();
+    }
+
+    @Test
+    public void simplifiedRouteKeepsEndsAndManeuvers() {
+        final RouteGeometry simplified = RouteSimplifier.simplify(route, TOLERANCE_METERS);
+        assertTrue("Simplified to " + simplified.size() + " points", simplified.size() < POINTS / 10);
+
+        assertEquals(route.latitude(0), simplified.latitude(0), 0);
+        assertEquals(route.longitude(0), simplified.longitude(0), 0);
+        assertEquals(route.latitude(POINTS - 1), simplified.latitude(simplified.size() - 1), 0);
+        assertEquals(route.longitude(POINTS - 1), simplified.longitude(simplified.size() - 1), 0);
+
+        int maneuvers = 0;
+        for (int i = 0; i < simplified.size(); i++) {
+            if (simplified.maneuver(i) != RouteGeometry.NO_MANEUVER) {
+                assertEquals(MANEUVER, simplified.maneuver(i));
+                maneuvers++;
+            }
+        }
+        assertEquals(POINTS / MANEUVER_STEP, maneuvers);
+    }
+
+    @Test
+    public void everyPointIsWithinToleranceOfSimplifiedRoute() {
+        final RouteGeometry simplified = RouteSimplifier.simplify(route, TOLERANCE_METERS);
+
+        // simplified points are a subsequence of the route, so every route point lies between two of them
+        int segment = 0;
+        for (int i = 0; i < POINTS; i++) {
+            if (segment + 1 < simplified.size()
+                    && route.latitude(i) == simplified.latitude(segment + 1)
+                    && route.longitude(i) == simplified.longitude(segment + 1)) {
+                segment++;
+            }
+            if (segment + 1 == simplified.size()) {
+                assertEquals(POINTS - 1, i);
+                break;
+            }
+
+            final double latitude = route.latitude(i);
+            final double longitude = route.longitude(i);
+            final double metersPerDegreeLongitude = GeoGridIndex.METERS_PER_DEGREE * Math.cos(Math.toRadians(latitude));
+            final double distance = RouteSimplifier.distanceToSegment(
+                    0,
+                    0,
+                    (simplified.longitude(segment) - longitude) * metersPerDegreeLongitude,
+                    (simplified.latitude(segment) - latitude) * GeoGridIndex.METERS_PER_DEGREE,
+                    (simplified.longitude(segment + 1) - longitude) * metersPerDegreeLongitude,
+                    (simplified.latitude(segment + 1) - latitude) * GeoGridIndex.METERS_PER_DEGREE
+            );
+            // projection is local to the point here and to the simplified range in RouteSimplifier
+            assertTrue("Point " + i + " is " + distance + " m away", distance <= TOLERANCE_METERS + 0.01);
+        }
+        assertEquals(simplified.size() - 1, segment);
+    }
+
+    @Test
+    public void routeWithinToleranceIsReturnedAsIs() {
+        final RouteGeometry ends = new RouteGeometry.Builder(2)
+                .add(53.9, 27.6, RouteGeometry.NO_MANEUVER)
+                .add(53.91, 27.61, RouteGeometry.NO_MANEUVER)
+                .build();
+        assertSame(ends, RouteSimplifier.simplify(ends, TOLERANCE_METERS));
+    }
+
+    @Test
+    public void windowFollowsVehicleAlongRoute() {
+        final RouteGeometry simplified = RouteSimplifier.simplify(route, TOLERANCE_METERS);
+        final RouteWindow window = new RouteWindow(simplified, LOOK_AHEAD_METERS);
+
+        int previousStart = window.getStart();
+        int changes = 0;
+        for (int i = 0; i < POINTS; i += 3) {
+            final double latitude = route.latitude(i);
+            final double longitude = route.longitude(i);
+            if (window.update(latitude, longitude)) {
+                changes++;
+            }
+            // the same position doesn't move the window
+            assertFalse(window.update(latitude, longitude));
+
+            final int start = window.getStart();
+            final int end = window.getEnd();
+            assertTrue(start >= previousStart);
+            assertTrue(end > start && end <= simplified.size());
+            previousStart = start;
+
+            // the window covers the look ahead distance unless the route ends before
+            if (end < simplified.size()) {
+                final double span = GeoGridIndex.distanceMeters(
+                        simplified.latitude(start),
+                        simplified.longitude(start),
+                        simplified.latitude(end - 1),
+                        simplified.longitude(end - 1)
+                );
+                assertTrue("Window spans " + span + " m", span > LOOK_AHEAD_METERS);
+            }
+        }
+        assertTrue(changes > 0);
+        assertEquals(simplified.size(), window.getEnd());
+    }
+}
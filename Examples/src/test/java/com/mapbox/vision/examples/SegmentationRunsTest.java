@@ -0,0 +1,132 @@
+package com.mapbox.vision.examples;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class SegmentationRunsTest {
+
+    private static final int WIDTH = 1280;
+    private static final int HEIGHT = 720;
+    // rows are padded and the mask doesn't start at the beginning of the buffer
+    private static final int ROW_STRIDE = 1288;
+    private static final int OFFSET = 5;
+
+    private static final int SKY = 0;
+    private static final int ROAD = 1;
+    private static final int SIDEWALK = 2;
+    private static final int MARKING = 3;
+    private static final int NOISE = 4;
+
+    private final Random random = new Random(1);
+    private ByteBuffer mask;
+    private byte[] pixels;
+
+    /**
+     * Sky above the horizon and a road widening towards the bottom, with lane markings and noise.
+     */
+    @Before
+    public void setUp() {
+        mask = ByteBuffer.allocateDirect(ROW_STRIDE * HEIGHT + OFFSET);
+        mask.position(OFFSET);
+        pixels = new byte[WIDTH * HEIGHT];
+        for (int y = 0; y < HEIGHT; y++) {
+            final int roadLeft = 400 - y / 3;
+            final int roadRight = 880 + y / 3;
+            for (int x = 0; x < WIDTH; x++) {
+                int segmentationClass = y < 300 ? SKY : (x >= roadLeft && x < roadRight ? ROAD : SIDEWALK);
+                if (y % 7 == 0 && x % 97 < 3) {
+                    segmentationClass = MARKING;
+                }
+                if (random.nextInt(5000) == 0) {
+                    segmentationClass = NOISE;
+                }
+                pixels[y * WIDTH + x] = (byte) segmentationClass;
+                mask.put(OFFSET + y * ROW_STRIDE + x, (byte) segmentationClass);
+            }
+        }
+    }
+
+    @Test
+    public void queriesMatchPixelScan() {
+        final SegmentationRuns runs = new SegmentationRuns();
+        runs.encode(mask, WIDTH, HEIGHT, ROW_STRIDE);
+        assertEquals(OFFSET, mask.position());
+
+        final long[] expectedAreas = new long[SegmentationRuns.MAX_CLASSES];
+        for (byte pixel : pixels) {
+            expectedAreas[pixel & 0xFF]++;
+        }
+        for (int segmentationClass = 0; segmentationClass < SegmentationRuns.MAX_CLASSES; segmentationClass++) {
+            assertEquals(expectedAreas[segmentationClass], runs.getArea(segmentationClass));
+        }
+
+        final long[] areas = new long[SegmentationRuns.MAX_CLASSES];
+        for (int i = 0; i < 500; i++) {
+            final int left = random.nextInt(WIDTH);
+            final int right = left + random.nextInt(WIDTH - left + 1);
+            final int top = random.nextInt(HEIGHT);
+            final int bottom = top + random.nextInt(HEIGHT - top + 1);
+
+            final long[] regionAreas = new long[SegmentationRuns.MAX_CLASSES];
+            for (int y = top; y < bottom; y++) {
+                for (int x = left; x < right; x++) {
+                    regionAreas[pixels[y * WIDTH + x] & 0xFF]++;
+                }
+            }
+            runs.getAreas(left, top, right, bottom, areas);
+            assertArrayEquals(regionAreas, areas);
+            assertEquals(regionAreas[ROAD], runs.getArea(ROAD, left, top, right, bottom));
+
+            final byte[] region = new byte[(right - left) * (bottom - top)];
+            runs.decode(left, top, right, bottom, region);
+            for (int y = top; y < bottom; y++) {
+                for (int x = left; x < right; x++) {
+                    assertEquals(pixels[y * WIDTH + x], region[(y - top) * (right - left) + x - left]);
+                }
+            }
+
+            if (left < WIDTH && top < HEIGHT) {
+                assertEquals(pixels[top * WIDTH + left] & 0xFF, runs.getClassAt(left, top));
+            }
+        }
+    }
+
+    @Test
+    public void rowSpansAreRoadBorders() {
+        // row without markings and noise
+        final int y = 501;
+        for (int x = 0; x < WIDTH; x++) {
+            mask.put(OFFSET + y * ROW_STRIDE + x, (byte) (x >= 400 - y / 3 && x < 880 + y / 3 ? ROAD : SIDEWALK));
+        }
+        final SegmentationRuns runs = new SegmentationRuns();
+        runs.encode(mask, WIDTH, HEIGHT, ROW_STRIDE);
+
+        final int[] starts = new int[4];
+        final int[] ends = new int[4];
+        assertEquals(1, runs.getRowSpans(y, ROAD, starts, ends));
+        assertEquals(400 - y / 3, starts[0]);
+        assertEquals(880 + y / 3, ends[0]);
+        assertEquals(2, runs.getRowSpans(y, SIDEWALK, starts, ends));
+        assertEquals(0, runs.getRowSpans(y, SKY, starts, ends));
+    }
+
+    /**
+     * A road scene with markings and noise encodes into a small fraction of the raw mask.
+     */
+    @Test
+    public void encodedMaskIsSmall() {
+        final SegmentationRuns runs = new SegmentationRuns();
+        runs.encode(mask, WIDTH, HEIGHT, ROW_STRIDE);
+        assertTrue(
+                "Encoded mask takes " + runs.getEncodedBytes() + " bytes",
+                runs.getEncodedBytes() < WIDTH * HEIGHT / 20
+        );
+    }
+}
@@ -0,0 +1,116 @@
+package com.mapbox.vision.examples;
+
+import androidx.annotation.NonNull;
+
+import com.mapbox.vision.mobile.core.interfaces.VisionEventsListener;
+import com.mapbox.vision.mobile.core.models.AuthorizationStatus;
+import com.mapbox.vision.mobile.core.models.Camera;
+import com.mapbox.vision.mobile.core.models.Country;
+import com.mapbox.vision.mobile.core.models.FrameSegmentation;
+import com.mapbox.vision.mobile.core.models.classification.FrameSignClassifications;
+import com.mapbox.vision.mobile.core.models.detection.FrameDetections;
+import com.mapbox.vision.mobile.core.models.position.VehicleState;
+import com.mapbox.vision.mobile.core.models.road.RoadDescription;
+import com.mapbox.vision.mobile.core.models.world.WorldDescription;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+public class SelectiveVisionEventsListenerTest {
+
+    private static final int[] EVENTS = {
+            SelectiveVisionEventsListener.AUTHORIZATION_STATUS,
+            SelectiveVisionEventsListener.FRAME_SEGMENTATION,
+            SelectiveVisionEventsListener.FRAME_DETECTIONS,
+            SelectiveVisionEventsListener.FRAME_SIGN_CLASSIFICATIONS,
+            SelectiveVisionEventsListener.ROAD_DESCRIPTION,
+            SelectiveVisionEventsListener.WORLD_DESCRIPTION,
+            SelectiveVisionEventsListener.VEHICLE_STATE,
+            SelectiveVisionEventsListener.CAMERA,
+            SelectiveVisionEventsListener.COUNTRY,
+            SelectiveVisionEventsListener.UPDATE_COMPLETED,
+    };
+
+    @Test
+    public void eventFlagsAreDistinctAndCoverAllEvents() {
+        int mask = 0;
+        for (int event : EVENTS) {
+            assertEquals(1, Integer.bitCount(event));
+            assertEquals(0, mask & event);
+            mask |= event;
+        }
+        assertEquals(SelectiveVisionEventsListener.ALL_EVENTS, mask);
+    }
+
+    @Test
+    public void listenerIsSubscribedOnlyToItsEvents() {
+        final SelectiveVisionEventsListener listener = new SelectiveVisionEventsListener(
+                SelectiveVisionEventsListener.VEHICLE_STATE | SelectiveVisionEventsListener.FRAME_DETECTIONS
+        );
+        for (int event : EVENTS) {
+            final boolean expected = event == SelectiveVisionEventsListener.VEHICLE_STATE
+                    || event == SelectiveVisionEventsListener.FRAME_DETECTIONS;
+            assertEquals(expected, listener.isSubscribed(event));
+        }
+        assertEquals(listener.getEvents(), SelectiveVisionEventsListener.eventsOf(listener));
+        assertFalse(new SelectiveVisionEventsListener(0).isSubscribed(SelectiveVisionEventsListener.ALL_EVENTS));
+    }
+
+    @Test
+    public void otherListenersGetAllEvents() {
+        assertEquals(
+                SelectiveVisionEventsListener.ALL_EVENTS,
+                SelectiveVisionEventsListener.eventsOf(new PlainListener())
+        );
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void unknownEventsAreRejected() {
+        new SelectiveVisionEventsListener(SelectiveVisionEventsListener.ALL_EVENTS + 1);
+    }
+
+    private static class PlainListener implements VisionEventsListener {
+
+        @Override
+        public void onAuthorizationStatusUpdated(@NonNull AuthorizationStatus authorizationStatus) {
+        }
+
+        @Override
+        public void onFrameSegmentationUpdated(@NonNull FrameSegmentation frameSegmentation) {
+        }
+
+        @Override
+        public void onFrameDetectionsUpdated(@NonNull FrameDetections frameDetections) {
+        }
+
+        @Override
+        public void onFrameSignClassificationsUpdated(@NonNull FrameSignClassifications frameSignClassifications) {
+        }
+
+        @Override
+        public void onRoadDescriptionUpdated(@NonNull RoadDescription roadDescription) {
+        }
+
+        @Override
+        public void onWorldDescriptionUpdated(@NonNull WorldDescription worldDescription) {
+        }
+
+        @Override
+        public void onVehicleStateUpdated(@NonNull VehicleState vehicleState) {
+        }
+
+        @Override
+        public void onCameraUpdated(@NonNull Camera camera) {
+        }
+
+        @Override
+        public void onCountryUpdated(@NonNull Country country) {
+        }
+
+        @Override
+        public void onUpdateCompleted() {
+        }
+    }
+}
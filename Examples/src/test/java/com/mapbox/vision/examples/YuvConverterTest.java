@@ -0,0 +1,149 @@
+package com.mapbox.vision.examples;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+public class YuvConverterTest {
+
+    private static final int WIDTH = 64;
+    private static final int HEIGHT = 48;
+    private static final int ROW_PADDING = 16;
+
+    @Test
+    public void primaryColorsMatchBt601() {
+        // Y, U, V and expected R, G, B of limited range BT.601
+        final int[][] colors = {
+                {16, 128, 128, 0, 0, 0},
+                {235, 128, 128, 255, 255, 255},
+                {81, 90, 240, 255, 0, 0},
+                {145, 54, 34, 0, 255, 0},
+                {41, 240, 110, 0, 0, 255},
+        };
+        final byte[] pixel = new byte[4];
+        for (int[] color : colors) {
+            YuvConverter.writePixel(pixel, 0, color[0], color[1], color[2]);
+            for (int channel = 0; channel < 3; channel++) {
+                assertEquals(color[3 + channel], pixel[channel] & 0xFF, 2);
+            }
+            assertEquals(0xFF, pixel[3] & 0xFF);
+        }
+    }
+
+    @Test
+    public void allPixelsMatchFloatingPointFormula() {
+        final byte[] pixel = new byte[4];
+        for (int y = 0; y < 256; y += 3) {
+            for (int u = 0; u < 256; u += 5) {
+                for (int v = 0; v < 256; v += 7) {
+                    YuvConverter.writePixel(pixel, 0, y, u, v);
+                    final double luma = 1.164 * (Math.max(0, y - 16));
+                    assertEquals(clamp(luma + 1.596 * (v - 128)), pixel[0] & 0xFF, 1);
+                    assertEquals(clamp(luma - 0.391 * (u - 128) - 0.813 * (v - 128)), pixel[1] & 0xFF, 1);
+                    assertEquals(clamp(luma + 2.018 * (u - 128)), pixel[2] & 0xFF, 1);
+                }
+            }
+        }
+    }
+
+    /**
+     * The same 4:2:0 image packed as YUYV, NV21 and I420 with padded rows converts to the same RGBA.
+     */
+    @Test
+    public void layoutsOfTheSameImageGiveTheSameRgba() {
+        final Random random = new Random(1);
+        final byte[] luma = new byte[WIDTH * HEIGHT];
+        final byte[] u = new byte[(WIDTH / 2) * (HEIGHT / 2)];
+        final byte[] v = new byte[(WIDTH / 2) * (HEIGHT / 2)];
+        random.nextBytes(luma);
+        random.nextBytes(u);
+        random.nextBytes(v);
+
+        // YUYV has chroma for every row, rows of a pair repeat the same chroma
+        final int yuyvStride = WIDTH * 2 + ROW_PADDING;
+        final ByteBuffer yuyv = ByteBuffer.allocateDirect(yuyvStride * HEIGHT);
+        for (int row = 0; row < HEIGHT; row++) {
+            for (int x = 0; x < WIDTH; x += 2) {
+                final int offset = row * yuyvStride + x * 2;
+                final int chroma = (row / 2) * (WIDTH / 2) + x / 2;
+                yuyv.put(offset, luma[row * WIDTH + x]);
+                yuyv.put(offset + 1, u[chroma]);
+                yuyv.put(offset + 2, luma[row * WIDTH + x + 1]);
+                yuyv.put(offset + 3, v[chroma]);
+            }
+        }
+
+        final int nv21Stride = WIDTH + ROW_PADDING;
+        final ByteBuffer nv21 = ByteBuffer.allocateDirect(YuvConverter.Layout.NV21.frameSizeBytes(nv21Stride, HEIGHT));
+        for (int row = 0; row < HEIGHT; row++) {
+            for (int x = 0; x < WIDTH; x++) {
+                nv21.put(row * nv21Stride + x, luma[row * WIDTH + x]);
+            }
+        }
+        for (int row = 0; row < HEIGHT / 2; row++) {
+            for (int x = 0; x < WIDTH / 2; x++) {
+                final int offset = nv21Stride * HEIGHT + row * nv21Stride + x * 2;
+                nv21.put(offset, v[row * (WIDTH / 2) + x]);
+                nv21.put(offset + 1, u[row * (WIDTH / 2) + x]);
+            }
+        }
+
+        final YuvConverter converter = new YuvConverter();
+        final ByteBuffer fromPlanes = ByteBuffer.allocate(WIDTH * HEIGHT * 4);
+        converter.yuv420ToRgba(
+                ByteBuffer.wrap(luma), WIDTH, ByteBuffer.wrap(u), ByteBuffer.wrap(v), WIDTH / 2, 1,
+                WIDTH, HEIGHT, fromPlanes
+        );
+        final ByteBuffer fromYuyv = ByteBuffer.allocate(WIDTH * HEIGHT * 4);
+        converter.toRgba(YuvConverter.Layout.YUYV, yuyv, yuyvStride, WIDTH, HEIGHT, fromYuyv);
+        final ByteBuffer fromNv21 = ByteBuffer.allocate(WIDTH * HEIGHT * 4);
+        converter.toRgba(YuvConverter.Layout.NV21, nv21, nv21Stride, WIDTH, HEIGHT, fromNv21);
+
+        assertEquals(0, yuyv.position());
+        assertEquals(0, nv21.position());
+        assertArrayEquals(fromPlanes.array(), fromYuyv.array());
+        assertArrayEquals(fromPlanes.array(), fromNv21.array());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void oddWidthIsRejected() {
+        final int width = WIDTH - 1;
+        new YuvConverter().toRgba(
+                YuvConverter.Layout.YUYV,
+                ByteBuffer.allocateDirect(width * 2 * HEIGHT),
+                width * 2,
+                width,
+                HEIGHT,
+                ByteBuffer.allocate(width * HEIGHT * 4)
+        );
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void oddWidthFrameIsRejected() {
+        new YuvFrame(YuvConverter.Layout.NV21, WIDTH - 1, HEIGHT);
+    }
+
+    @Test
+    public void frameIsConvertedOncePerWrap() {
+        final YuvFrame frame = new YuvFrame(YuvConverter.Layout.YUYV, WIDTH, HEIGHT);
+        final ByteBuffer data = ByteBuffer.allocateDirect(WIDTH * 2 * HEIGHT);
+        frame.wrap(data);
+        frame.getRgba();
+        frame.getRgba();
+        assertEquals(1, frame.getRgbaConversions());
+
+        frame.wrap(data);
+        final ByteBuffer rgba = frame.getRgba();
+        assertEquals(2, frame.getRgbaConversions());
+        assertEquals(0, rgba.position());
+        assertEquals(WIDTH * HEIGHT * 4, rgba.remaining());
+    }
+
+    private static int clamp(double value) {
+        return (int) Math.round(Math.max(0, Math.min(255, value)));
+    }
+}